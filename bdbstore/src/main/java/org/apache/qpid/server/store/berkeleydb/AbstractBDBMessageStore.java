@@ -25,7 +25,9 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
@@ -55,6 +57,7 @@ import org.apache.qpid.server.store.EventListener;
 import org.apache.qpid.server.store.EventManager;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.MessageHandle;
+import org.apache.qpid.server.store.MessageIdRange;
 import org.apache.qpid.server.store.MessageStore;
 import org.apache.qpid.server.store.SizeMonitoringSettings;
 import org.apache.qpid.server.store.StorableMessageMetaData;
@@ -63,6 +66,7 @@ import org.apache.qpid.server.store.StoredMessage;
 import org.apache.qpid.server.store.TransactionLogResource;
 import org.apache.qpid.server.store.berkeleydb.entry.PreparedTransaction;
 import org.apache.qpid.server.store.berkeleydb.entry.QueueEntryKey;
+import org.apache.qpid.server.store.berkeleydb.tuple.MessageContentChunkBinding;
 import org.apache.qpid.server.store.berkeleydb.tuple.MessageMetaDataBinding;
 import org.apache.qpid.server.store.berkeleydb.tuple.PreparedTransactionBinding;
 import org.apache.qpid.server.store.berkeleydb.tuple.QueueEntryBinding;
@@ -82,12 +86,20 @@ public abstract class AbstractBDBMessageStore implements MessageStore
     private static final String MESSAGE_META_DATA_DB_NAME = "MESSAGE_METADATA";
     private static final String MESSAGE_META_DATA_SEQ_DB_NAME = "MESSAGE_METADATA.SEQ";
     private static final String MESSAGE_CONTENT_DB_NAME = "MESSAGE_CONTENT";
+    private static final String MESSAGE_CONTENT_CHUNKS_DB_NAME = "MESSAGE_CONTENT_CHUNKS";
     private static final String DELIVERY_DB_NAME = "QUEUE_ENTRIES";
 
     //TODO: Add upgrader to remove BRIDGES and LINKS
     private static final String BRIDGEDB_NAME = "BRIDGES";
     private static final String LINKDB_NAME = "LINKS";
     private static final String XID_DB_NAME = "XIDS";
+
+    /**
+     * Message content is stored as chunks of this size keyed by (messageId, chunkNumber), allowing a range of the
+     * content to be read without reading the rest.  Content of messages stored by earlier versions remains as a
+     * single record in the MESSAGE_CONTENT database.
+     */
+    static final int MESSAGE_CONTENT_CHUNK_SIZE = 64 * 1024;
     private final AtomicBoolean _messageStoreOpen = new AtomicBoolean();
 
     private final EventManager _eventManager = new EventManager();
@@ -175,6 +187,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore
             for (String db : Arrays.asList(MESSAGE_META_DATA_DB_NAME,
                                           MESSAGE_META_DATA_SEQ_DB_NAME,
                                           MESSAGE_CONTENT_DB_NAME,
+                                          MESSAGE_CONTENT_CHUNKS_DB_NAME,
                                           DELIVERY_DB_NAME,
                                           XID_DB_NAME))
             {
@@ -348,6 +361,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore
                     DatabaseEntry contentKeyEntry = new DatabaseEntry();
                     LongBinding.longToEntry(messageId, contentKeyEntry);
                     getMessageContentDb().delete(tx, contentKeyEntry);
+                    deleteContentChunks(tx, messageId);
 
                     getLogger().debug("Deleted content for message {}", messageId);
 
@@ -415,34 +429,102 @@ public abstract class AbstractBDBMessageStore implements MessageStore
 
     QpidByteBuffer getAllContent(long messageId) throws StoreException
     {
-        DatabaseEntry contentKeyEntry = new DatabaseEntry();
-        LongBinding.longToEntry(messageId, contentKeyEntry);
-        DatabaseEntry value = new DatabaseEntry();
-
         getLogger().debug("Message Id: {} Getting content body", messageId);
 
         try
         {
-            OperationStatus status = getMessageContentDb().get(null, contentKeyEntry, value, LockMode.READ_UNCOMMITTED);
+            // chunks are read onto the heap and copied once into a buffer of the full size, so that reading the
+            // content takes no more direct memory than the content itself
+            final List<DatabaseEntry> chunks = new ArrayList<>();
+            int contentSize = 0;
+            try (Cursor cursor = getMessageContentChunksDb().openCursor(null, null))
+            {
+                DatabaseEntry key = new DatabaseEntry();
+                MessageContentChunkBinding.objectToEntry(messageId, 0, key);
+                DatabaseEntry value = new DatabaseEntry();
+                OperationStatus status = cursor.getSearchKey(key, value, LockMode.READ_UNCOMMITTED);
+                while (status == OperationStatus.SUCCESS && MessageContentChunkBinding.isChunkOf(key, messageId))
+                {
+                    chunks.add(value);
+                    contentSize += value.getSize();
+                    value = new DatabaseEntry();
+                    status = cursor.getNext(key, value, LockMode.READ_UNCOMMITTED);
+                }
+            }
 
-            if (status == OperationStatus.SUCCESS)
+            if (chunks.isEmpty())
             {
-                byte[] data = value.getData();
-                int offset = value.getOffset();
-                int length = value.getSize();
-                QpidByteBuffer buf = QpidByteBuffer.allocateDirect(length);
-                buf.put(data, offset, length);
-                buf.flip();
-                return buf;
+                return getLegacyContent(messageId, null);
             }
-            else
+
+            final QpidByteBuffer content = QpidByteBuffer.allocateDirect(contentSize);
+            for (DatabaseEntry chunk : chunks)
             {
-                throw new StoreException("Unable to find message with id " + messageId);
+                content.put(chunk.getData(), chunk.getOffset(), chunk.getSize());
             }
+            content.flip();
+            return content;
+        }
+        catch (RuntimeException e)
+        {
+            throw getEnvironmentFacade().handleDatabaseException("Error getting AMQMessage with id "
+                                                                 + messageId
+                                                                 + " to database: "
+                                                                 + e.getMessage(), e);
+        }
+    }
 
+    /**
+     * Reads length bytes of message content beginning from the given offset, reading only the chunks
+     * which hold the range.
+     */
+    QpidByteBuffer getContent(long messageId, int offset, int length) throws StoreException
+    {
+        getLogger().debug("Message Id: {} Getting {} bytes of content body from offset {}", messageId, length, offset);
+
+        final int firstChunk = offset / MESSAGE_CONTENT_CHUNK_SIZE;
+        final int lastChunk = (offset + length - 1) / MESSAGE_CONTENT_CHUNK_SIZE;
+        final QpidByteBuffer content = QpidByteBuffer.allocateDirect(length);
+        try (Cursor cursor = getMessageContentChunksDb().openCursor(null, null))
+        {
+            DatabaseEntry key = new DatabaseEntry();
+            MessageContentChunkBinding.objectToEntry(messageId, firstChunk, key);
+            DatabaseEntry value = new DatabaseEntry();
+
+            if (cursor.getSearchKey(key, value, LockMode.READ_UNCOMMITTED) != OperationStatus.SUCCESS)
+            {
+                content.dispose();
+                DatabaseEntry partialValue = new DatabaseEntry();
+                partialValue.setPartial(offset, length, true);
+                return getLegacyContent(messageId, partialValue);
+            }
+
+            int chunkOffset = offset - firstChunk * MESSAGE_CONTENT_CHUNK_SIZE;
+            for (int chunkNumber = firstChunk; ; chunkNumber++)
+            {
+                content.put(value.getData(),
+                            value.getOffset() + chunkOffset,
+                            Math.min(value.getSize() - chunkOffset, content.remaining()));
+                if (chunkNumber == lastChunk || !content.hasRemaining())
+                {
+                    break;
+                }
+
+                chunkOffset = 0;
+                if (cursor.getNext(key, value, LockMode.READ_UNCOMMITTED) != OperationStatus.SUCCESS
+                    || !MessageContentChunkBinding.isChunkOf(key, messageId)
+                    || MessageContentChunkBinding.getChunkNumber(key) != chunkNumber + 1)
+                {
+                    throw new StoreException("Unable to find content chunk " + (chunkNumber + 1)
+                                             + " of message with id " + messageId);
+                }
+            }
+            content.flip();
+            return content;
         }
         catch (RuntimeException e)
         {
+            content.dispose();
             throw getEnvironmentFacade().handleDatabaseException("Error getting AMQMessage with id "
                                                                  + messageId
                                                                  + " to database: "
@@ -450,6 +532,50 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         }
     }
 
+    private QpidByteBuffer getLegacyContent(long messageId, DatabaseEntry value)
+    {
+        DatabaseEntry contentKeyEntry = new DatabaseEntry();
+        LongBinding.longToEntry(messageId, contentKeyEntry);
+        if (value == null)
+        {
+            value = new DatabaseEntry();
+        }
+
+        OperationStatus status = getMessageContentDb().get(null, contentKeyEntry, value, LockMode.READ_UNCOMMITTED);
+
+        if (status == OperationStatus.SUCCESS)
+        {
+            byte[] data = value.getData();
+            int offset = value.getOffset();
+            int length = value.getSize();
+            QpidByteBuffer buf = QpidByteBuffer.allocateDirect(length);
+            buf.put(data, offset, length);
+            buf.flip();
+            return buf;
+        }
+        else
+        {
+            throw new StoreException("Unable to find message with id " + messageId);
+        }
+    }
+
+    private void deleteContentChunks(final Transaction tx, final long messageId)
+    {
+        try (Cursor cursor = getMessageContentChunksDb().openCursor(tx, null))
+        {
+            DatabaseEntry key = new DatabaseEntry();
+            MessageContentChunkBinding.objectToEntry(messageId, 0, key);
+            DatabaseEntry value = new DatabaseEntry();
+            value.setPartial(0, 0, true);
+            OperationStatus status = cursor.getSearchKey(key, value, LockMode.RMW);
+            while (status == OperationStatus.SUCCESS && MessageContentChunkBinding.isChunkOf(key, messageId))
+            {
+                cursor.delete();
+                status = cursor.getNext(key, value, LockMode.RMW);
+            }
+        }
+    }
+
     private void visitMessagesInternal(MessageHandler handler, EnvironmentFacade environmentFacade)
     {
         DatabaseEntry key = new DatabaseEntry();
@@ -475,6 +601,66 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         }
     }
 
+    private void visitMessagesInternal(final MessageIdRange range,
+                                       final MessageHandler handler,
+                                       final EnvironmentFacade environmentFacade)
+    {
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry value = new DatabaseEntry();
+        MessageMetaDataBinding valueBinding = MessageMetaDataBinding.getInstance();
+        LongBinding.longToEntry(range.getFrom(), key);
+
+        try(Cursor cursor = getMessageMetaDataDb().openCursor(null, null))
+        {
+            OperationStatus status = cursor.getSearchKeyRange(key, value, LockMode.READ_UNCOMMITTED);
+            while (status == OperationStatus.SUCCESS)
+            {
+                long messageId = LongBinding.entryToLong(key);
+                if (messageId > range.getTo())
+                {
+                    break;
+                }
+                StorableMessageMetaData metaData = valueBinding.entryToObject(value);
+                StoredBDBMessage message = createStoredBDBMessage(messageId, metaData, true);
+                if (!handler.handle(message))
+                {
+                    break;
+                }
+                status = cursor.getNext(key, value, LockMode.READ_UNCOMMITTED);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            throw environmentFacade.handleDatabaseException("Cannot visit messages", e);
+        }
+    }
+
+    private MessageIdRange getMessageIdRangeInternal(final EnvironmentFacade environmentFacade)
+    {
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry value = new DatabaseEntry();
+        value.setPartial(0, 0, true);
+
+        try(Cursor cursor = getMessageMetaDataDb().openCursor(null, null))
+        {
+            if (cursor.getFirst(key, value, LockMode.READ_UNCOMMITTED) != OperationStatus.SUCCESS)
+            {
+                return null;
+            }
+            final long from = LongBinding.entryToLong(key);
+            if (cursor.getLast(key, value, LockMode.READ_UNCOMMITTED) != OperationStatus.SUCCESS)
+            {
+                return null;
+            }
+            final long to = LongBinding.entryToLong(key);
+            return from <= to ? new MessageIdRange(from, to) : null;
+        }
+        catch (RuntimeException e)
+        {
+            throw environmentFacade.handleDatabaseException("Cannot determine message id range", e);
+        }
+    }
+
     private void sleepOrThrowOnLockConflict(int attempts, String throwMessage, LockConflictException cause)
     {
         if (attempts < LOCK_RETRY_ATTEMPTS)
@@ -523,31 +709,104 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         }
     }
 
+    private List<StoredMessage<?>> getMessagesInternal(final long[] messageIds,
+                                                       final EnvironmentFacade environmentFacade)
+    {
+        final long[] sortedIds = messageIds.clone();
+        Arrays.sort(sortedIds);
+
+        final Map<Long, StoredMessage<?>> messagesById = new HashMap<>();
+        DatabaseEntry key = new DatabaseEntry();
+        DatabaseEntry value = new DatabaseEntry();
+        MessageMetaDataBinding valueBinding = MessageMetaDataBinding.getInstance();
+
+        try(Cursor cursor = getMessageMetaDataDb().openCursor(null, null))
+        {
+            boolean positioned = false;
+            long currentId = 0L;
+            for (long messageId : sortedIds)
+            {
+                if (positioned && currentId < messageId)
+                {
+                    // ids of recovered messages are mostly contiguous, so try the next record before searching
+                    positioned = cursor.getNext(key, value, LockMode.READ_COMMITTED) == OperationStatus.SUCCESS;
+                    if (!positioned)
+                    {
+                        break;
+                    }
+                    currentId = LongBinding.entryToLong(key);
+                }
+                if (!positioned || currentId < messageId)
+                {
+                    LongBinding.longToEntry(messageId, key);
+                    positioned = cursor.getSearchKeyRange(key, value, LockMode.READ_COMMITTED) == OperationStatus.SUCCESS;
+                    if (!positioned)
+                    {
+                        break;
+                    }
+                    currentId = LongBinding.entryToLong(key);
+                }
+                if (currentId == messageId && !messagesById.containsKey(messageId))
+                {
+                    StorableMessageMetaData metaData = valueBinding.entryToObject(value);
+                    messagesById.put(messageId, createStoredBDBMessage(messageId, metaData, true));
+                }
+            }
+        }
+        catch (RuntimeException e)
+        {
+            throw environmentFacade.handleDatabaseException("Cannot retrieve messages", e);
+        }
+
+        final List<StoredMessage<?>> messages = new ArrayList<>(messageIds.length);
+        for (long messageId : messageIds)
+        {
+            messages.add(messagesById.get(messageId));
+        }
+        return messages;
+    }
+
     /**
-     * Stores a chunk of message data.
+     * Stores message data as a sequence of chunks of {@link #MESSAGE_CONTENT_CHUNK_SIZE} bytes.
      *
      * @param tx         The transaction for the operation.
      * @param messageId       The message to store the data for.
-     * @param contentBody     The content of the data chunk.
+     * @param contentBody     The content of the message.
      *
      * @throws org.apache.qpid.server.store.StoreException If the operation fails for any reason, or if the specified message does not exist.
      */
     private void addContent(final Transaction tx, long messageId, QpidByteBuffer contentBody) throws StoreException
     {
-        DatabaseEntry key = new DatabaseEntry();
-        LongBinding.longToEntry(messageId, key);
-        DatabaseEntry value = new DatabaseEntry();
-
-        byte[] data = new byte[contentBody.remaining()];
-        contentBody.copyTo(data);
-        value.setData(data);
+        final int contentSize = contentBody.remaining();
         try
         {
-            OperationStatus status = getMessageContentDb().put(tx, key, value);
-            if (status != OperationStatus.SUCCESS)
+            int chunkNumber = 0;
+            int chunkOffset = 0;
+            do
             {
-                throw new StoreException("Error adding content for message id " + messageId + ": " + status);
+                final int chunkLength = Math.min(MESSAGE_CONTENT_CHUNK_SIZE, contentSize - chunkOffset);
+
+                DatabaseEntry key = new DatabaseEntry();
+                MessageContentChunkBinding.objectToEntry(messageId, chunkNumber, key);
+                DatabaseEntry value = new DatabaseEntry();
+
+                byte[] data = new byte[chunkLength];
+                try (QpidByteBuffer chunk = contentBody.view(chunkOffset, chunkLength))
+                {
+                    chunk.copyTo(data);
+                }
+                value.setData(data);
+
+                OperationStatus status = getMessageContentChunksDb().put(tx, key, value);
+                if (status != OperationStatus.SUCCESS)
+                {
+                    throw new StoreException("Error adding content for message id " + messageId + ": " + status);
+                }
+
+                chunkOffset += chunkLength;
+                chunkNumber++;
             }
+            while (chunkOffset < contentSize);
 
             getLogger().debug("Storing content for message {} in transaction {}", messageId, tx);
 
@@ -889,6 +1148,11 @@ public abstract class AbstractBDBMessageStore implements MessageStore
         return getEnvironmentFacade().openDatabase(MESSAGE_CONTENT_DB_NAME, DEFAULT_DATABASE_CONFIG);
     }
 
+    private Database getMessageContentChunksDb()
+    {
+        return getEnvironmentFacade().openDatabase(MESSAGE_CONTENT_CHUNKS_DB_NAME, DEFAULT_DATABASE_CONFIG);
+    }
+
     private Database getMessageMetaDataDb()
     {
         return getEnvironmentFacade().openDatabase(MESSAGE_META_DATA_DB_NAME, DEFAULT_DATABASE_CONFIG);
@@ -1087,34 +1351,37 @@ public abstract class AbstractBDBMessageStore implements MessageStore
          */
         private QpidByteBuffer getContentAsByteBuffer()
         {
-            QpidByteBuffer data = _messageDataRef == null ? QpidByteBuffer.emptyQpidByteBuffer() : _messageDataRef.getData();
-            if(data == null)
+            QpidByteBuffer data = _messageDataRef == null ? null : _messageDataRef.getData();
+            return data == null ? QpidByteBuffer.emptyQpidByteBuffer() : data;
+        }
+
+        /**
+         * Content held in memory is returned as a view.  Otherwise only the requested range is read from the store,
+         * without bringing the content into memory and without holding the lock on the message while reading.
+         */
+        @Override
+        public QpidByteBuffer getContent(int offset, int length)
+        {
+            synchronized (this)
             {
-                if(stored())
-                {
-                    checkMessageStoreOpen();
-                    data = AbstractBDBMessageStore.this.getAllContent(_messageId);
-                    _messageDataRef.setData(data);
-                    _inMemorySize.addAndGet(getContentSize());
-                }
-                else
+                if (!stored() || _messageDataRef.getData() != null)
                 {
-                    data = QpidByteBuffer.emptyQpidByteBuffer();
+                    QpidByteBuffer contentAsByteBuffer = getContentAsByteBuffer();
+                    if (length == Integer.MAX_VALUE)
+                    {
+                        length = contentAsByteBuffer.remaining();
+                    }
+                    return contentAsByteBuffer.view(offset, length);
                 }
             }
-            return data;
-        }
-
 
-        @Override
-        public synchronized QpidByteBuffer getContent(int offset, int length)
-        {
-            QpidByteBuffer contentAsByteBuffer = getContentAsByteBuffer();
-            if (length == Integer.MAX_VALUE)
+            final int rangeLength = Math.min(length, getContentSize() - offset);
+            if (rangeLength <= 0)
             {
-                length = contentAsByteBuffer.remaining();
+                return QpidByteBuffer.emptyQpidByteBuffer();
             }
-            return contentAsByteBuffer.view(offset, length);
+            checkMessageStoreOpen();
+            return AbstractBDBMessageStore.this.getContent(_messageId, offset, rangeLength);
         }
 
         @Override
@@ -1486,6 +1753,20 @@ public abstract class AbstractBDBMessageStore implements MessageStore
             visitMessagesInternal(handler, getEnvironmentFacade());
         }
 
+        @Override
+        public MessageIdRange getMessageIdRange()
+        {
+            checkMessageStoreOpen();
+            return getMessageIdRangeInternal(getEnvironmentFacade());
+        }
+
+        @Override
+        public void visitMessages(final MessageIdRange range, final MessageHandler handler) throws StoreException
+        {
+            checkMessageStoreOpen();
+            visitMessagesInternal(range, handler, getEnvironmentFacade());
+        }
+
         @Override
         public StoredMessage<?> getMessage(final long messageId)
         {
@@ -1493,6 +1774,13 @@ public abstract class AbstractBDBMessageStore implements MessageStore
             return getMessageInternal(messageId, getEnvironmentFacade());
         }
 
+        @Override
+        public List<StoredMessage<?>> getMessages(final long[] messageIds)
+        {
+            checkMessageStoreOpen();
+            return getMessagesInternal(messageIds, getEnvironmentFacade());
+        }
+
         @Override
         public void close()
         {
@@ -0,0 +1,82 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.berkeleydb.tuple;
+
+import com.sleepycat.je.DatabaseEntry;
+
+/**
+ * Binds the (messageId, chunkNumber) key of a message content chunk.  The encoding sorts the chunks of a
+ * message together in ascending chunk order.
+ */
+public class MessageContentChunkBinding
+{
+    private static final int KEY_LENGTH = 12;
+
+    private MessageContentChunkBinding()
+    {
+    }
+
+    public static void objectToEntry(long messageId, int chunkNumber, DatabaseEntry entry)
+    {
+        byte[] output = new byte[KEY_LENGTH];
+        writeUnsignedLong(messageId ^ 0x8000000000000000L, output, 0);
+        writeUnsignedInt(chunkNumber ^ 0x80000000, output, 8);
+        entry.setData(output);
+    }
+
+    public static boolean isChunkOf(DatabaseEntry entry, long messageId)
+    {
+        return entry.getSize() == KEY_LENGTH
+               && (readUnsignedLong(entry.getData(), entry.getOffset()) ^ 0x8000000000000000L) == messageId;
+    }
+
+    public static int getChunkNumber(DatabaseEntry entry)
+    {
+        return readUnsignedInt(entry.getData(), entry.getOffset() + 8) ^ 0x80000000;
+    }
+
+    private static void writeUnsignedLong(long val, byte[] data, int offset)
+    {
+        writeUnsignedInt((int) (val >>> 32), data, offset);
+        writeUnsignedInt((int) val, data, offset + 4);
+    }
+
+    private static void writeUnsignedInt(int val, byte[] data, int offset)
+    {
+        data[offset++] = (byte) (val >>> 24);
+        data[offset++] = (byte) (val >>> 16);
+        data[offset++] = (byte) (val >>> 8);
+        data[offset] = (byte) val;
+    }
+
+    private static long readUnsignedLong(final byte[] data, int offset)
+    {
+        return (((long) readUnsignedInt(data, offset)) << 32) | ((long) readUnsignedInt(data, offset + 4) & 0xffffffffL);
+    }
+
+    private static int readUnsignedInt(final byte[] data, int offset)
+    {
+        return ((data[offset++] & 0xff) << 24)
+               | ((data[offset++] & 0xff) << 16)
+               | ((data[offset++] & 0xff) << 8)
+               | (data[offset] & 0xff);
+    }
+}
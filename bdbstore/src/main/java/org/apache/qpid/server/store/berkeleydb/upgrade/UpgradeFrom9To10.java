@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.qpid.server.store.berkeleydb.upgrade;
+
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseConfig;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.Transaction;
+
+import org.apache.qpid.server.model.ConfiguredObject;
+
+/**
+ * Introduces the MESSAGE_CONTENT_CHUNKS database, which holds the content of messages stored from this version
+ * onwards as a sequence of fixed size chunks.  Content already in the MESSAGE_CONTENT database is left in place
+ * and remains readable, so no message is rewritten.
+ * <p>
+ * Brokers knowing only version 9 refuse to open a store at this version.  To downgrade, the messages stored since
+ * the upgrade must first be consumed, after which the store may be reverted by removing the version 10 entry from
+ * the DB_VERSION database and the MESSAGE_CONTENT_CHUNKS database.
+ */
+@SuppressWarnings("unused")
+public class UpgradeFrom9To10 extends AbstractStoreUpgrade
+{
+    private static final String MESSAGE_CONTENT_CHUNKS_DB_NAME = "MESSAGE_CONTENT_CHUNKS";
+
+    @Override
+    public void performUpgrade(final Environment environment,
+                               final UpgradeInteractionHandler handler,
+                               final ConfiguredObject<?> parent)
+    {
+        reportStarting(environment, 9);
+
+        DatabaseConfig dbConfig = new DatabaseConfig();
+        dbConfig.setTransactional(true);
+        dbConfig.setAllowCreate(true);
+
+        final Transaction transaction = environment.beginTransaction(null, null);
+        try
+        {
+            Database contentChunksDb = environment.openDatabase(transaction, MESSAGE_CONTENT_CHUNKS_DB_NAME, dbConfig);
+            contentChunksDb.close();
+
+            transaction.commit();
+            reportFinished(environment, 10);
+        }
+        catch (RuntimeException e)
+        {
+            try
+            {
+                if (transaction.isValid())
+                {
+                    transaction.abort();
+                }
+            }
+            finally
+            {
+                throw e;
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.qpid.server.store.berkeleydb;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -30,8 +31,13 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Collections;
 
+import com.sleepycat.bind.tuple.LongBinding;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.OperationStatus;
 import org.junit.Test;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
@@ -47,6 +53,7 @@ import org.apache.qpid.server.store.MessageStore;
 import org.apache.qpid.server.store.MessageStoreTestCase;
 import org.apache.qpid.server.store.StoreException;
 import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.server.store.berkeleydb.tuple.MessageContentChunkBinding;
 import org.apache.qpid.server.util.FileUtils;
 import org.apache.qpid.server.virtualhost.berkeleydb.BDBVirtualHost;
 import org.apache.qpid.test.utils.VirtualHostNodeStoreType;
@@ -141,11 +148,141 @@ public class BDBMessageStoreTest extends MessageStoreTestCase
         }
     }
 
+    @Test
+    public void testRangedContentReadAfterFlowToDisk() throws Exception
+    {
+        BDBMessageStore bdbStore = (BDBMessageStore) getStore();
+
+        final int chunkSize = AbstractBDBMessageStore.MESSAGE_CONTENT_CHUNK_SIZE;
+        byte[] content = new byte[chunkSize * 2 + 10];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) i;
+        }
+        StoredMessage<MessageMetaData> storedMessage = createAndStoreMessage_0_8(bdbStore, content);
+        storedMessage.flowToDisk();
+        assertFalse("Message should not be in memory after flow to disk", storedMessage.isInMemory());
+
+        final int offset = chunkSize - 5;
+        final int length = chunkSize + 10;
+        try (QpidByteBuffer range = storedMessage.getContent(offset, length))
+        {
+            byte[] rangeBytes = new byte[range.remaining()];
+            range.copyTo(rangeBytes);
+            assertArrayEquals("Unexpected content range",
+                              Arrays.copyOfRange(content, offset, offset + length),
+                              rangeBytes);
+        }
+        assertFalse("Ranged read should not bring the content into memory", storedMessage.isInMemory());
+
+        try (QpidByteBuffer allContent = storedMessage.getContent(0, Integer.MAX_VALUE))
+        {
+            byte[] allBytes = new byte[allContent.remaining()];
+            allContent.copyTo(allBytes);
+            assertArrayEquals("Unexpected content read from store", content, allBytes);
+        }
+        assertFalse("Reading the whole content should not bring it into memory", storedMessage.isInMemory());
+
+        try (QpidByteBuffer allContent = bdbStore.getAllContent(storedMessage.getMessageNumber()))
+        {
+            byte[] allBytes = new byte[allContent.remaining()];
+            allContent.copyTo(allBytes);
+            assertArrayEquals("Unexpected content", content, allBytes);
+        }
+
+        bdbStore.removeMessage(storedMessage.getMessageNumber(), true);
+        try
+        {
+            bdbStore.getAllContent(storedMessage.getMessageNumber());
+            fail("Expected exception not thrown");
+        }
+        catch (StoreException se)
+        {
+            // PASS
+        }
+    }
+
+    @Test
+    public void testRangedContentReadOfUnchunkedContent() throws Exception
+    {
+        BDBMessageStore bdbStore = (BDBMessageStore) getStore();
+
+        final int chunkSize = AbstractBDBMessageStore.MESSAGE_CONTENT_CHUNK_SIZE;
+        byte[] content = new byte[chunkSize + 100];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) (i * 7);
+        }
+        StoredMessage<MessageMetaData> storedMessage = createAndStoreMessage_0_8(bdbStore, content);
+        storedMessage.flowToDisk();
+        rewriteAsUnchunkedContent(bdbStore, storedMessage.getMessageNumber(), content);
+
+        final int offset = chunkSize - 20;
+        final int length = 50;
+        try (QpidByteBuffer range = storedMessage.getContent(offset, length))
+        {
+            byte[] rangeBytes = new byte[range.remaining()];
+            range.copyTo(rangeBytes);
+            assertArrayEquals("Unexpected content range of unchunked content",
+                              Arrays.copyOfRange(content, offset, offset + length),
+                              rangeBytes);
+        }
+
+        try (QpidByteBuffer allContent = bdbStore.getAllContent(storedMessage.getMessageNumber()))
+        {
+            byte[] allBytes = new byte[allContent.remaining()];
+            allContent.copyTo(allBytes);
+            assertArrayEquals("Unexpected unchunked content", content, allBytes);
+        }
+
+        bdbStore.removeMessage(storedMessage.getMessageNumber(), true);
+        try
+        {
+            bdbStore.getAllContent(storedMessage.getMessageNumber());
+            fail("Expected exception not thrown");
+        }
+        catch (StoreException se)
+        {
+            // PASS
+        }
+    }
+
+    /**
+     * Replaces the chunked content of a message with a single MESSAGE_CONTENT record, as written by store
+     * versions before 10.
+     */
+    private void rewriteAsUnchunkedContent(final BDBMessageStore bdbStore, final long messageId, final byte[] content)
+    {
+        final EnvironmentFacade environmentFacade = bdbStore.getEnvironmentFacade();
+        final Database contentChunksDb =
+                environmentFacade.openDatabase("MESSAGE_CONTENT_CHUNKS", BDBUtils.DEFAULT_DATABASE_CONFIG);
+        final Database contentDb = environmentFacade.openDatabase("MESSAGE_CONTENT", BDBUtils.DEFAULT_DATABASE_CONFIG);
+
+        final int chunkCount = (content.length + AbstractBDBMessageStore.MESSAGE_CONTENT_CHUNK_SIZE - 1)
+                               / AbstractBDBMessageStore.MESSAGE_CONTENT_CHUNK_SIZE;
+        for (int chunkNumber = 0; chunkNumber < chunkCount; chunkNumber++)
+        {
+            DatabaseEntry key = new DatabaseEntry();
+            MessageContentChunkBinding.objectToEntry(messageId, chunkNumber, key);
+            assertTrue("Content chunk " + chunkNumber + " not found",
+                       contentChunksDb.delete(null, key) == OperationStatus.SUCCESS);
+        }
+
+        DatabaseEntry key = new DatabaseEntry();
+        LongBinding.longToEntry(messageId, key);
+        contentDb.put(null, key, new DatabaseEntry(content));
+    }
+
     private StoredMessage<MessageMetaData> createAndStoreSingleChunkMessage_0_8(MessageStore store)
     {
-        QpidByteBuffer chunk1 = QpidByteBuffer.wrap(CONTENT_BYTES);
+        return createAndStoreMessage_0_8(store, CONTENT_BYTES);
+    }
+
+    private StoredMessage<MessageMetaData> createAndStoreMessage_0_8(MessageStore store, byte[] content)
+    {
+        QpidByteBuffer chunk1 = QpidByteBuffer.wrap(content);
 
-        int bodySize = CONTENT_BYTES.length;
+        int bodySize = content.length;
 
         //create and store the message using the MessageStore interface
         MessagePublishInfo pubInfoBody_0_8 = createPublishInfoBody_0_8();
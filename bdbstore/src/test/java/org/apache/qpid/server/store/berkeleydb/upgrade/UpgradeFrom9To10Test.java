@@ -0,0 +1,56 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package org.apache.qpid.server.store.berkeleydb.upgrade;
+
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class UpgradeFrom9To10Test extends AbstractUpgradeTestCase
+{
+    private static final String CONTENT_DB_NAME = "MESSAGE_CONTENT";
+    private static final String CONTENT_CHUNKS_DB_NAME = "MESSAGE_CONTENT_CHUNKS";
+
+    @Override
+    protected String getStoreDirectoryName()
+    {
+        return "bdbstore-v9-amqp10v0";
+    }
+
+    @Test
+    public void testPerformUpgrade() throws Exception
+    {
+        final long contentCount = getDatabaseCount(CONTENT_DB_NAME);
+        assertFalse("Chunk database unexpectedly present before upgrade",
+                    _environment.getDatabaseNames().contains(CONTENT_CHUNKS_DB_NAME));
+
+        UpgradeFrom9To10 upgrade = new UpgradeFrom9To10();
+        upgrade.performUpgrade(_environment, UpgradeInteractionHandler.DEFAULT_HANDLER, getVirtualHost());
+
+        assertTrue("Chunk database not created by upgrade",
+                   _environment.getDatabaseNames().contains(CONTENT_CHUNKS_DB_NAME));
+        assertDatabaseRecordCount(CONTENT_CHUNKS_DB_NAME, 0);
+        assertDatabaseRecordCount(CONTENT_DB_NAME, contentCount);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.filter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+
+/**
+ * Compares the interpreted and compiled evaluation of JMS selectors.
+ * <p>
+ * Run with {@code mvn -pl benchmarks exec:java -Dexec.args="SelectorBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectorBenchmark
+{
+    @Param({"color = 'red' AND weight > 2500",
+            "region IN ('EMEA', 'APAC', 'LATAM', 'NA', 'ANZ') OR priority BETWEEN 5 AND 9",
+            "symbol LIKE 'IBM%' AND NOT (price < 100.5)",
+            "flag AND count >= 10 AND name IS NOT NULL"})
+    private String _selector;
+
+    private JMSSelectorFilter _interpreted;
+    private JMSSelectorFilter _compiled;
+    private Filterable _matching;
+    private Filterable _notMatching;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        _interpreted = new JMSSelectorFilter(_selector, false);
+        _compiled = new JMSSelectorFilter(_selector, true);
+
+        final Map<String, Object> matching = new HashMap<>();
+        matching.put("color", "red");
+        matching.put("weight", 3000);
+        matching.put("region", "LATAM");
+        matching.put("priority", 7L);
+        matching.put("symbol", "IBM.N");
+        matching.put("price", 150.25d);
+        matching.put("flag", Boolean.TRUE);
+        matching.put("count", 12);
+        matching.put("name", "widget");
+        _matching = new BenchmarkFilterable(matching);
+
+        final Map<String, Object> notMatching = new HashMap<>(matching);
+        notMatching.put("color", "blue");
+        notMatching.put("region", "MARS");
+        notMatching.put("priority", 1L);
+        notMatching.put("symbol", "MSFT.O");
+        notMatching.put("count", (short) 3);
+        _notMatching = new BenchmarkFilterable(notMatching);
+    }
+
+    @Benchmark
+    public boolean interpreted()
+    {
+        return _interpreted.matches(_matching) ^ _interpreted.matches(_notMatching);
+    }
+
+    @Benchmark
+    public boolean compiled()
+    {
+        return _compiled.matches(_matching) ^ _compiled.matches(_notMatching);
+    }
+
+    private static class BenchmarkFilterable implements Filterable
+    {
+        private final Map<String, Object> _headers;
+
+        private BenchmarkFilterable(final Map<String, Object> headers)
+        {
+            _headers = headers;
+        }
+
+        @Override
+        public AMQMessageHeader getMessageHeader()
+        {
+            return null;
+        }
+
+        @Override
+        public boolean isPersistent()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean isRedelivered()
+        {
+            return false;
+        }
+
+        @Override
+        public Object getConnectionReference()
+        {
+            return null;
+        }
+
+        @Override
+        public long getMessageNumber()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getArrivalTime()
+        {
+            return 0;
+        }
+
+        @Override
+        public Object getHeader(final String name)
+        {
+            return _headers.get(name);
+        }
+
+        @Override
+        public String getReplyTo()
+        {
+            return null;
+        }
+
+        @Override
+        public String getType()
+        {
+            return null;
+        }
+
+        @Override
+        public byte getPriority()
+        {
+            return 4;
+        }
+
+        @Override
+        public String getMessageId()
+        {
+            return null;
+        }
+
+        @Override
+        public long getTimestamp()
+        {
+            return 0;
+        }
+
+        @Override
+        public String getCorrelationId()
+        {
+            return null;
+        }
+
+        @Override
+        public long getExpiration()
+        {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_10;
+
+import java.util.Iterator;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.qpid.server.protocol.v0_10.transport.Range;
+import org.apache.qpid.server.protocol.v0_10.transport.RangeSet;
+import org.apache.qpid.server.protocol.v0_10.transport.RangeSetFactory;
+
+/**
+ * Measures the handling of a message.accept covering a range of outstanding transfers, followed by the transfer of
+ * the same number of new messages, comparing the sequence window with the previous sorted map based approach.
+ * <p>
+ * Run with {@code mvn -pl benchmarks exec:java -Dexec.args="SequenceWindowBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SequenceWindowBenchmark
+{
+    private static final Object LISTENER = new Object();
+
+    @Param({"1000"})
+    private int _outstanding;
+
+    @Param({"1", "32", "500"})
+    private int _rangeSize;
+
+    @Param({"1", "4"})
+    private int _rangesPerAccept;
+
+    private SequenceWindow<Object> _window;
+    private SortedMap<Integer, Object> _map;
+    private int _first;
+    private int _mapFirst;
+    private final SequenceWindow.Visitor<Object> _visitor = (id, listener) -> { };
+
+    @Setup
+    public void setUp()
+    {
+        _window = new SequenceWindow<>(64 * 1024);
+        _map = new ConcurrentSkipListMap<>();
+        for (int i = 0; i < _outstanding; i++)
+        {
+            _window.put(i, LISTENER);
+            _map.put(i, LISTENER);
+        }
+    }
+
+    @Benchmark
+    public int window()
+    {
+        _window.removeRanges(accepted(_first), _visitor);
+        for (int i = 0; i < _rangeSize; i++)
+        {
+            _window.put(_first + _outstanding + i, LISTENER);
+        }
+        _first += _rangeSize;
+        return _window.size();
+    }
+
+    @Benchmark
+    public int map()
+    {
+        final RangeSet ranges = accepted(_mapFirst);
+        if (ranges.size() == 1)
+        {
+            final Range range = ranges.getFirst();
+            for (int i = range.getLower(); i <= range.getUpper(); i++)
+            {
+                _map.remove(i);
+            }
+        }
+        else
+        {
+            final Iterator<Integer> unaccepted = _map.keySet().iterator();
+            final Iterator<Range> rangeIterator = ranges.iterator();
+            Range range = rangeIterator.next();
+            while (range != null && unaccepted.hasNext())
+            {
+                final int next = unaccepted.next();
+                while (next > range.getUpper())
+                {
+                    range = rangeIterator.hasNext() ? rangeIterator.next() : null;
+                    if (range == null)
+                    {
+                        break;
+                    }
+                }
+                if (range != null && range.includes(next))
+                {
+                    unaccepted.remove();
+                }
+            }
+        }
+        for (int i = 0; i < _rangeSize; i++)
+        {
+            _map.put(_mapFirst + _outstanding + i, LISTENER);
+        }
+        _mapFirst += _rangeSize;
+        return _map.size();
+    }
+
+    /**
+     * Splits [first, first + rangeSize) into the configured number of ranges, as an accept of interleaved consumers
+     * would.
+     */
+    private RangeSet accepted(final int first)
+    {
+        final RangeSet ranges = RangeSetFactory.createRangeSet();
+        final int step = Math.max(1, _rangeSize / _rangesPerAccept);
+        for (int lower = first; lower < first + _rangeSize; lower += step)
+        {
+            ranges.add(lower, Math.min(lower + step, first + _rangeSize) - 1);
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v1_0.delivery;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.qpid.server.protocol.v1_0.SequenceNumber;
+import org.apache.qpid.server.protocol.v1_0.type.Binary;
+import org.apache.qpid.server.protocol.v1_0.type.UnsignedInteger;
+
+/**
+ * Measures the handling of a settled disposition covering a range of outgoing deliveries, followed by the transfer
+ * of the same number of new deliveries, comparing the ring based registry with the previous map based approach.
+ * <p>
+ * Run with {@code mvn -pl benchmarks exec:java -Dexec.args="DeliveryRegistryBenchmark"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeliveryRegistryBenchmark
+{
+    @Param({"1000"})
+    private int _unsettled;
+
+    @Param({"1", "32", "500"})
+    private int _rangeSize;
+
+    private DeliveryRegistry _registry;
+    private MapDeliveryRegistry _mapRegistry;
+    private Binary[] _tags;
+    private int _first;
+    private int _mapFirst;
+
+    @Setup
+    public void setUp()
+    {
+        _tags = new Binary[_unsettled * 2];
+        for (int i = 0; i < _tags.length; i++)
+        {
+            _tags[i] = new Binary(ByteBuffer.allocate(Integer.BYTES).putInt(i).array());
+        }
+
+        _registry = new DeliveryRegistryImpl();
+        _mapRegistry = new MapDeliveryRegistry();
+        for (int i = 0; i < _unsettled; i++)
+        {
+            _registry.addDelivery(i, new UnsettledDelivery(tag(i), null));
+            _mapRegistry.addDelivery(UnsignedInteger.valueOf(i), new UnsettledDelivery(tag(i), null));
+        }
+    }
+
+    @Benchmark
+    public int ring()
+    {
+        final int last = _first + _rangeSize - 1;
+        _registry.removeDeliveries(_first, last);
+        for (int i = 0; i < _rangeSize; i++)
+        {
+            final int deliveryId = _first + _unsettled + i;
+            _registry.addDelivery(deliveryId, new UnsettledDelivery(tag(deliveryId), null));
+        }
+        _first += _rangeSize;
+        return _registry.size();
+    }
+
+    @Benchmark
+    public int map()
+    {
+        final SequenceNumber pos = new SequenceNumber(_mapFirst);
+        final SequenceNumber end = new SequenceNumber(_mapFirst + _rangeSize - 1);
+        while (pos.compareTo(end) <= 0)
+        {
+            _mapRegistry.removeDelivery(UnsignedInteger.valueOf(pos.intValue()));
+            pos.incr();
+        }
+        for (int i = 0; i < _rangeSize; i++)
+        {
+            final int deliveryId = _mapFirst + _unsettled + i;
+            _mapRegistry.addDelivery(UnsignedInteger.valueOf(deliveryId),
+                                     new UnsettledDelivery(tag(deliveryId), null));
+        }
+        _mapFirst += _rangeSize;
+        return _mapRegistry.size();
+    }
+
+    private Binary tag(final int deliveryId)
+    {
+        return _tags[(deliveryId & Integer.MAX_VALUE) % _tags.length];
+    }
+
+    private static class MapDeliveryRegistry
+    {
+        private final Map<UnsignedInteger, UnsettledDelivery> _deliveries = new ConcurrentHashMap<>();
+        private final Map<Binary, UnsignedInteger> _deliveryIds = new ConcurrentHashMap<>();
+
+        void addDelivery(final UnsignedInteger deliveryId, final UnsettledDelivery unsettledDelivery)
+        {
+            _deliveries.put(deliveryId, unsettledDelivery);
+            _deliveryIds.put(unsettledDelivery.getDeliveryTag(), deliveryId);
+        }
+
+        void removeDelivery(final UnsignedInteger deliveryId)
+        {
+            final UnsettledDelivery unsettledDelivery = _deliveries.remove(deliveryId);
+            if (unsettledDelivery != null)
+            {
+                _deliveryIds.remove(unsettledDelivery.getDeliveryTag());
+            }
+        }
+
+        int size()
+        {
+            return _deliveries.size();
+        }
+    }
+}
@@ -20,39 +20,120 @@
  */
 package org.apache.qpid.server.bytebuffer;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Pool of direct buffers of a single size.
+ *
+ * Each thread works against its own magazine of buffers; only when the magazine runs empty (or full) does the
+ * thread exchange a whole magazine with the shared depot, so the shared structure is touched once per magazine
+ * rather than once per buffer.
+ *
+ * A magazine may only hold as many buffers as it has reserved slots, and slots are reserved from the capacity of the
+ * pool a magazine at a time, so the buffers held by the depot and by all threads together never exceed the maximum
+ * size of the pool.  The magazine of a thread which terminates without calling {@link #releaseThreadLocalBuffers()}
+ * is handed to the depot once the thread has been garbage collected.
+ */
 class BufferPool
 {
+    private static final int MAXIMUM_MAGAZINE_SIZE = 32;
+
+    private final int _bufferSize;
     private final int _maxSize;
-    private final ConcurrentLinkedQueue<ByteBuffer> _pooledBuffers = new ConcurrentLinkedQueue<>();
-    private final AtomicInteger _size = new AtomicInteger();
+    private final int _magazineSize;
+    private final ConcurrentLinkedQueue<Magazine> _depot = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<LocalCache> _localCache;
+    private final ReferenceQueue<Thread> _terminatedThreads = new ReferenceQueue<>();
+    private final Set<LocalCache> _localCaches = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger _unreservedSlots;
+    private final LongAdder _size = new LongAdder();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _depotRefills = new LongAdder();
 
-    BufferPool(final int maxSize)
+    BufferPool(final int bufferSize, final int maxSize)
     {
+        _bufferSize = bufferSize;
         _maxSize = maxSize;
+        _magazineSize = Math.max(1, Math.min(MAXIMUM_MAGAZINE_SIZE, maxSize / 8));
+        _unreservedSlots = new AtomicInteger(Math.max(maxSize, 0));
+        _localCache = ThreadLocal.withInitial(this::createLocalCache);
     }
 
     ByteBuffer getBuffer()
     {
-        final ByteBuffer buffer = _pooledBuffers.poll();
-        if (buffer != null)
+        final LocalCache localCache = _localCache.get();
+        Magazine magazine = localCache._magazine;
+        if (magazine.isEmpty())
         {
-            _size.decrementAndGet();
+            reclaimMagazinesOfTerminatedThreads();
+            final Magazine full = _depot.poll();
+            if (full == null)
+            {
+                _misses.increment();
+                return null;
+            }
+            _depotRefills.increment();
+            releaseSlots(magazine.releaseReservation());
+            localCache._magazine = full;
+            magazine = full;
         }
-        return buffer;
+        _size.decrement();
+        _hits.increment();
+        return magazine.pop();
     }
 
     void returnBuffer(ByteBuffer buf)
     {
         buf.clear();
-        if (size() < _maxSize)
+        if (_maxSize <= 0)
+        {
+            return;
+        }
+        final LocalCache localCache = _localCache.get();
+        Magazine magazine = localCache._magazine;
+        if (magazine.isFull())
         {
-            _pooledBuffers.add(buf);
-            _size.incrementAndGet();
+            _depot.add(magazine);
+            magazine = new Magazine(_magazineSize);
+            localCache._magazine = magazine;
         }
+        if (!magazine.hasReservedSlot())
+        {
+            magazine.addReservation(reserveSlots(magazine.getCapacity() - magazine.getReserved()));
+            if (!magazine.hasReservedSlot())
+            {
+                // the pool is at its maximum size
+                return;
+            }
+        }
+        magazine.push(buf);
+        _size.increment();
+    }
+
+    /**
+     * Hands the buffers cached by the calling thread back to the depot so that they remain available to other
+     * threads after this one terminates.
+     */
+    void releaseThreadLocalBuffers()
+    {
+        final LocalCache localCache = _localCache.get();
+        _localCache.remove();
+        _localCaches.remove(localCache);
+        localCache.clear();
+        releaseToDepot(localCache._magazine);
+    }
+
+    public int getBufferSize()
+    {
+        return _bufferSize;
     }
 
     public int getMaxSize()
@@ -62,6 +143,162 @@ class BufferPool
 
     public int size()
     {
-        return _size.get();
+        return (int) _size.sum();
+    }
+
+    public long getHitCount()
+    {
+        return _hits.sum();
+    }
+
+    public long getMissCount()
+    {
+        return _misses.sum();
+    }
+
+    public long getDepotRefillCount()
+    {
+        return _depotRefills.sum();
+    }
+
+    private LocalCache createLocalCache()
+    {
+        final LocalCache localCache = new LocalCache(Thread.currentThread(), _terminatedThreads, new Magazine(_magazineSize));
+        _localCaches.add(localCache);
+        return localCache;
+    }
+
+    private void reclaimMagazinesOfTerminatedThreads()
+    {
+        LocalCache localCache;
+        while ((localCache = (LocalCache) _terminatedThreads.poll()) != null)
+        {
+            if (_localCaches.remove(localCache))
+            {
+                releaseToDepot(localCache._magazine);
+            }
+        }
+    }
+
+    private void releaseToDepot(final Magazine magazine)
+    {
+        releaseSlots(magazine.trimReservation());
+        if (!magazine.isEmpty())
+        {
+            _depot.add(magazine);
+        }
+    }
+
+    private int reserveSlots(final int wanted)
+    {
+        int available;
+        int granted;
+        do
+        {
+            available = _unreservedSlots.get();
+            granted = Math.min(available, wanted);
+        }
+        while (granted > 0 && !_unreservedSlots.compareAndSet(available, available - granted));
+        return Math.max(granted, 0);
+    }
+
+    private void releaseSlots(final int slots)
+    {
+        if (slots > 0)
+        {
+            _unreservedSlots.addAndGet(slots);
+        }
+    }
+
+    /**
+     * The magazine of a thread, which is reclaimed by the pool once the thread is no longer reachable.
+     */
+    private static final class LocalCache extends WeakReference<Thread>
+    {
+        private Magazine _magazine;
+
+        private LocalCache(final Thread thread, final ReferenceQueue<Thread> queue, final Magazine magazine)
+        {
+            super(thread, queue);
+            _magazine = magazine;
+        }
+    }
+
+    private static final class Magazine
+    {
+        private final ByteBuffer[] _buffers;
+        private int _count;
+        private int _reserved;
+
+        private Magazine(final int size)
+        {
+            _buffers = new ByteBuffer[size];
+        }
+
+        private boolean isEmpty()
+        {
+            return _count == 0;
+        }
+
+        private boolean isFull()
+        {
+            return _count == _buffers.length;
+        }
+
+        private int getCapacity()
+        {
+            return _buffers.length;
+        }
+
+        private int getReserved()
+        {
+            return _reserved;
+        }
+
+        private boolean hasReservedSlot()
+        {
+            return _count < _reserved;
+        }
+
+        private void addReservation(final int slots)
+        {
+            _reserved += slots;
+        }
+
+        /**
+         * Gives up the reserved slots which do not hold a buffer.
+         *
+         * @return the number of slots given up
+         */
+        private int trimReservation()
+        {
+            final int released = _reserved - _count;
+            _reserved = _count;
+            return released;
+        }
+
+        /**
+         * Gives up all reserved slots of an empty magazine.
+         *
+         * @return the number of slots given up
+         */
+        private int releaseReservation()
+        {
+            final int released = _reserved;
+            _reserved = 0;
+            return released;
+        }
+
+        private void push(final ByteBuffer buffer)
+        {
+            _buffers[_count++] = buffer;
+        }
+
+        private ByteBuffer pop()
+        {
+            final ByteBuffer buffer = _buffers[--_count];
+            _buffers[_count] = null;
+            return buffer;
+        }
     }
 }
@@ -104,6 +104,11 @@ public interface QpidByteBuffer extends AutoCloseable
         QpidByteBufferFactory.initialisePool(bufferSize, maxPoolSize, sparsityFraction);
     }
 
+    static void initialisePool(int bufferSize, int maxPoolSize, double sparsityFraction, int numberOfSizeClasses)
+    {
+        QpidByteBufferFactory.initialisePool(bufferSize, maxPoolSize, sparsityFraction, numberOfSizeClasses);
+    }
+
     /**
      * Test use only
      */
@@ -142,6 +147,21 @@ public interface QpidByteBuffer extends AutoCloseable
         return QpidByteBufferFactory.getPooledBufferDisposalCounter();
     }
 
+    static long getBufferPoolHitCount()
+    {
+        return QpidByteBufferFactory.getBufferPoolHitCount();
+    }
+
+    static long getBufferPoolMissCount()
+    {
+        return QpidByteBufferFactory.getBufferPoolMissCount();
+    }
+
+    static long getBufferPoolDepotRefillCount()
+    {
+        return QpidByteBufferFactory.getBufferPoolDepotRefillCount();
+    }
+
     static QpidByteBuffer reallocateIfNecessary(QpidByteBuffer data)
     {
         return QpidByteBufferFactory.reallocateIfNecessary(data);
@@ -43,9 +43,11 @@ final class QpidByteBufferFactory
 {
     private static final ByteBuffer[] EMPTY_BYTE_BUFFER_ARRAY = new ByteBuffer[0];
     private static final QpidByteBuffer EMPTY_QPID_BYTE_BUFFER = QpidByteBuffer.wrap(new byte[0]);
+    private static final int SIZE_CLASS_RATIO = 4;
+    private static final int MINIMUM_SIZE_CLASS_BUFFER_SIZE = 1024;
     private static final ThreadLocal<SingleQpidByteBuffer> _cachedBuffer = new ThreadLocal<>();
     private volatile static boolean _isPoolInitialized;
-    private volatile static BufferPool _bufferPool;
+    private volatile static BufferPool[] _bufferPools;
     private volatile static int _pooledBufferSize;
     private volatile static double _sparsityFraction;
     private volatile static ByteBuffer _zeroed;
@@ -292,18 +294,26 @@ final class QpidByteBufferFactory
     }
 
     static void initialisePool(int bufferSize, int maxPoolSize, double sparsityFraction)
+    {
+        initialisePool(bufferSize, maxPoolSize, sparsityFraction, 1);
+    }
+
+    static void initialisePool(int bufferSize, int maxPoolSize, double sparsityFraction, int numberOfSizeClasses)
     {
         if (_isPoolInitialized && (bufferSize != _pooledBufferSize
-                                                       || maxPoolSize != _bufferPool.getMaxSize()
-                                                       || sparsityFraction != _sparsityFraction))
+                                                       || maxPoolSize != _bufferPools[0].getMaxSize()
+                                                       || sparsityFraction != _sparsityFraction
+                                                       || createSizeClasses(bufferSize, numberOfSizeClasses).length
+                                                          != _bufferPools.length))
         {
             final String errorMessage = String.format(
-                    "QpidByteBuffer pool has already been initialised with bufferSize=%d, maxPoolSize=%d, and sparsityFraction=%f."
+                    "QpidByteBuffer pool has already been initialised with bufferSize=%d, maxPoolSize=%d, sparsityFraction=%f and numberOfSizeClasses=%d."
                     +
                     "Re-initialisation with different bufferSize=%d and maxPoolSize=%d is not allowed.",
                     _pooledBufferSize,
-                    _bufferPool.getMaxSize(),
+                    _bufferPools[0].getMaxSize(),
                     _sparsityFraction,
+                    _bufferPools.length,
                     bufferSize,
                     maxPoolSize);
             throw new IllegalStateException(errorMessage);
@@ -312,8 +322,18 @@ final class QpidByteBufferFactory
         {
             throw new IllegalArgumentException("Negative or zero bufferSize illegal : " + bufferSize);
         }
+        if (numberOfSizeClasses <= 0)
+        {
+            throw new IllegalArgumentException("Negative or zero numberOfSizeClasses illegal : " + numberOfSizeClasses);
+        }
 
-        _bufferPool = new BufferPool(maxPoolSize);
+        final int[] sizeClasses = createSizeClasses(bufferSize, numberOfSizeClasses);
+        final BufferPool[] bufferPools = new BufferPool[sizeClasses.length];
+        for (int i = 0; i < sizeClasses.length; i++)
+        {
+            bufferPools[i] = new BufferPool(sizeClasses[i], maxPoolSize);
+        }
+        _bufferPools = bufferPools;
         _pooledBufferSize = bufferSize;
         _zeroed = ByteBuffer.allocateDirect(_pooledBufferSize);
         _sparsityFraction = sparsityFraction;
@@ -333,7 +353,8 @@ final class QpidByteBufferFactory
                 singleQpidByteBuffer.dispose();
                 _cachedBuffer.remove();
             }
-            _bufferPool = null;
+            releaseThreadLocalPooledBuffers();
+            _bufferPools = null;
             _pooledBufferSize = -1;
             _isPoolInitialized = false;
             _sparsityFraction = 1.0;
@@ -350,7 +371,62 @@ final class QpidByteBufferFactory
             final ByteBuffer duplicate = _zeroed.duplicate();
             duplicate.limit(buffer.capacity());
             buffer.put(duplicate);
-            _bufferPool.returnBuffer(buffer);
+            final BufferPool pool = getBufferPool(buffer.capacity());
+            if (pool != null)
+            {
+                pool.returnBuffer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Size classes are successive quarters of the network buffer size, largest first.  A class is only
+     * created when its buffers are big enough to be worth pooling on their own.
+     */
+    private static int[] createSizeClasses(final int bufferSize, final int numberOfSizeClasses)
+    {
+        int count = 1;
+        int size = bufferSize;
+        while (count < numberOfSizeClasses && (size / SIZE_CLASS_RATIO) >= MINIMUM_SIZE_CLASS_BUFFER_SIZE)
+        {
+            size /= SIZE_CLASS_RATIO;
+            count++;
+        }
+        final int[] sizeClasses = new int[count];
+        size = bufferSize;
+        for (int i = 0; i < count; i++)
+        {
+            sizeClasses[i] = size;
+            size /= SIZE_CLASS_RATIO;
+        }
+        return sizeClasses;
+    }
+
+    private static BufferPool getBufferPool(final int bufferSize)
+    {
+        final BufferPool[] bufferPools = _bufferPools;
+        if (bufferPools != null)
+        {
+            for (final BufferPool pool : bufferPools)
+            {
+                if (pool.getBufferSize() == bufferSize)
+                {
+                    return pool;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void releaseThreadLocalPooledBuffers()
+    {
+        final BufferPool[] bufferPools = _bufferPools;
+        if (bufferPools != null)
+        {
+            for (final BufferPool pool : bufferPools)
+            {
+                pool.releaseThreadLocalBuffers();
+            }
         }
     }
 
@@ -366,7 +442,7 @@ final class QpidByteBufferFactory
 
     static long getAllocatedDirectMemorySize()
     {
-        return (long)_pooledBufferSize * getNumberOfBuffersInUse();
+        return PooledByteBufferRef.getActiveBufferBytes();
     }
 
     static int getNumberOfBuffersInUse()
@@ -376,7 +452,42 @@ final class QpidByteBufferFactory
 
     static int getNumberOfBuffersInPool()
     {
-        return _bufferPool.size();
+        int size = 0;
+        for (final BufferPool pool : _bufferPools)
+        {
+            size += pool.size();
+        }
+        return size;
+    }
+
+    static long getBufferPoolHitCount()
+    {
+        long count = 0;
+        for (final BufferPool pool : _bufferPools)
+        {
+            count += pool.getHitCount();
+        }
+        return count;
+    }
+
+    static long getBufferPoolMissCount()
+    {
+        long count = 0;
+        for (final BufferPool pool : _bufferPools)
+        {
+            count += pool.getMissCount();
+        }
+        return count;
+    }
+
+    static long getBufferPoolDepotRefillCount()
+    {
+        long count = 0;
+        for (final BufferPool pool : _bufferPools)
+        {
+            count += pool.getDepotRefillCount();
+        }
+        return count;
     }
 
     static long getPooledBufferDisposalCounter()
@@ -471,6 +582,7 @@ final class QpidByteBufferFactory
                     cachedThreadLocalBuffer.dispose();
                     _cachedBuffer.remove();
                 }
+                releaseThreadLocalPooledBuffers();
             }
         });
     }
@@ -487,30 +599,21 @@ final class QpidByteBufferFactory
         final ByteBufferRef ref;
         if (_isPoolInitialized && _pooledBufferSize >= size)
         {
+            final BufferPool[] bufferPools = _bufferPools;
             if (_pooledBufferSize == size)
             {
-                ByteBuffer buf = _bufferPool.getBuffer();
-                if (buf == null)
-                {
-                    buf = ByteBuffer.allocateDirect(size);
-                }
-                ref = new PooledByteBufferRef(buf);
+                ref = new PooledByteBufferRef(getPooledBuffer(bufferPools[0]));
             }
             else
             {
-                SingleQpidByteBuffer buf = _cachedBuffer.get();
-                if (buf == null || buf.remaining() < size)
+                final BufferPool pool = getSmallestFittingSizeClass(bufferPools, size);
+                if (pool == null)
                 {
-                    if (buf != null)
-                    {
-                        buf.dispose();
-                    }
-                    buf = allocateDirectSingle(_pooledBufferSize);
-                    _cachedBuffer.set(buf);
+                    return allocateFromThreadLocalBuffer(size);
                 }
-                SingleQpidByteBuffer rVal = buf.view(0, size);
-                buf.position(buf.position() + size);
-
+                final SingleQpidByteBuffer buf = new SingleQpidByteBuffer(new PooledByteBufferRef(getPooledBuffer(pool)));
+                final SingleQpidByteBuffer rVal = buf.view(0, size);
+                buf.dispose();
                 return rVal;
             }
         }
@@ -521,4 +624,46 @@ final class QpidByteBufferFactory
         return new SingleQpidByteBuffer(ref);
     }
 
+    /**
+     * Returns the smallest secondary size class able to hold the given size, provided the resulting buffer would
+     * not immediately be considered sparse.  Otherwise returns null and the caller slices the allocation from the
+     * thread's cached network sized buffer.
+     */
+    private static BufferPool getSmallestFittingSizeClass(final BufferPool[] bufferPools, final int size)
+    {
+        for (int i = bufferPools.length - 1; i > 0; i--)
+        {
+            final BufferPool pool = bufferPools[i];
+            if (pool.getBufferSize() >= size)
+            {
+                return size >= pool.getBufferSize() * _sparsityFraction ? pool : null;
+            }
+        }
+        return null;
+    }
+
+    private static ByteBuffer getPooledBuffer(final BufferPool pool)
+    {
+        final ByteBuffer buf = pool.getBuffer();
+        return buf == null ? ByteBuffer.allocateDirect(pool.getBufferSize()) : buf;
+    }
+
+    private static SingleQpidByteBuffer allocateFromThreadLocalBuffer(final int size)
+    {
+        SingleQpidByteBuffer buf = _cachedBuffer.get();
+        if (buf == null || buf.remaining() < size)
+        {
+            if (buf != null)
+            {
+                buf.dispose();
+            }
+            buf = allocateDirectSingle(_pooledBufferSize);
+            _cachedBuffer.set(buf);
+        }
+        SingleQpidByteBuffer rVal = buf.view(0, size);
+        buf.position(buf.position() + size);
+
+        return rVal;
+    }
+
 }
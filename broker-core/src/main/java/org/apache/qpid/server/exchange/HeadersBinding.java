@@ -108,6 +108,27 @@ class HeadersBinding
         return _binding;
     }
 
+    boolean isMatchAny()
+    {
+        return matchAny;
+    }
+
+    /**
+     * @return the names of the headers which must be present, regardless of value
+     */
+    Set<String> getRequiredHeaders()
+    {
+        return Collections.unmodifiableSet(required);
+    }
+
+    /**
+     * @return the headers which must be present with the given values
+     */
+    Map<String, Object> getMatchedHeaders()
+    {
+        return Collections.unmodifiableMap(matches);
+    }
+
     /**
      * Checks whether the supplied headers match the requirements of this binding
      * @param headers the headers to check
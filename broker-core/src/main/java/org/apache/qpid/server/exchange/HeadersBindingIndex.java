@@ -0,0 +1,184 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+
+/**
+ * Index of the header bindings of a headers exchange, keyed on the header names and values the bindings refer to,
+ * so that the candidate bindings for a message can be found from the headers it carries.
+ * <p>
+ * An <code>x-match=all</code> binding is indexed under a single header it requires - preferring one whose value is
+ * constrained - whilst an <code>x-match=any</code> binding is indexed under every header it refers to.  Bindings
+ * which refer to no headers match every message.  The candidates are a superset of the matching bindings; each
+ * must still be checked with {@link HeadersBinding#matches(org.apache.qpid.server.filter.Filterable)}.
+ */
+class HeadersBindingIndex
+{
+    private final Set<HeadersBinding> _unconditionalBindings = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Set<HeadersBinding>> _bindingsByHeaderName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<HeaderValue, Set<HeadersBinding>> _bindingsByHeaderValue = new ConcurrentHashMap<>();
+
+    void add(final HeadersBinding binding)
+    {
+        final Set<String> requiredHeaders = binding.getRequiredHeaders();
+        final Map<String, Object> matchedHeaders = binding.getMatchedHeaders();
+        if (requiredHeaders.isEmpty() && matchedHeaders.isEmpty())
+        {
+            _unconditionalBindings.add(binding);
+        }
+        else if (binding.isMatchAny())
+        {
+            requiredHeaders.forEach(name -> add(_bindingsByHeaderName, name, binding));
+            matchedHeaders.forEach((name, value) -> add(_bindingsByHeaderValue, new HeaderValue(name, value), binding));
+        }
+        else if (!matchedHeaders.isEmpty())
+        {
+            final Map.Entry<String, Object> anchor = matchedHeaders.entrySet().iterator().next();
+            add(_bindingsByHeaderValue, new HeaderValue(anchor.getKey(), anchor.getValue()), binding);
+        }
+        else
+        {
+            add(_bindingsByHeaderName, requiredHeaders.iterator().next(), binding);
+        }
+    }
+
+    void remove(final HeadersBinding binding)
+    {
+        final Set<String> requiredHeaders = binding.getRequiredHeaders();
+        final Map<String, Object> matchedHeaders = binding.getMatchedHeaders();
+        if (requiredHeaders.isEmpty() && matchedHeaders.isEmpty())
+        {
+            _unconditionalBindings.remove(binding);
+        }
+        else if (binding.isMatchAny())
+        {
+            requiredHeaders.forEach(name -> remove(_bindingsByHeaderName, name, binding));
+            matchedHeaders.forEach((name, value) -> remove(_bindingsByHeaderValue, new HeaderValue(name, value), binding));
+        }
+        else if (!matchedHeaders.isEmpty())
+        {
+            final Map.Entry<String, Object> anchor = matchedHeaders.entrySet().iterator().next();
+            remove(_bindingsByHeaderValue, new HeaderValue(anchor.getKey(), anchor.getValue()), binding);
+        }
+        else
+        {
+            remove(_bindingsByHeaderName, requiredHeaders.iterator().next(), binding);
+        }
+    }
+
+    /**
+     * Bindings which only require a header to be present are found by name alone, so a header carried with a
+     * <code>null</code> value still yields them; only the lookup of value constrained bindings needs a value.
+     */
+    Collection<HeadersBinding> getCandidates(final AMQMessageHeader headers)
+    {
+        final Collection<String> headerNames = headers == null ? null : headers.getHeaderNames();
+        if (headerNames == null || headerNames.isEmpty())
+        {
+            return _unconditionalBindings;
+        }
+
+        final Set<HeadersBinding> candidates = new HashSet<>(_unconditionalBindings);
+        for (String name : headerNames)
+        {
+            addAll(candidates, _bindingsByHeaderName.get(name));
+            final Object value = headers.getHeader(name);
+            if (value != null)
+            {
+                addAll(candidates, _bindingsByHeaderValue.get(new HeaderValue(name, value)));
+            }
+        }
+        return candidates;
+    }
+
+    private static void addAll(final Set<HeadersBinding> candidates, final Set<HeadersBinding> bindings)
+    {
+        if (bindings != null)
+        {
+            candidates.addAll(bindings);
+        }
+    }
+
+    private static <K> void add(final ConcurrentMap<K, Set<HeadersBinding>> index,
+                                final K key,
+                                final HeadersBinding binding)
+    {
+        index.compute(key, (k, bindings) ->
+        {
+            final Set<HeadersBinding> updated = bindings == null ? ConcurrentHashMap.newKeySet() : bindings;
+            updated.add(binding);
+            return updated;
+        });
+    }
+
+    private static <K> void remove(final ConcurrentMap<K, Set<HeadersBinding>> index,
+                                   final K key,
+                                   final HeadersBinding binding)
+    {
+        index.computeIfPresent(key, (k, bindings) ->
+        {
+            bindings.remove(binding);
+            return bindings.isEmpty() ? null : bindings;
+        });
+    }
+
+    private static final class HeaderValue
+    {
+        private final String _name;
+        private final Object _value;
+
+        private HeaderValue(final String name, final Object value)
+        {
+            _name = name;
+            _value = value;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass())
+            {
+                return false;
+            }
+            final HeaderValue that = (HeaderValue) o;
+            return _name.equals(that._name) && Objects.equals(_value, that._value);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * _name.hashCode() + Objects.hashCode(_value);
+        }
+    }
+}
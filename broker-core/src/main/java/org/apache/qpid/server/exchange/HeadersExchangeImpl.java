@@ -20,9 +20,7 @@
  */
 package org.apache.qpid.server.exchange;
 
-import java.util.Collections;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
@@ -70,7 +68,8 @@ public class HeadersExchangeImpl extends AbstractExchange<HeadersExchangeImpl> i
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HeadersExchangeImpl.class);
 
-    private final Set<HeadersBinding> _bindingHeaderMatchers = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Map<BindingIdentifier, HeadersBinding> _bindingHeaderMatchers = new ConcurrentHashMap<>();
+    private final HeadersBindingIndex _bindingIndex = new HeadersBindingIndex();
 
     @ManagedObjectFactoryConstructor
     public HeadersExchangeImpl(final Map<String, Object> attributes, final QueueManagingVirtualHost<?> vhost)
@@ -86,9 +85,10 @@ public class HeadersExchangeImpl extends AbstractExchange<HeadersExchangeImpl> i
     {
         LOGGER.debug("Exchange {}: routing message with headers {}", getName(), payload.getMessageHeader());
 
-        for (HeadersBinding hb : _bindingHeaderMatchers)
+        final Filterable filterable = Filterable.Factory.newInstance(payload, instanceProperties);
+        for (HeadersBinding hb : _bindingIndex.getCandidates(payload.getMessageHeader()))
         {
-            if (hb.matches(Filterable.Factory.newInstance(payload,instanceProperties)))
+            if (hb.matches(filterable))
             {
                 MessageDestination destination = hb.getBinding().getDestination();
 
@@ -109,26 +109,34 @@ public class HeadersExchangeImpl extends AbstractExchange<HeadersExchangeImpl> i
     @Override
     protected void onBind(final BindingIdentifier binding, Map<String,Object> arguments) throws AMQInvalidArgumentException
     {
-        _bindingHeaderMatchers.add(new HeadersBinding(binding, arguments));
+        updateBinding(binding, new HeadersBinding(binding, arguments));
     }
 
     @Override
     protected void onBindingUpdated(final BindingIdentifier binding, final Map<String, Object> arguments)  throws AMQInvalidArgumentException
     {
-        _bindingHeaderMatchers.add(new HeadersBinding(binding, arguments));
+        updateBinding(binding, new HeadersBinding(binding, arguments));
     }
 
     @Override
     protected void onUnbind(final BindingIdentifier binding)
     {
-        try
+        final HeadersBinding headersBinding = _bindingHeaderMatchers.remove(binding);
+        if (headersBinding != null)
         {
-            _bindingHeaderMatchers.remove(new HeadersBinding(binding, Collections.emptyMap()));
+            _bindingIndex.remove(headersBinding);
         }
-        catch (AMQInvalidArgumentException e)
+    }
+
+    private void updateBinding(final BindingIdentifier binding, final HeadersBinding headersBinding)
+    {
+        // index the new matcher before dropping the old one, so that a message routed concurrently sees at least one
+        // of them; should it see both, the queues of the routing result are a set so it is still enqueued once
+        _bindingIndex.add(headersBinding);
+        final HeadersBinding previous = _bindingHeaderMatchers.put(binding, headersBinding);
+        if (previous != null)
         {
-            // ignore
+            _bindingIndex.remove(previous);
         }
     }
-
 }
@@ -22,10 +22,19 @@ package org.apache.qpid.server.exchange;
 
 import org.apache.qpid.server.exchange.ExchangeDefaults;
 import org.apache.qpid.server.model.Exchange;
+import org.apache.qpid.server.model.ManagedContextDefault;
 import org.apache.qpid.server.model.ManagedObject;
 
 @ManagedObject( category = false, type = ExchangeDefaults.TOPIC_EXCHANGE_CLASS,
         amqpName = "org.apache.qpid.TopicExchange" )
 public interface TopicExchange<X extends TopicExchange<X>> extends Exchange<X>
 {
+    String TOPIC_MATCHER_REBUILD_DELAY = "topicExchange.matcherRebuildDelay";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = TOPIC_MATCHER_REBUILD_DELAY,
+            description = "Delay in milliseconds after a binding key is added or removed before the topic matching"
+                          + " automaton is rebuilt with or without it, allowing binding churn to be batched into a"
+                          + " single rebuild.  Until then added keys are matched by a separate automaton."
+                          + " A value of zero or less rebuilds the automaton immediately.")
+    long DEFAULT_TOPIC_MATCHER_REBUILD_DELAY = 5000L;
 }
@@ -27,11 +27,14 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.exchange.topic.TopicExchangeResult;
+import org.apache.qpid.server.exchange.topic.TopicMatcherAutomatonCache;
 import org.apache.qpid.server.exchange.topic.TopicMatcherResult;
 import org.apache.qpid.server.exchange.topic.TopicNormalizer;
 import org.apache.qpid.server.exchange.topic.TopicParser;
@@ -43,6 +46,7 @@ import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.message.RoutingResult;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.ManagedObjectFactoryConstructor;
+import org.apache.qpid.server.model.State;
 import org.apache.qpid.server.store.StorableMessageMetaData;
 import org.apache.qpid.server.util.ConnectionScopedRuntimeException;
 import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
@@ -51,7 +55,11 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(TopicExchangeImpl.class);
 
-    private final TopicParser _parser = new TopicParser();
+    private final AtomicBoolean _parserRebuildScheduled = new AtomicBoolean();
+
+    private volatile TopicParser _parser;
+
+    private volatile long _matcherRebuildDelay;
 
     private final Map<String, TopicExchangeResult> _topicExchangeResults = new ConcurrentHashMap<>();
 
@@ -63,6 +71,19 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
         super(attributes, vhost);
     }
 
+    @Override
+    protected void onOpen()
+    {
+        TopicMatcherAutomatonCache automatonCache = getVirtualHost().getTopicMatcherAutomatonCache();
+        if (automatonCache == null)
+        {
+            automatonCache = new TopicMatcherAutomatonCache(0);
+        }
+        _parser = new TopicParser(automatonCache);
+        _matcherRebuildDelay = getContextValue(Long.class, TOPIC_MATCHER_REBUILD_DELAY);
+        super.onOpen();
+    }
+
     @Override
     protected synchronized void onBindingUpdated(final BindingIdentifier binding, final Map<String, Object> newArguments)
             throws AMQInvalidArgumentException
@@ -108,8 +129,12 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
                 {
                     result.addUnfilteredDestination(messageDestination);
                 }
-                _parser.addBinding(routingKey, result);
+                _parser = _parser.addBinding(routingKey, result);
                 _topicExchangeResults.put(routingKey,result);
+                if (_parser.hasPendingBindings())
+                {
+                    scheduleParserRebuild();
+                }
             }
             else
             {
@@ -181,7 +206,12 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
                 result.removeUnfilteredDestination(binding.getDestination());
             }
 
-            // shall we delete the result from _topicExchangeResults if result is empty?
+            if (result.isEmpty())
+            {
+                _topicExchangeResults.remove(bindingKey);
+                _parser = _parser.removeBinding(bindingKey);
+                scheduleParserRebuild();
+            }
             return true;
         }
         else
@@ -190,6 +220,57 @@ class TopicExchangeImpl extends AbstractExchange<TopicExchangeImpl> implements T
         }
     }
 
+    private void scheduleParserRebuild()
+    {
+        if (_matcherRebuildDelay <= 0 || getVirtualHost().getState() != State.ACTIVE)
+        {
+            _parser = consolidate(_parser);
+        }
+        else if (_parserRebuildScheduled.compareAndSet(false, true))
+        {
+            try
+            {
+                getVirtualHost().scheduleTask(_matcherRebuildDelay, this::rebuildParser);
+            }
+            catch (RejectedExecutionException e)
+            {
+                _parserRebuildScheduled.set(false);
+                _parser = consolidate(_parser);
+            }
+        }
+    }
+
+    private void rebuildParser()
+    {
+        _parserRebuildScheduled.set(false);
+        final TopicParser parser = _parser;
+        if (isConsolidationRequired(parser))
+        {
+            final TopicParser rebuiltParser = consolidate(parser);
+            synchronized (this)
+            {
+                if (_parser == parser)
+                {
+                    _parser = rebuiltParser;
+                }
+                else if (isConsolidationRequired(_parser))
+                {
+                    scheduleParserRebuild();
+                }
+            }
+        }
+    }
+
+    private static boolean isConsolidationRequired(final TopicParser parser)
+    {
+        return parser.isRebuildRequired() || parser.hasPendingBindings();
+    }
+
+    private static TopicParser consolidate(final TopicParser parser)
+    {
+        return parser.isRebuildRequired() ? parser.rebuild() : parser.mergePendingBindings();
+    }
+
     private Map<MessageDestination, Set<String>> getMatchedDestinations(final Filterable message,
                                                                         final String routingKey)
     {
@@ -0,0 +1,66 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange.topic;
+
+/**
+ * The result recorded by a compiled binding key automaton. Automata matching binding keys rather than exchange
+ * specific results can be shared between exchanges.
+ */
+final class TopicBindingKey implements TopicMatcherResult
+{
+    private final String _bindingKey;
+
+    TopicBindingKey(final String bindingKey)
+    {
+        _bindingKey = bindingKey;
+    }
+
+    String getBindingKey()
+    {
+        return _bindingKey;
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+        return _bindingKey.equals(((TopicBindingKey) o)._bindingKey);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return _bindingKey.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return _bindingKey;
+    }
+}
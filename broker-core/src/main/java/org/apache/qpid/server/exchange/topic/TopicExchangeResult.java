@@ -58,6 +58,11 @@ public final class TopicExchangeResult implements TopicMatcherResult
         }
     }
 
+    public boolean isEmpty()
+    {
+        return _unfilteredDestinations.isEmpty() && _filteredDestinations.isEmpty();
+    }
+
     public void addBinding(AbstractExchange.BindingIdentifier binding, Map<String, Object> bindingArguments)
     {
         Object keyObject = bindingArguments != null ? bindingArguments.get(Binding.BINDING_ARGUMENT_REPLACEMENT_ROUTING_KEY) : null;
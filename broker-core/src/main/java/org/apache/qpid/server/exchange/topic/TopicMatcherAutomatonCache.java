@@ -0,0 +1,61 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange.topic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Compiled automata for normalized binding keys, shared by the topic exchanges of a virtual host so that binding the
+ * same key on several exchanges, or rebuilding an exchange's automaton, does not compile the key again.
+ * <p>
+ * Once the cache holds its maximum number of automata the least recently used are evicted.
+ */
+public class TopicMatcherAutomatonCache
+{
+    private final Cache<String, TopicMatcherDFAState> _stateMachines;
+
+    public TopicMatcherAutomatonCache(final int maximumSize)
+    {
+        _stateMachines = CacheBuilder.newBuilder().maximumSize(Math.max(maximumSize, 0)).build();
+    }
+
+    TopicMatcherDFAState getStateMachine(final TopicBindingKey bindingKey)
+    {
+        TopicMatcherDFAState stateMachine = _stateMachines.getIfPresent(bindingKey.getBindingKey());
+        if (stateMachine == null)
+        {
+            stateMachine = TopicParser.createStateMachine(bindingKey.getBindingKey(), bindingKey);
+            final TopicMatcherDFAState existing =
+                    _stateMachines.asMap().putIfAbsent(bindingKey.getBindingKey(), stateMachine);
+            if (existing != null)
+            {
+                stateMachine = existing;
+            }
+        }
+        return stateMachine;
+    }
+
+    public int getSize()
+    {
+        return (int) _stateMachines.size();
+    }
+}
@@ -67,19 +67,18 @@ public class TopicMatcherDFAState
     }
 
 
-    public Collection<TopicMatcherResult> parse(TopicWordDictionary dictionary, String routingKey)
+    public Collection<TopicMatcherResult> parse(String routingKey)
     {
-        return parse(dictionary, Arrays.asList(routingKey.split(TOPIC_DELIMITER)).iterator());
+        return parse(Arrays.asList(routingKey.split(TOPIC_DELIMITER)).iterator());
     }
 
-    private Collection<TopicMatcherResult> parse(final TopicWordDictionary dictionary,
-                                                 final Iterator<String> tokens)
+    private Collection<TopicMatcherResult> parse(final Iterator<String> tokens)
     {
         if(!tokens.hasNext())
         {
             return _results;
         }
-        TopicWord word = dictionary.getWord(tokens.next());
+        TopicWord word = TopicWord.valueOf(tokens.next());
         TopicMatcherDFAState nextState = _nextStateMap.get(word);
         if(nextState == null && word != TopicWord.ANY_WORD)
         {
@@ -95,7 +94,7 @@ public class TopicMatcherDFAState
             return _results;
         }
 
-        return nextState.parse(dictionary, tokens);
+        return nextState.parse(tokens);
 
     }
 
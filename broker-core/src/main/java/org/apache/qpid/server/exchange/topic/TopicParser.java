@@ -28,14 +28,35 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
-
-public class TopicParser
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A snapshot of the topic matching automaton of an exchange. Binding changes that alter the automaton produce a new
+ * snapshot which the exchange publishes in place of the old one, so that routing never observes a partially built
+ * automaton.
+ * <p>
+ * The automaton matches binding keys rather than the results themselves, which allows the compiled automaton for a
+ * binding key to be taken from a {@link TopicMatcherAutomatonCache} shared between the exchanges of a virtual host.
+ * The results for the binding keys are held in a concurrent map which successive snapshots share rather than copy,
+ * so that a bind or unbind costs the same however many bindings the exchange has; as a consequence only the most
+ * recent snapshot may be modified, which the exchange ensures by modifying it under its own lock.
+ * <p>
+ * Adding a binding key merges its automaton into a small automaton of pending keys, which is matched alongside the
+ * main one until it is {@link #mergePendingBindings() merged} into it, so that a burst of binds costs a single merge
+ * of the main automaton.  Removing a binding key only drops its result; the states it contributed remain in the
+ * automaton until the snapshot is {@link #rebuild() rebuilt}.
+ */
+public final class TopicParser
 {
     private static final String TOPIC_DELIMITER = "\\.";
+    private static final int MAXIMUM_PENDING_BINDING_KEYS = 64;
 
-    private final TopicWordDictionary _dictionary = new TopicWordDictionary();
-    private final AtomicReference<TopicMatcherDFAState> _stateMachine = new AtomicReference<>();
+    private final TopicMatcherAutomatonCache _automatonCache;
+    private final TopicMatcherDFAState _stateMachine;
+    private final TopicMatcherDFAState _pendingStateMachine;
+    private final int _pendingBindingKeyCount;
+    private final Set<TopicBindingKey> _compiledBindingKeys;
+    private final Map<TopicBindingKey, TopicMatcherResult> _results;
 
     private static class Position
     {
@@ -95,44 +116,179 @@ public class TopicParser
     }
 
 
-    public void addBinding(String bindingKey, TopicMatcherResult result)
+    public TopicParser(final TopicMatcherAutomatonCache automatonCache)
     {
+        this(automatonCache, null, null, 0, ConcurrentHashMap.newKeySet(), new ConcurrentHashMap<>());
+    }
 
-        TopicMatcherDFAState startingStateMachine;
-        TopicMatcherDFAState newStateMachine;
+    private TopicParser(final TopicMatcherAutomatonCache automatonCache,
+                        final TopicMatcherDFAState stateMachine,
+                        final TopicMatcherDFAState pendingStateMachine,
+                        final int pendingBindingKeyCount,
+                        final Set<TopicBindingKey> compiledBindingKeys,
+                        final Map<TopicBindingKey, TopicMatcherResult> results)
+    {
+        _automatonCache = automatonCache;
+        _stateMachine = stateMachine;
+        _pendingStateMachine = pendingStateMachine;
+        _pendingBindingKeyCount = pendingBindingKeyCount;
+        _compiledBindingKeys = compiledBindingKeys;
+        _results = results;
+    }
 
-        do
+    public TopicParser addBinding(String bindingKey, TopicMatcherResult result)
+    {
+        final TopicBindingKey key = new TopicBindingKey(bindingKey);
+        if (_compiledBindingKeys.contains(key))
         {
-            startingStateMachine = _stateMachine.get();
-            if(startingStateMachine == null)
+            if (_results.put(key, result) != null)
             {
-                newStateMachine = createStateMachine(bindingKey, result);
-            }
-            else
-            {
-                newStateMachine = startingStateMachine.mergeStateMachines(createStateMachine(bindingKey, result));
+                return this;
             }
+            // a snapshot rebuilt concurrently may have left out the states of this key, so must not be published
+            return new TopicParser(_automatonCache,
+                                   _stateMachine,
+                                   _pendingStateMachine,
+                                   _pendingBindingKeyCount,
+                                   _compiledBindingKeys,
+                                   _results);
+        }
+
+        _compiledBindingKeys.add(key);
+        _results.put(key, result);
+        final TopicMatcherDFAState bindingStateMachine = _automatonCache.getStateMachine(key);
+        final TopicMatcherDFAState pendingStateMachine = _pendingStateMachine == null
+                ? bindingStateMachine
+                : _pendingStateMachine.mergeStateMachines(bindingStateMachine);
+        final TopicParser parser = new TopicParser(_automatonCache,
+                                                   _stateMachine,
+                                                   pendingStateMachine,
+                                                   _pendingBindingKeyCount + 1,
+                                                   _compiledBindingKeys,
+                                                   _results);
+        return parser._pendingBindingKeyCount >= MAXIMUM_PENDING_BINDING_KEYS ? parser.mergePendingBindings() : parser;
+    }
+
+    public TopicParser removeBinding(String bindingKey)
+    {
+        _results.remove(new TopicBindingKey(bindingKey));
+        return this;
+    }
 
+    /**
+     * @return true if binding keys have been added whose automata have not yet been merged into the main automaton
+     */
+    public boolean hasPendingBindings()
+    {
+        return _pendingStateMachine != null;
+    }
+
+    /**
+     * @return a snapshot matching the same binding keys as this one with the pending automaton merged into the main one
+     */
+    public TopicParser mergePendingBindings()
+    {
+        if (_pendingStateMachine == null)
+        {
+            return this;
         }
-        while(!_stateMachine.compareAndSet(startingStateMachine,newStateMachine));
+        final TopicMatcherDFAState stateMachine = _stateMachine == null
+                ? _pendingStateMachine
+                : _stateMachine.mergeStateMachines(_pendingStateMachine);
+        return new TopicParser(_automatonCache, stateMachine, null, 0, _compiledBindingKeys, _results);
+    }
+
+    /**
+     * @return true if the automaton still contains states for binding keys which have since been removed
+     */
+    public boolean isRebuildRequired()
+    {
+        return _compiledBindingKeys.size() != _results.size();
+    }
 
+    /**
+     * @return a snapshot matching the same binding keys as this one whose automaton is built from only those keys
+     */
+    public TopicParser rebuild()
+    {
+        TopicMatcherDFAState stateMachine = null;
+        final Set<TopicBindingKey> compiledBindingKeys = ConcurrentHashMap.newKeySet();
+        compiledBindingKeys.addAll(_results.keySet());
+        for (TopicBindingKey key : compiledBindingKeys)
+        {
+            final TopicMatcherDFAState bindingStateMachine = _automatonCache.getStateMachine(key);
+            stateMachine = stateMachine == null
+                    ? bindingStateMachine
+                    : stateMachine.mergeStateMachines(bindingStateMachine);
+        }
+        return new TopicParser(_automatonCache, stateMachine, null, 0, compiledBindingKeys, _results);
     }
 
     public Collection<TopicMatcherResult> parse(String routingKey)
     {
-        TopicMatcherDFAState stateMachine = _stateMachine.get();
-        if(stateMachine == null)
+        final Collection<TopicMatcherResult> matchedKeys;
+        if (_pendingStateMachine == null)
+        {
+            if (_stateMachine == null)
+            {
+                return Collections.emptySet();
+            }
+            matchedKeys = _stateMachine.parse(routingKey);
+        }
+        else
+        {
+            final Collection<TopicMatcherResult> pendingKeys =
+                    _pendingStateMachine.parse(routingKey);
+            if (_stateMachine == null)
+            {
+                matchedKeys = pendingKeys;
+            }
+            else
+            {
+                final Collection<TopicMatcherResult> mainKeys =
+                        _stateMachine.parse(routingKey);
+                if (pendingKeys.isEmpty())
+                {
+                    matchedKeys = mainKeys;
+                }
+                else if (mainKeys.isEmpty())
+                {
+                    matchedKeys = pendingKeys;
+                }
+                else
+                {
+                    matchedKeys = new ArrayList<>(mainKeys.size() + pendingKeys.size());
+                    matchedKeys.addAll(mainKeys);
+                    matchedKeys.addAll(pendingKeys);
+                }
+            }
+        }
+        if (matchedKeys.isEmpty())
         {
             return Collections.emptySet();
         }
+        else if (matchedKeys.size() == 1)
+        {
+            final TopicMatcherResult result = _results.get(matchedKeys.iterator().next());
+            return result == null ? Collections.emptySet() : Collections.singleton(result);
+        }
         else
         {
-            return stateMachine.parse(_dictionary,routingKey);
+            final List<TopicMatcherResult> results = new ArrayList<>(matchedKeys.size());
+            for (TopicMatcherResult matchedKey : matchedKeys)
+            {
+                final TopicMatcherResult result = _results.get(matchedKey);
+                if (result != null)
+                {
+                    results.add(result);
+                }
+            }
+            return results;
         }
     }
 
-
-    private TopicMatcherDFAState createStateMachine(String bindingKey, TopicMatcherResult result)
+    static TopicMatcherDFAState createStateMachine(final String bindingKey,
+                                                   final TopicMatcherResult result)
     {
         List<TopicWord> wordList = createTopicWordList(bindingKey);
         int wildCards = 0;
@@ -291,7 +447,7 @@ public class TopicParser
 
 
 
-    private void calculateNextStates(final SimpleState state,
+    private static void calculateNextStates(final SimpleState state,
                                      final Map<Set<Position>, SimpleState> stateMap,
                                      final Position[] positions)
     {
@@ -419,7 +575,7 @@ public class TopicParser
 
     }
 
-    private List<TopicWord> createTopicWordList(final String bindingKey)
+    private static List<TopicWord> createTopicWordList(final String bindingKey)
     {
         String[] tokens = bindingKey.split(TOPIC_DELIMITER);
         TopicWord previousWord = null;
@@ -428,7 +584,7 @@ public class TopicParser
 
         for(String token : tokens)
         {
-            TopicWord nextWord = _dictionary.getOrCreateWord(token);
+            TopicWord nextWord = TopicWord.valueOf(token);
             if(previousWord == TopicWord.WILDCARD_WORD)
             {
 
@@ -25,13 +25,38 @@ public final class TopicWord
 {
     public static final TopicWord ANY_WORD = new TopicWord("*");
     public static final TopicWord WILDCARD_WORD = new TopicWord("#");
-    private String _word;
+    private final String _word;
 
     public TopicWord(String s)
     {
         _word = s;
     }
 
+    static TopicWord valueOf(final String word)
+    {
+        if (ANY_WORD._word.equals(word))
+        {
+            return ANY_WORD;
+        }
+        else if (WILDCARD_WORD._word.equals(word))
+        {
+            return WILDCARD_WORD;
+        }
+        return new TopicWord(word);
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        return this == o || (o instanceof TopicWord && _word.equals(((TopicWord) o)._word));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return _word.hashCode();
+    }
+
     @Override
     public String toString()
     {
@@ -34,15 +34,57 @@ public class JMSSelectorFilter implements MessageFilter
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(JMSSelectorFilter.class);
 
-    private String _selector;
-    private BooleanExpression _matcher;
+    private final String _selector;
+    private final BooleanExpression<FilterableMessage> _matcher;
+    private final boolean _compiled;
 
     public JMSSelectorFilter(String selector) throws ParseException, TokenMgrError, SelectorParsingException
+    {
+        this(selector, false);
+    }
+
+    public JMSSelectorFilter(String selector, boolean compile) throws ParseException, TokenMgrError, SelectorParsingException
     {
         _selector = selector;
         SelectorParser<FilterableMessage> selectorParser = new SelectorParser<>();
         selectorParser.setPropertyExpressionFactory(JMSMessagePropertyExpression.FACTORY);
-        _matcher = selectorParser.parse(selector);
+        final BooleanExpression<FilterableMessage> matcher = selectorParser.parse(selector);
+        _matcher = compile ? compile(matcher) : matcher;
+        _compiled = _matcher != matcher;
+    }
+
+    private JMSSelectorFilter(final String selector, final BooleanExpression<FilterableMessage> interpreted)
+    {
+        _selector = selector;
+        _matcher = compile(interpreted);
+        _compiled = _matcher != interpreted;
+    }
+
+    /**
+     * @return a filter for the same selector evaluated by a {@link SelectorCompiler compiled} form of its expression,
+     * or this filter if it is already compiled
+     */
+    public JMSSelectorFilter toCompiled()
+    {
+        return _compiled ? this : new JMSSelectorFilter(_selector, _matcher);
+    }
+
+    public boolean isCompiled()
+    {
+        return _compiled;
+    }
+
+    private BooleanExpression<FilterableMessage> compile(final BooleanExpression<FilterableMessage> matcher)
+    {
+        try
+        {
+            return SelectorCompiler.compile(matcher);
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.debug("Selector '{}' could not be compiled, it will be interpreted instead", _selector, e);
+            return matcher;
+        }
     }
 
     @Override
@@ -0,0 +1,518 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.filter;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles a parsed selector into a tree of evaluators specialised for the shape of each node.
+ * <p>
+ * The compiled form keeps the three valued logic of the interpreter in primitive ints rather than boxed Booleans,
+ * short-circuits AND and OR without allocating, compares numeric operands against pre-converted constants using
+ * primitive comparisons, tests IN lists of strings with a hash lookup and turns simple LIKE patterns into
+ * string prefix, suffix or containment tests. Operands of a type the compiled form does not handle are passed to
+ * the interpreted node, so the compiled selector always produces the same result as the interpreter.
+ * <p>
+ * Selectors containing a boolean node the compiler does not recognise cannot be compiled and {@link #compile} throws
+ * {@link UnsupportedOperationException}; callers are expected to fall back to the interpreted expression.
+ */
+public final class SelectorCompiler
+{
+    private static final int FALSE = 0;
+    private static final int TRUE = 1;
+    private static final int UNKNOWN = -1;
+
+    private static final int KIND_OTHER = -1;
+    private static final int KIND_BYTE = 0;
+    private static final int KIND_SHORT = 1;
+    private static final int KIND_INTEGER = 2;
+    private static final int KIND_LONG = 3;
+    private static final int KIND_FLOAT = 4;
+    private static final int KIND_DOUBLE = 5;
+
+    private static final int DOMAIN_NONE = 0;
+    private static final int DOMAIN_LONG = 1;
+    private static final int DOMAIN_FLOAT = 2;
+    private static final int DOMAIN_DOUBLE = 3;
+
+    /**
+     * The domain in which two numbers of the given kinds are compared, indexed by the kind of the left and then the
+     * right operand. This mirrors the conversions made by {@link ComparisonExpression}, including the combinations
+     * it does not convert and which therefore never match.
+     */
+    private static final int[][] COMPARISON_DOMAINS =
+            {
+                    // right:  BYTE          SHORT         INTEGER        LONG           FLOAT          DOUBLE
+                    /* BYTE */ {DOMAIN_LONG, DOMAIN_LONG, DOMAIN_LONG, DOMAIN_LONG, DOMAIN_FLOAT, DOMAIN_DOUBLE},
+                    /* SHORT */ {DOMAIN_NONE, DOMAIN_LONG, DOMAIN_LONG, DOMAIN_LONG, DOMAIN_FLOAT, DOMAIN_DOUBLE},
+                    /* INTEGER */ {DOMAIN_NONE, DOMAIN_NONE, DOMAIN_LONG, DOMAIN_LONG, DOMAIN_FLOAT, DOMAIN_DOUBLE},
+                    /* LONG */ {DOMAIN_NONE, DOMAIN_NONE, DOMAIN_LONG, DOMAIN_LONG, DOMAIN_FLOAT, DOMAIN_DOUBLE},
+                    /* FLOAT */ {DOMAIN_NONE, DOMAIN_NONE, DOMAIN_FLOAT, DOMAIN_FLOAT, DOMAIN_FLOAT, DOMAIN_DOUBLE},
+                    /* DOUBLE */ {DOMAIN_NONE, DOMAIN_NONE, DOMAIN_DOUBLE, DOMAIN_DOUBLE, DOMAIN_DOUBLE, DOMAIN_DOUBLE}
+            };
+
+    private SelectorCompiler()
+    {
+    }
+
+    public static <E> BooleanExpression<E> compile(final BooleanExpression<E> expression)
+    {
+        return new CompiledSelector<>(expression, compileBoolean(expression));
+    }
+
+    private interface Evaluator<E>
+    {
+        /**
+         * @return {@link #TRUE}, {@link #FALSE} or {@link #UNKNOWN}
+         */
+        int evaluate(E message);
+    }
+
+    private static final class CompiledSelector<E> implements BooleanExpression<E>
+    {
+        private final BooleanExpression<E> _expression;
+        private final Evaluator<E> _evaluator;
+
+        private CompiledSelector(final BooleanExpression<E> expression, final Evaluator<E> evaluator)
+        {
+            _expression = expression;
+            _evaluator = evaluator;
+        }
+
+        @Override
+        public boolean matches(final E message)
+        {
+            return _evaluator.evaluate(message) == TRUE;
+        }
+
+        @Override
+        public Object evaluate(final E message)
+        {
+            return toBoolean(_evaluator.evaluate(message));
+        }
+
+        @Override
+        public String toString()
+        {
+            return _expression.toString();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Evaluator<E> compileBoolean(final Expression<E> expression)
+    {
+        if (expression instanceof ConstantExpression.BooleanConstantExpression)
+        {
+            final int value = fromBoolean(((ConstantExpression<E>) expression).getValue());
+            return message -> value;
+        }
+        else if (expression instanceof LogicExpression)
+        {
+            final LogicExpression<E> logicExpression = (LogicExpression<E>) expression;
+            final Evaluator<E> left = compileBoolean(logicExpression.getLeft());
+            final Evaluator<E> right = compileBoolean(logicExpression.getRight());
+            switch (logicExpression.getExpressionSymbol())
+            {
+                case "AND":
+                    return message ->
+                    {
+                        final int leftValue = left.evaluate(message);
+                        return leftValue == TRUE ? right.evaluate(message) : leftValue;
+                    };
+                case "OR":
+                    return message ->
+                    {
+                        final int leftValue = left.evaluate(message);
+                        return leftValue == TRUE ? TRUE : right.evaluate(message);
+                    };
+                default:
+                    throw new UnsupportedOperationException("Cannot compile logic expression " + expression);
+            }
+        }
+        else if (expression instanceof ComparisonExpression.LikeExpression)
+        {
+            return compileLike((ComparisonExpression.LikeExpression<E>) expression);
+        }
+        else if (expression instanceof UnaryExpression.InExpression)
+        {
+            return compileIn((UnaryExpression.InExpression<E>) expression);
+        }
+        else if (expression instanceof ComparisonExpression)
+        {
+            return compileComparison((ComparisonExpression<E>) expression);
+        }
+        else if (expression instanceof UnaryExpression && expression instanceof BooleanExpression)
+        {
+            final UnaryExpression<E> unaryExpression = (UnaryExpression<E>) expression;
+            switch (unaryExpression.getExpressionSymbol())
+            {
+                case "NOT":
+                    final Evaluator<E> operand = compileBoolean(unaryExpression.getRight());
+                    return message ->
+                    {
+                        final int value = operand.evaluate(message);
+                        return value == UNKNOWN ? UNKNOWN : value ^ TRUE;
+                    };
+                case "":
+                    final Expression<E> castOperand = unaryExpression.getRight();
+                    return message ->
+                    {
+                        final Object value = castOperand.evaluate(message);
+                        if (value == null)
+                        {
+                            return UNKNOWN;
+                        }
+                        return value instanceof Boolean && (Boolean) value ? TRUE : FALSE;
+                    };
+                default:
+                    throw new UnsupportedOperationException("Cannot compile unary expression " + expression);
+            }
+        }
+        throw new UnsupportedOperationException("Cannot compile expression " + expression);
+    }
+
+    private static <E> Evaluator<E> compileComparison(final ComparisonExpression<E> comparison)
+    {
+        final boolean equality = "=".equals(comparison.getExpressionSymbol());
+        final Expression<E> left = comparison.getLeft();
+        final Expression<E> right = comparison.getRight();
+
+        if (equality && right instanceof ConstantExpression && ((ConstantExpression<E>) right).getValue() == null)
+        {
+            return message -> left.evaluate(message) == null ? TRUE : FALSE;
+        }
+
+        final boolean constantOnRight = right instanceof ConstantExpression && !(left instanceof ConstantExpression);
+        final boolean constantOnLeft = left instanceof ConstantExpression && !(right instanceof ConstantExpression);
+        if (!constantOnLeft && !constantOnRight)
+        {
+            return interpreted(comparison);
+        }
+
+        final Expression<E> operand = constantOnRight ? left : right;
+        final Object constant = ((ConstantExpression<E>) (constantOnRight ? right : left)).getValue();
+        final int constantKind = kindOf(constant);
+
+        if (constantKind != KIND_OTHER)
+        {
+            final Number number = (Number) constant;
+            final ComparisonOperator operator =
+                    ComparisonOperator.forSymbol(comparison.getExpressionSymbol(), constantOnLeft);
+            if (operator == null)
+            {
+                return interpreted(comparison);
+            }
+            final int[] domains = new int[COMPARISON_DOMAINS.length];
+            for (int kind = 0; kind < domains.length; kind++)
+            {
+                domains[kind] = constantOnRight
+                        ? COMPARISON_DOMAINS[kind][constantKind]
+                        : COMPARISON_DOMAINS[constantKind][kind];
+            }
+            final long longConstant = number.longValue();
+            final float floatConstant = number.floatValue();
+            final double doubleConstant = number.doubleValue();
+            final int unmatchedValue = equality ? FALSE : UNKNOWN;
+
+            return message ->
+            {
+                final Object value = operand.evaluate(message);
+                if (value == null)
+                {
+                    return unmatchedValue;
+                }
+                final int kind = kindOf(value);
+                if (kind == KIND_OTHER)
+                {
+                    return fromBoolean(comparison.evaluate(message));
+                }
+                final Number numberValue = (Number) value;
+                final int result;
+                switch (domains[kind])
+                {
+                    case DOMAIN_LONG:
+                        result = Long.compare(numberValue.longValue(), longConstant);
+                        break;
+                    case DOMAIN_FLOAT:
+                        result = Float.compare(numberValue.floatValue(), floatConstant);
+                        break;
+                    case DOMAIN_DOUBLE:
+                        result = Double.compare(numberValue.doubleValue(), doubleConstant);
+                        break;
+                    default:
+                        return FALSE;
+                }
+                return operator.test(result) ? TRUE : FALSE;
+            };
+        }
+        else if (equality && (constant instanceof String || constant instanceof Boolean))
+        {
+            final Class<?> constantClass = constant.getClass();
+            return message ->
+            {
+                final Object value = operand.evaluate(message);
+                if (value == null)
+                {
+                    return FALSE;
+                }
+                if (value.getClass() == constantClass)
+                {
+                    return constant.equals(value) ? TRUE : FALSE;
+                }
+                return fromBoolean(comparison.evaluate(message));
+            };
+        }
+        return interpreted(comparison);
+    }
+
+    private static <E> Evaluator<E> compileIn(final UnaryExpression.InExpression<E> inExpression)
+    {
+        final Collection<?> inList = inExpression.getInList();
+        final Set<String> strings = new HashSet<>();
+        if (inList != null)
+        {
+            for (Object element : inList)
+            {
+                if (!(element instanceof String))
+                {
+                    return interpreted(inExpression);
+                }
+                strings.add((String) element);
+            }
+        }
+
+        final Expression<E> operand = inExpression.getRight();
+        final boolean allowNonJms = inExpression.isAllowNonJms();
+        final int found = inExpression.isNot() ? FALSE : TRUE;
+        final int notFound = found ^ TRUE;
+        return message ->
+        {
+            final Object value = operand.evaluate(message);
+            if (value instanceof String)
+            {
+                return strings.contains(value) ? found : notFound;
+            }
+            else if (value == null || !allowNonJms)
+            {
+                return UNKNOWN;
+            }
+            return fromBoolean(inExpression.evaluate(message));
+        };
+    }
+
+    private static <E> Evaluator<E> compileLike(final ComparisonExpression.LikeExpression<E> likeExpression)
+    {
+        final Expression<E> operand = likeExpression.getRight();
+        final String like = likeExpression.getLike();
+        final int escape = likeExpression.getEscape();
+
+        final boolean simple = like.indexOf('_') == -1 && (escape == -1 || like.indexOf(escape) == -1);
+        final int firstWildcard = like.indexOf('%');
+        final int lastWildcard = like.lastIndexOf('%');
+        final String literal;
+        final LikeMatcher matcher;
+        if (!simple)
+        {
+            literal = null;
+            matcher = null;
+        }
+        else if (firstWildcard == -1)
+        {
+            literal = like;
+            matcher = String::equals;
+        }
+        else if (firstWildcard == like.length() - 1)
+        {
+            literal = like.substring(0, firstWildcard);
+            matcher = String::startsWith;
+        }
+        else if (lastWildcard == 0)
+        {
+            literal = like.substring(1);
+            matcher = String::endsWith;
+        }
+        else if (firstWildcard == 0 && lastWildcard == like.length() - 1
+                 && like.indexOf('%', 1) == lastWildcard)
+        {
+            literal = like.substring(1, lastWildcard);
+            matcher = String::contains;
+        }
+        else
+        {
+            literal = null;
+            matcher = null;
+        }
+
+        final Pattern pattern = likeExpression.getLikePattern();
+        return message ->
+        {
+            final Object value = operand.evaluate(message);
+            if (value == null)
+            {
+                return UNKNOWN;
+            }
+            if (!(value instanceof String))
+            {
+                return FALSE;
+            }
+            final boolean matches = matcher == null
+                    ? pattern.matcher((String) value).matches()
+                    : matcher.matches((String) value, literal);
+            return matches ? TRUE : FALSE;
+        };
+    }
+
+    private static <E> Evaluator<E> interpreted(final Expression<E> expression)
+    {
+        return message -> fromBoolean(expression.evaluate(message));
+    }
+
+    private static int kindOf(final Object value)
+    {
+        if (value == null)
+        {
+            return KIND_OTHER;
+        }
+        final Class<?> valueClass = value.getClass();
+        if (valueClass == Integer.class)
+        {
+            return KIND_INTEGER;
+        }
+        else if (valueClass == Long.class)
+        {
+            return KIND_LONG;
+        }
+        else if (valueClass == Double.class)
+        {
+            return KIND_DOUBLE;
+        }
+        else if (valueClass == Float.class)
+        {
+            return KIND_FLOAT;
+        }
+        else if (valueClass == Short.class)
+        {
+            return KIND_SHORT;
+        }
+        else if (valueClass == Byte.class)
+        {
+            return KIND_BYTE;
+        }
+        return KIND_OTHER;
+    }
+
+    private static int fromBoolean(final Object value)
+    {
+        if (value == null)
+        {
+            return UNKNOWN;
+        }
+        return value == Boolean.TRUE ? TRUE : FALSE;
+    }
+
+    private static Boolean toBoolean(final int value)
+    {
+        return value == UNKNOWN ? null : (value == TRUE ? Boolean.TRUE : Boolean.FALSE);
+    }
+
+    private interface LikeMatcher
+    {
+        boolean matches(String value, String literal);
+    }
+
+    private enum ComparisonOperator
+    {
+        EQUAL
+                {
+                    @Override
+                    boolean test(final int comparison)
+                    {
+                        return comparison == 0;
+                    }
+                },
+        GREATER_THAN
+                {
+                    @Override
+                    boolean test(final int comparison)
+                    {
+                        return comparison > 0;
+                    }
+                },
+        GREATER_THAN_OR_EQUAL
+                {
+                    @Override
+                    boolean test(final int comparison)
+                    {
+                        return comparison >= 0;
+                    }
+                },
+        LESS_THAN
+                {
+                    @Override
+                    boolean test(final int comparison)
+                    {
+                        return comparison < 0;
+                    }
+                },
+        LESS_THAN_OR_EQUAL
+                {
+                    @Override
+                    boolean test(final int comparison)
+                    {
+                        return comparison <= 0;
+                    }
+                };
+
+        /**
+         * @param comparison the result of comparing the operand with the constant
+         * @return true if the comparison satisfies the operator
+         */
+        abstract boolean test(int comparison);
+
+        /**
+         * @param symbol the operator symbol of the comparison expression
+         * @param constantOnLeft true if the constant is the left operand, in which case the operator is mirrored so
+         *                       that it may be applied to the result of comparing the operand with the constant
+         * @return the operator, or null if the symbol is not recognised
+         */
+        static ComparisonOperator forSymbol(final String symbol, final boolean constantOnLeft)
+        {
+            switch (symbol)
+            {
+                case "=":
+                    return EQUAL;
+                case ">":
+                    return constantOnLeft ? LESS_THAN : GREATER_THAN;
+                case ">=":
+                    return constantOnLeft ? LESS_THAN_OR_EQUAL : GREATER_THAN_OR_EQUAL;
+                case "<":
+                    return constantOnLeft ? GREATER_THAN : LESS_THAN;
+                case "<=":
+                    return constantOnLeft ? GREATER_THAN_OR_EQUAL : LESS_THAN_OR_EQUAL;
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -215,7 +215,7 @@ public abstract class UnaryExpression<T> implements Expression<T>
         }
     }
 
-    private static class InExpression<E> extends BooleanUnaryExpression<E>
+    static class InExpression<E> extends BooleanUnaryExpression<E>
     {
         private final Collection<?> _inList;
         private final boolean _not;
@@ -232,6 +232,21 @@ public abstract class UnaryExpression<T> implements Expression<T>
             _allowNonJms = allowNonJms;
         }
 
+        Collection<?> getInList()
+        {
+            return _inList;
+        }
+
+        boolean isNot()
+        {
+            return _not;
+        }
+
+        boolean isAllowNonJms()
+        {
+            return _allowNonJms;
+        }
+
         @Override
         public Object evaluate(E expression)
         {
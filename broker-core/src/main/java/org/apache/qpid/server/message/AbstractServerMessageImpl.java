@@ -29,6 +29,7 @@ import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.protocol.MessageConversionCache;
 import org.apache.qpid.server.store.StorableMessageMetaData;
 import org.apache.qpid.server.store.StoredMessage;
 import org.apache.qpid.server.store.TransactionLogResource;
@@ -43,11 +44,16 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
     private static final AtomicReferenceFieldUpdater<AbstractServerMessageImpl, Collection> _resourcesUpdater =
             AtomicReferenceFieldUpdater.newUpdater(AbstractServerMessageImpl.class, Collection.class,"_resources");
 
+    private static final AtomicReferenceFieldUpdater<AbstractServerMessageImpl, MessageConversionCache> _conversionCacheUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(AbstractServerMessageImpl.class, MessageConversionCache.class, "_conversionCache");
+
     private volatile int _referenceCount = 0;
     private final StoredMessage<T> _handle;
     private final Object _connectionReference;
     @SuppressWarnings("unused")
     private volatile Collection<UUID> _resources;
+    @SuppressWarnings("unused")
+    private volatile MessageConversionCache _conversionCache;
 
 
     public AbstractServerMessageImpl(StoredMessage<T> handle, Object connectionReference)
@@ -115,6 +121,11 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
                 updated = _refCountUpdater.compareAndSet(this, count, -1);
                 if (updated)
                 {
+                    final MessageConversionCache conversionCache = _conversionCache;
+                    if (conversionCache != null)
+                    {
+                        conversionCache.close();
+                    }
                     _handle.remove();
                 }
             }
@@ -163,6 +174,32 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
         return resources != null && !resources.isEmpty();
     }
 
+    /**
+     * Returns the cache in which consumers share conversions of this message into other formats. A cache is only
+     * provided while the message is held by more than one queue, since otherwise a conversion is rarely reused.
+     *
+     * @return the conversion cache, or null if conversions of this message should not be cached
+     */
+    public MessageConversionCache getConversionCache()
+    {
+        MessageConversionCache conversionCache = _conversionCache;
+        if (conversionCache == null)
+        {
+            final Collection<UUID> resources = _resources;
+            if (resources == null || resources.size() < 2 || _refCountUpdater.get(this) < 0)
+            {
+                return null;
+            }
+            _conversionCacheUpdater.compareAndSet(this, null, new MessageConversionCache());
+            conversionCache = _conversionCache;
+            if (_refCountUpdater.get(this) < 0)
+            {
+                conversionCache.close();
+            }
+        }
+        return conversionCache;
+    }
+
     @Override
     final public boolean isPersistent()
     {
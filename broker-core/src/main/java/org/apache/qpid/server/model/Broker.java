@@ -180,6 +180,12 @@ public interface Broker<X extends Broker<X>> extends ConfiguredObject<X>, EventL
     @ManagedContextDefault(name = BROKER_DIRECT_BYTE_BUFFER_POOL_SPARSITY_REALLOCATION_FRACTION)
     double DEFAULT_BROKER_DIRECT_BYTE_BUFFER_POOL_SPARSITY_REALLOCATION_FRACTION = 0.5;
 
+    String BROKER_DIRECT_BYTE_BUFFER_POOL_SIZE_CLASSES = "broker.directByteBufferPoolSizeClasses";
+    @ManagedContextDefault(name = BROKER_DIRECT_BYTE_BUFFER_POOL_SIZE_CLASSES,
+            description = "Number of buffer size classes held by the direct memory pool. The largest class is the"
+                          + " network buffer size, each further class is a quarter of the size of the previous one.")
+    int DEFAULT_BROKER_DIRECT_BYTE_BUFFER_POOL_SIZE_CLASSES = 3;
+
     @ManagedAttribute(validValues = {"org.apache.qpid.server.model.BrokerImpl#getAvailableConfigurationEncrypters()"})
     String getConfidentialConfigurationEncryptionProvider();
 
@@ -294,6 +300,27 @@ public interface Broker<X extends Broker<X>> extends ConfiguredObject<X>, EventL
             description = "Number of unused direct memory buffers currently in the pool.")
     long getNumberOfBuffersInPool();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE,
+            units = StatisticUnit.COUNT,
+            label = "Buffer Pool Hits",
+            description = "Number of direct memory buffer allocations satisfied from the pool.")
+    long getBufferPoolHitCount();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE,
+            units = StatisticUnit.COUNT,
+            label = "Buffer Pool Misses",
+            description = "Number of direct memory buffer allocations that could not be satisfied from the pool.")
+    long getBufferPoolMissCount();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE,
+            units = StatisticUnit.COUNT,
+            label = "Buffer Pool Depot Refills",
+            description = "Number of times a thread refilled its local buffer cache from the shared pool.")
+    long getBufferPoolDepotRefillCount();
+
     @SuppressWarnings("unused")
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME,
             units = StatisticUnit.BYTES,
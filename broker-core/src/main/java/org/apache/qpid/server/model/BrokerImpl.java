@@ -199,8 +199,9 @@ public class BrokerImpl extends AbstractContainer<BrokerImpl> implements Broker<
 
         _sparsityFraction = getContextValue(Double.class, BROKER_DIRECT_BYTE_BUFFER_POOL_SPARSITY_REALLOCATION_FRACTION);
         int poolSize = getContextValue(Integer.class, BROKER_DIRECT_BYTE_BUFFER_POOL_SIZE);
+        int numberOfSizeClasses = getContextValue(Integer.class, BROKER_DIRECT_BYTE_BUFFER_POOL_SIZE_CLASSES);
 
-        QpidByteBuffer.initialisePool(_networkBufferSize, poolSize, _sparsityFraction);
+        QpidByteBuffer.initialisePool(_networkBufferSize, poolSize, _sparsityFraction, numberOfSizeClasses);
     }
 
     @Override
@@ -902,6 +903,24 @@ public class BrokerImpl extends AbstractContainer<BrokerImpl> implements Broker<
         return QpidByteBuffer.getNumberOfBuffersInPool();
     }
 
+    @Override
+    public long getBufferPoolHitCount()
+    {
+        return QpidByteBuffer.getBufferPoolHitCount();
+    }
+
+    @Override
+    public long getBufferPoolMissCount()
+    {
+        return QpidByteBuffer.getBufferPoolMissCount();
+    }
+
+    @Override
+    public long getBufferPoolDepotRefillCount()
+    {
+        return QpidByteBuffer.getBufferPoolDepotRefillCount();
+    }
+
     @Override
     public long getInboundMessageSizeHighWatermark()
     {
@@ -137,6 +137,31 @@ public interface Connection<X extends Connection<X>> extends ConfiguredObject<X>
                       description = "Total number of messages received by this connection.")
     long getMessagesOut();
 
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Network Writes",
+                      description = "Total number of gathering writes made to the network by this connection.")
+    long getNetworkWrites();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT,
+                      label = "Buffers per Network Write",
+                      description = "Average number of buffers passed to each network write made by this connection.")
+    double getAverageBuffersPerNetworkWrite();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES,
+                      label = "Bytes per Network Write",
+                      description = "Average number of bytes written by each network write made by this connection.")
+    long getAverageBytesPerNetworkWrite();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "TLS Records",
+                      description = "Total number of TLS records written to the network by this connection.")
+    long getTlsRecordsWritten();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT,
+                      label = "TLS Records per Network Write",
+                      description = "Average number of TLS records carried by each network write made by this"
+                                    + " connection.")
+    double getAverageTlsRecordsPerNetworkWrite();
+
     @SuppressWarnings("unused")
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.ABSOLUTE_TIME, label = "Last I/O time",
                       description = "Time of last I/O operation performed by this connection.")
@@ -20,7 +20,10 @@
 
 package org.apache.qpid.server.model;
 
+import java.util.function.Function;
+
 import org.apache.qpid.server.message.MessageDestination;
+import org.apache.qpid.server.protocol.MessageDestinationCache;
 
 public class DestinationAddress
 {
@@ -29,6 +32,18 @@ public class DestinationAddress
     private final String _routingAddress;
 
     public DestinationAddress(NamedAddressSpace addressSpace, String routingAddress)
+    {
+        this(addressSpace, addressSpace::getAttainedMessageDestination, routingAddress);
+    }
+
+    public DestinationAddress(MessageDestinationCache destinationCache, String routingAddress)
+    {
+        this(destinationCache.getAddressSpace(), destinationCache::getAttainedMessageDestination, routingAddress);
+    }
+
+    private DestinationAddress(NamedAddressSpace addressSpace,
+                               Function<String, MessageDestination> destinationResolver,
+                               String routingAddress)
     {
         MessageDestination destination = null;
         String routingKey = routingAddress;
@@ -37,7 +52,7 @@ public class DestinationAddress
             String localRoutingAddress = addressSpace.getLocalAddress(routingAddress);
             if (!localRoutingAddress.contains("/"))
             {
-                destination = addressSpace.getAttainedMessageDestination(localRoutingAddress);
+                destination = destinationResolver.apply(localRoutingAddress);
                 if (destination != null)
                 {
                     routingKey = "";
@@ -46,7 +61,7 @@ public class DestinationAddress
             else if (!localRoutingAddress.startsWith("/"))
             {
                 String[] parts = localRoutingAddress.split("/", 2);
-                destination = addressSpace.getAttainedMessageDestination(parts[0]);
+                destination = destinationResolver.apply(parts[0]);
                 if (destination instanceof Exchange)
                 {
                     routingKey = parts[1];
@@ -48,6 +48,16 @@ public interface NamedAddressSpace extends Named
 
     MessageDestination getAttainedMessageDestination(String name, boolean mayCreate);
 
+    /**
+     * Returns a value that changes whenever a message destination is added to or removed from this address space,
+     * allowing resolved destinations to be cached until it next changes.  Address spaces that do not track their
+     * destinations return zero, and their destinations must not be cached.
+     */
+    default long getMessageDestinationsVersion()
+    {
+        return 0L;
+    }
+
     boolean registerConnection(AMQPConnection<?> connection,
                                final ConnectionEstablishmentPolicy connectionEstablishmentPolicy);
     void deregisterConnection(AMQPConnection<?> connection);
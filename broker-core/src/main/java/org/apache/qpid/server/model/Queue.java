@@ -190,6 +190,29 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
                           + " 'maximumQueueDepthBytes' and 'maximumQueueDepthMessages'.")
     double DEFAULT_FLOW_CONTROL_RESUME_LIMIT = 80.0;
 
+    String QUEUE_MESSAGE_ID_INDEX_ENABLED = "queue.messageIdIndexEnabled";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = QUEUE_MESSAGE_ID_INDEX_ENABLED,
+            description = "If true, the queue maintains an index of message id to queue entry so that management"
+                          + " operations addressing individual messages do not need to scan the queue.")
+    boolean DEFAULT_QUEUE_MESSAGE_ID_INDEX_ENABLED = false;
+
+    String QUEUE_STRIPED_STATISTICS = "queue.stripedStatistics";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = QUEUE_STRIPED_STATISTICS,
+            description = "If true, the queue keeps its statistics in striped counters which do not contend between"
+                          + " publishing and consuming threads. High water marks are then approximate: they are"
+                          + " updated when statistics are read and when the queue is checked by housekeeping, so"
+                          + " peaks between those times are not recorded.")
+    boolean DEFAULT_QUEUE_STRIPED_STATISTICS = false;
+
+    String QUEUE_SELECTOR_COMPILATION = "queue.selectorCompilation";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault( name = QUEUE_SELECTOR_COMPILATION,
+            description = "If true, JMS selectors of consumers created on the queue are evaluated by a compiled form"
+                          + " of the parsed expression rather than by the interpreter.")
+    boolean DEFAULT_QUEUE_SELECTOR_COMPILATION = false;
+
     @SuppressWarnings("unused")
     @DerivedAttribute
     boolean isQueueFlowStopped();
@@ -350,6 +373,11 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
 
     void visit(QueueEntryVisitor visitor);
 
+    /**
+     * Visits, in queue order, only those entries whose message ids are contained in the given collection.
+     */
+    void visit(Collection<Long> messageIds, QueueEntryVisitor visitor);
+
     ListenableFuture<Integer> deleteAndReturnCountAsync();
 
     int deleteAndReturnCount();
@@ -478,6 +506,18 @@ public interface Queue<X extends Queue<X>> extends ConfiguredObject<X>,
                       description = "Current age of oldest message on the queue.")
     long getOldestMessageAge();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Message Recovery Rate",
+                      description = "Number of entries of this queue recovered from the message store per second,"
+                                    + " averaged since its recovery began.  Zero when the queue is not being recovered.")
+    long getMessageRecoveryRate();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Message Recovery Time Remaining",
+                      description = "Estimate, in milliseconds, of the time until the recovery of this queue completes."
+                                    + "  Zero when the queue is not being recovered.")
+    long getMessageRecoveryTimeRemaining();
+
     @ManagedOperation(description = "move messages from this queue to another", changesConfiguredObjectState = false)
     List<Long> moveMessages(@Param(name = "destination", description = "The queue to which the messages should be moved", mandatory = true) Queue<?> destination,
                             @Param(name = "messageIds", description = "If provided, only messages in the queue whose (internal) message-id is supplied will be considered for moving") List<Long> messageIds,
@@ -47,6 +47,12 @@ public interface Session<X extends Session<X>> extends ConfiguredObject<X>
             description = "Maximum time, in milliseconds, for which a cached auth value may be retained")
     long PRODUCER_AUTH_CACHE_TIMEOUT_DEFAULT = 300000L;
 
+    String PRODUCER_DESTINATION_CACHE_SIZE = "producer.destinationCacheSize";
+    @ManagedContextDefault(name = PRODUCER_DESTINATION_CACHE_SIZE,
+            description = "Maximum number of distinct destination names for which a resolved destination may be held"
+                          + " by a session.  A value of zero disables the cache.")
+    int PRODUCER_DESTINATION_CACHE_SIZE_DEFAULT = 100;
+
 
     @DerivedAttribute
     int getChannelId();
@@ -66,6 +66,26 @@ public interface SystemConfig<X extends SystemConfig<X>> extends ConfiguredObjec
     @ManagedContextDefault(name = SystemConfig.POSIX_FILE_PERMISSIONS)
     String DEFAULT_POSIX_FILE_PERMISSIONS = "rw-r-----";
 
+    String JSON_CONFIG_STORE_JOURNAL_ENABLED = "qpid.jsonConfigStore.journal.enabled";
+    @ManagedContextDefault(name = SystemConfig.JSON_CONFIG_STORE_JOURNAL_ENABLED,
+            description = "If true, changes to JSON configuration stores are appended to a journal file rather than"
+                          + " rewriting the whole configuration file.  The journal is periodically compacted into"
+                          + " the configuration file.")
+    boolean DEFAULT_JSON_CONFIG_STORE_JOURNAL_ENABLED = false;
+
+    String JSON_CONFIG_STORE_COMPACTION_THRESHOLD = "qpid.jsonConfigStore.journal.compactionThreshold";
+    @ManagedContextDefault(name = SystemConfig.JSON_CONFIG_STORE_COMPACTION_THRESHOLD,
+            description = "Number of journal records after which the journal of a JSON configuration store is"
+                          + " compacted into the configuration file.")
+    int DEFAULT_JSON_CONFIG_STORE_COMPACTION_THRESHOLD = 10000;
+
+    String JSON_CONFIG_STORE_COMPACTION_INTERVAL = "qpid.jsonConfigStore.journal.compactionInterval";
+    @ManagedContextDefault(name = SystemConfig.JSON_CONFIG_STORE_COMPACTION_INTERVAL,
+            description = "Interval in milliseconds at which a non-empty journal of a JSON configuration store is"
+                          + " compacted into the configuration file.  A value of zero or less disables periodic"
+                          + " compaction.")
+    long DEFAULT_JSON_CONFIG_STORE_COMPACTION_INTERVAL = 60000L;
+
 
     String MANAGEMENT_MODE_USER_NAME = "mm_admin";
 
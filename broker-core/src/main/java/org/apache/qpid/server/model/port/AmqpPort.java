@@ -22,6 +22,7 @@ package org.apache.qpid.server.model.port;
 
 import java.net.SocketAddress;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.net.ssl.SSLContext;
@@ -30,6 +31,7 @@ import org.apache.qpid.server.model.DerivedAttribute;
 import org.apache.qpid.server.model.ManagedAttribute;
 import org.apache.qpid.server.model.ManagedContextDefault;
 import org.apache.qpid.server.model.ManagedObject;
+import org.apache.qpid.server.model.ManagedOperation;
 import org.apache.qpid.server.model.ManagedStatistic;
 import org.apache.qpid.server.model.Port;
 import org.apache.qpid.server.model.Protocol;
@@ -57,6 +59,9 @@ public interface AmqpPort<X extends AmqpPort<X>> extends Port<X>
 
     String PORT_AMQP_NUMBER_OF_SELECTORS = "qpid.port.amqp.threadPool.numberOfSelectors";
     String PORT_AMQP_ACCEPT_BACKLOG = "qpid.port.amqp.acceptBacklog";
+    String PORT_AMQP_MULTI_REACTOR = "qpid.port.amqp.threadPool.multiReactor";
+    String PORT_AMQP_WRITE_COALESCING_THRESHOLD = "qpid.port.amqp.writeCoalescingThreshold";
+    String PORT_AMQP_MAX_BUFFERS_PER_WRITE = "qpid.port.amqp.maxBuffersPerWrite";
 
     @ManagedContextDefault(name = DEFAULT_AMQP_PROTOCOLS)
     String INSTALLED_PROTOCOLS = AmqpPortImpl.getInstalledProtocolsAsString();
@@ -78,6 +83,29 @@ public interface AmqpPort<X extends AmqpPort<X>> extends Port<X>
     @ManagedContextDefault(name = PORT_AMQP_NUMBER_OF_SELECTORS)
     long DEFAULT_PORT_AMQP_NUMBER_OF_SELECTORS = Math.max(DEFAULT_PORT_AMQP_THREAD_POOL_SIZE / 8, 1);
 
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = PORT_AMQP_MULTI_REACTOR,
+                           description = "If true, every IO thread of the port owns its own selector and run queue."
+                                         + " Connections are pinned to the least loaded thread and an idle thread"
+                                         + " takes work from busy threads. The number of selectors is ignored."
+                                         + " Connections move to the IO pool of their virtual host once attached,"
+                                         + " which follows this setting as resolved in the context of the virtual"
+                                         + " host, so it should be set on the broker or on the virtual host as well.")
+    boolean DEFAULT_PORT_AMQP_MULTI_REACTOR = false;
+
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = PORT_AMQP_WRITE_COALESCING_THRESHOLD,
+                           description = "Outgoing frames of at most this size (in bytes) are copied into shared write"
+                                         + " buffers, so that runs of small frames are written as a single buffer."
+                                         + " A value of 0 disables coalescing.")
+    int DEFAULT_PORT_AMQP_WRITE_COALESCING_THRESHOLD = 1024;
+
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = PORT_AMQP_MAX_BUFFERS_PER_WRITE,
+                           description = "Maximum number of buffers passed to a single gathering network write."
+                                         + " A value of 0 or less removes the limit.")
+    int DEFAULT_PORT_AMQP_MAX_BUFFERS_PER_WRITE = 256;
+
     @SuppressWarnings("unused")
     @ManagedContextDefault(name = PORT_AMQP_ACCEPT_BACKLOG)
     int DEFAULT_PORT_AMQP_ACCEPT_BACKLOG = 1024;
@@ -126,6 +154,27 @@ public interface AmqpPort<X extends AmqpPort<X>> extends Port<X>
     @ManagedContextDefault(name = TLS_SESSION_CACHE_SIZE, description = "TLS session cache size for AMQP ports.")
     int DEFAULT_TLS_SESSION_CACHE_SIZE = 100;
 
+    String TLS_RECORD_COALESCING = "qpid.port.amqp.tls.recordCoalescing";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = TLS_RECORD_COALESCING,
+            description = "If true, outgoing application data is gathered into a staging buffer of the maximum TLS"
+                          + " record size before it is encrypted, so that runs of small frames share a TLS record.")
+    boolean DEFAULT_TLS_RECORD_COALESCING = false;
+
+    String TLS_OFFLOAD_DELEGATED_TASKS = "qpid.port.amqp.tls.offloadDelegatedTasks";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = TLS_OFFLOAD_DELEGATED_TASKS,
+            description = "If true, long running TLS engine tasks (such as those of the handshake) are run on a"
+                          + " separate thread pool rather than on the IO thread.")
+    boolean DEFAULT_TLS_OFFLOAD_DELEGATED_TASKS = false;
+
+    String TLS_DELEGATED_TASK_THREAD_POOL_SIZE = "qpid.port.amqp.tls.delegatedTaskThreadPool.size";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = TLS_DELEGATED_TASK_THREAD_POOL_SIZE,
+            description = "The maximum number of threads running offloaded TLS engine tasks for a port or"
+                          + " virtual host. Further tasks wait for a thread to become free.")
+    int DEFAULT_TLS_DELEGATED_TASK_THREAD_POOL_SIZE = 4;
+
     String CONNECTION_PROPERTY_ENRICHERS = "qpid.port.connection_property_enrichers";
     @SuppressWarnings("unused")
     @ManagedContextDefault(name = CONNECTION_PROPERTY_ENRICHERS,
@@ -171,6 +220,27 @@ public interface AmqpPort<X extends AmqpPort<X>> extends Port<X>
             description = "Total number of connections made through this port since broker startup")
     long getTotalConnectionCount();
 
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Stolen IO Work",
+                      description = "Total number of connection work items taken by an idle IO reactor from the run"
+                                    + " queue of another reactor. Always zero unless multi-reactor mode is enabled.")
+    long getStolenIoWorkCount();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT,
+                      label = "Maximum Reactor Queue Depth",
+                      description = "Current number of connection work items waiting in the longest IO reactor run"
+                                    + " queue. Always zero unless multi-reactor mode is enabled.")
+    int getMaximumReactorQueueDepth();
+
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT,
+                      label = "Maximum Reactor Connections",
+                      description = "Current number of connections assigned to the most loaded selector of this port")
+    int getMaximumReactorConnectionCount();
+
+    @ManagedOperation(description = "Returns the current load of each selector (or IO reactor) of this port",
+                      nonModifying = true,
+                      changesConfiguredObjectState = false)
+    List<Map<String, Object>> getReactorStatistics();
+
     @DerivedAttribute(description = "Maximum time allowed for a new connection to send a protocol header."
                                     + " If the connection does not send a protocol header within this time,"
                                     + " the connection will be aborted.")
@@ -203,5 +273,13 @@ public interface AmqpPort<X extends AmqpPort<X>> extends Port<X>
 
     int getNetworkBufferSize();
 
+    int getWriteCoalescingThreshold();
+
+    int getMaxBuffersPerWrite();
+
+    boolean isTlsRecordCoalescing();
+
+    boolean isTlsDelegatedTaskOffload();
+
     List<ConnectionPropertyEnricher> getConnectionPropertyEnrichers();
 }
@@ -68,6 +68,7 @@ import org.apache.qpid.server.plugin.ProtocolEngineCreator;
 import org.apache.qpid.server.plugin.QpidServiceLoader;
 import org.apache.qpid.server.plugin.TransportProviderFactory;
 import org.apache.qpid.server.transport.AcceptingTransport;
+import org.apache.qpid.server.transport.NetworkConnectionScheduler;
 import org.apache.qpid.server.transport.PortBindFailureException;
 import org.apache.qpid.server.transport.TransportProvider;
 import org.apache.qpid.server.transport.network.security.ssl.SSLUtil;
@@ -98,7 +99,7 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
     private final Container<?> _container;
     private final AtomicBoolean _closingOrDeleting = new AtomicBoolean();
 
-    private AcceptingTransport _transport;
+    private volatile AcceptingTransport _transport;
     private SSLContext _sslContext;
     private volatile int _connectionWarnCount;
     private volatile long _protocolHandshakeTimeout;
@@ -108,6 +109,10 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
     private volatile int _heartBeatDelay;
     private volatile int _tlsSessionTimeout;
     private volatile int _tlsSessionCacheSize;
+    private volatile int _writeCoalescingThreshold;
+    private volatile int _maxBuffersPerWrite;
+    private volatile boolean _tlsRecordCoalescing;
+    private volatile boolean _tlsDelegatedTaskOffload;
     private volatile List<ConnectionPropertyEnricher> _connectionPropertyEnrichers;
 
     @ManagedObjectFactoryConstructor
@@ -193,6 +198,10 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
         _heartBeatDelay = getContextValue(Integer.class, AmqpPort.HEART_BEAT_DELAY);
         _tlsSessionTimeout = getContextValue(Integer.class, AmqpPort.TLS_SESSION_TIMEOUT);
         _tlsSessionCacheSize = getContextValue(Integer.class, AmqpPort.TLS_SESSION_CACHE_SIZE);
+        _writeCoalescingThreshold = getContextValue(Integer.class, AmqpPort.PORT_AMQP_WRITE_COALESCING_THRESHOLD);
+        _maxBuffersPerWrite = getContextValue(Integer.class, AmqpPort.PORT_AMQP_MAX_BUFFERS_PER_WRITE);
+        _tlsRecordCoalescing = getContextValue(Boolean.class, AmqpPort.TLS_RECORD_COALESCING);
+        _tlsDelegatedTaskOffload = getContextValue(Boolean.class, AmqpPort.TLS_OFFLOAD_DELEGATED_TASKS);
 
         @SuppressWarnings("unchecked")
         List<String> configurationPropertyEnrichers = getContextValue(List.class, AmqpPort.CONNECTION_PROPERTY_ENRICHERS);
@@ -321,6 +330,30 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
         return _container.getNetworkBufferSize();
     }
 
+    @Override
+    public int getWriteCoalescingThreshold()
+    {
+        return _writeCoalescingThreshold;
+    }
+
+    @Override
+    public int getMaxBuffersPerWrite()
+    {
+        return _maxBuffersPerWrite;
+    }
+
+    @Override
+    public boolean isTlsRecordCoalescing()
+    {
+        return _tlsRecordCoalescing;
+    }
+
+    @Override
+    public boolean isTlsDelegatedTaskOffload()
+    {
+        return _tlsDelegatedTaskOffload;
+    }
+
     @Override
     public List<ConnectionPropertyEnricher> getConnectionPropertyEnrichers()
     {
@@ -603,6 +636,40 @@ public class AmqpPortImpl extends AbstractPort<AmqpPortImpl> implements AmqpPort
         return _totalConnectionCount.get();
     }
 
+    @Override
+    public long getStolenIoWorkCount()
+    {
+        final NetworkConnectionScheduler scheduler = getNetworkConnectionScheduler();
+        return scheduler == null ? 0L : scheduler.getStolenWorkCount();
+    }
+
+    @Override
+    public int getMaximumReactorQueueDepth()
+    {
+        final NetworkConnectionScheduler scheduler = getNetworkConnectionScheduler();
+        return scheduler == null ? 0 : scheduler.getMaximumReactorQueueDepth();
+    }
+
+    @Override
+    public int getMaximumReactorConnectionCount()
+    {
+        final NetworkConnectionScheduler scheduler = getNetworkConnectionScheduler();
+        return scheduler == null ? 0 : scheduler.getMaximumReactorConnectionCount();
+    }
+
+    @Override
+    public List<Map<String, Object>> getReactorStatistics()
+    {
+        final NetworkConnectionScheduler scheduler = getNetworkConnectionScheduler();
+        return scheduler == null ? Collections.emptyList() : scheduler.getReactorStatistics();
+    }
+
+    private NetworkConnectionScheduler getNetworkConnectionScheduler()
+    {
+        final AcceptingTransport transport = _transport;
+        return transport == null ? null : transport.getNetworkConnectionScheduler();
+    }
+
     @Override
     public long getProtocolHandshakeTimeout()
     {
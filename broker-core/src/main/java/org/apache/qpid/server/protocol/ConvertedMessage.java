@@ -0,0 +1,59 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol;
+
+import org.apache.qpid.server.message.ServerMessage;
+
+/**
+ * A message converted for delivery in another format. The holder must call {@link #release()} once the converted
+ * message has been sent, whether or not the conversion is shared with other consumers.
+ */
+public final class ConvertedMessage<N extends ServerMessage>
+{
+    private final N _message;
+    private final boolean _shared;
+    private final Runnable _releaseAction;
+
+    ConvertedMessage(final N message, final boolean shared, final Runnable releaseAction)
+    {
+        _message = message;
+        _shared = shared;
+        _releaseAction = releaseAction;
+    }
+
+    public N getMessage()
+    {
+        return _message;
+    }
+
+    /**
+     * @return true if the conversion was made earlier for another consumer and taken from the message's cache
+     */
+    public boolean isShared()
+    {
+        return _shared;
+    }
+
+    public void release()
+    {
+        _releaseAction.run();
+    }
+}
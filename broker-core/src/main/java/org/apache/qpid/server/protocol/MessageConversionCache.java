@@ -0,0 +1,185 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.NamedAddressSpace;
+import org.apache.qpid.server.plugin.MessageConverter;
+import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
+
+/**
+ * The converted representations of one message, keyed by the class of the converted message, so that consumers
+ * delivering the message in the same format share a single conversion.
+ * <p>
+ * Each conversion is reference counted: the cache holds one reference until it is closed when the message is
+ * deleted, and each consumer holds one while sending. The converter disposes of the converted message when the last
+ * reference is released.
+ * <p>
+ * A conversion is only retained if the virtual host reserves space for it. The retained size counts towards the
+ * in-memory size which the virtual host keeps below its flow to disk target, and the virtual host evicts retained
+ * conversions before flowing messages to disk.
+ */
+public final class MessageConversionCache
+{
+    private final ConcurrentMap<Class<? extends ServerMessage>, CachedConversion<?>> _conversions =
+            new ConcurrentHashMap<>(4);
+    private volatile boolean _closed;
+
+    <M extends ServerMessage, N extends ServerMessage> ConvertedMessage<N> convert(final M message,
+                                                                                 final Class<N> to,
+                                                                                 final MessageConverter<M, N> converter,
+                                                                                 final NamedAddressSpace addressSpace)
+    {
+        @SuppressWarnings("unchecked")
+        final CachedConversion<N> cached = (CachedConversion<N>) _conversions.get(to);
+        if (cached != null && cached.getAddressSpace() == addressSpace && cached.acquire())
+        {
+            return new ConvertedMessage<>(cached.getMessage(), true, cached::release);
+        }
+
+        final CachedConversion<N> conversion =
+                new CachedConversion<>(converter.convert(message, addressSpace), converter, addressSpace);
+        if (!_closed && cached == null && addressSpace instanceof QueueManagingVirtualHost)
+        {
+            final QueueManagingVirtualHost<?> virtualHost = (QueueManagingVirtualHost<?>) addressSpace;
+            final long size = conversion.getMessage().getSizeIncludingHeader();
+            if (virtualHost.reserveConversionCacheSpace(this, size))
+            {
+                conversion.acquire();
+                conversion.setReservedSize(size);
+                if (_conversions.putIfAbsent(to, conversion) != null
+                    || (_closed && _conversions.remove(to, conversion)))
+                {
+                    releaseCacheReference(conversion);
+                }
+                else
+                {
+                    virtualHost.registerConversionRetained();
+                }
+            }
+        }
+        return new ConvertedMessage<>(conversion.getMessage(), false, conversion::release);
+    }
+
+    public void close()
+    {
+        _closed = true;
+        evict();
+    }
+
+    /**
+     * Releases the conversions retained by this cache. Conversions still being sent are disposed of once their
+     * consumers release them.
+     *
+     * @return the size of the conversions released
+     */
+    public long evict()
+    {
+        long released = 0L;
+        for (Class<? extends ServerMessage> format : _conversions.keySet())
+        {
+            final CachedConversion<?> conversion = _conversions.remove(format);
+            if (conversion != null)
+            {
+                released += releaseCacheReference(conversion);
+            }
+        }
+        return released;
+    }
+
+    public int getSize()
+    {
+        return _conversions.size();
+    }
+
+    private long releaseCacheReference(final CachedConversion<?> conversion)
+    {
+        final long reservedSize = conversion.getReservedSize();
+        conversion.release();
+        ((QueueManagingVirtualHost<?>) conversion.getAddressSpace()).releaseConversionCacheSpace(this, reservedSize);
+        return reservedSize;
+    }
+
+    private static final class CachedConversion<N extends ServerMessage>
+    {
+        private final AtomicInteger _references = new AtomicInteger(1);
+        private final N _message;
+        private final MessageConverter<?, N> _converter;
+        private final NamedAddressSpace _addressSpace;
+        private long _reservedSize;
+
+        private CachedConversion(final N message,
+                                 final MessageConverter<?, N> converter,
+                                 final NamedAddressSpace addressSpace)
+        {
+            _message = message;
+            _converter = converter;
+            _addressSpace = addressSpace;
+        }
+
+        N getMessage()
+        {
+            return _message;
+        }
+
+        NamedAddressSpace getAddressSpace()
+        {
+            return _addressSpace;
+        }
+
+        long getReservedSize()
+        {
+            return _reservedSize;
+        }
+
+        void setReservedSize(final long reservedSize)
+        {
+            _reservedSize = reservedSize;
+        }
+
+        boolean acquire()
+        {
+            int count;
+            do
+            {
+                count = _references.get();
+                if (count <= 0)
+                {
+                    return false;
+                }
+            }
+            while (!_references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        void release()
+        {
+            if (_references.decrementAndGet() == 0)
+            {
+                _converter.dispose(_message);
+            }
+        }
+    }
+}
@@ -23,9 +23,13 @@ package org.apache.qpid.server.protocol;
 
 import java.util.HashMap;
 import java.util.Map;
+
+import org.apache.qpid.server.message.AbstractServerMessageImpl;
 import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.NamedAddressSpace;
 import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.plugin.QpidServiceLoader;
+import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
 
 public class MessageConverterRegistry
 {
@@ -56,4 +60,40 @@ public class MessageConverterRegistry
         }
         return map == null ? null : map.get(to);
     }
+
+    /**
+     * Converts a message for delivery, sharing the conversion with other consumers of the same message where the
+     * message keeps a conversion cache. Conversions made through the cache are counted in the statistics of the
+     * virtual host.
+     *
+     * @return the converted message, which must be released after sending, or null if there is no converter
+     */
+    public static <M extends ServerMessage, N extends ServerMessage> ConvertedMessage<N> convert(final M message,
+                                                                                               final Class<N> to,
+                                                                                               final NamedAddressSpace addressSpace)
+    {
+        @SuppressWarnings("unchecked")
+        final MessageConverter<M, N> converter = getConverter((Class<M>) message.getClass(), to);
+        if (converter == null)
+        {
+            return null;
+        }
+
+        final MessageConversionCache conversionCache = message instanceof AbstractServerMessageImpl
+                ? ((AbstractServerMessageImpl<?, ?>) message).getConversionCache()
+                : null;
+        if (conversionCache == null)
+        {
+            final N converted = converter.convert(message, addressSpace);
+            return new ConvertedMessage<>(converted, false, () -> converter.dispose(converted));
+        }
+
+        final ConvertedMessage<N> converted = conversionCache.convert(message, to, converter, addressSpace);
+        if (converted.isShared() && addressSpace instanceof QueueManagingVirtualHost)
+        {
+            final QueueManagingVirtualHost<?> virtualHost = (QueueManagingVirtualHost<?>) addressSpace;
+            virtualHost.registerConversionCacheHit(converted.getMessage().getSizeIncludingHeader());
+        }
+        return converted;
+    }
 }
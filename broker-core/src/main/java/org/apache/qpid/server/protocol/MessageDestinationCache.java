@@ -0,0 +1,88 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.qpid.server.message.MessageDestination;
+import org.apache.qpid.server.model.NamedAddressSpace;
+
+/**
+ * Caches the destinations resolved by a session on its publish path, so that a publisher repeatedly sending to the
+ * same address pays for a single hash lookup rather than a full resolution against the address space.  The cache is
+ * discarded whenever the address space reports that its destinations have changed.  Address spaces that do not
+ * report changes are never cached.
+ *
+ * Not thread safe: an instance must only be used by the thread processing its session.
+ */
+public class MessageDestinationCache
+{
+    private final NamedAddressSpace _addressSpace;
+    private final int _cacheSize;
+    private final LinkedHashMap<String, MessageDestination> _destinations =
+            new LinkedHashMap<String, MessageDestination>()
+            {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, MessageDestination> eldest)
+                {
+                    return size() > _cacheSize;
+                }
+            };
+    private long _version;
+
+    public MessageDestinationCache(final NamedAddressSpace addressSpace, final int cacheSize)
+    {
+        _addressSpace = addressSpace;
+        _cacheSize = cacheSize;
+    }
+
+    public NamedAddressSpace getAddressSpace()
+    {
+        return _addressSpace;
+    }
+
+    public MessageDestination getAttainedMessageDestination(final String name)
+    {
+        final long version = _addressSpace.getMessageDestinationsVersion();
+        if (version <= 0 || _cacheSize <= 0)
+        {
+            return _addressSpace.getAttainedMessageDestination(name);
+        }
+
+        if (version != _version)
+        {
+            _destinations.clear();
+            _version = version;
+        }
+
+        MessageDestination destination = _destinations.get(name);
+        if (destination == null)
+        {
+            destination = _addressSpace.getAttainedMessageDestination(name);
+            if (destination != null)
+            {
+                _destinations.put(name, destination);
+            }
+        }
+        return destination;
+    }
+}
@@ -156,6 +156,8 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     private QueueConsumerManagerImpl _queueConsumerManager;
 
+    private final SelectorRegistry _selectorRegistry = new SelectorRegistry();
+
     @ManagedAttributeField( beforeSet = "preSetAlternateBinding", afterSet = "postSetAlternateBinding")
     private AlternateBinding _alternateBinding;
 
@@ -163,7 +165,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
     private final AtomicInteger _activeSubscriberCount = new AtomicInteger();
 
-    private final QueueStatistics _queueStatistics = new QueueStatistics();
+    private volatile QueueStatistics _queueStatistics = new QueueStatistics();
 
     /** max allowed size(KB) of a single message */
     @ManagedAttributeField( afterSet = "updateAlertChecks" )
@@ -279,6 +281,9 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     private long _flowToDiskThreshold;
     private volatile MessageDestination _alternateBindingDestination;
     private volatile MessageConversionExceptionHandlingPolicy _messageConversionExceptionHandlingPolicy;
+    private MessageIdIndex _messageIdIndex;
+    private volatile ExpiryTimingWheel _expiryTimingWheel;
+    private final FlowToDiskEvictor _flowToDiskEvictor = new FlowToDiskEvictor();
 
     private interface HoldMethod
     {
@@ -371,6 +376,21 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         _logSubject = new QueueLogSubject(this);
 
         _queueHouseKeepingTask = new AdvanceConsumersTask();
+        if (getContextValue(Boolean.class, QUEUE_STRIPED_STATISTICS))
+        {
+            _queueStatistics = new QueueStatistics(true);
+        }
+        if (getContextValue(Boolean.class, QUEUE_MESSAGE_ID_INDEX_ENABLED))
+        {
+            _messageIdIndex = new MessageIdIndex();
+        }
+        final long expiryTimingWheelTickDuration =
+                getContextValue(Long.class, QueueManagingVirtualHost.EXPIRY_TIMING_WHEEL_TICK_DURATION);
+        if (expiryTimingWheelTickDuration > 0)
+        {
+            _expiryTimingWheel = new ExpiryTimingWheel(expiryTimingWheelTickDuration, System.currentTimeMillis());
+        }
+
         Subject activeSubject = Subject.getSubject(AccessController.getContext());
         Set<SessionPrincipal> sessionPrincipals = activeSubject == null ? Collections.<SessionPrincipal>emptySet() : activeSubject.getPrincipals(SessionPrincipal.class);
         AMQPSession<?, ?> session;
@@ -1271,6 +1291,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     {
         final QueueEntry entry = getEntries().add(message, enqueueRecord);
         updateExpiration(entry);
+        _flowToDiskEvictor.track(entry);
 
         try
         {
@@ -1306,6 +1327,11 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         {
             entry.setExpiration(expiration);
         }
+        final ExpiryTimingWheel expiryTimingWheel = _expiryTimingWheel;
+        if (expiryTimingWheel != null)
+        {
+            expiryTimingWheel.schedule(entry);
+        }
     }
 
     private long calculateExpiration(final ServerMessage message)
@@ -1559,6 +1585,18 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return oldestMessageArrivalTime == 0 ? 0 : System.currentTimeMillis() - oldestMessageArrivalTime;
     }
 
+    @Override
+    public long getMessageRecoveryRate()
+    {
+        return _virtualHost.getMessageRecoveryRate(this);
+    }
+
+    @Override
+    public long getMessageRecoveryTimeRemaining()
+    {
+        return _virtualHost.getMessageRecoveryTimeRemaining(this);
+    }
+
     @Override
     public boolean isDeleted()
     {
@@ -1623,6 +1661,16 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         return _queueConsumerManager;
     }
 
+    SelectorRegistry getSelectorRegistry()
+    {
+        return _selectorRegistry;
+    }
+
+    boolean isSelectorCompilationEnabled()
+    {
+        return Boolean.TRUE.equals(getContextValue(Boolean.class, QUEUE_SELECTOR_COMPILATION));
+    }
+
     public EventLogger getEventLogger()
     {
         return _virtualHost.getEventLogger();
@@ -1639,6 +1687,12 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     @Override
     public QueueEntry getMessageOnTheQueue(final long messageId)
     {
+        final MessageIdIndex messageIdIndex = _messageIdIndex;
+        if (messageIdIndex != null)
+        {
+            return messageIdIndex.get(messageId);
+        }
+
         List<QueueEntry> entries = getMessagesOnTheQueue(new QueueEntryFilter()
         {
             private boolean _complete;
@@ -1694,27 +1748,90 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
 
         while(queueListIterator.advance())
         {
-            QueueEntry node = queueListIterator.getNode();
-            MessageReference reference = node.newMessageReference();
-            if(reference != null)
+            if (visitEntry(queueListIterator.getNode(), visitor))
             {
-                try
-                {
+                break;
+            }
+        }
+    }
 
-                    final boolean done = !node.isDeleted() && visitor.visit(node);
-                    if(done)
-                    {
-                        break;
-                    }
-                }
-                finally
+    @Override
+    public void visit(final Collection<Long> messageIds, final QueueEntryVisitor visitor)
+    {
+        final MessageIdIndex messageIdIndex = _messageIdIndex;
+        if (messageIdIndex == null)
+        {
+            final Set<Long> ids = new HashSet<>(messageIds);
+            visit(entry -> {
+                final ServerMessage message = entry.getMessage();
+                return message != null && ids.contains(message.getMessageNumber()) && visitor.visit(entry);
+            });
+        }
+        else
+        {
+            for (QueueEntry entry : messageIdIndex.get(messageIds))
+            {
+                if (visitEntry(entry, visitor))
                 {
-                    reference.release();
+                    break;
                 }
             }
         }
     }
 
+    private void visit(final long messageId, final QueueEntryVisitor visitor)
+    {
+        final MessageIdIndex messageIdIndex = _messageIdIndex;
+        if (messageIdIndex == null)
+        {
+            visit(visitor);
+        }
+        else
+        {
+            final QueueEntry entry = messageIdIndex.get(messageId);
+            if (entry != null)
+            {
+                visitEntry(entry, visitor);
+            }
+        }
+    }
+
+    private boolean visitEntry(final QueueEntry node, final QueueEntryVisitor visitor)
+    {
+        MessageReference reference = node.newMessageReference();
+        if(reference != null)
+        {
+            try
+            {
+                return !node.isDeleted() && visitor.visit(node);
+            }
+            finally
+            {
+                reference.release();
+            }
+        }
+        return false;
+    }
+
+    final MessageIdIndex getMessageIdIndex()
+    {
+        return _messageIdIndex;
+    }
+
+    final ExpiryTimingWheel getExpiryTimingWheel()
+    {
+        return _expiryTimingWheel;
+    }
+
+    /**
+     * @return the tracker of the in-memory entries of this queue used by flow to disk to choose which messages to
+     * evict
+     */
+    public FlowToDiskEvictor getFlowToDiskEvictor()
+    {
+        return _flowToDiskEvictor;
+    }
+
     // ------ Management functions
 
     @Override
@@ -2254,7 +2371,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     @Override
     public void checkMessageStatus()
     {
-        QueueEntryIterator queueListIterator = getEntries().iterator();
+        _queueStatistics.sampleHighWaterMarks();
 
         final Set<NotificationCheck> perMessageChecks = new HashSet<>();
         final Set<NotificationCheck> queueLevelChecks = new HashSet<>();
@@ -2274,7 +2391,17 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         final long currentTime = System.currentTimeMillis();
         final long thresholdTime = currentTime - getAlertRepeatGap();
 
-        while (!_stopped.get() && queueListIterator.advance())
+        // when expiry is driven by the timing wheel the entries only need to be visited if
+        // they may be held or have to be checked individually
+        final ExpiryTimingWheel expiryTimingWheel = _expiryTimingWheel;
+        if (expiryTimingWheel != null)
+        {
+            expiryTimingWheel.expire(currentTime);
+        }
+        final boolean visitEntries = expiryTimingWheel == null || !perMessageChecks.isEmpty() || !_holdMethods.isEmpty();
+
+        QueueEntryIterator queueListIterator = getEntries().iterator();
+        while (visitEntries && !_stopped.get() && queueListIterator.advance())
         {
             final QueueEntry node = queueListIterator.getNode();
             // Only process nodes that are not currently deleted and not dequeued
@@ -2317,7 +2444,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
         }
     }
 
-    private void expireEntry(final QueueEntry node)
+    void expireEntry(final QueueEntry node)
     {
         ExpiryPolicy expiryPolicy = getExpiryPolicy();
         long sizeWithHeader = node.getSizeWithHeader();
@@ -3365,7 +3492,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     public Content getMessageContent(final long messageId, final long limit, boolean returnJson, boolean decompressBeforeLimiting)
     {
         final MessageContentFinder messageFinder = new MessageContentFinder(messageId);
-        visit(messageFinder);
+        visit(messageId, messageFinder);
         if (messageFinder.isFound())
         {
             return createMessageContent(messageFinder.getMessageReference(), returnJson, limit, decompressBeforeLimiting);
@@ -3435,7 +3562,7 @@ public abstract class AbstractQueue<X extends AbstractQueue<X>>
     public MessageInfo getMessageInfoById(final long messageId, boolean includeHeaders)
     {
         final MessageFinder messageFinder = new MessageFinder(messageId, includeHeaders);
-        visit(messageFinder);
+        visit(messageId, messageFinder);
         return messageFinder.getMessageInfo();
     }
 
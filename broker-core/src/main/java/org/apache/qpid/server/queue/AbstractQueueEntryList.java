@@ -31,6 +31,9 @@ abstract class AbstractQueueEntryList implements QueueEntryList
     private final boolean _respectPersistent;
     private final Queue<?> _queue;
     private final QueueStatistics _queueStatistics;
+    private final MessageIdIndex _messageIdIndex;
+    private final ExpiryTimingWheel _expiryTimingWheel;
+    private final FlowToDiskEvictor _flowToDiskEvictor;
 
     protected AbstractQueueEntryList(final Queue<?> queue, final QueueStatistics queueStatistics)
     {
@@ -38,6 +41,9 @@ abstract class AbstractQueueEntryList implements QueueEntryList
         final MessageDurability messageDurability = queue.getMessageDurability();
         _queue = queue;
         _queueStatistics = queueStatistics;
+        _messageIdIndex = queue instanceof AbstractQueue ? ((AbstractQueue<?>) queue).getMessageIdIndex() : null;
+        _expiryTimingWheel = queue instanceof AbstractQueue ? ((AbstractQueue<?>) queue).getExpiryTimingWheel() : null;
+        _flowToDiskEvictor = queue instanceof AbstractQueue ? ((AbstractQueue<?>) queue).getFlowToDiskEvictor() : null;
         _forcePersistent = messageDurability == MessageDurability.ALWAYS;
         _respectPersistent = messageDurability == MessageDurability.DEFAULT;
     }
@@ -54,6 +60,10 @@ abstract class AbstractQueueEntryList implements QueueEntryList
         {
             queueStatistics.addToPersistentEnqueued(sizeWithHeader);
         }
+        if (_messageIdIndex != null)
+        {
+            _messageIdIndex.add(entry);
+        }
     }
 
     @Override
@@ -95,6 +105,18 @@ abstract class AbstractQueueEntryList implements QueueEntryList
                 {
                     queueStatistics.addToPersistentDequeued(sizeWithHeader);
                 }
+                if (_messageIdIndex != null)
+                {
+                    _messageIdIndex.remove(entry);
+                }
+                if (_expiryTimingWheel != null)
+                {
+                    _expiryTimingWheel.unschedule(entry);
+                }
+                if (_flowToDiskEvictor != null)
+                {
+                    _flowToDiskEvictor.entryDeleted();
+                }
                 _queue.checkCapacity();
 
         }
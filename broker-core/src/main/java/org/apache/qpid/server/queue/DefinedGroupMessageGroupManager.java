@@ -20,10 +20,13 @@
  */
 package org.apache.qpid.server.queue;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,24 +38,39 @@ import org.apache.qpid.server.message.MessageInstance.EntryState;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.util.StateChangeListener;
 
+/**
+ * Assigns each message group to a single consumer until that consumer holds no more messages of the group.
+ * <p>
+ * Groups are guarded by striped locks chosen by the group key, so that delivery threads working on different groups
+ * do not contend. Each group keeps the entries which other consumers skipped because the group was assigned, and
+ * each consumer the groups assigned to it, so that the earliest entry held back for a consumer is found from its own
+ * groups rather than by walking the queue.
+ */
 public class DefinedGroupMessageGroupManager implements MessageGroupManager
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefinedGroupMessageGroupManager.class);
+
+    private static final int LOCK_STRIPES = 128;
+
     private final String _groupId;
     private final String _defaultGroup;
-    private final Map<Object, Group> _groupMap = new HashMap<>();
+    private final ConcurrentMap<Object, Group> _groupMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<QueueConsumer<?,?>, Set<Group>> _consumerGroups = new ConcurrentHashMap<>();
+    private final Object[] _locks = new Object[LOCK_STRIPES];
     private final ConsumerResetHelper _resetHelper;
 
     private final class Group
     {
         private final Object _group;
+        private final Object _lock;
         private final SortedSet<QueueEntry> _skippedEntries = new TreeSet<>();
-        private QueueConsumer<?,?> _consumer;
+        private volatile QueueConsumer<?,?> _consumer;
         private int _activeCount;
 
-        private Group(final Object key, final QueueConsumer<?,?> consumer)
+        private Group(final Object key, final Object lock, final QueueConsumer<?,?> consumer)
         {
             _group = key;
+            _lock = lock;
             _consumer = consumer;
         }
         
@@ -77,7 +95,8 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
             }
             if(--_activeCount == 0)
             {
-                _groupMap.remove(_group);
+                _groupMap.remove(_group, this);
+                removeConsumerGroup(_consumer, this);
                 if(!_skippedEntries.isEmpty())
                 {
                     _resetHelper.resetSubPointersForGroups(_skippedEntries.first());
@@ -112,7 +131,8 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
 
         public boolean isValid()
         {
-            return !(_consumer == null || (_activeCount == 0 && _consumer.isClosed()));
+            final QueueConsumer<?, ?> consumer = _consumer;
+            return !(consumer == null || (_activeCount == 0 && consumer.isClosed()));
         }
 
         public QueueConsumer<?,?> getConsumer()
@@ -134,6 +154,24 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         {
             _skippedEntries.add(entry);
         }
+
+        QueueEntry getEarliestAvailableSkippedEntry()
+        {
+            final Iterator<QueueEntry> iterator = _skippedEntries.iterator();
+            while (iterator.hasNext())
+            {
+                final QueueEntry entry = iterator.next();
+                if (entry.isAvailable())
+                {
+                    return entry;
+                }
+                else if (entry.isDeleted())
+                {
+                    iterator.remove();
+                }
+            }
+            return null;
+        }
     }
 
     DefinedGroupMessageGroupManager(final String groupId, String defaultGroup, ConsumerResetHelper resetHelper)
@@ -141,38 +179,54 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         _groupId = groupId;
         _defaultGroup = defaultGroup;
         _resetHelper = resetHelper;
+        for (int i = 0; i < _locks.length; i++)
+        {
+            _locks[i] = new Object();
+        }
     }
     
     @Override
-    public synchronized boolean mightAssign(final QueueEntry entry, final QueueConsumer sub)
+    public boolean mightAssign(final QueueEntry entry, final QueueConsumer sub)
     {
         Object groupId = getKey(entry);
 
-        Group group = _groupMap.get(groupId);
-        final boolean possibleAssignment = group == null || !group.isValid() || group.getConsumer() == sub;
-        if(!possibleAssignment)
+        synchronized (getLock(groupId))
         {
-            group.addSkippedEntry(entry);
+            Group group = _groupMap.get(groupId);
+            final boolean possibleAssignment = group == null || !group.isValid() || group.getConsumer() == sub;
+            if (!possibleAssignment)
+            {
+                group.addSkippedEntry(entry);
+            }
+            return possibleAssignment;
         }
-        return possibleAssignment;
     }
 
     @Override
-    public synchronized boolean acceptMessage(final QueueConsumer<?,?> sub, final QueueEntry entry)
+    public boolean acceptMessage(final QueueConsumer<?,?> sub, final QueueEntry entry)
     {
-        return assignMessage(sub, entry) && entry.acquire(sub);
+        Object groupId = getKey(entry);
+
+        synchronized (getLock(groupId))
+        {
+            return assignMessage(sub, entry, groupId) && entry.acquire(sub);
+        }
     }
 
-    private boolean assignMessage(final QueueConsumer<?,?> sub, final QueueEntry entry)
+    private boolean assignMessage(final QueueConsumer<?,?> sub, final QueueEntry entry, final Object groupId)
     {
-        Object groupId = getKey(entry);
         Group group = _groupMap.get(groupId);
 
         if(group == null || !group.isValid())
         {
-            group = new Group(groupId, sub);
+            if (group != null)
+            {
+                removeConsumerGroup(group.getConsumer(), group);
+            }
+            group = new Group(groupId, getLock(groupId), sub);
 
             _groupMap.put(groupId, group);
+            _consumerGroups.computeIfAbsent(sub, consumer -> ConcurrentHashMap.newKeySet()).add(group);
 
             // there's a small chance that the group became empty between the point at which getNextAvailable() was
             // called on the consumer, and when accept message is called... in that case we want to avoid delivering
@@ -198,57 +252,50 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
     }
 
     @Override
-    public synchronized QueueEntry findEarliestAssignedAvailableEntry(final QueueConsumer<?,?> sub)
+    public QueueEntry findEarliestAssignedAvailableEntry(final QueueConsumer<?,?> sub)
     {
-        EntryFinder visitor = new EntryFinder(sub);
-        sub.getQueue().visit(visitor);
-        return visitor.getEntry();
-    }
-
-    private class EntryFinder implements QueueEntryVisitor
-    {
-        private QueueEntry _entry;
-        private QueueConsumer<?,?> _sub;
-
-        EntryFinder(final QueueConsumer<?, ?> sub)
+        QueueEntry earliest = null;
+        for (Group group : _consumerGroups.getOrDefault(sub, Collections.emptySet()))
         {
-            _sub = sub;
-        }
-
-        @Override
-        public boolean visit(final QueueEntry entry)
-        {
-            if(!entry.isAvailable())
+            synchronized (group._lock)
             {
-                return false;
+                if (group.getConsumer() == sub && _groupMap.get(group._group) == group)
+                {
+                    final QueueEntry entry = group.getEarliestAvailableSkippedEntry();
+                    if (entry != null && (earliest == null || entry.compareTo(earliest) < 0))
+                    {
+                        earliest = entry;
+                    }
+                }
             }
+        }
+        return earliest;
+    }
 
-            Object groupId = getKey(entry);
+    @Override
+    public void clearAssignments(final QueueConsumer<?,?> sub)
+    {
+        _consumerGroups.remove(sub);
+    }
 
-            Group group = _groupMap.get(groupId);
-            if(group != null && group.getConsumer() == _sub)
-            {
-                _entry = entry;
-                return true;
-            }
-            else
+    private void removeConsumerGroup(final QueueConsumer<?, ?> consumer, final Group group)
+    {
+        if (consumer != null)
+        {
+            final Set<Group> groups = _consumerGroups.get(consumer);
+            if (groups != null)
             {
-                return false;
+                groups.remove(group);
             }
         }
-
-        public QueueEntry getEntry()
-        {
-            return _entry;
-        }
     }
 
-    
-    @Override
-    public void clearAssignments(final QueueConsumer<?,?> sub)
+    private Object getLock(final Object groupId)
     {
+        final int hash = groupId.hashCode();
+        return _locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
     }
-    
+
     private Object getKey(QueueEntry entry)
     {
         ServerMessage message = entry.getMessage();
@@ -277,7 +324,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         @Override
         public void stateChanged(final MessageInstance entry, final EntryState oldState, final EntryState newState)
         {
-            synchronized (DefinedGroupMessageGroupManager.this)
+            synchronized (_group._lock)
             {
                 if(_group.isValid())
                 {
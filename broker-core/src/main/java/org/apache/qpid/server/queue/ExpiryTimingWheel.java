@@ -0,0 +1,296 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hierarchical timing wheel tracking the expiration of the entries of a queue.
+ *
+ * Publishing and consuming threads only touch a concurrent map of the scheduled entries and lock-free queues of
+ * pending changes; the wheel itself is only touched by the housekeeping thread of the queue which calls
+ * {@link #expire(long)}, so the cost of a housekeeping pass is proportional to the number of entries falling due
+ * and the number of entries scheduled or removed since the previous pass rather than to the number of entries held
+ * on the queue.
+ *
+ * Each scheduled entry is held by a single node, so rescheduling an entry moves it within the wheel.  When an entry is
+ * deleted it is detached from its node at once, so that neither the entry nor its message is retained until the
+ * expiration time, and the node itself is unlinked from the wheel on the next pass.
+ */
+public class ExpiryTimingWheel
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpiryTimingWheel.class);
+
+    private static final int BITS_PER_LEVEL = 6;
+    private static final int SLOTS_PER_LEVEL = 1 << BITS_PER_LEVEL;
+    private static final int SLOT_MASK = SLOTS_PER_LEVEL - 1;
+    private static final int LEVELS = 4;
+    private static final long MAXIMUM_TICKS_AHEAD = (1L << (BITS_PER_LEVEL * LEVELS)) - 1;
+
+    private final long _tickDuration;
+    private final ConcurrentMap<QueueEntry, Node> _nodes = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Node> _pending = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Node> _cancelled = new ConcurrentLinkedQueue<>();
+    private final Node[][] _slots;
+    private long _currentTick;
+
+    public ExpiryTimingWheel(final long tickDuration, final long currentTime)
+    {
+        if (tickDuration <= 0)
+        {
+            throw new IllegalArgumentException("Tick duration must be positive : " + tickDuration);
+        }
+        _tickDuration = tickDuration;
+        _currentTick = currentTime / tickDuration;
+        _slots = new Node[LEVELS][SLOTS_PER_LEVEL];
+    }
+
+    /**
+     * Registers an entry for expiry at its current expiration time, or moves it if it is already scheduled.
+     * May be called from any thread.
+     */
+    public void schedule(final QueueEntry entry)
+    {
+        if (entry.getExpiration() != 0L)
+        {
+            Node node = _nodes.get(entry);
+            if (node == null)
+            {
+                final Node newNode = new Node(entry);
+                node = _nodes.putIfAbsent(entry, newNode);
+                if (node == null)
+                {
+                    node = newNode;
+                }
+            }
+            _pending.add(node);
+        }
+    }
+
+    /**
+     * Removes an entry which has been deleted from the wheel.  May be called from any thread.
+     */
+    public void unschedule(final QueueEntry entry)
+    {
+        final Node node = _nodes.remove(entry);
+        if (node != null)
+        {
+            node._entry = null;
+            _cancelled.add(node);
+        }
+    }
+
+    /**
+     * Advances the wheel to the given time and expires the entries which have fallen due.
+     *
+     * @return the number of entries expired
+     */
+    public synchronized int expire(final long currentTime)
+    {
+        Node node;
+        while ((node = _cancelled.poll()) != null)
+        {
+            unlink(node);
+        }
+
+        final List<Node> due = new ArrayList<>();
+        while ((node = _pending.poll()) != null)
+        {
+            unlink(node);
+            insert(node, due);
+        }
+
+        final long targetTick = currentTime / _tickDuration;
+        while (_currentTick < targetTick)
+        {
+            _currentTick++;
+            cascade(due);
+            drainSlot(0, (int) (_currentTick & SLOT_MASK), due);
+        }
+
+        int expired = 0;
+        for (Node dueNode : due)
+        {
+            final QueueEntry dueEntry = dueNode._entry;
+            if (dueEntry == null || dueNode._level >= 0)
+            {
+                // removed, or rescheduled by the pending changes of this pass
+                continue;
+            }
+            if (dueEntry.isDeleted() || dueEntry.isQueueDeleted())
+            {
+                release(dueNode);
+            }
+            else if (dueEntry.expired())
+            {
+                release(dueNode);
+                ((AbstractQueue<?>) dueEntry.getQueue()).expireEntry(dueEntry);
+                expired++;
+            }
+            else
+            {
+                // expiration has moved since the entry was scheduled
+                insert(dueNode, null);
+            }
+        }
+        LOGGER.debug("Expired {} entries, {} entries remain scheduled", expired, _nodes.size());
+        return expired;
+    }
+
+    public long getScheduledEntryCount()
+    {
+        return _nodes.size();
+    }
+
+    private void release(final Node node)
+    {
+        final QueueEntry entry = node._entry;
+        if (entry != null)
+        {
+            _nodes.remove(entry, node);
+            node._entry = null;
+        }
+    }
+
+    private void cascade(final List<Node> due)
+    {
+        for (int level = 1; level < LEVELS; level++)
+        {
+            if ((_currentTick & ((1L << (BITS_PER_LEVEL * level)) - 1)) != 0)
+            {
+                break;
+            }
+            final List<Node> nodes = new ArrayList<>();
+            drainSlot(level, (int) ((_currentTick >>> (BITS_PER_LEVEL * level)) & SLOT_MASK), nodes);
+            for (Node node : nodes)
+            {
+                insert(node, due);
+            }
+        }
+    }
+
+    private void drainSlot(final int level, final int slot, final List<Node> nodes)
+    {
+        Node node = _slots[level][slot];
+        _slots[level][slot] = null;
+        while (node != null)
+        {
+            final Node next = node._next;
+            node._next = null;
+            node._previous = null;
+            node._level = -1;
+            nodes.add(node);
+            node = next;
+        }
+    }
+
+    private void insert(final Node node, final List<Node> due)
+    {
+        final QueueEntry entry = node._entry;
+        if (entry == null)
+        {
+            return;
+        }
+        final long expiration = entry.getExpiration();
+        if (expiration == 0L || entry.isDeleted())
+        {
+            release(node);
+            return;
+        }
+
+        // an entry is due on the first tick strictly after its expiration time
+        long expiryTick = expiration / _tickDuration + 1;
+        if (expiryTick <= _currentTick && due != null)
+        {
+            due.add(node);
+            return;
+        }
+        else if (expiryTick <= _currentTick)
+        {
+            expiryTick = _currentTick + 1;
+        }
+        else if (expiryTick - _currentTick > MAXIMUM_TICKS_AHEAD)
+        {
+            expiryTick = _currentTick + MAXIMUM_TICKS_AHEAD;
+        }
+
+        final long delta = expiryTick - _currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (BITS_PER_LEVEL * (level + 1))))
+        {
+            level++;
+        }
+        final int slot = (int) ((expiryTick >>> (BITS_PER_LEVEL * level)) & SLOT_MASK);
+        final Node head = _slots[level][slot];
+        node._next = head;
+        if (head != null)
+        {
+            head._previous = node;
+        }
+        _slots[level][slot] = node;
+        node._level = level;
+        node._slot = slot;
+    }
+
+    private void unlink(final Node node)
+    {
+        if (node._level < 0)
+        {
+            return;
+        }
+        if (node._previous == null)
+        {
+            _slots[node._level][node._slot] = node._next;
+        }
+        else
+        {
+            node._previous._next = node._next;
+        }
+        if (node._next != null)
+        {
+            node._next._previous = node._previous;
+        }
+        node._next = null;
+        node._previous = null;
+        node._level = -1;
+    }
+
+    private static final class Node
+    {
+        private volatile QueueEntry _entry;
+        private Node _previous;
+        private Node _next;
+        private int _level = -1;
+        private int _slot;
+
+        private Node(final QueueEntry entry)
+        {
+            _entry = entry;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.server.message.MessageDeletedException;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.store.StoredMessage;
+
+/**
+ * Tracks the queue entries of a queue whose messages may be held in memory, in the order in which they were enqueued,
+ * so that flow to disk can evict just enough messages to bring the virtual host back under its target size without
+ * walking every entry of the queue.
+ *
+ * Eviction starts from the least recently enqueued entries, approximating least recently used order, and passes over
+ * entries which are currently acquired.  Entries which are found to be deleted or no longer held in memory are dropped
+ * from the tracker, so content which is reloaded into memory afterwards is not tracked; callers should fall back to
+ * scanning the queues if eviction could not free enough memory.
+ *
+ * Tracking an entry only appends it.  Consumed entries are dropped from the head by {@link #housekeep()} and
+ * {@link #evict(long)}.  Entries consumed out of order are counted as they are deleted, and once they make up half of
+ * the tracked entries housekeeping purges the tracker, so the tracker holds at most about twice as many entries as the
+ * queue between housekeeping runs.
+ */
+public class FlowToDiskEvictor
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlowToDiskEvictor.class);
+
+    private static final long MINIMUM_DELETED_ENTRIES_TO_PURGE = 64L;
+
+    private final ConcurrentLinkedDeque<QueueEntry> _entries = new ConcurrentLinkedDeque<>();
+    private final LongAdder _trackedEntries = new LongAdder();
+    private final LongAdder _deletedEntries = new LongAdder();
+    private final ReentrantLock _lock = new ReentrantLock();
+
+    /**
+     * Starts tracking a newly enqueued entry.  May be called from any thread.
+     */
+    public void track(final QueueEntry entry)
+    {
+        _entries.addLast(entry);
+        _trackedEntries.increment();
+    }
+
+    /**
+     * Notes that an entry of the queue has been deleted.  May be called from any thread.
+     */
+    public void entryDeleted()
+    {
+        _deletedEntries.increment();
+    }
+
+    /**
+     * Drops consumed entries from the head of the tracker, and purges the tracker if entries consumed out of order
+     * make up half of the tracked entries.  Called from the virtual host housekeeping.
+     */
+    public void housekeep()
+    {
+        _lock.lock();
+        try
+        {
+            dropDeletedHead();
+
+            final long deletedEntries = _deletedEntries.sum();
+            if (deletedEntries > MINIMUM_DELETED_ENTRIES_TO_PURGE && 2 * deletedEntries > _trackedEntries.sum())
+            {
+                purgeDeletedEntries();
+            }
+        }
+        finally
+        {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Flows the messages of tracked entries to disk, oldest first, until at least the given number of bytes has been
+     * evacuated or there are no further candidates.
+     *
+     * @return the number of messages flowed to disk
+     */
+    public int evict(final long bytesToFree)
+    {
+        _lock.lock();
+        try
+        {
+            dropDeletedHead();
+
+            long remaining = bytesToFree;
+            int evicted = 0;
+            final Iterator<QueueEntry> iterator = _entries.iterator();
+            while (remaining > 0 && iterator.hasNext())
+            {
+                final QueueEntry entry = iterator.next();
+                if (entry.isDeleted() || entry.isQueueDeleted())
+                {
+                    iterator.remove();
+                    _trackedEntries.decrement();
+                    _deletedEntries.decrement();
+                }
+                else if (!entry.isAcquired())
+                {
+                    final ServerMessage message = entry.getMessage();
+                    try (MessageReference messageReference = message.newReference())
+                    {
+                        final StoredMessage storedMessage = messageReference.getMessage().getStoredMessage();
+                        if (storedMessage.isInMemory())
+                        {
+                            final long size = storedMessage.getContentSize() + storedMessage.getMetadataSize();
+                            if (storedMessage.flowToDisk())
+                            {
+                                remaining -= size;
+                                evicted++;
+                            }
+                        }
+                        if (!storedMessage.isInMemory())
+                        {
+                            iterator.remove();
+                            _trackedEntries.decrement();
+                        }
+                    }
+                    catch (MessageDeletedException e)
+                    {
+                        iterator.remove();
+                        _trackedEntries.decrement();
+                    }
+                }
+            }
+            LOGGER.debug("Flowed {} messages to disk, {} bytes outstanding", evicted, Math.max(remaining, 0L));
+            return evicted;
+        }
+        finally
+        {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Drops every deleted entry from the tracker, including those consumed out of order.
+     */
+    public void purge()
+    {
+        _lock.lock();
+        try
+        {
+            purgeDeletedEntries();
+        }
+        finally
+        {
+            _lock.unlock();
+        }
+    }
+
+    private void dropDeletedHead()
+    {
+        QueueEntry head;
+        while ((head = _entries.peekFirst()) != null && head.isDeleted())
+        {
+            _entries.pollFirst();
+            _trackedEntries.decrement();
+            _deletedEntries.decrement();
+        }
+    }
+
+    private void purgeDeletedEntries()
+    {
+        // also discards deletions counted for entries which had already left the tracker
+        _deletedEntries.reset();
+        final Iterator<QueueEntry> iterator = _entries.iterator();
+        while (iterator.hasNext())
+        {
+            final QueueEntry entry = iterator.next();
+            if (entry.isDeleted() || entry.isQueueDeleted())
+            {
+                iterator.remove();
+                _trackedEntries.decrement();
+            }
+        }
+    }
+
+    public long getTrackedEntryCount()
+    {
+        return _trackedEntries.sum();
+    }
+
+    long getDeletedEntryCount()
+    {
+        return _deletedEntries.sum();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.qpid.server.message.ServerMessage;
+
+/**
+ * Maps the message ids of the messages held on a queue to their queue entries, allowing management operations
+ * addressing individual messages to avoid walking the queue entry list.
+ */
+class MessageIdIndex
+{
+    private final ConcurrentMap<Long, QueueEntry> _entries = new ConcurrentHashMap<>();
+
+    void add(final QueueEntry entry)
+    {
+        final ServerMessage message = entry.getMessage();
+        if (message != null)
+        {
+            _entries.put(message.getMessageNumber(), entry);
+        }
+    }
+
+    void remove(final QueueEntry entry)
+    {
+        final ServerMessage message = entry.getMessage();
+        if (message != null)
+        {
+            _entries.remove(message.getMessageNumber(), entry);
+        }
+    }
+
+    QueueEntry get(final long messageId)
+    {
+        final QueueEntry entry = _entries.get(messageId);
+        return entry == null || entry.isDeleted() ? null : entry;
+    }
+
+    /**
+     * @return the live entries for the given message ids, in queue order
+     */
+    List<QueueEntry> get(final Collection<Long> messageIds)
+    {
+        final List<QueueEntry> entries = new ArrayList<>(messageIds.size());
+        for (final Long messageId : messageIds)
+        {
+            final QueueEntry entry = messageId == null ? null : get(messageId);
+            if (entry != null)
+            {
+                entries.add(entry);
+            }
+        }
+        Collections.sort(entries);
+        return entries;
+    }
+
+    int size()
+    {
+        return _entries.size();
+    }
+}
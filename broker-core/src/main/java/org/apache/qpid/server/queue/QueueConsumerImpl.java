@@ -40,7 +40,6 @@ import org.slf4j.LoggerFactory;
 import org.apache.qpid.server.consumer.ConsumerOption;
 import org.apache.qpid.server.consumer.ConsumerTarget;
 import org.apache.qpid.server.filter.FilterManager;
-import org.apache.qpid.server.filter.Filterable;
 import org.apache.qpid.server.filter.JMSSelectorFilter;
 import org.apache.qpid.server.filter.MessageFilter;
 import org.apache.qpid.server.filter.SelectorParsingException;
@@ -78,6 +77,7 @@ class QueueConsumerImpl<T extends ConsumerTarget>
     private final AtomicLong _deliveredCount = new AtomicLong(0);
     private final AtomicLong _deliveredBytes = new AtomicLong(0);
     private final FilterManager _filters;
+    private final SelectorRegistry.ConsumerFilters _consumerFilters;
     private final Class<? extends ServerMessage> _messageClass;
     private final Object _sessionReference;
     private final AbstractQueue _queue;
@@ -127,9 +127,25 @@ class QueueConsumerImpl<T extends ConsumerTarget>
         // Access control
         authorise(Operation.CREATE);
 
-        open();
+        _consumerFilters = filters == null
+                ? null
+                : queue.getSelectorRegistry().register(filters, queue.isSelectorCompilationEnabled());
 
-        setupLogging();
+        try
+        {
+            open();
+
+            setupLogging();
+        }
+        catch (RuntimeException e)
+        {
+            // the consumer never became usable so its selectors would otherwise hold their registry slots forever
+            if (_consumerFilters != null)
+            {
+                _consumerFilters.release();
+            }
+            throw e;
+        }
     }
 
     private static Map<String, Object> createAttributeMap(final AMQPSession<?,?> session,
@@ -244,6 +260,10 @@ class QueueConsumerImpl<T extends ConsumerTarget>
             return doAfter(_target.consumerRemoved(this),
                            () -> {
                                _queue.unregisterConsumer(QueueConsumerImpl.this);
+                               if (_consumerFilters != null)
+                               {
+                                   _consumerFilters.release();
+                               }
                            }).then(this::deleteNoChecks);
         }
         else
@@ -420,15 +440,14 @@ class QueueConsumerImpl<T extends ConsumerTarget>
                 try
                 {
 
-                    Filterable msg = entry.asFilterable();
                     try
                     {
-                        return _filters.allAllow(msg);
+                        return _consumerFilters.allAllow(entry);
                     }
                     catch (SelectorParsingException e)
                     {
                         LOGGER.info(this + " could not evaluate filter [" + _filters
-                                    + "]  against message " + msg
+                                    + "]  against message " + entry.getMessage()
                                     + ". Error was : " + e.getMessage());
                         return false;
                     }
@@ -115,6 +115,10 @@ public abstract class QueueEntryImpl implements QueueEntry
 
     private final MessageEnqueueRecord _enqueueRecord;
 
+    private volatile SelectorRegistry.Matches _selectorMatches;
+    private static final AtomicReferenceFieldUpdater<QueueEntryImpl, SelectorRegistry.Matches> _selectorMatchesUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(QueueEntryImpl.class, SelectorRegistry.Matches.class, "_selectorMatches");
+
 
     QueueEntryImpl(QueueEntryList queueEntryList)
     {
@@ -165,6 +169,12 @@ public abstract class QueueEntryImpl implements QueueEntry
         _expiration = expiration;
     }
 
+    @Override
+    public long getExpiration()
+    {
+        return _expiration;
+    }
+
     @Override
     public InstanceProperties getInstanceProperties()
     {
@@ -710,6 +720,26 @@ public abstract class QueueEntryImpl implements QueueEntry
         _deliveryCountUpdater.decrementAndGet(this);
     }
 
+    /**
+     * @param epoch the epoch of the queue's selector registry
+     * @return the remembered results of the queue's shared selectors for this entry, or null if the results
+     *         held by the entry belong to a later epoch
+     */
+    SelectorRegistry.Matches getSelectorMatches(final long epoch)
+    {
+        SelectorRegistry.Matches current = _selectorMatches;
+        while (current == null || current.getEpoch() < epoch)
+        {
+            final SelectorRegistry.Matches matches = new SelectorRegistry.Matches(epoch);
+            if (_selectorMatchesUpdater.compareAndSet(this, current, matches))
+            {
+                return matches;
+            }
+            current = _selectorMatches;
+        }
+        return current.getEpoch() == epoch ? current : null;
+    }
+
     @Override
     public Filterable asFilterable()
     {
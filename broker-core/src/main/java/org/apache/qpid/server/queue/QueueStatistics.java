@@ -20,44 +20,72 @@
  */
 package org.apache.qpid.server.queue;
 
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the statistics of a queue.
+ * <p>
+ * By default the counters are exact atomics and the high water marks are maintained on every change. Striped
+ * statistics keep each counter in a {@link LongAdder}, so that threads publishing to and consuming from a busy queue
+ * do not contend on the same cache lines. Reading a striped counter sums its cells, and the high water marks are
+ * raised to the current value only when they or the underlying gauge are read, or when the queue samples them
+ * during housekeeping, so they are approximate and may miss short-lived peaks.
+ */
 final class QueueStatistics
 {
-    private final AtomicInteger _queueCount = new AtomicInteger();
-    private final AtomicLong _queueSize = new AtomicLong();
+    private final Gauge _queueCount;
+    private final Gauge _queueSize;
 
-    private final AtomicInteger _unackedCount = new AtomicInteger();
-    private final AtomicLong _unackedSize = new AtomicLong();
+    private final Counter _unackedCount;
+    private final Counter _unackedSize;
 
-    private final AtomicInteger _availableCount = new AtomicInteger();
-    private final AtomicLong _availableSize = new AtomicLong();
+    private final Gauge _availableCount;
+    private final Gauge _availableSize;
 
-    private final AtomicLong _dequeueCount = new AtomicLong();
-    private final AtomicLong _dequeueSize = new AtomicLong();
+    private final Counter _dequeueCount;
+    private final Counter _dequeueSize;
 
-    private final AtomicLong _enqueueCount = new AtomicLong();
-    private final AtomicLong _enqueueSize = new AtomicLong();
+    private final Counter _enqueueCount;
+    private final Counter _enqueueSize;
 
-    private final AtomicLong _persistentEnqueueCount = new AtomicLong();
-    private final AtomicLong _persistentEnqueueSize = new AtomicLong();
+    private final Counter _persistentEnqueueCount;
+    private final Counter _persistentEnqueueSize;
 
-    private final AtomicLong _persistentDequeueCount = new AtomicLong();
-    private final AtomicLong _persistentDequeueSize = new AtomicLong();
+    private final Counter _persistentDequeueCount;
+    private final Counter _persistentDequeueSize;
 
-    private final AtomicInteger _queueCountHwm = new AtomicInteger();
-    private final AtomicLong _queueSizeHwm = new AtomicLong();
+    private final Counter _expiredCount;
+    private final Counter _expiredSize;
 
-    private final AtomicInteger _availableCountHwm = new AtomicInteger();
-    private final AtomicLong _availableSizeHwm = new AtomicLong();
+    QueueStatistics()
+    {
+        this(false);
+    }
 
-    private final AtomicInteger _expiredCount = new AtomicInteger();
-    private final AtomicLong _expiredSize = new AtomicLong();
+    QueueStatistics(final boolean striped)
+    {
+        _queueCount = newGauge(striped);
+        _queueSize = newGauge(striped);
+        _unackedCount = newCounter(striped);
+        _unackedSize = newCounter(striped);
+        _availableCount = newGauge(striped);
+        _availableSize = newGauge(striped);
+        _dequeueCount = newCounter(striped);
+        _dequeueSize = newCounter(striped);
+        _enqueueCount = newCounter(striped);
+        _enqueueSize = newCounter(striped);
+        _persistentEnqueueCount = newCounter(striped);
+        _persistentEnqueueSize = newCounter(striped);
+        _persistentDequeueCount = newCounter(striped);
+        _persistentDequeueSize = newCounter(striped);
+        _expiredCount = newCounter(striped);
+        _expiredSize = newCounter(striped);
+    }
 
     public final int getQueueCount()
     {
-        return _queueCount.get();
+        return (int) _queueCount.get();
     }
 
     public final long getQueueSize()
@@ -67,7 +95,7 @@ final class QueueStatistics
 
     public final int getUnackedCount()
     {
-        return _unackedCount.get();
+        return (int) _unackedCount.get();
     }
 
     public final long getUnackedSize()
@@ -77,7 +105,7 @@ final class QueueStatistics
 
     public final int getAvailableCount()
     {
-        return _availableCount.get();
+        return (int) _availableCount.get();
     }
 
     public final long getAvailableSize()
@@ -127,27 +155,27 @@ final class QueueStatistics
 
     public final int getQueueCountHwm()
     {
-        return _queueCountHwm.get();
+        return (int) _queueCount.getHwm();
     }
 
     public final long getQueueSizeHwm()
     {
-        return _queueSizeHwm.get();
+        return _queueSize.getHwm();
     }
 
     public final int getAvailableCountHwm()
     {
-        return _availableCountHwm.get();
+        return (int) _availableCount.getHwm();
     }
 
     public final long getAvailableSizeHwm()
     {
-        return _availableSizeHwm.get();
+        return _availableSize.getHwm();
     }
 
     public int getExpiredCount()
     {
-        return _expiredCount.get();
+        return (int) _expiredCount.get();
     }
 
     public long getExpiredSize()
@@ -155,90 +183,217 @@ final class QueueStatistics
         return _expiredSize.get();
     }
 
+    /**
+     * Raises lazily maintained high water marks to the current values.  Exact statistics are unaffected.
+     */
+    void sampleHighWaterMarks()
+    {
+        _queueCount.get();
+        _queueSize.get();
+        _availableCount.get();
+        _availableSize.get();
+    }
+
     void addToQueue(long size)
     {
-        int count = _queueCount.incrementAndGet();
-        long queueSize = _queueSize.addAndGet(size);
-        int hwm;
-        while((hwm = _queueCountHwm.get()) < count)
-        {
-            _queueCountHwm.compareAndSet(hwm, count);
-        }
-        long sizeHwm;
-        while((sizeHwm = _queueSizeHwm.get()) < queueSize)
-        {
-            _queueSizeHwm.compareAndSet(sizeHwm, queueSize);
-        }
+        _queueCount.increase(1);
+        _queueSize.increase(size);
     }
 
     void removeFromQueue(long size)
     {
-        _queueCount.decrementAndGet();
-        _queueSize.addAndGet(-size);
+        _queueCount.decrease(1);
+        _queueSize.decrease(size);
     }
 
     void addToAvailable(long size)
     {
-        int count = _availableCount.incrementAndGet();
-        long availableSize = _availableSize.addAndGet(size);
-        int hwm;
-        while((hwm = _availableCountHwm.get()) < count)
-        {
-            _availableCountHwm.compareAndSet(hwm, count);
-        }
-        long sizeHwm;
-        while((sizeHwm = _availableSizeHwm.get()) < availableSize)
-        {
-            _availableSizeHwm.compareAndSet(sizeHwm, availableSize);
-        }
+        _availableCount.increase(1);
+        _availableSize.increase(size);
     }
 
     void removeFromAvailable(long size)
     {
-        _availableCount.decrementAndGet();
-        _availableSize.addAndGet(-size);
+        _availableCount.decrease(1);
+        _availableSize.decrease(size);
     }
 
     void addToUnacknowledged(long size)
     {
-        _unackedCount.incrementAndGet();
-        _unackedSize.addAndGet(size);
+        _unackedCount.add(1);
+        _unackedSize.add(size);
     }
 
     void removeFromUnacknowledged(long size)
     {
-        _unackedCount.decrementAndGet();
-        _unackedSize.addAndGet(-size);
+        _unackedCount.add(-1);
+        _unackedSize.add(-size);
     }
 
     void addToEnqueued(long size)
     {
-        _enqueueCount.incrementAndGet();
-        _enqueueSize.addAndGet(size);
+        _enqueueCount.add(1);
+        _enqueueSize.add(size);
     }
 
     void addToDequeued(long size)
     {
-        _dequeueCount.incrementAndGet();
-        _dequeueSize.addAndGet(size);
+        _dequeueCount.add(1);
+        _dequeueSize.add(size);
     }
 
     void addToPersistentEnqueued(long size)
     {
-        _persistentEnqueueCount.incrementAndGet();
-        _persistentEnqueueSize.addAndGet(size);
+        _persistentEnqueueCount.add(1);
+        _persistentEnqueueSize.add(size);
     }
 
     void addToPersistentDequeued(long size)
     {
-        _persistentDequeueCount.incrementAndGet();
-        _persistentDequeueSize.addAndGet(size);
+        _persistentDequeueCount.add(1);
+        _persistentDequeueSize.add(size);
     }
 
     void addToExpired(final long size)
     {
-        _expiredCount.incrementAndGet();
-        _expiredSize.addAndGet(size);
+        _expiredCount.add(1);
+        _expiredSize.add(size);
+    }
+
+    private static Counter newCounter(final boolean striped)
+    {
+        return striped ? new StripedCounter() : new ExactCounter();
+    }
+
+    private static Gauge newGauge(final boolean striped)
+    {
+        return striped ? new StripedGauge() : new ExactGauge();
+    }
+
+    private interface Counter
+    {
+        void add(long delta);
+
+        long get();
+    }
+
+    private interface Gauge
+    {
+        void increase(long delta);
+
+        void decrease(long delta);
+
+        long get();
+
+        long getHwm();
+    }
+
+    private static final class ExactCounter implements Counter
+    {
+        private final AtomicLong _value = new AtomicLong();
+
+        @Override
+        public void add(final long delta)
+        {
+            _value.addAndGet(delta);
+        }
+
+        @Override
+        public long get()
+        {
+            return _value.get();
+        }
+    }
+
+    private static final class StripedCounter implements Counter
+    {
+        private final LongAdder _value = new LongAdder();
+
+        @Override
+        public void add(final long delta)
+        {
+            _value.add(delta);
+        }
+
+        @Override
+        public long get()
+        {
+            return _value.sum();
+        }
+    }
+
+    private static final class ExactGauge implements Gauge
+    {
+        private final AtomicLong _value = new AtomicLong();
+        private final AtomicLong _hwm = new AtomicLong();
+
+        @Override
+        public void increase(final long delta)
+        {
+            final long value = _value.addAndGet(delta);
+            long hwm;
+            while((hwm = _hwm.get()) < value)
+            {
+                _hwm.compareAndSet(hwm, value);
+            }
+        }
+
+        @Override
+        public void decrease(final long delta)
+        {
+            _value.addAndGet(-delta);
+        }
+
+        @Override
+        public long get()
+        {
+            return _value.get();
+        }
+
+        @Override
+        public long getHwm()
+        {
+            return _hwm.get();
+        }
     }
 
+    private static final class StripedGauge implements Gauge
+    {
+        private final LongAdder _value = new LongAdder();
+        private final AtomicLong _hwm = new AtomicLong();
+
+        @Override
+        public void increase(final long delta)
+        {
+            _value.add(delta);
+        }
+
+        @Override
+        public void decrease(final long delta)
+        {
+            _value.add(-delta);
+        }
+
+        @Override
+        public long get()
+        {
+            final long value = _value.sum();
+            long hwm;
+            while((hwm = _hwm.get()) < value)
+            {
+                if (_hwm.compareAndSet(hwm, value))
+                {
+                    break;
+                }
+            }
+            return value;
+        }
+
+        @Override
+        public long getHwm()
+        {
+            get();
+            return _hwm.get();
+        }
+    }
 }
@@ -0,0 +1,358 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.regex.Pattern;
+
+import org.apache.qpid.server.filter.FilterManager;
+import org.apache.qpid.server.filter.Filterable;
+import org.apache.qpid.server.filter.JMSSelectorFilter;
+import org.apache.qpid.server.filter.MessageFilter;
+
+/**
+ * The selectors used by the consumers of a queue, deduplicated by their canonical text so that consumers using the
+ * same selector share a single registration.
+ * <p>
+ * Each distinct selector is given one of {@link #MAXIMUM_SHARED_SELECTORS} slots in which the result of evaluating it
+ * against a queue entry is remembered on the entry, so that a selector is evaluated at most once per entry however
+ * many consumers use it. Selectors registered once all slots are taken, and selectors referring to properties which
+ * may change while the message is on the queue, such as {@code JMSRedelivered}, are evaluated every time. A slot
+ * released by a selector is only reused after moving to a new epoch, which invalidates the results remembered on all
+ * entries.
+ */
+final class SelectorRegistry
+{
+    static final int MAXIMUM_SHARED_SELECTORS = Long.SIZE;
+
+    private static final int NOT_EVALUATED = -1;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern MUTABLE_PROPERTY = Pattern.compile("(?<![\\w$])JMSRedelivered(?![\\w$])");
+
+    private final Map<String, SharedSelector> _selectors = new HashMap<>();
+    private long _allocatedSlots;
+    private long _releasedSlots;
+    private long _epoch;
+
+    /**
+     * @param filters the filters of a consumer, may be null
+     * @param compileSelectors whether selectors not already registered are to be evaluated in compiled form
+     * @return the filters of the consumer with its selectors replaced by their shared registrations
+     */
+    ConsumerFilters register(final FilterManager filters, final boolean compileSelectors)
+    {
+        final List<SharedSelector> sharedSelectors = new ArrayList<>();
+        final List<MessageFilter> otherFilters = new ArrayList<>();
+        if (filters != null)
+        {
+            final Iterator<MessageFilter> iterator = filters.filters();
+            while (iterator.hasNext())
+            {
+                final MessageFilter filter = iterator.next();
+                if (filter instanceof JMSSelectorFilter)
+                {
+                    sharedSelectors.add(acquire((JMSSelectorFilter) filter, compileSelectors));
+                }
+                else
+                {
+                    otherFilters.add(filter);
+                }
+            }
+        }
+        return new ConsumerFilters(sharedSelectors.toArray(new SharedSelector[sharedSelectors.size()]),
+                                   otherFilters.toArray(new MessageFilter[otherFilters.size()]));
+    }
+
+    synchronized int getSharedSelectorCount()
+    {
+        return _selectors.size();
+    }
+
+    private synchronized SharedSelector acquire(final JMSSelectorFilter filter, final boolean compile)
+    {
+        final String key = canonicalise(filter.getSelector());
+        SharedSelector selector = _selectors.get(key);
+        if (selector == null)
+        {
+            selector = new SharedSelector(key,
+                                          compile ? filter.toCompiled() : filter,
+                                          referencesMutableProperty(key) ? -1 : allocateSlot());
+            _selectors.put(key, selector);
+        }
+        selector._references++;
+        return selector;
+    }
+
+    private synchronized void release(final SharedSelector selector)
+    {
+        if (--selector._references == 0)
+        {
+            _selectors.remove(selector._key);
+            if (selector._slot >= 0)
+            {
+                final long slotBit = 1L << selector._slot;
+                _allocatedSlots &= ~slotBit;
+                _releasedSlots |= slotBit;
+            }
+        }
+    }
+
+    private int allocateSlot()
+    {
+        final long freeSlots = ~_allocatedSlots;
+        if (freeSlots == 0L)
+        {
+            return -1;
+        }
+
+        final long unusedSlots = freeSlots & ~_releasedSlots;
+        final int slot;
+        if (unusedSlots != 0L)
+        {
+            slot = Long.numberOfTrailingZeros(unusedSlots);
+        }
+        else
+        {
+            slot = Long.numberOfTrailingZeros(freeSlots);
+            _epoch++;
+            _releasedSlots = 0L;
+            for (SharedSelector selector : _selectors.values())
+            {
+                selector._epoch = _epoch;
+            }
+        }
+        _allocatedSlots |= 1L << slot;
+        return slot;
+    }
+
+    /**
+     * Returns true if the selector refers to a property whose value may change while the message is on the queue,
+     * so that its result cannot be remembered on the entry.
+     */
+    static boolean referencesMutableProperty(final String selector)
+    {
+        final String withoutLiterals = STRING_LITERAL.matcher(selector).replaceAll("''");
+        return MUTABLE_PROPERTY.matcher(withoutLiterals).find();
+    }
+
+    /**
+     * Collapses whitespace outside of string literals, so that selectors differing only in layout share a slot.
+     */
+    static String canonicalise(final String selector)
+    {
+        final StringBuilder canonical = new StringBuilder(selector.length());
+        boolean inLiteral = false;
+        boolean pendingSpace = false;
+        for (int i = 0; i < selector.length(); i++)
+        {
+            final char c = selector.charAt(i);
+            if (!inLiteral && Character.isWhitespace(c))
+            {
+                pendingSpace = canonical.length() > 0;
+                continue;
+            }
+            if (pendingSpace)
+            {
+                canonical.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'')
+            {
+                inLiteral = !inLiteral;
+            }
+            canonical.append(c);
+        }
+        return canonical.toString();
+    }
+
+    final class SharedSelector
+    {
+        private final String _key;
+        private final MessageFilter _filter;
+        private final int _slot;
+        private volatile long _epoch;
+        private int _references;
+
+        private SharedSelector(final String key, final MessageFilter filter, final int slot)
+        {
+            _key = key;
+            _filter = filter;
+            _slot = slot;
+            _epoch = SelectorRegistry.this._epoch;
+        }
+
+        /**
+         * @return the result remembered on the entry, or {@link #NOT_EVALUATED}
+         */
+        int getRememberedMatch(final QueueEntry entry)
+        {
+            final Matches matches = getMatches(entry);
+            return matches == null ? NOT_EVALUATED : matches.get(_slot);
+        }
+
+        boolean matches(final QueueEntry entry, final Filterable filterable)
+        {
+            final boolean match = _filter.matches(filterable);
+            final Matches matches = getMatches(entry);
+            if (matches != null)
+            {
+                matches.set(_slot, match);
+            }
+            return match;
+        }
+
+        private Matches getMatches(final QueueEntry entry)
+        {
+            return _slot >= 0 && entry instanceof QueueEntryImpl
+                    ? ((QueueEntryImpl) entry).getSelectorMatches(_epoch)
+                    : null;
+        }
+    }
+
+    /**
+     * The filters of a single consumer.
+     */
+    final class ConsumerFilters
+    {
+        private final SharedSelector[] _sharedSelectors;
+        private final MessageFilter[] _otherFilters;
+        private final AtomicBoolean _released = new AtomicBoolean();
+
+        private ConsumerFilters(final SharedSelector[] sharedSelectors, final MessageFilter[] otherFilters)
+        {
+            _sharedSelectors = sharedSelectors;
+            _otherFilters = otherFilters;
+        }
+
+        boolean allAllow(final QueueEntry entry)
+        {
+            Filterable filterable = null;
+            for (SharedSelector selector : _sharedSelectors)
+            {
+                final int rememberedMatch = selector.getRememberedMatch(entry);
+                if (rememberedMatch == NOT_EVALUATED)
+                {
+                    if (filterable == null)
+                    {
+                        filterable = entry.asFilterable();
+                    }
+                    if (!selector.matches(entry, filterable))
+                    {
+                        return false;
+                    }
+                }
+                else if (rememberedMatch == 0)
+                {
+                    return false;
+                }
+            }
+            if (_otherFilters.length != 0)
+            {
+                if (filterable == null)
+                {
+                    filterable = entry.asFilterable();
+                }
+                for (MessageFilter filter : _otherFilters)
+                {
+                    if (!filter.matches(filterable))
+                    {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        void release()
+        {
+            if (_released.compareAndSet(false, true))
+            {
+                for (SharedSelector selector : _sharedSelectors)
+                {
+                    SelectorRegistry.this.release(selector);
+                }
+            }
+        }
+    }
+
+    /**
+     * The results of evaluating the shared selectors against a queue entry during one epoch of the registry.
+     */
+    static final class Matches
+    {
+        private static final AtomicLongFieldUpdater<Matches> EVALUATED_UPDATER =
+                AtomicLongFieldUpdater.newUpdater(Matches.class, "_evaluated");
+        private static final AtomicLongFieldUpdater<Matches> MATCHED_UPDATER =
+                AtomicLongFieldUpdater.newUpdater(Matches.class, "_matched");
+
+        private final long _epoch;
+        @SuppressWarnings("unused")
+        private volatile long _evaluated;
+        @SuppressWarnings("unused")
+        private volatile long _matched;
+
+        Matches(final long epoch)
+        {
+            _epoch = epoch;
+        }
+
+        long getEpoch()
+        {
+            return _epoch;
+        }
+
+        private int get(final int slot)
+        {
+            final long slotBit = 1L << slot;
+            if ((_evaluated & slotBit) == 0L)
+            {
+                return NOT_EVALUATED;
+            }
+            return (_matched & slotBit) == 0L ? 0 : 1;
+        }
+
+        private void set(final int slot, final boolean match)
+        {
+            final long slotBit = 1L << slot;
+            if (match)
+            {
+                setBit(MATCHED_UPDATER, slotBit);
+            }
+            setBit(EVALUATED_UPDATER, slotBit);
+        }
+
+        private void setBit(final AtomicLongFieldUpdater<Matches> updater, final long slotBit)
+        {
+            long current;
+            do
+            {
+                current = updater.get(this);
+            }
+            while ((current & slotBit) == 0L && !updater.compareAndSet(this, current, current | slotBit));
+        }
+    }
+}
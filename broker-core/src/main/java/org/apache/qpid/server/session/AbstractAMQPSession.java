@@ -53,6 +53,7 @@ import org.apache.qpid.server.model.Consumer;
 import org.apache.qpid.server.model.LifetimePolicy;
 import org.apache.qpid.server.model.Session;
 import org.apache.qpid.server.model.State;
+import org.apache.qpid.server.protocol.MessageDestinationCache;
 import org.apache.qpid.server.protocol.PublishAuthorisationCache;
 import org.apache.qpid.server.security.SecurityToken;
 import org.apache.qpid.server.transport.AMQPConnection;
@@ -72,6 +73,7 @@ public abstract class AbstractAMQPSession<S extends AbstractAMQPSession<S, X>,
     protected final Subject _subject;
     protected final SecurityToken _token;
     protected final PublishAuthorisationCache _publishAuthCache;
+    protected final MessageDestinationCache _destinationCache;
 
     protected final LogSubject _logSubject;
 
@@ -117,6 +119,12 @@ public abstract class AbstractAMQPSession<S extends AbstractAMQPSession<S, X>,
         final long authCacheTimeout = _connection.getContextValue(Long.class, Session.PRODUCER_AUTH_CACHE_TIMEOUT);
         final int authCacheSize = _connection.getContextValue(Integer.class, Session.PRODUCER_AUTH_CACHE_SIZE);
         _publishAuthCache = new PublishAuthorisationCache(_token, authCacheTimeout, authCacheSize);
+        final Integer destinationCacheSize =
+                _connection.getContextValue(Integer.class, Session.PRODUCER_DESTINATION_CACHE_SIZE);
+        _destinationCache = new MessageDestinationCache(_connection.getAddressSpace(),
+                                                        destinationCacheSize == null
+                                                                ? Session.PRODUCER_DESTINATION_CACHE_SIZE_DEFAULT
+                                                                : destinationCacheSize);
         _logSubject = new ChannelLogSubject(this);
 
         setState(State.ACTIVE);
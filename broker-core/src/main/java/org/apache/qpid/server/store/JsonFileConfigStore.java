@@ -20,9 +20,14 @@
  */
 package org.apache.qpid.server.store;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -36,7 +41,12 @@ import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import org.slf4j.Logger;
@@ -50,11 +60,20 @@ import org.apache.qpid.server.model.Model;
 import org.apache.qpid.server.model.SystemConfig;
 import org.apache.qpid.server.plugin.QpidServiceLoader;
 import org.apache.qpid.server.store.handler.ConfiguredObjectRecordHandler;
+import org.apache.qpid.server.util.FileHelper;
 
 public class JsonFileConfigStore extends AbstractJsonFileStore implements DurableConfigurationStore
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(JsonFileConfigStore.class);
 
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String SEALED_JOURNAL_SUFFIX = ".journal.sealed";
+    private static final String JOURNAL_OPERATION = "op";
+    private static final String JOURNAL_UPDATE = "update";
+    private static final String JOURNAL_REMOVE = "remove";
+    private static final String JOURNAL_RECORDS = "records";
+    private static final String JOURNAL_IDS = "ids";
+
     private static final Comparator<Class<? extends ConfiguredObject>> CATEGORY_CLASS_COMPARATOR =
             new Comparator<Class<? extends ConfiguredObject>>()
             {
@@ -89,10 +108,38 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
     private State _state = State.CLOSED;
     private final Object _lock = new Object();
 
+    /**
+     * Held for the whole of a compaction, so that the configuration file and the journals are never read part way
+     * through one.  Acquired before the monitor of the store.
+     */
+    private final Object _compactionLock = new Object();
+
+    /**
+     * Held whilst writing the configuration file, so that a compaction, which writes its snapshot without the monitor
+     * of the store, never writes at the same time as a rewrite made under it.  Acquired after the monitor of the store.
+     */
+    private final Object _saveLock = new Object();
+    private final AtomicLong _snapshotGeneration = new AtomicLong();
+    private long _savedSnapshotGeneration;
+    private final ObjectMapper _journalMapper;
+    private final FileHelper _fileHelper = new FileHelper();
+    private File _journalFile;
+    private File _sealedJournalFile;
+    private String _posixFilePermissions;
+    private boolean _journalEnabled;
+    private int _compactionThreshold;
+    private long _compactionInterval;
+    private FileOutputStream _journal;
+    private long _journalLength;
+    private int _journalRecordCount;
+    private boolean _compactionScheduled;
+    private ScheduledExecutorService _compactor;
+
     public JsonFileConfigStore(Class<? extends ConfiguredObject> rootClass)
     {
         super();
         _objectMapper = ConfiguredObjectJacksonModule.newObjectMapper(true).enable(SerializationFeature.INDENT_OUTPUT);
+        _journalMapper = ConfiguredObjectJacksonModule.newObjectMapper(true);
         _rootClass = rootClass;
     }
 
@@ -110,10 +157,30 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
         _classNameMapping = generateClassNameMap(_parent.getModel(), _rootClass);
 
         FileBasedSettings fileBasedSettings = (FileBasedSettings) _parent;
+        _posixFilePermissions = parent.getContextValue(String.class, SystemConfig.POSIX_FILE_PERMISSIONS);
         setup(parent.getName(),
               fileBasedSettings.getStorePath(),
-              parent.getContextValue(String.class, SystemConfig.POSIX_FILE_PERMISSIONS),
+              _posixFilePermissions,
               Collections.emptyMap());
+
+        final File configFile = getConfigFile();
+        _journalFile = new File(configFile.getParentFile(), configFile.getName() + JOURNAL_SUFFIX);
+        _sealedJournalFile = new File(configFile.getParentFile(), configFile.getName() + SEALED_JOURNAL_SUFFIX);
+        final Boolean journalEnabled =
+                parent.getContextValue(Boolean.class, SystemConfig.JSON_CONFIG_STORE_JOURNAL_ENABLED);
+        _journalEnabled = journalEnabled == null
+                ? SystemConfig.DEFAULT_JSON_CONFIG_STORE_JOURNAL_ENABLED
+                : journalEnabled;
+        final Integer compactionThreshold =
+                parent.getContextValue(Integer.class, SystemConfig.JSON_CONFIG_STORE_COMPACTION_THRESHOLD);
+        _compactionThreshold = compactionThreshold == null
+                ? SystemConfig.DEFAULT_JSON_CONFIG_STORE_COMPACTION_THRESHOLD
+                : compactionThreshold;
+        final Long compactionInterval =
+                parent.getContextValue(Long.class, SystemConfig.JSON_CONFIG_STORE_COMPACTION_INTERVAL);
+        _compactionInterval = compactionInterval == null
+                ? SystemConfig.DEFAULT_JSON_CONFIG_STORE_COMPACTION_INTERVAL
+                : compactionInterval;
         changeState(State.CLOSED, State.CONFIGURED);
 
     }
@@ -124,6 +191,16 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
     {
         changeState(State.CONFIGURED, State.OPEN);
         boolean isNew = load(initialRecords);
+        if (_sealedJournalFile.exists() || _journalFile.exists())
+        {
+            // the journals have been replayed, so fold them into the configuration file before accepting changes
+            save();
+            deleteJournals();
+        }
+        if (_journalEnabled)
+        {
+            openJournal();
+        }
         List<ConfiguredObjectRecord> records = new ArrayList<ConfiguredObjectRecord>(_objectsById.values());
         for(ConfiguredObjectRecord record : records)
         {
@@ -136,10 +213,17 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
     public void reload(ConfiguredObjectRecordHandler handler)
     {
         assertState(State.OPEN);
-        _idsByType.clear();
-        _objectsById.clear();
-        load();
-        List<ConfiguredObjectRecord> records = new ArrayList<ConfiguredObjectRecord>(_objectsById.values());
+        final List<ConfiguredObjectRecord> records;
+        synchronized (_compactionLock)
+        {
+            synchronized (this)
+            {
+                _idsByType.clear();
+                _objectsById.clear();
+                load();
+                records = new ArrayList<ConfiguredObjectRecord>(_objectsById.values());
+            }
+        }
         for(ConfiguredObjectRecord record : records)
         {
             handler.handle(record);
@@ -218,6 +302,13 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
                 }
                 idsForType.add(record.getId());
             }
+
+            final int replayed = replayJournal(_sealedJournalFile) + replayJournal(_journalFile);
+            if (replayed > 0)
+            {
+                LOGGER.debug("Replayed {} journal record(s) for configuration file {}", replayed, configFile);
+            }
+
             if(updated)
             {
                 save();
@@ -272,7 +363,7 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
 
             idsForType.add(record.getId());
 
-            save();
+            persistUpdate(Collections.singletonList(record));
         }
     }
 
@@ -291,6 +382,28 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
     }
 
     private void save()
+    {
+        final Map<String, Object> data = buildSnapshot();
+        save(data, _snapshotGeneration.incrementAndGet());
+    }
+
+    /**
+     * Writes a snapshot to the configuration file unless a snapshot taken after it has already been written, as
+     * happens when the configuration file is rewritten whilst a compaction is writing an earlier snapshot.
+     */
+    private void save(final Map<String, Object> data, final long generation)
+    {
+        synchronized (_saveLock)
+        {
+            if (generation > _savedSnapshotGeneration)
+            {
+                save(data);
+                _savedSnapshotGeneration = generation;
+            }
+        }
+    }
+
+    private Map<String, Object> buildSnapshot()
     {
         UUID rootId = getRootId();
         final Map<String, Object> data;
@@ -302,8 +415,7 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
         {
             data = build(_rootClass, rootId, createChildMap());
         }
-
-        save(data);
+        return data;
     }
 
     private Map<UUID, Map<String, SortedSet<ConfiguredObjectRecord>>> createChildMap()
@@ -399,14 +511,12 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
         List<UUID> removedIds = new ArrayList<UUID>();
         for(ConfiguredObjectRecord requestedRecord : objects)
         {
-            ConfiguredObjectRecord record = _objectsById.remove(requestedRecord.getId());
-            if(record != null)
+            if(removeRecord(requestedRecord.getId()))
             {
-                removedIds.add(record.getId());
-                _idsByType.get(record.getType()).remove(record.getId());
+                removedIds.add(requestedRecord.getId());
             }
         }
-        save();
+        persistRemove(removedIds);
         return removedIds.toArray(new UUID[removedIds.size()]);
     }
 
@@ -453,29 +563,397 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
                 throw new StoreException("Cannot update record of unknown type " + type);
             }
         }
+        final List<ConfiguredObjectRecord> updatedRecords = new ArrayList<>(records.length);
         for(ConfiguredObjectRecord record : records)
         {
             record = new ConfiguredObjectRecordImpl(record);
-            final UUID id = record.getId();
-            final String type = record.getType();
-            if(_objectsById.put(id, record) == null)
+            putRecord(record);
+            updatedRecords.add(record);
+        }
+
+        persistUpdate(updatedRecords);
+    }
+
+    private void putRecord(final ConfiguredObjectRecord record)
+    {
+        final UUID id = record.getId();
+        final String type = record.getType();
+        if(_objectsById.put(id, record) == null)
+        {
+            List<UUID> idsForType = _idsByType.get(type);
+            if(idsForType == null)
+            {
+                idsForType = new ArrayList<UUID>();
+                _idsByType.put(type, idsForType);
+            }
+            if(idsForType.contains(record.getId()))
+            {
+                throw new IllegalArgumentException("Duplicate id for record " + record);
+            }
+
+            idsForType.add(id);
+        }
+    }
+
+    private boolean removeRecord(final UUID id)
+    {
+        ConfiguredObjectRecord record = _objectsById.remove(id);
+        if(record != null)
+        {
+            _idsByType.get(record.getType()).remove(id);
+            return true;
+        }
+        return false;
+    }
+
+    private void persistUpdate(final Collection<ConfiguredObjectRecord> records)
+    {
+        if (_journal == null)
+        {
+            rewriteConfigurationFile();
+        }
+        else
+        {
+            final List<Map<String, Object>> journalRecords = new ArrayList<>(records.size());
+            for (ConfiguredObjectRecord record : records)
+            {
+                final Map<String, Object> journalRecord = new LinkedHashMap<>();
+                journalRecord.put("id", record.getId());
+                journalRecord.put("type", record.getType());
+                journalRecord.put("attributes", record.getAttributes());
+                journalRecord.put("parents", record.getParents());
+                journalRecords.add(journalRecord);
+            }
+            final Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put(JOURNAL_OPERATION, JOURNAL_UPDATE);
+            entry.put(JOURNAL_RECORDS, journalRecords);
+            appendToJournal(entry);
+        }
+    }
+
+    private void persistRemove(final Collection<UUID> ids)
+    {
+        if (_journal == null)
+        {
+            rewriteConfigurationFile();
+        }
+        else if (!ids.isEmpty())
+        {
+            final Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put(JOURNAL_OPERATION, JOURNAL_REMOVE);
+            entry.put(JOURNAL_IDS, ids);
+            appendToJournal(entry);
+        }
+    }
+
+    private void appendToJournal(final Map<String, Object> entry)
+    {
+        final byte[] line;
+        try
+        {
+            final byte[] json = _journalMapper.writeValueAsBytes(entry);
+            line = Arrays.copyOf(json, json.length + 1);
+            line[json.length] = '\n';
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new StoreException("Cannot serialise configuration journal record", e);
+        }
+
+        try
+        {
+            _journal.write(line);
+            _journalLength += line.length;
+        }
+        catch (IOException e)
+        {
+            discardIncompleteRecord();
+            throw new StoreException("Cannot write to configuration journal " + _journalFile, e);
+        }
+
+        if (++_journalRecordCount >= _compactionThreshold && !_compactionScheduled && _compactor != null)
+        {
+            _compactionScheduled = true;
+            _compactor.execute(this::compactQuietly);
+        }
+    }
+
+    /**
+     * Truncates the journal back to the end of the last complete record, so that records appended later are not
+     * lost behind a torn one on replay.  If that is not possible the journal is abandoned in favour of rewriting the
+     * configuration file.
+     */
+    private void discardIncompleteRecord()
+    {
+        try
+        {
+            _journal.getChannel().truncate(_journalLength);
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Cannot truncate configuration journal {}, rewriting configuration file instead",
+                        _journalFile, e);
+            rewriteConfigurationFile();
+        }
+    }
+
+    /**
+     * Applies the records of a journal to the records loaded from the configuration file.  Updates and removals are
+     * idempotent, so a journal already folded into the configuration file may safely be replayed again.  A
+     * truncated record at the end of the journal, left by a failure part way through a write, is ignored.
+     */
+    @SuppressWarnings("unchecked")
+    private int replayJournal(final File journalFile) throws IOException
+    {
+        if (!journalFile.exists())
+        {
+            return 0;
+        }
+
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalFile.toPath(), StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
             {
-                List<UUID> idsForType = _idsByType.get(type);
-                if(idsForType == null)
+                if (line.isEmpty())
                 {
-                    idsForType = new ArrayList<UUID>();
-                    _idsByType.put(type, idsForType);
+                    continue;
                 }
-                if(idsForType.contains(record.getId()))
+                final Map<String, Object> entry;
+                try
                 {
-                    throw new IllegalArgumentException("Duplicate id for record " + record);
+                    entry = _journalMapper.readValue(line, Map.class);
+                }
+                catch (JsonProcessingException e)
+                {
+                    LOGGER.warn("Ignoring incomplete record at the end of configuration journal {}", journalFile);
+                    break;
+                }
+
+                if (JOURNAL_UPDATE.equals(entry.get(JOURNAL_OPERATION)))
+                {
+                    for (Map<String, Object> journalRecord : (List<Map<String, Object>>) entry.get(JOURNAL_RECORDS))
+                    {
+                        final Map<String, UUID> parents = new LinkedHashMap<>();
+                        for (Map.Entry<String, Object> parent : ((Map<String, Object>) journalRecord.get("parents")).entrySet())
+                        {
+                            parents.put(parent.getKey(), UUID.fromString(String.valueOf(parent.getValue())));
+                        }
+                        putRecord(new ConfiguredObjectRecordImpl(UUID.fromString(String.valueOf(journalRecord.get("id"))),
+                                                                 (String) journalRecord.get("type"),
+                                                                 (Map<String, Object>) journalRecord.get("attributes"),
+                                                                 parents));
+                    }
+                }
+                else if (JOURNAL_REMOVE.equals(entry.get(JOURNAL_OPERATION)))
+                {
+                    for (Object id : (List<Object>) entry.get(JOURNAL_IDS))
+                    {
+                        removeRecord(UUID.fromString(String.valueOf(id)));
+                    }
+                }
+                else
+                {
+                    throw new StoreException("Unknown operation in configuration journal " + journalFile + ": " + line);
                 }
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    private void openJournal()
+    {
+        openJournalFile();
+
+        _compactor = Executors.newSingleThreadScheduledExecutor(r ->
+                                                                {
+                                                                    final Thread thread = new Thread(r, "JsonConfigStoreCompactor-" + _parent.getName());
+                                                                    thread.setDaemon(true);
+                                                                    return thread;
+                                                                });
+        if (_compactionInterval > 0)
+        {
+            _compactor.scheduleWithFixedDelay(this::compactQuietly,
+                                              _compactionInterval,
+                                              _compactionInterval,
+                                              TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void openJournalFile()
+    {
+        try
+        {
+            final Path journalPath = _journalFile.toPath();
+            if (!Files.exists(journalPath))
+            {
+                _fileHelper.createNewFile(journalPath, _posixFilePermissions);
+            }
+            _journal = new FileOutputStream(_journalFile, true);
+            _journalLength = _journal.getChannel().size();
+        }
+        catch (IOException e)
+        {
+            closeJournalQuietly();
+            throw new StoreException("Cannot open configuration journal " + _journalFile, e);
+        }
+        _journalRecordCount = 0;
+    }
+
+    private void compactQuietly()
+    {
+        try
+        {
+            compact();
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.warn("Failed to compact configuration journal {}", _journalFile, e);
+        }
+    }
 
-                idsForType.add(id);
+    /**
+     * Writes the current records to the configuration file and discards the journal records they supersede.  The
+     * snapshot is taken, and the journal sealed, whilst holding the monitor of the store; the file is written
+     * without it, so that changes made meanwhile are appended to a fresh journal.  Should the configuration file be
+     * rewritten meanwhile, the later snapshot it writes supersedes the one taken here, which is then not written.
+     */
+    private void compact()
+    {
+        synchronized (_compactionLock)
+        {
+            final Map<String, Object> data;
+            final long generation;
+            synchronized (this)
+            {
+                _compactionScheduled = false;
+                if (_journal == null || (_journalRecordCount == 0 && !_sealedJournalFile.exists()))
+                {
+                    return;
+                }
+                if (_sealedJournalFile.exists())
+                {
+                    // a previous compaction failed to write the configuration file; sealing again would lose its records
+                    rewriteConfigurationFile();
+                    return;
+                }
+                data = buildSnapshot();
+                generation = _snapshotGeneration.incrementAndGet();
+                if (!sealJournal())
+                {
+                    return;
+                }
+            }
+            save(data, generation);
+            try
+            {
+                Files.deleteIfExists(_sealedJournalFile.toPath());
             }
+            catch (IOException e)
+            {
+                throw new StoreException("Cannot delete configuration journal " + _sealedJournalFile, e);
+            }
+            LOGGER.debug("Compacted configuration journal {}", _journalFile);
+        }
+    }
+
+    /**
+     * Moves the journal aside and starts a fresh one.  Returns false if the journal could not be moved, in which case
+     * the configuration file has been rewritten instead.
+     */
+    private boolean sealJournal()
+    {
+        try
+        {
+            _journal.close();
+            _journal = null;
+            _fileHelper.atomicFileMoveOrReplace(_journalFile.toPath(), _sealedJournalFile.toPath());
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Cannot seal configuration journal {}, rewriting configuration file instead", _journalFile, e);
+            rewriteConfigurationFile();
+            return false;
         }
+        openJournalFile();
+        return true;
+    }
 
+    /**
+     * Writes all the current records to the configuration file and removes the journals, which it supersedes, before
+     * starting a fresh journal.  A journal older than the configuration file must never be left behind, as replaying
+     * it would revert later changes.  Called whilst holding the monitor of the store.
+     */
+    private void rewriteConfigurationFile()
+    {
+        closeJournalQuietly();
         save();
+        if (_journalEnabled)
+        {
+            deleteJournals();
+            openJournalFile();
+        }
+    }
+
+    private void closeJournalQuietly()
+    {
+        if (_journal != null)
+        {
+            try
+            {
+                _journal.close();
+            }
+            catch (IOException e)
+            {
+                LOGGER.debug("Failed to close configuration journal {}", _journalFile, e);
+            }
+            _journal = null;
+        }
+    }
+
+    private void closeJournal()
+    {
+        final boolean journalOpened = _compactor != null;
+        if (journalOpened)
+        {
+            _compactor.shutdownNow();
+            _compactor = null;
+        }
+
+        synchronized (_compactionLock)
+        {
+            synchronized (this)
+            {
+                if (journalOpened)
+                {
+                    // a journal that failed to reopen may still have been left on disk
+                    final boolean unsaved = _journal == null
+                                            || _journalRecordCount > 0
+                                            || _sealedJournalFile.exists();
+                    closeJournalQuietly();
+                    if (unsaved)
+                    {
+                        save();
+                    }
+                    deleteJournals();
+                }
+            }
+        }
+    }
+
+    private void deleteJournals()
+    {
+        try
+        {
+            Files.deleteIfExists(_sealedJournalFile.toPath());
+            Files.deleteIfExists(_journalFile.toPath());
+        }
+        catch (IOException e)
+        {
+            throw new StoreException("Cannot delete configuration journal " + _journalFile, e);
+        }
     }
 
     @Override
@@ -484,6 +962,7 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
 
         try
         {
+            closeJournal();
             cleanup();
         }
         finally
@@ -502,6 +981,10 @@ public class JsonFileConfigStore extends AbstractJsonFileStore implements Durabl
     {
         FileBasedSettings fileBasedSettings = (FileBasedSettings)parent;
 
+        if (_journalFile != null)
+        {
+            deleteJournals();
+        }
         delete(fileBasedSettings.getStorePath());
     }
 
@@ -0,0 +1,89 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An inclusive range of message ids.
+ */
+public final class MessageIdRange
+{
+    private final long _from;
+    private final long _to;
+
+    public MessageIdRange(final long from, final long to)
+    {
+        if (from > to)
+        {
+            throw new IllegalArgumentException("Range start " + from + " is greater than range end " + to);
+        }
+        _from = from;
+        _to = to;
+    }
+
+    public long getFrom()
+    {
+        return _from;
+    }
+
+    public long getTo()
+    {
+        return _to;
+    }
+
+    public boolean contains(final long messageId)
+    {
+        return messageId >= _from && messageId <= _to;
+    }
+
+    /**
+     * Splits this range into at most the given number of contiguous ranges of (nearly) equal width.
+     */
+    public List<MessageIdRange> split(final int parts)
+    {
+        final long width = _to - _from + 1;
+        if (parts <= 1 || width <= 1)
+        {
+            return Collections.singletonList(this);
+        }
+        final int count = (int) Math.min(parts, width);
+        final long partWidth = width / count;
+        final long oversizedParts = width % count;
+        final List<MessageIdRange> ranges = new ArrayList<>(count);
+        long from = _from;
+        for (int i = 0; i < count; i++)
+        {
+            final long to = from + partWidth - 1 + (i < oversizedParts ? 1 : 0);
+            ranges.add(new MessageIdRange(from, to));
+            from = to + 1;
+        }
+        return ranges;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MessageIdRange[" + _from + ", " + _to + "]";
+    }
+}
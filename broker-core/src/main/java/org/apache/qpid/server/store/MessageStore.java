@@ -22,6 +22,8 @@ package org.apache.qpid.server.store;
 
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.store.handler.DistributedTransactionHandler;
@@ -97,6 +99,41 @@ public interface MessageStore
         void visitDistributedTransactions(DistributedTransactionHandler handler) throws StoreException;
 
         StoredMessage<?> getMessage(long messageId);
+
+        /**
+         * Returns the messages with the given ids in the same order, with null in place of any message which does
+         * not exist.  Stores which can retrieve many messages more cheaply than one at a time should override this.
+         */
+        default List<StoredMessage<?>> getMessages(long[] messageIds)
+        {
+            final List<StoredMessage<?>> messages = new ArrayList<>(messageIds.length);
+            for (long messageId : messageIds)
+            {
+                messages.add(getMessage(messageId));
+            }
+            return messages;
+        }
+
+        /**
+         * Returns the range spanned by the ids of the stored messages, or null if the store holds no messages or the
+         * range cannot be determined cheaply.  Only stores overriding {@link #visitMessages(MessageIdRange,
+         * MessageHandler)} should report a range, as otherwise each partition of a visit would read every message.
+         */
+        default MessageIdRange getMessageIdRange()
+        {
+            return null;
+        }
+
+        /**
+         * Visits the messages with ids in the given range.  Implementations must allow several ranges to be visited
+         * concurrently.  Stores able to seek to the start of the range should override the default, which filters a
+         * visit of all messages.
+         */
+        default void visitMessages(MessageIdRange range, MessageHandler handler) throws StoreException
+        {
+            visitMessages(message -> !range.contains(message.getMessageNumber()) || handler.handle(message));
+        }
+
         void close();
     }
 
@@ -0,0 +1,214 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.store.handler.MessageHandler;
+
+/**
+ * Visits the messages of a store by splitting the range of message ids into partitions, each of which is read from
+ * the store by its own thread.  The messages read are passed to the handler on the calling thread, so the handler
+ * need not be thread safe; the readers run at most {@code readAhead} messages ahead of it.  Messages are not
+ * handled in id order.
+ * <p>
+ * The readers of all visits share a pool of at most {@link #MAXIMUM_READER_THREADS} threads, which exit when idle.
+ */
+public class PartitionedMessageStoreVisitor
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedMessageStoreVisitor.class);
+
+    public static final int DEFAULT_PARTITIONS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    public static final int DEFAULT_READ_AHEAD = 1024;
+
+    public static final int MAXIMUM_READER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    private static final long POLL_INTERVAL_MILLIS = 100L;
+    private static final long READER_KEEP_ALIVE_SECONDS = 60L;
+    private static final ThreadPoolExecutor READER_EXECUTOR = createReaderExecutor();
+
+    private final MessageStore.MessageStoreReader _reader;
+    private final int _partitions;
+    private final int _readAhead;
+
+    public PartitionedMessageStoreVisitor(final MessageStore.MessageStoreReader reader,
+                                          final int partitions,
+                                          final int readAhead)
+    {
+        _reader = reader;
+        _partitions = partitions;
+        _readAhead = Math.max(1, readAhead);
+    }
+
+    /**
+     * Visits all messages in the store.  If the handler returns false no further messages are handled.  Falls back
+     * to a sequential visit when a single partition is configured or the store cannot report its range of message
+     * ids.
+     */
+    public void visitMessages(final MessageHandler handler) throws StoreException
+    {
+        final MessageIdRange range = _partitions > 1 ? _reader.getMessageIdRange() : null;
+        final List<MessageIdRange> partitions = range == null ? null : range.split(_partitions);
+        if (partitions == null || partitions.size() == 1)
+        {
+            _reader.visitMessages(handler);
+            return;
+        }
+
+        LOGGER.debug("Visiting messages {} in {} partitions", range, partitions.size());
+
+        final BlockingQueue<StoredMessage<?>> readMessages = new ArrayBlockingQueue<>(_readAhead);
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final CountDownLatch readersDone = new CountDownLatch(partitions.size());
+        try
+        {
+            for (final MessageIdRange partition : partitions)
+            {
+                READER_EXECUTOR.execute(() ->
+                                 {
+                                     try
+                                     {
+                                         _reader.visitMessages(partition,
+                                                               message -> enqueue(readMessages, message, stopped));
+                                     }
+                                     catch (RuntimeException e)
+                                     {
+                                         failure.compareAndSet(null, e);
+                                         stopped.set(true);
+                                     }
+                                     finally
+                                     {
+                                         readersDone.countDown();
+                                     }
+                                 });
+            }
+
+            while (!stopped.get())
+            {
+                final StoredMessage<?> message = readMessages.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (message != null)
+                {
+                    if (!handler.handle(message))
+                    {
+                        stopped.set(true);
+                    }
+                }
+                else if (readersDone.getCount() == 0 && readMessages.isEmpty())
+                {
+                    break;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new StoreException("Interrupted whilst visiting messages", e);
+        }
+        finally
+        {
+            stopped.set(true);
+            readMessages.clear();
+            awaitReaders(readersDone);
+        }
+
+        final RuntimeException readerFailure = failure.get();
+        if (readerFailure != null)
+        {
+            throw readerFailure;
+        }
+    }
+
+    private boolean enqueue(final BlockingQueue<StoredMessage<?>> readMessages,
+                            final StoredMessage<?> message,
+                            final AtomicBoolean stopped)
+    {
+        try
+        {
+            while (!stopped.get())
+            {
+                if (readMessages.offer(message, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS))
+                {
+                    return true;
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void awaitReaders(final CountDownLatch readersDone)
+    {
+        boolean interrupted = false;
+        while (readersDone.getCount() != 0)
+        {
+            try
+            {
+                readersDone.await();
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadPoolExecutor createReaderExecutor()
+    {
+        final AtomicInteger threadCounter = new AtomicInteger();
+        final ThreadFactory threadFactory =
+                QpidByteBuffer.createQpidByteBufferTrackingThreadFactory(r ->
+                                                                         {
+                                                                             final Thread thread = new Thread(r, "MessageStoreReader-" + threadCounter.incrementAndGet());
+                                                                             thread.setDaemon(true);
+                                                                             return thread;
+                                                                         });
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAXIMUM_READER_THREADS,
+                                                                   MAXIMUM_READER_THREADS,
+                                                                   READER_KEEP_ALIVE_SECONDS,
+                                                                   TimeUnit.SECONDS,
+                                                                   new LinkedBlockingQueue<>(),
+                                                                   threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -31,7 +31,8 @@ public interface StoredMessage<M extends StorableMessageMetaData>
     /**
      * Returns length bytes of message content beginning from the given offset.  Caller is responsible
      * for the disposal of the returned buffer.  If length is {@link Integer#MAX_VALUE}, length is not
-     * constrained.
+     * constrained.  Where the content is not held in memory, implementations should read only the
+     * requested range, so that callers can stream large content in bounded-size pieces.
      */
     QpidByteBuffer getContent(int offset, int length);
 
@@ -37,6 +37,7 @@ import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.MessageHandle;
 import org.apache.qpid.server.store.MessageMetaDataTypeRegistry;
 import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.PartitionedMessageStoreVisitor;
 import org.apache.qpid.server.store.StorableMessageMetaData;
 import org.apache.qpid.server.store.StoredMessage;
 import org.apache.qpid.server.store.Transaction;
@@ -93,7 +94,9 @@ public class MessageStoreSerializer_v1 implements MessageStoreSerializer
     {
         SerializerMessageHandler messageHandler = new SerializerMessageHandler(serializer);
 
-        storeReader.visitMessages(messageHandler);
+        new PartitionedMessageStoreVisitor(storeReader,
+                                           PartitionedMessageStoreVisitor.DEFAULT_PARTITIONS,
+                                           PartitionedMessageStoreVisitor.DEFAULT_READ_AHEAD).visitMessages(messageHandler);
         if (messageHandler.getException() != null)
         {
             throw messageHandler.getException();
@@ -720,6 +720,39 @@ public abstract class AbstractAMQPConnection<C extends AbstractAMQPConnection<C,
         return _bytesOut.get();
     }
 
+    @Override
+    public long getNetworkWrites()
+    {
+        return _network.getNetworkWrites();
+    }
+
+    @Override
+    public double getAverageBuffersPerNetworkWrite()
+    {
+        final long networkWrites = _network.getNetworkWrites();
+        return networkWrites == 0L ? 0.0 : (double) _network.getNetworkWriteBuffers() / networkWrites;
+    }
+
+    @Override
+    public long getAverageBytesPerNetworkWrite()
+    {
+        final long networkWrites = _network.getNetworkWrites();
+        return networkWrites == 0L ? 0L : _network.getNetworkBytesWritten() / networkWrites;
+    }
+
+    @Override
+    public long getTlsRecordsWritten()
+    {
+        return _network.getTlsRecordsWritten();
+    }
+
+    @Override
+    public double getAverageTlsRecordsPerNetworkWrite()
+    {
+        final long networkWrites = _network.getNetworkWrites();
+        return networkWrites == 0L ? 0.0 : (double) _network.getTlsRecordsWritten() / networkWrites;
+    }
+
     @Override
     public long getMessagesIn()
     {
@@ -27,4 +27,13 @@ public interface AcceptingTransport
     void close();
 
     int getAcceptingPort();
+
+    /**
+     * Returns the scheduler processing the connections accepted by this transport, or null if the transport does
+     * not use a {@link NetworkConnectionScheduler}.
+     */
+    default NetworkConnectionScheduler getNetworkConnectionScheduler()
+    {
+        return null;
+    }
 }
@@ -22,6 +22,10 @@ package org.apache.qpid.server.transport;
 
 import java.io.IOException;
 import java.nio.channels.ServerSocketChannel;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
@@ -33,6 +37,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.model.port.AmqpPort;
 
 public class NetworkConnectionScheduler
 {
@@ -45,11 +50,33 @@ public class NetworkConnectionScheduler
     private final long _threadKeepAliveTimeout;
     private final String _name;
     private final int _numberOfSelectors;
-    private SelectorThread _selectorThread;
+    private final boolean _multiReactor;
+    private volatile SelectorThread _selectorThread;
+    private final int _delegatedTaskThreadPoolSize;
+    private ThreadPoolExecutor _delegatedTaskExecutor;
+    private boolean _closed;
 
     public NetworkConnectionScheduler(final String name,
                                       final int numberOfSelectors, int threadPoolSize,
                                       long threadKeepAliveTimeout)
+    {
+        this(name, numberOfSelectors, threadPoolSize, threadKeepAliveTimeout, false);
+    }
+
+    public NetworkConnectionScheduler(final String name,
+                                      final int numberOfSelectors, int threadPoolSize,
+                                      long threadKeepAliveTimeout,
+                                      boolean multiReactor)
+    {
+        this(name, numberOfSelectors, threadPoolSize, threadKeepAliveTimeout, multiReactor,
+             AmqpPort.DEFAULT_TLS_DELEGATED_TASK_THREAD_POOL_SIZE);
+    }
+
+    public NetworkConnectionScheduler(final String name,
+                                      final int numberOfSelectors, int threadPoolSize,
+                                      long threadKeepAliveTimeout,
+                                      boolean multiReactor,
+                                      int delegatedTaskThreadPoolSize)
     {
         this(name, numberOfSelectors, threadPoolSize, threadKeepAliveTimeout, new ThreadFactory()
                                     {
@@ -62,7 +89,7 @@ public class NetworkConnectionScheduler
                                             t.setName("IO-pool-" + name + "-" + _count.incrementAndGet());
                                             return t;
                                         }
-                                    });
+                                    }, multiReactor, delegatedTaskThreadPoolSize);
     }
 
     @Override
@@ -76,6 +103,7 @@ public class NetworkConnectionScheduler
                ", _threadKeepAliveTimeout=" + _threadKeepAliveTimeout +
                ", _name='" + _name + '\'' +
                ", _numberOfSelectors=" + _numberOfSelectors +
+               ", _multiReactor=" + _multiReactor +
                ", _selectorThread=" + _selectorThread +
                '}';
     }
@@ -84,8 +112,38 @@ public class NetworkConnectionScheduler
                                       final int numberOfSelectors, int threadPoolSize,
                                       long threadKeepAliveTimeout,
                                       ThreadFactory factory)
+    {
+        this(name, numberOfSelectors, threadPoolSize, threadKeepAliveTimeout, factory, false);
+    }
+
+    /**
+     * @param multiReactor if true, every thread of the pool owns a selector and a local run queue, so the number of
+     *                     selectors equals the thread pool size and {@code numberOfSelectors} is ignored
+     */
+    public NetworkConnectionScheduler(String name,
+                                      final int numberOfSelectors, int threadPoolSize,
+                                      long threadKeepAliveTimeout,
+                                      ThreadFactory factory,
+                                      boolean multiReactor)
+    {
+        this(name, numberOfSelectors, threadPoolSize, threadKeepAliveTimeout, factory, multiReactor,
+             AmqpPort.DEFAULT_TLS_DELEGATED_TASK_THREAD_POOL_SIZE);
+    }
+
+    /**
+     * @param delegatedTaskThreadPoolSize the maximum number of threads running the delegated tasks of TLS engines
+     *                                    offloaded from the IO threads
+     */
+    public NetworkConnectionScheduler(String name,
+                                      final int numberOfSelectors, int threadPoolSize,
+                                      long threadKeepAliveTimeout,
+                                      ThreadFactory factory,
+                                      boolean multiReactor,
+                                      int delegatedTaskThreadPoolSize)
     {
         _name = name;
+        _delegatedTaskThreadPoolSize = delegatedTaskThreadPoolSize;
+        _multiReactor = multiReactor;
         _poolSize = threadPoolSize;
         _threadKeepAliveTimeout = threadKeepAliveTimeout;
         _factory = factory;
@@ -98,7 +156,9 @@ public class NetworkConnectionScheduler
     {
         try
         {
-            _selectorThread = new SelectorThread(this, _numberOfSelectors);
+            _selectorThread = _multiReactor
+                    ? new SelectorThread(this, _poolSize, true)
+                    : new SelectorThread(this, _numberOfSelectors);
             final int corePoolSize = _poolSize;
             final int maximumPoolSize = _poolSize;
             final long keepAliveTime = _threadKeepAliveTimeout;
@@ -112,9 +172,16 @@ public class NetworkConnectionScheduler
                                                QpidByteBuffer.createQpidByteBufferTrackingThreadFactory(factory));
             _executor.prestartAllCoreThreads();
             _executor.allowCoreThreadTimeOut(true);
-            for(int i = 0 ; i < _poolSize; i++)
+            if (_multiReactor)
+            {
+                _selectorThread.startReactors(_executor);
+            }
+            else
             {
-                _executor.execute(_selectorThread);
+                for (int i = 0; i < _poolSize; i++)
+                {
+                    _executor.execute(_selectorThread);
+                }
             }
         }
         catch (IOException e)
@@ -191,6 +258,43 @@ public class NetworkConnectionScheduler
         {
             _executor.shutdown();
         }
+        synchronized (this)
+        {
+            _closed = true;
+            if (_delegatedTaskExecutor != null)
+            {
+                _delegatedTaskExecutor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Returns the executor used to run the delegated tasks of TLS engines away from the IO threads, creating it on
+     * first use.  The executor has at most the configured number of threads; tasks beyond that are queued.  Returns
+     * null once the scheduler has been closed.
+     */
+    synchronized ExecutorService getDelegatedTaskExecutor()
+    {
+        if (_delegatedTaskExecutor == null && !_closed)
+        {
+            final ThreadFactory factory = QpidByteBuffer.createQpidByteBufferTrackingThreadFactory(_factory);
+            final AtomicInteger count = new AtomicInteger();
+            final int poolSize = Math.max(_delegatedTaskThreadPoolSize, 1);
+            _delegatedTaskExecutor = new ThreadPoolExecutor(poolSize,
+                                                            poolSize,
+                                                            _threadKeepAliveTimeout,
+                                                            TimeUnit.MINUTES,
+                                                            new LinkedBlockingQueue<>(),
+                                                            r ->
+                                                            {
+                                                                Thread t = factory.newThread(r);
+                                                                t.setName("TLS-task-" + _name + "-" + count.incrementAndGet());
+                                                                t.setDaemon(true);
+                                                                return t;
+                                                            });
+            _delegatedTaskExecutor.allowCoreThreadTimeOut(true);
+        }
+        return _closed ? null : _delegatedTaskExecutor;
     }
 
 
@@ -234,4 +338,36 @@ public class NetworkConnectionScheduler
     {
         _selectorThread.addToWork(connection);
     }
+
+    public boolean isMultiReactor()
+    {
+        return _multiReactor;
+    }
+
+    /**
+     * Returns a snapshot of the load of each selector, or in multi-reactor mode of each reactor.
+     */
+    public List<Map<String, Object>> getReactorStatistics()
+    {
+        final SelectorThread selectorThread = _selectorThread;
+        return selectorThread == null ? Collections.emptyList() : selectorThread.getReactorStatistics();
+    }
+
+    public long getStolenWorkCount()
+    {
+        final SelectorThread selectorThread = _selectorThread;
+        return selectorThread == null ? 0L : selectorThread.getStolenWorkCount();
+    }
+
+    public int getMaximumReactorQueueDepth()
+    {
+        final SelectorThread selectorThread = _selectorThread;
+        return selectorThread == null ? 0 : selectorThread.getMaximumReactorQueueDepth();
+    }
+
+    public int getMaximumReactorConnectionCount()
+    {
+        final SelectorThread selectorThread = _selectorThread;
+        return selectorThread == null ? 0 : selectorThread.getMaximumReactorConnectionCount();
+    }
 }
@@ -22,9 +22,11 @@ package org.apache.qpid.server.transport;
 
 import java.io.IOException;
 import java.net.SocketAddress;
+import java.net.SocketException;
 import java.nio.channels.SocketChannel;
 import java.security.Principal;
 import java.security.cert.Certificate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.Iterator;
@@ -78,6 +80,17 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
     private volatile long _bufferedSize;
     private String _selectedHost;
 
+    /** Frames of at most this size are copied into a shared write buffer rather than queued individually */
+    private final int _coalescingThreshold;
+    private final int _writeBufferSize;
+    private final int _maxBuffersPerWrite;
+    private final List<QpidByteBuffer> _writeBatch = new ArrayList<>();
+    private QpidByteBuffer _coalescingBuffer;
+    private int _coalescingStart;
+    private volatile long _networkWrites;
+    private volatile long _networkWriteBuffers;
+    private volatile long _networkBytesWritten;
+
     public NonBlockingConnection(SocketChannel socketChannel,
                                  ProtocolEngine protocolEngine,
                                  final Set<TransportEncryption> encryptionSet,
@@ -94,6 +107,9 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         _remoteSocketAddress = _socketChannel.socket().getRemoteSocketAddress().toString();
         _port = port;
         _threadName = SelectorThread.IO_THREAD_NAME_PREFIX + _remoteSocketAddress.toString();
+        _writeBufferSize = Math.min(getSocketSendBufferSize(), port.getNetworkBufferSize());
+        _coalescingThreshold = Math.min(port.getWriteCoalescingThreshold(), _writeBufferSize);
+        _maxBuffersPerWrite = port.getMaxBuffersPerWrite() > 0 ? port.getMaxBuffersPerWrite() : Integer.MAX_VALUE;
 
         protocolEngine.setWorkListener(new Action<ProtocolEngine>()
         {
@@ -123,6 +139,19 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
         return _threadName;
     }
 
+    private int getSocketSendBufferSize()
+    {
+        try
+        {
+            return _socketChannel.socket().getSendBufferSize();
+        }
+        catch (SocketException e)
+        {
+            LOGGER.debug("Unable to determine socket send buffer size for '{}'", _remoteSocketAddress, e);
+            return Integer.MAX_VALUE;
+        }
+    }
+
     public boolean isPartialRead()
     {
         return _partialRead;
@@ -457,6 +486,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
                 final QpidByteBuffer buffer = _buffers.poll();
                 buffer.dispose();
             }
+            releaseCoalescingBuffer();
         }
 
     }
@@ -508,7 +538,42 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
 
     long writeToTransport(Collection<QpidByteBuffer> buffers) throws IOException
     {
-        long written  = QpidByteBuffer.write(_socketChannel, buffers);
+        long written = 0L;
+        final Iterator<QpidByteBuffer> iterator = buffers.iterator();
+        try
+        {
+            boolean batchWritten;
+            do
+            {
+                while (_writeBatch.size() < _maxBuffersPerWrite && iterator.hasNext())
+                {
+                    final QpidByteBuffer buffer = iterator.next();
+                    if (buffer.hasRemaining())
+                    {
+                        _writeBatch.add(buffer);
+                    }
+                }
+                if (_writeBatch.isEmpty())
+                {
+                    break;
+                }
+
+                final long batchBytesWritten = QpidByteBuffer.write(_socketChannel, _writeBatch);
+                _networkWrites++;
+                _networkWriteBuffers += _writeBatch.size();
+                _networkBytesWritten += batchBytesWritten;
+                written += batchBytesWritten;
+
+                batchWritten = !_writeBatch.get(_writeBatch.size() - 1).hasRemaining();
+                _writeBatch.clear();
+            }
+            while (batchWritten && iterator.hasNext());
+        }
+        finally
+        {
+            _writeBatch.clear();
+        }
+
         if (LOGGER.isDebugEnabled())
         {
             LOGGER.debug("Written " + written + " bytes");
@@ -518,6 +583,7 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
 
     private boolean doWrite() throws IOException
     {
+        sealCoalescingBuffer();
         final NonBlockingConnectionDelegate.WriteResult result = _delegate.doWrite(_buffers);
         _bufferedSize -= result.getBytesConsumed();
         _fullyWritten = result.isComplete();
@@ -531,6 +597,12 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
             _buffers.poll();
             buf.dispose();
         }
+        if (_fullyWritten)
+        {
+            // everything copied into the write buffer has been sealed and written, so rather than holding on to it
+            // until the connection closes, return it to the pool and take a fresh one when small frames are next sent
+            releaseCoalescingBuffer();
+        }
         return _fullyWritten;
     }
 
@@ -572,13 +644,104 @@ public class NonBlockingConnection implements ServerNetworkConnection, ByteBuffe
             int remaining = msg.remaining();
             if (remaining > 0)
             {
-                _buffers.add(msg.duplicate());
+                if (remaining <= _coalescingThreshold)
+                {
+                    coalesce(msg);
+                }
+                else
+                {
+                    sealCoalescingBuffer();
+                    _buffers.add(msg.duplicate());
+                }
                 _bufferedSize += remaining;
             }
         }
         msg.position(msg.limit());
     }
 
+    /**
+     * Copies a small frame into the current write buffer, so that runs of small frames reach the socket as a
+     * single buffer.  A new pooled write buffer is started when the current one has insufficient space.
+     */
+    private void coalesce(final QpidByteBuffer msg)
+    {
+        if (_coalescingBuffer == null || _coalescingBuffer.remaining() < msg.remaining())
+        {
+            sealCoalescingBuffer();
+            releaseCoalescingBuffer();
+            _coalescingBuffer = QpidByteBuffer.allocateDirect(_writeBufferSize);
+            _coalescingStart = 0;
+        }
+        _coalescingBuffer.put(msg);
+    }
+
+    /**
+     * Drops this connection's reference to the write buffer.  Views of it already queued for writing keep the buffer
+     * until they have been written.
+     */
+    private void releaseCoalescingBuffer()
+    {
+        if (_coalescingBuffer != null)
+        {
+            _coalescingBuffer.dispose();
+            _coalescingBuffer = null;
+        }
+    }
+
+    /**
+     * Queues for writing the frames copied into the write buffer since it was last sealed.  The remaining space of the
+     * write buffer continues to be used for subsequent frames.
+     */
+    private void sealCoalescingBuffer()
+    {
+        final QpidByteBuffer buffer = _coalescingBuffer;
+        if (buffer != null)
+        {
+            final int end = buffer.position();
+            if (end > _coalescingStart)
+            {
+                buffer.position(_coalescingStart);
+                _buffers.add(buffer.view(0, end - _coalescingStart));
+                buffer.position(end);
+                _coalescingStart = end;
+            }
+        }
+    }
+
+    @Override
+    public long getNetworkWrites()
+    {
+        return _networkWrites;
+    }
+
+    @Override
+    public long getNetworkWriteBuffers()
+    {
+        return _networkWriteBuffers;
+    }
+
+    @Override
+    public long getNetworkBytesWritten()
+    {
+        return _networkBytesWritten;
+    }
+
+    @Override
+    public long getTlsRecordsWritten()
+    {
+        return _delegate.getTlsRecordsWritten();
+    }
+
+    void notifyDelegatedTasksComplete()
+    {
+        _protocolEngine.notifyWork();
+        final SelectorThread.SelectionTask selectionTask = _selectionTask;
+        if (selectionTask != null)
+        {
+            selectionTask.wakeup();
+        }
+    }
+
     @Override
     public void flush()
     {
@@ -69,4 +69,9 @@ interface NonBlockingConnectionDelegate
     void shutdownOutput();
 
     String getTransportInfo();
+
+    default long getTlsRecordsWritten()
+    {
+        return 0L;
+    }
 }
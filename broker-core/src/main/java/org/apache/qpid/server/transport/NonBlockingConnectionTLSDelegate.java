@@ -28,6 +28,8 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.net.ssl.SNIHostName;
 import javax.net.ssl.SSLEngine;
@@ -49,6 +51,9 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(NonBlockingConnectionTLSDelegate.class);
 
+    /** The largest amount of application data a single TLS record may carry (RFC 5246 section 6.2.1). */
+    private static final int MAX_TLS_RECORD_PLAINTEXT_SIZE = 1 << 14;
+
     private final SSLEngine _sslEngine;
     private final NonBlockingConnection _parent;
     private final int _networkBufferSize;
@@ -61,6 +66,14 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     private QpidByteBuffer _netInputBuffer;
     private QpidByteBuffer _netOutputBuffer;
     private QpidByteBuffer _applicationBuffer;
+    private final boolean _recordCoalescing;
+    private final boolean _delegatedTaskOffload;
+    private QpidByteBuffer _stagingBuffer;
+    private Collection<QpidByteBuffer> _stagedData;
+    private int _netOutputStart;
+    private volatile boolean _delegatedTasksRunning;
+    private volatile RuntimeException _delegatedTaskFailure;
+    private volatile long _tlsRecordsWritten;
 
 
     public NonBlockingConnectionTLSDelegate(NonBlockingConnection parent, AmqpPort port)
@@ -79,17 +92,32 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
         _netInputBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
         _applicationBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
         _netOutputBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
+
+        _recordCoalescing = port.isTlsRecordCoalescing();
+        _delegatedTaskOffload = port.isTlsDelegatedTaskOffload();
+        if (_recordCoalescing)
+        {
+            _stagingBuffer = QpidByteBuffer.allocateDirect(MAX_TLS_RECORD_PLAINTEXT_SIZE);
+            _stagingBuffer.flip();
+            _stagedData = Collections.singletonList(_stagingBuffer);
+        }
     }
 
     @Override
     public boolean readyForRead()
     {
-        return _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_WRAP;
+        return !_delegatedTasksRunning
+               && _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_WRAP;
     }
 
     @Override
     public boolean processData() throws IOException
     {
+        checkDelegatedTaskFailure();
+        if (_delegatedTasksRunning)
+        {
+            return false;
+        }
         if(!_hostChecked)
         {
             try (QpidByteBuffer buffer = _netInputBuffer.duplicate())
@@ -159,11 +187,12 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     @Override
     public WriteResult doWrite(Collection<QpidByteBuffer> buffers) throws IOException
     {
+        checkDelegatedTaskFailure();
         final int bufCount = buffers.size();
 
-        int totalConsumed = wrapBufferArray(buffers);
+        int totalConsumed = _recordCoalescing ? wrapCoalesced(buffers) : wrapBufferArray(buffers);
 
-        boolean bufsSent = true;
+        boolean bufsSent = _stagingBuffer == null || !_stagingBuffer.hasRemaining();
         final Iterator<QpidByteBuffer> itr = buffers.iterator();
         int bufIndex = 0;
         while(itr.hasNext() && bufsSent && bufIndex++ < bufCount)
@@ -190,6 +219,12 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
                     break;
                 }
             }
+            if (_recordCoalescing && _encryptedOutput.isEmpty())
+            {
+                // everything encrypted so far has reached the transport, so the output buffer can be refilled
+                _netOutputBuffer.clear();
+                _netOutputStart = 0;
+            }
         }
         return new WriteResult(bufsSent && _encryptedOutput.isEmpty(), totalConsumed);
     }
@@ -255,6 +290,10 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
                 _status = QpidByteBuffer.encryptSSL(_sslEngine, buffers, _netOutputBuffer);
                 encrypted = _status.bytesProduced() > 0;
                 totalConsumed += _status.bytesConsumed();
+                if (encrypted)
+                {
+                    _tlsRecordsWritten++;
+                }
                 runSSLEngineTasks(_status);
                 if(encrypted && _netOutputBuffer.remaining() < _sslEngine.getSession().getPacketBufferSize())
                 {
@@ -285,10 +324,108 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
         return totalConsumed;
     }
 
+    /**
+     * Encrypts the given buffers by way of the staging buffer, so that each record produced carries as much
+     * application data as a TLS record allows however the data is fragmented across the buffers.  Encrypted records
+     * are appended to the current network output buffer, which is cleared for reuse once its content has been
+     * written in full rather than replaced by a newly allocated buffer.
+     *
+     * @return the number of bytes taken from the given buffers
+     */
+    private int wrapCoalesced(Collection<QpidByteBuffer> buffers) throws SSLException
+    {
+        int totalConsumed = 0;
+        boolean encrypted;
+        do
+        {
+            if(!_delegatedTasksRunning
+               && _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP)
+            {
+                if(_netOutputBuffer.remaining() < _sslEngine.getSession().getPacketBufferSize())
+                {
+                    addPendingNetOutput();
+                    _netOutputBuffer.dispose();
+                    _netOutputBuffer = QpidByteBuffer.allocateDirect(_networkBufferSize);
+                    _netOutputStart = 0;
+                }
+
+                totalConsumed += stageApplicationData(buffers);
+                _status = QpidByteBuffer.encryptSSL(_sslEngine, _stagedData, _netOutputBuffer);
+                encrypted = _status.bytesProduced() > 0;
+                if (encrypted)
+                {
+                    _tlsRecordsWritten++;
+                }
+                runSSLEngineTasks(_status);
+            }
+            else
+            {
+                encrypted = false;
+            }
+        }
+        while(encrypted && _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP);
+
+        addPendingNetOutput();
+        return totalConsumed;
+    }
+
+    private void addPendingNetOutput()
+    {
+        if (_netOutputBuffer.position() > _netOutputStart)
+        {
+            final QpidByteBuffer output = _netOutputBuffer.duplicate();
+            output.limit(_netOutputBuffer.position());
+            output.position(_netOutputStart);
+            _encryptedOutput.add(output);
+            _netOutputStart = _netOutputBuffer.position();
+        }
+    }
+
+    /**
+     * Tops up the staging buffer from the given buffers, leaving it ready to be read.  Data staged but not yet
+     * encrypted is retained for the next wrap.
+     */
+    private int stageApplicationData(Collection<QpidByteBuffer> buffers)
+    {
+        int staged = 0;
+        _stagingBuffer.compact();
+        for (QpidByteBuffer buffer : buffers)
+        {
+            if (!_stagingBuffer.hasRemaining())
+            {
+                break;
+            }
+            final int length = Math.min(buffer.remaining(), _stagingBuffer.remaining());
+            if (length > 0)
+            {
+                if (length == buffer.remaining())
+                {
+                    _stagingBuffer.put(buffer);
+                }
+                else
+                {
+                    try (QpidByteBuffer part = buffer.view(0, length))
+                    {
+                        _stagingBuffer.put(part);
+                    }
+                    buffer.position(buffer.position() + length);
+                }
+                staged += length;
+            }
+        }
+        _stagingBuffer.flip();
+        return staged;
+    }
+
     private boolean runSSLEngineTasks(final SSLEngineResult status)
     {
         if(status.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK)
         {
+            if (_delegatedTaskOffload && offloadSSLEngineTasks())
+            {
+                return false;
+            }
+
             Runnable task;
             while((task = _sslEngine.getDelegatedTask()) != null)
             {
@@ -301,6 +438,76 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
         return false;
     }
 
+    /**
+     * Hands the delegated tasks of the engine to the scheduler's task executor.  Until they are complete the
+     * connection neither reads nor wraps, and once they are the connection is scheduled again.
+     *
+     * @return false if the tasks could not be handed off and must be run by the caller
+     */
+    private boolean offloadSSLEngineTasks()
+    {
+        if (_delegatedTasksRunning)
+        {
+            return true;
+        }
+        final NetworkConnectionScheduler scheduler = _parent.getScheduler();
+        final Executor executor = scheduler == null ? null : scheduler.getDelegatedTaskExecutor();
+        if (executor == null)
+        {
+            return false;
+        }
+
+        _delegatedTasksRunning = true;
+        try
+        {
+            executor.execute(() ->
+                             {
+                                 try
+                                 {
+                                     Runnable task;
+                                     while ((task = _sslEngine.getDelegatedTask()) != null)
+                                     {
+                                         task.run();
+                                     }
+                                 }
+                                 catch (RuntimeException e)
+                                 {
+                                     _delegatedTaskFailure = e;
+                                 }
+                                 finally
+                                 {
+                                     _delegatedTasksRunning = false;
+                                     _parent.notifyDelegatedTasksComplete();
+                                 }
+                             });
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            _delegatedTasksRunning = false;
+            return false;
+        }
+    }
+
+    /**
+     * Fails the connection if a delegated task run off the IO thread has thrown, as the engine cannot complete
+     * the handshake once one of its tasks has failed.
+     */
+    private void checkDelegatedTaskFailure() throws SSLException
+    {
+        final RuntimeException failure = _delegatedTaskFailure;
+        if (failure != null)
+        {
+            throw new SSLException("Delegated TLS task failed", failure);
+        }
+    }
+
+    @Override
+    public long getTlsRecordsWritten()
+    {
+        return _tlsRecordsWritten;
+    }
+
     @Override
     public Principal getPeerPrincipal()
     {
@@ -318,7 +525,8 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
     @Override
     public boolean needsWork()
     {
-        return _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP;
+        return !_delegatedTasksRunning
+               && _sslEngine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_UNWRAP;
     }
 
     private synchronized void checkPeerPrincipal()
@@ -400,6 +608,11 @@ public class NonBlockingConnectionTLSDelegate implements NonBlockingConnectionDe
             _netOutputBuffer.dispose();
             _netOutputBuffer = null;
         }
+        if (_stagingBuffer != null)
+        {
+            _stagingBuffer.dispose();
+            _stagingBuffer = null;
+        }
         try
         {
             _sslEngine.closeOutbound();
@@ -29,20 +29,27 @@ import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.util.concurrent.SettableFuture;
 import org.slf4j.Logger;
@@ -67,6 +74,12 @@ class SelectorThread extends Thread
     private final BlockingQueue<Runnable> _workQueue = new LinkedBlockingQueue<>();
     private final  AtomicInteger _nextSelectorTaskIndex = new AtomicInteger();
 
+    /**
+     * In multi-reactor mode each selection task is permanently driven by its own thread and has its own run queue.
+     * Connections are pinned to a reactor; an idle reactor steals work from the run queues of the other reactors.
+     */
+    private final boolean _multiReactor;
+
     public final class SelectionTask implements Runnable
     {
         private final Selector _selector;
@@ -84,10 +97,21 @@ class SelectorThread extends Thread
         /** Set of connections that are currently being selected upon */
         private final Set<NonBlockingConnection> _unscheduledConnections = new HashSet<>();
 
+        /** Set of connections that are assigned to this selection task */
+        private final Set<NonBlockingConnection> _assignedConnections = ConcurrentHashMap.newKeySet();
+
+        /** Local run queue of this task, used in multi-reactor mode only */
+        private final Deque<Runnable> _runQueue = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger _runQueueDepth = new AtomicInteger();
 
+        private final int _index;
+        private final AtomicLong _selects = new AtomicLong();
+        private final AtomicLong _scheduledWork = new AtomicLong();
+        private final AtomicLong _stolenWork = new AtomicLong();
 
-        private SelectionTask() throws IOException
+        private SelectionTask(final int index) throws IOException
         {
+            _index = index;
             _selector = Selector.open();
         }
 
@@ -198,7 +222,7 @@ class SelectorThread extends Thread
                                     + " because selector key is already cancelled", localSocketAddress, e);
                     }
 
-                    _workQueue.add(() -> {
+                    submit(() -> {
                             try
                             {
                                 _scheduler.incrementRunningCount();
@@ -305,50 +329,11 @@ class SelectorThread extends Thread
                             if (!_closed.get())
                             {
                                 Thread.currentThread().setName(_scheduler.getSelectorThreadName());
-                                _inSelect.set(true);
-                                try
+                                if (!select(false))
                                 {
-                                    if (_wakeups.getAndSet(0) > 0)
-                                    {
-                                        _selector.selectNow();
-                                    }
-                                    else
-                                    {
-                                        _selector.select(_nextTimeout);
-                                    }
-                                }
-                                catch (IOException e)
-                                {
-                                    // TODO Inform the model object
-                                    LOGGER.error("Failed to trying to select()", e);
-                                    closeSelector();
                                     return;
                                 }
-                                finally
-                                {
-                                    _inSelect.set(false);
-                                }
-                                for (NonBlockingConnection connection : processSelectionKeys())
-                                {
-                                    if (connection.setScheduled())
-                                    {
-                                        connections.add(new ConnectionProcessor(_scheduler, connection));
-                                    }
-                                }
-                                for (NonBlockingConnection connection : reregisterUnregisteredConnections())
-                                {
-                                    if (connection.setScheduled())
-                                    {
-                                        connections.add(new ConnectionProcessor(_scheduler, connection));
-                                    }
-                                }
-                                for (NonBlockingConnection connection : processUnscheduledConnections())
-                                {
-                                    if (connection.setScheduled())
-                                    {
-                                        connections.add(new ConnectionProcessor(_scheduler, connection));
-                                    }
-                                }
+                                collectScheduledConnections(connections);
                                 runTasks();
                             }
                         }
@@ -359,6 +344,7 @@ class SelectorThread extends Thread
 
                         if (!connections.isEmpty())
                         {
+                            _scheduledWork.addAndGet(connections.size());
                             _workQueue.addAll(connections);
                             _workQueue.add(this);
                             for (ConnectionProcessor connectionProcessor : connections)
@@ -384,6 +370,188 @@ class SelectorThread extends Thread
             }
         }
 
+        /**
+         * Selects on this task's selector, blocking only if there has been no wakeup since the last select and
+         * {@code mayBlock} is true.
+         *
+         * @return false if the selector failed and has been closed
+         */
+        private boolean select(final boolean mayBlock)
+        {
+            _inSelect.set(true);
+            try
+            {
+                if (_wakeups.getAndSet(0) > 0 || !mayBlock)
+                {
+                    _selector.selectNow();
+                }
+                else
+                {
+                    _selector.select(_nextTimeout);
+                }
+                _selects.incrementAndGet();
+                return true;
+            }
+            catch (IOException e)
+            {
+                // TODO Inform the model object
+                LOGGER.error("Failed to trying to select()", e);
+                closeSelector();
+                return false;
+            }
+            finally
+            {
+                _inSelect.set(false);
+            }
+        }
+
+        private void collectScheduledConnections(final List<? super ConnectionProcessor> connections)
+        {
+            for (NonBlockingConnection connection : processSelectionKeys())
+            {
+                if (connection.setScheduled())
+                {
+                    connections.add(new ConnectionProcessor(_scheduler, connection));
+                }
+            }
+            for (NonBlockingConnection connection : reregisterUnregisteredConnections())
+            {
+                if (connection.setScheduled())
+                {
+                    connections.add(new ConnectionProcessor(_scheduler, connection));
+                }
+            }
+            for (NonBlockingConnection connection : processUnscheduledConnections())
+            {
+                if (connection.setScheduled())
+                {
+                    connections.add(new ConnectionProcessor(_scheduler, connection));
+                }
+            }
+        }
+
+        /**
+         * Main loop of a reactor in multi-reactor mode. The reactor alternates between selecting and running the
+         * work in its own run queue. Only when its run queue is empty does it take work from the tail of the run
+         * queue of another reactor.
+         */
+        private void runReactor()
+        {
+            final String name = Thread.currentThread().getName();
+            try
+            {
+                boolean stolen = false;
+                while (!_closed.get())
+                {
+                    Thread.currentThread().setName(_scheduler.getSelectorThreadName());
+                    if (!select(_runQueueDepth.get() == 0 && !stolen))
+                    {
+                        return;
+                    }
+
+                    final List<Runnable> connections = new ArrayList<>();
+                    collectScheduledConnections(connections);
+                    for (Runnable connection : connections)
+                    {
+                        submit(connection);
+                    }
+                    if (this == _selectionTasks[0])
+                    {
+                        runTasks();
+                    }
+
+                    if (_runQueueDepth.get() > 1)
+                    {
+                        wakeupIdleReactor(this);
+                    }
+
+                    int batch = _runQueueDepth.get();
+                    if (batch > 0)
+                    {
+                        stolen = false;
+                        Runnable work;
+                        while (batch-- > 0 && (work = poll()) != null)
+                        {
+                            work.run();
+                        }
+                    }
+                    else
+                    {
+                        final Runnable work = steal(this);
+                        stolen = work != null;
+                        if (stolen)
+                        {
+                            _stolenWork.incrementAndGet();
+                            work.run();
+                        }
+                    }
+                    Thread.currentThread().setName(name);
+                }
+            }
+            finally
+            {
+                Thread.currentThread().setName(name);
+                closeSelector();
+            }
+        }
+
+        private void submit(final Runnable work)
+        {
+            if (_multiReactor)
+            {
+                _runQueue.addLast(work);
+                _runQueueDepth.incrementAndGet();
+                _scheduledWork.incrementAndGet();
+                wakeup();
+            }
+            else
+            {
+                _workQueue.add(work);
+            }
+        }
+
+        private Runnable poll()
+        {
+            final Runnable work = _runQueue.pollFirst();
+            if (work != null)
+            {
+                _runQueueDepth.decrementAndGet();
+            }
+            return work;
+        }
+
+        private Runnable pollLast()
+        {
+            final Runnable work = _runQueue.pollLast();
+            if (work != null)
+            {
+                _runQueueDepth.decrementAndGet();
+            }
+            return work;
+        }
+
+        private boolean isIdle()
+        {
+            return _inSelect.get() && _runQueueDepth.get() == 0;
+        }
+
+        private SelectorThread getSelectorThread()
+        {
+            return SelectorThread.this;
+        }
+
+        Map<String, Object> getStatistics()
+        {
+            final Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("reactor", _index);
+            statistics.put("connections", _assignedConnections.size());
+            statistics.put("queueDepth", _runQueueDepth.get());
+            statistics.put("selects", _selects.get());
+            statistics.put("scheduledWork", _scheduledWork.get());
+            statistics.put("stolenWork", _stolenWork.get());
+            return statistics;
+        }
+
         private void closeSelector()
         {
             try
@@ -413,19 +581,119 @@ class SelectorThread extends Thread
     private SelectionTask[] _selectionTasks;
 
     SelectorThread(final NetworkConnectionScheduler scheduler, final int numberOfSelectors) throws IOException
+    {
+        this(scheduler, numberOfSelectors, false);
+    }
+
+    SelectorThread(final NetworkConnectionScheduler scheduler,
+                   final int numberOfSelectors,
+                   final boolean multiReactor) throws IOException
     {
         _scheduler = scheduler;
+        _multiReactor = multiReactor;
         _selectionTasks = new SelectionTask[numberOfSelectors];
         for(int i = 0; i < numberOfSelectors; i++)
         {
-            _selectionTasks[i] = new SelectionTask();
+            _selectionTasks[i] = new SelectionTask(i);
         }
-        for(SelectionTask task : _selectionTasks)
+        if (!multiReactor)
         {
-            _workQueue.add(task);
+            for (SelectionTask task : _selectionTasks)
+            {
+                _workQueue.add(task);
+            }
         }
     }
 
+    boolean isMultiReactor()
+    {
+        return _multiReactor;
+    }
+
+    /**
+     * Starts one reactor loop per selection task. Each loop occupies a thread of the given executor until this
+     * selector thread is closed.
+     */
+    void startReactors(final Executor executor)
+    {
+        if (!_multiReactor)
+        {
+            throw new IllegalStateException("Reactors can only be started in multi-reactor mode");
+        }
+        for (SelectionTask task : _selectionTasks)
+        {
+            executor.execute(task::runReactor);
+        }
+    }
+
+    List<Map<String, Object>> getReactorStatistics()
+    {
+        final List<Map<String, Object>> statistics = new ArrayList<>(_selectionTasks.length);
+        for (SelectionTask task : _selectionTasks)
+        {
+            statistics.add(task.getStatistics());
+        }
+        return statistics;
+    }
+
+    long getStolenWorkCount()
+    {
+        long stolenWork = 0L;
+        for (SelectionTask task : _selectionTasks)
+        {
+            stolenWork += task._stolenWork.get();
+        }
+        return stolenWork;
+    }
+
+    int getMaximumReactorQueueDepth()
+    {
+        int maximumQueueDepth = 0;
+        for (SelectionTask task : _selectionTasks)
+        {
+            maximumQueueDepth = Math.max(maximumQueueDepth, task._runQueueDepth.get());
+        }
+        return maximumQueueDepth;
+    }
+
+    int getMaximumReactorConnectionCount()
+    {
+        int maximumConnectionCount = 0;
+        for (SelectionTask task : _selectionTasks)
+        {
+            maximumConnectionCount = Math.max(maximumConnectionCount, task._assignedConnections.size());
+        }
+        return maximumConnectionCount;
+    }
+
+    private void wakeupIdleReactor(final SelectionTask busyTask)
+    {
+        for (SelectionTask task : _selectionTasks)
+        {
+            if (task != busyTask && task.isIdle())
+            {
+                task.wakeup();
+                return;
+            }
+        }
+    }
+
+    private Runnable steal(final SelectionTask thief)
+    {
+        SelectionTask victim = null;
+        int victimDepth = 0;
+        for (SelectionTask task : _selectionTasks)
+        {
+            final int depth = task._runQueueDepth.get();
+            if (task != thief && depth > victimDepth)
+            {
+                victim = task;
+                victimDepth = depth;
+            }
+        }
+        return victim == null ? null : victim.pollLast();
+    }
+
     public void addAcceptingSocket(final ServerSocketChannel socketChannel,
                                    final NonBlockingNetworkTransport nonBlockingNetworkTransport)
     {
@@ -620,8 +888,9 @@ class SelectorThread extends Thread
     {
         if(selectionInterestRequiresUpdate(connection))
         {
-            SelectionTask selectionTask = getNextSelectionTask();
+            SelectionTask selectionTask = _multiReactor ? getLeastLoadedSelectionTask() : getNextSelectionTask();
             connection.setSelectionTask(selectionTask);
+            selectionTask._assignedConnections.add(connection);
             selectionTask.getUnregisteredConnections().add(connection);
             selectionTask.wakeup();
         }
@@ -644,6 +913,22 @@ class SelectorThread extends Thread
 
     }
 
+    private SelectionTask getLeastLoadedSelectionTask()
+    {
+        SelectionTask leastLoaded = getNextSelectionTask();
+        int leastConnections = leastLoaded._assignedConnections.size();
+        for (SelectionTask task : _selectionTasks)
+        {
+            final int connections = task._assignedConnections.size();
+            if (connections < leastConnections)
+            {
+                leastLoaded = task;
+                leastConnections = connections;
+            }
+        }
+        return leastLoaded;
+    }
+
     private SelectionTask getNextSelectionTask()
     {
         int index;
@@ -657,6 +942,11 @@ class SelectorThread extends Thread
 
     void removeConnection(NonBlockingConnection connection)
     {
+        final SelectionTask selectionTask = connection.getSelectionTask();
+        if (selectionTask != null)
+        {
+            selectionTask._assignedConnections.remove(connection);
+        }
         try
         {
             unregisterConnection(connection);
@@ -690,10 +980,13 @@ class SelectorThread extends Thread
         };
         _closed.set(true);
 
-        int count = _scheduler.getPoolSize();
-        while(count-- > 0)
+        if (!_multiReactor)
         {
-            _workQueue.offer(goodNight);
+            int count = _scheduler.getPoolSize();
+            while (count-- > 0)
+            {
+                _workQueue.offer(goodNight);
+            }
         }
 
         for(SelectionTask task : _selectionTasks)
@@ -711,7 +1004,23 @@ class SelectorThread extends Thread
          }
          if(connection.setScheduled())
          {
-             _workQueue.add(new ConnectionProcessor(_scheduler, connection));
+             final ConnectionProcessor connectionProcessor = new ConnectionProcessor(_scheduler, connection);
+             if (_multiReactor)
+             {
+                 final SelectionTask selectionTask = connection.getSelectionTask();
+                 if (selectionTask != null && selectionTask.getSelectorThread() == this)
+                 {
+                     selectionTask.submit(connectionProcessor);
+                 }
+                 else
+                 {
+                     getLeastLoadedSelectionTask().submit(connectionProcessor);
+                 }
+             }
+             else
+             {
+                 _workQueue.add(connectionProcessor);
+             }
          }
      }
 }
@@ -32,4 +32,36 @@ public interface ServerNetworkConnection extends NetworkConnection
     void removeSchedulingDelayNotificationListeners(SchedulingDelayNotificationListener listener);
 
     String getSelectedHost();
+
+    /**
+     * Returns the number of gathering writes made to the underlying transport.
+     */
+    default long getNetworkWrites()
+    {
+        return 0L;
+    }
+
+    /**
+     * Returns the total number of buffers passed to the gathering writes made to the underlying transport.
+     */
+    default long getNetworkWriteBuffers()
+    {
+        return 0L;
+    }
+
+    /**
+     * Returns the total number of bytes written to the underlying transport.
+     */
+    default long getNetworkBytesWritten()
+    {
+        return 0L;
+    }
+
+    /**
+     * Returns the number of TLS records written to the underlying transport, or 0 if the transport is not encrypted.
+     */
+    default long getTlsRecordsWritten()
+    {
+        return 0L;
+    }
 }
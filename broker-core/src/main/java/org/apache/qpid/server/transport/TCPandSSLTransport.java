@@ -36,7 +36,7 @@ class TCPandSSLTransport implements AcceptingTransport
     private AmqpPort<?> _port;
     private Set<Protocol> _supported;
     private Protocol _defaultSupportedProtocolReply;
-    private NetworkConnectionScheduler _scheduler;
+    private volatile NetworkConnectionScheduler _scheduler;
 
     TCPandSSLTransport(final Set<Transport> transports,
                        final AmqpPort<?> port,
@@ -72,8 +72,16 @@ class TCPandSSLTransport implements AcceptingTransport
 
         long threadPoolKeepAliveTimeout = _port.getContextValue(Long.class, AmqpPort.PORT_AMQP_THREAD_POOL_KEEP_ALIVE_TIMEOUT);
 
+        boolean multiReactor = Boolean.TRUE.equals(_port.getContextValue(Boolean.class, AmqpPort.PORT_AMQP_MULTI_REACTOR));
+
+        Integer delegatedTaskThreadPoolSize = _port.getContextValue(Integer.class, AmqpPort.TLS_DELEGATED_TASK_THREAD_POOL_SIZE);
+
         _scheduler = new NetworkConnectionScheduler("Port-"+_port.getName(), _port.getNumberOfSelectors(),
-                                                    _port.getThreadPoolSize(), threadPoolKeepAliveTimeout);
+                                                    _port.getThreadPoolSize(), threadPoolKeepAliveTimeout,
+                                                    multiReactor,
+                                                    delegatedTaskThreadPoolSize == null
+                                                            ? AmqpPort.DEFAULT_TLS_DELEGATED_TASK_THREAD_POOL_SIZE
+                                                            : delegatedTaskThreadPoolSize);
         _scheduler.start();
         _networkTransport = new NonBlockingNetworkTransport(protocolEngineFactory,
                                                             encryptionSet, _scheduler, _port);
@@ -87,6 +95,12 @@ class TCPandSSLTransport implements AcceptingTransport
         return networkTransport == null ? _port.getPort() : networkTransport.getAcceptingPort();
     }
 
+    @Override
+    public NetworkConnectionScheduler getNetworkConnectionScheduler()
+    {
+        return _scheduler;
+    }
+
     @Override
     public void close()
     {
@@ -61,6 +61,7 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -83,6 +84,7 @@ import org.apache.qpid.server.configuration.updater.TaskExecutor;
 import org.apache.qpid.server.configuration.updater.TaskExecutorImpl;
 import org.apache.qpid.server.exchange.DefaultDestination;
 import org.apache.qpid.server.exchange.ExchangeDefaults;
+import org.apache.qpid.server.exchange.topic.TopicMatcherAutomatonCache;
 import org.apache.qpid.server.filter.AMQInvalidArgumentException;
 import org.apache.qpid.server.logging.EventLogger;
 import org.apache.qpid.server.logging.messages.MessageStoreMessages;
@@ -108,6 +110,9 @@ import org.apache.qpid.server.plugin.QpidServiceLoader;
 import org.apache.qpid.server.plugin.SystemNodeCreator;
 import org.apache.qpid.server.pool.SuppressingInheritedAccessControlContextThreadFactory;
 import org.apache.qpid.server.protocol.LinkModel;
+import org.apache.qpid.server.protocol.MessageConversionCache;
+import org.apache.qpid.server.queue.AbstractQueue;
+import org.apache.qpid.server.queue.FlowToDiskEvictor;
 import org.apache.qpid.server.queue.QueueEntry;
 import org.apache.qpid.server.queue.QueueEntryIterator;
 import org.apache.qpid.server.security.AccessControl;
@@ -192,11 +197,11 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     private volatile LinkRegistryModel _linkRegistry;
     private AtomicBoolean _blocked = new AtomicBoolean();
 
-    private final Map<String, MessageDestination> _systemNodeDestinations =
-            Collections.synchronizedMap(new HashMap<String,MessageDestination>());
+    private final Map<String, MessageDestination> _systemNodeDestinations = new ConcurrentHashMap<>();
 
-    private final Map<String, MessageSource> _systemNodeSources =
-            Collections.synchronizedMap(new HashMap<String,MessageSource>());
+    private final Map<String, MessageSource> _systemNodeSources = new ConcurrentHashMap<>();
+
+    private final AtomicLong _messageDestinationsVersion = new AtomicLong(1L);
 
     private final EventLogger _eventLogger;
 
@@ -204,6 +209,15 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
 
     private final AtomicLong _targetSize = new AtomicLong(100 * 1024 * 1024);
 
+    private final AtomicLong _messagesEvacuatedFromMemory = new AtomicLong();
+    private final AtomicLong _flowToDiskTime = new AtomicLong();
+    private final LongAdder _messageConversionCacheHits = new LongAdder();
+    private final LongAdder _messageConversionsRetained = new LongAdder();
+    private final LongAdder _messageConversionBytesSaved = new LongAdder();
+    private final AtomicLong _messageConversionCacheSize = new AtomicLong();
+    private final ConcurrentMap<MessageConversionCache, Integer> _messageConversionCaches = new ConcurrentHashMap<>();
+    private volatile long _lastFlowToDiskDuration;
+
     private MessageStoreLogSubject _messageStoreLogSubject;
 
     private final Set<BlockingType> _blockingReasons = Collections.synchronizedSet(EnumSet.noneOf(BlockingType.class));
@@ -213,6 +227,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     private final VirtualHostPrincipal _principal;
 
     private ConfigurationChangeListener _accessControlProviderListener = new AccessControlProviderListener();
+    private final ConfigurationChangeListener _messageDestinationsListener = new MessageDestinationsListener();
 
     private final AccessControl _accessControl;
 
@@ -275,12 +290,13 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     private MessageDestination _defaultDestination;
 
     private MessageStore _messageStore;
-    private MessageStoreRecoverer _messageStoreRecoverer;
+    private volatile MessageStoreRecoverer _messageStoreRecoverer;
     private final FileSystemSpaceChecker _fileSystemSpaceChecker;
     private int _fileSystemMaxUsagePercent;
     private Collection<VirtualHostLogger> _virtualHostLoggersToClose;
     private PreferenceStore _preferenceStore;
     private long _flowToDiskCheckPeriod;
+    private volatile TopicMatcherAutomatonCache _topicMatcherAutomatonCache;
     private volatile boolean _isDiscardGlobalSharedSubscriptionLinksOnDetach;
 
     public AbstractVirtualHost(final Map<String, Object> attributes, VirtualHostNode<?> virtualHostNode)
@@ -441,6 +457,10 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         {
             initialiseStatisticsReporting();
         }
+        if (attributes.containsKey(GLOBAL_ADDRESS_DOMAINS))
+        {
+            _messageDestinationsVersion.incrementAndGet();
+        }
     }
 
     @Override
@@ -459,6 +479,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     {
         super.postResolveChildren();
         addChangeListener(_accessControlProviderListener);
+        addChangeListener(_messageDestinationsListener);
         Collection<VirtualHostAccessControlProvider> accessControlProviders = getChildren(VirtualHostAccessControlProvider.class);
         if (!accessControlProviders.isEmpty())
         {
@@ -604,6 +625,8 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
 
         _fileSystemMaxUsagePercent = getContextValue(Integer.class, Broker.STORE_FILESYSTEM_MAX_USAGE_PERCENT);
         _flowToDiskCheckPeriod = getContextValue(Long.class, FLOW_TO_DISK_CHECK_PERIOD);
+        _topicMatcherAutomatonCache =
+                new TopicMatcherAutomatonCache(getContextValue(Integer.class, TOPIC_MATCHER_AUTOMATON_CACHE_SIZE));
         _isDiscardGlobalSharedSubscriptionLinksOnDetach = getContextValue(Boolean.class, DISCARD_GLOBAL_SHARED_SUBSCRIPTION_LINKS_ON_DETACH);
 
         QpidServiceLoader serviceLoader = new QpidServiceLoader();
@@ -1244,6 +1267,12 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     }
 
 
+    @Override
+    public TopicMatcherAutomatonCache getTopicMatcherAutomatonCache()
+    {
+        return _topicMatcherAutomatonCache;
+    }
+
     @Override
     public ScheduledFuture<?> scheduleTask(long delay, Runnable task)
     {
@@ -1291,6 +1320,10 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     @Override
     public MessageSource getAttainedMessageSource(final String name)
     {
+        if (name == null)
+        {
+            return null;
+        }
         MessageSource messageSource = _systemNodeSources.get(name);
         if(messageSource == null)
         {
@@ -1391,6 +1424,10 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     @Override
     public MessageDestination getAttainedMessageDestination(final String name, final boolean mayCreate)
     {
+        if (name == null)
+        {
+            return null;
+        }
         MessageDestination destination = _systemNodeDestinations.get(name);
         if(destination == null)
         {
@@ -1410,7 +1447,13 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     @Override
     public MessageDestination getSystemDestination(final String name)
     {
-        return _systemNodeDestinations.get(name);
+        return name == null ? null : _systemNodeDestinations.get(name);
+    }
+
+    @Override
+    public long getMessageDestinationsVersion()
+    {
+        return _messageDestinationsVersion.get();
     }
 
     @Override
@@ -1483,6 +1526,24 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         return _messageStore == null ? -1 : _messageStore.getBytesEvacuatedFromMemory();
     }
 
+    @Override
+    public long getMessagesEvacuatedFromMemory()
+    {
+        return _messagesEvacuatedFromMemory.get();
+    }
+
+    @Override
+    public long getFlowToDiskTime()
+    {
+        return _flowToDiskTime.get();
+    }
+
+    @Override
+    public long getLastFlowToDiskDuration()
+    {
+        return _lastFlowToDiskDuration;
+    }
+
     @Override
     public <T extends ConfiguredObject<?>> T getAttainedChildFromAddress(final Class<T> childClass,
                                                                          final String address)
@@ -1511,6 +1572,105 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         return _maximumMessageSize.get();
     }
 
+    @Override
+    public long getMessageConversionCacheHits()
+    {
+        return _messageConversionCacheHits.sum();
+    }
+
+    @Override
+    public long getMessageConversionsRetained()
+    {
+        return _messageConversionsRetained.sum();
+    }
+
+    @Override
+    public long getMessageConversionBytesSaved()
+    {
+        return _messageConversionBytesSaved.sum();
+    }
+
+    @Override
+    public long getRecoveredMessages()
+    {
+        final MessageStoreRecoverer messageStoreRecoverer = _messageStoreRecoverer;
+        return messageStoreRecoverer == null ? 0L : messageStoreRecoverer.getRecoveredMessageCount();
+    }
+
+    @Override
+    public long getMessageRecoveryRate()
+    {
+        final MessageStoreRecoverer messageStoreRecoverer = _messageStoreRecoverer;
+        return messageStoreRecoverer == null ? 0L : messageStoreRecoverer.getRecoveryRate();
+    }
+
+    @Override
+    public long getMessageRecoveryTimeRemaining()
+    {
+        final MessageStoreRecoverer messageStoreRecoverer = _messageStoreRecoverer;
+        return messageStoreRecoverer == null ? 0L : messageStoreRecoverer.getEstimatedRecoveryTimeRemaining();
+    }
+
+    @Override
+    public long getMessageRecoveryRate(final Queue<?> queue)
+    {
+        final MessageStoreRecoverer messageStoreRecoverer = _messageStoreRecoverer;
+        return messageStoreRecoverer == null ? 0L : messageStoreRecoverer.getRecoveryRate(queue);
+    }
+
+    @Override
+    public long getMessageRecoveryTimeRemaining(final Queue<?> queue)
+    {
+        final MessageStoreRecoverer messageStoreRecoverer = _messageStoreRecoverer;
+        return messageStoreRecoverer == null ? 0L : messageStoreRecoverer.getEstimatedRecoveryTimeRemaining(queue);
+    }
+
+    @Override
+    public void registerConversionCacheHit(final long bytesSaved)
+    {
+        _messageConversionCacheHits.increment();
+        _messageConversionBytesSaved.add(bytesSaved);
+    }
+
+    @Override
+    public void registerConversionRetained()
+    {
+        _messageConversionsRetained.increment();
+    }
+
+    @Override
+    public long getMessageConversionCacheSize()
+    {
+        return _messageConversionCacheSize.get();
+    }
+
+    @Override
+    public boolean reserveConversionCacheSpace(final MessageConversionCache cache, final long size)
+    {
+        long cacheSize;
+        do
+        {
+            cacheSize = _messageConversionCacheSize.get();
+            if (getInMemoryMessageSize() + cacheSize + size > _targetSize.get())
+            {
+                return false;
+            }
+        }
+        while (!_messageConversionCacheSize.compareAndSet(cacheSize, cacheSize + size));
+        _messageConversionCaches.merge(cache, 1, Integer::sum);
+        return true;
+    }
+
+    @Override
+    public void releaseConversionCacheSpace(final MessageConversionCache cache, final long size)
+    {
+        _messageConversionCacheSize.addAndGet(-size);
+        // the count of reservations is updated atomically with the removal of the cache, so that a reservation made
+        // concurrently with the release of the last one cannot leave a cache holding conversions unregistered
+        _messageConversionCaches.computeIfPresent(cache,
+                                                  (c, reservations) -> reservations == 1 ? null : reservations - 1);
+    }
+
     @Override
     public MessageDestination getDefaultDestination()
     {
@@ -1951,7 +2111,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
     @Override
     public boolean isOverTargetSize()
     {
-        return getInMemoryMessageSize() > _targetSize.get();
+        return getInMemoryMessageSize() + _messageConversionCacheSize.get() > _targetSize.get();
     }
 
     private static class MessageHeaderImpl implements AMQMessageHeader
@@ -2110,54 +2270,123 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         @Override
         public void execute()
         {
+            for (Queue<?> q : getChildren(Queue.class))
+            {
+                if (q instanceof AbstractQueue)
+                {
+                    ((AbstractQueue<?>) q).getFlowToDiskEvictor().housekeep();
+                }
+            }
+
             if (isOverTargetSize())
             {
-                long currentTargetSize = _targetSize.get();
-                List<QueueEntryIterator> queueIterators = new ArrayList<>();
-                for (Queue<?> q : getChildren(Queue.class))
+                final long startTime = System.nanoTime();
+
+                evictConversionCaches();
+                int evicted = 0;
+                if (isOverTargetSize())
                 {
-                    queueIterators.add(q.queueEntryIterator());
+                    evicted += evictTrackedEntries();
+                    if (isOverTargetSize())
+                    {
+                        evicted += scanQueues();
+                    }
                 }
-                Collections.shuffle(queueIterators);
 
-                long cumulativeSize = 0;
-                final Iterator<QueueEntryIterator> cyclicIterators = cycle(queueIterators);
-                while (cyclicIterators.hasNext())
+                final long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                _messagesEvacuatedFromMemory.addAndGet(evicted);
+                _flowToDiskTime.addAndGet(duration);
+                _lastFlowToDiskDuration = duration;
+            }
+        }
+
+        private void evictConversionCaches()
+        {
+            for (MessageConversionCache cache : _messageConversionCaches.keySet())
+            {
+                if (!isOverTargetSize())
                 {
-                    final QueueEntryIterator queueIterator = cyclicIterators.next();
-                    if (queueIterator.advance())
+                    break;
+                }
+                cache.evict();
+            }
+        }
+
+        private int evictTrackedEntries()
+        {
+            final List<FlowToDiskEvictor> evictors = new ArrayList<>();
+            for (Queue<?> q : getChildren(Queue.class))
+            {
+                if (q instanceof AbstractQueue)
+                {
+                    evictors.add(((AbstractQueue<?>) q).getFlowToDiskEvictor());
+                }
+            }
+            Collections.shuffle(evictors);
+
+            int evicted = 0;
+            for (FlowToDiskEvictor evictor : evictors)
+            {
+                final long bytesToFree =
+                        getInMemoryMessageSize() + _messageConversionCacheSize.get() - _targetSize.get();
+                if (bytesToFree <= 0)
+                {
+                    break;
+                }
+                evicted += evictor.evict(bytesToFree);
+            }
+            return evicted;
+        }
+
+        private int scanQueues()
+        {
+            int evicted = 0;
+            long currentTargetSize = _targetSize.get();
+            List<QueueEntryIterator> queueIterators = new ArrayList<>();
+            for (Queue<?> q : getChildren(Queue.class))
+            {
+                queueIterators.add(q.queueEntryIterator());
+            }
+            Collections.shuffle(queueIterators);
+
+            long cumulativeSize = 0;
+            final Iterator<QueueEntryIterator> cyclicIterators = cycle(queueIterators);
+            while (cyclicIterators.hasNext())
+            {
+                final QueueEntryIterator queueIterator = cyclicIterators.next();
+                if (queueIterator.advance())
+                {
+                    QueueEntry node = queueIterator.getNode();
+                    if (node != null && !node.isDeleted())
                     {
-                        QueueEntry node = queueIterator.getNode();
-                        if (node != null && !node.isDeleted())
+                        try (MessageReference messageReference = node.getMessage().newReference())
                         {
-                            try (MessageReference messageReference = node.getMessage().newReference())
+                            final StoredMessage storedMessage = messageReference.getMessage().getStoredMessage();
+                            if (storedMessage.isInMemory())
                             {
-                                final StoredMessage storedMessage = messageReference.getMessage().getStoredMessage();
-                                if (storedMessage.isInMemory())
+                                if (cumulativeSize <= currentTargetSize)
                                 {
-                                    if (cumulativeSize <= currentTargetSize)
-                                    {
-                                        cumulativeSize += storedMessage.getContentSize();
-                                        cumulativeSize += storedMessage.getMetadataSize();
-                                    }
-                                    else
-                                    {
-                                        storedMessage.flowToDisk();
-                                    }
+                                    cumulativeSize += storedMessage.getContentSize();
+                                    cumulativeSize += storedMessage.getMetadataSize();
+                                }
+                                else if (storedMessage.flowToDisk())
+                                {
+                                    evicted++;
                                 }
-                            }
-                            catch (MessageDeletedException e)
-                            {
-                                // pass
                             }
                         }
+                        catch (MessageDeletedException e)
+                        {
+                            // pass
+                        }
                     }
-                    else
-                    {
-                        cyclicIterators.remove();
-                    }
+                }
+                else
+                {
+                    cyclicIterators.remove();
                 }
             }
+            return evicted;
         }
     }
 
@@ -2169,6 +2398,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
             if(node instanceof MessageDestination)
             {
                 _systemNodeDestinations.put(node.getName(), (MessageDestination) node);
+                _messageDestinationsVersion.incrementAndGet();
             }
             if(node instanceof MessageSource)
             {
@@ -2182,6 +2412,7 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
             if(node instanceof MessageDestination)
             {
                 _systemNodeDestinations.remove(node.getName());
+                _messageDestinationsVersion.incrementAndGet();
             }
             if(node instanceof MessageSource)
             {
@@ -2201,7 +2432,10 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         @Override
         public void removeSystemNode(final String name)
         {
-            _systemNodeDestinations.remove(name);
+            if (_systemNodeDestinations.remove(name) != null)
+            {
+                _messageDestinationsVersion.incrementAndGet();
+            }
             removeMessageSource(name);
         }
 
@@ -2694,11 +2928,16 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
                 new SuppressingInheritedAccessControlContextThreadFactory("virtualhost-" + getName() + "-iopool",
                                                                           getSystemTaskSubject("IO Pool", getPrincipal()));
 
+        // connections move to this scheduler once attached, so it has to run in the same mode as the ports
+        final boolean multiReactor = Boolean.TRUE.equals(getContextValue(Boolean.class, AmqpPort.PORT_AMQP_MULTI_REACTOR));
+
         _networkConnectionScheduler = new NetworkConnectionScheduler("virtualhost-" + getName() + "-iopool",
                                                                      getNumberOfSelectors(),
                                                                      getConnectionThreadPoolSize(),
                                                                      threadPoolKeepAliveTimeout,
-                                                                     connectionThreadFactory);
+                                                                     connectionThreadFactory,
+                                                                     multiReactor,
+                                                                     getContextValue(Integer.class, AmqpPort.TLS_DELEGATED_TASK_THREAD_POOL_SIZE));
         _networkConnectionScheduler.start();
 
         updateAccessControl();
@@ -3268,6 +3507,27 @@ public abstract class AbstractVirtualHost<X extends AbstractVirtualHost<X>> exte
         return false;
     }
 
+    private final class MessageDestinationsListener extends AbstractConfigurationChangeListener
+    {
+        @Override
+        public void childAdded(final ConfiguredObject<?> object, final ConfiguredObject<?> child)
+        {
+            if (object == AbstractVirtualHost.this && child instanceof MessageDestination)
+            {
+                _messageDestinationsVersion.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void childRemoved(final ConfiguredObject<?> object, final ConfiguredObject<?> child)
+        {
+            if (object == AbstractVirtualHost.this && child instanceof MessageDestination)
+            {
+                _messageDestinationsVersion.incrementAndGet();
+            }
+        }
+    }
+
     private final class AccessControlProviderListener extends AbstractConfigurationChangeListener
     {
         private final Set<ConfiguredObject<?>> _bulkChanges = new HashSet<>();
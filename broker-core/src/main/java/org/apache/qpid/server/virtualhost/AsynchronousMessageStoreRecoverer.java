@@ -21,11 +21,12 @@
 package org.apache.qpid.server.virtualhost;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executors;
 import java.util.concurrent.SynchronousQueue;
@@ -68,7 +69,7 @@ import org.apache.qpid.server.util.ServerScopedRuntimeException;
 public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(AsynchronousMessageStoreRecoverer.class);
-    private AsynchronousRecoverer _asynchronousRecoverer;
+    private volatile AsynchronousRecoverer _asynchronousRecoverer;
 
     @Override
     public ListenableFuture<Void> recover(final QueueManagingVirtualHost<?> virtualHost)
@@ -87,6 +88,41 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
         }
     }
 
+    @Override
+    public long getRecoveredMessageCount()
+    {
+        final AsynchronousRecoverer asynchronousRecoverer = _asynchronousRecoverer;
+        return asynchronousRecoverer == null ? 0L : asynchronousRecoverer.getRecoveredMessageCount();
+    }
+
+    @Override
+    public long getRecoveryRate()
+    {
+        final AsynchronousRecoverer asynchronousRecoverer = _asynchronousRecoverer;
+        return asynchronousRecoverer == null ? 0L : asynchronousRecoverer.getRecoveryRate();
+    }
+
+    @Override
+    public long getEstimatedRecoveryTimeRemaining()
+    {
+        final AsynchronousRecoverer asynchronousRecoverer = _asynchronousRecoverer;
+        return asynchronousRecoverer == null ? 0L : asynchronousRecoverer.getEstimatedRecoveryTimeRemaining();
+    }
+
+    @Override
+    public long getRecoveryRate(final Queue<?> queue)
+    {
+        final AsynchronousRecoverer asynchronousRecoverer = _asynchronousRecoverer;
+        return asynchronousRecoverer == null ? 0L : asynchronousRecoverer.getRecoveryRate(queue);
+    }
+
+    @Override
+    public long getEstimatedRecoveryTimeRemaining(final Queue<?> queue)
+    {
+        final AsynchronousRecoverer asynchronousRecoverer = _asynchronousRecoverer;
+        return asynchronousRecoverer == null ? 0L : asynchronousRecoverer.getEstimatedRecoveryTimeRemaining(queue);
+    }
+
     private static class AsynchronousRecoverer
     {
 
@@ -98,7 +134,8 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
         private final long _maxMessageId;
         private final Set<Queue<?>> _recoveringQueues = new CopyOnWriteArraySet<>();
         private final AtomicBoolean _recoveryComplete = new AtomicBoolean();
-        private final Map<Long, MessageReference<? extends ServerMessage<?>>> _recoveredMessages = new HashMap<>();
+        private final Map<Long, MessageReference<? extends ServerMessage<?>>> _recoveredMessages = new ConcurrentHashMap<>();
+        private final Map<Queue<?>, QueueRecoveryProgress> _queueRecoveryProgress = new ConcurrentHashMap<>();
         private final ListeningExecutorService _queueRecoveryExecutor =
                 MoreExecutors.listeningDecorator(new ThreadPoolExecutor(0,
                                                                         Integer.MAX_VALUE,
@@ -108,6 +145,9 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
                                                                         QpidByteBuffer.createQpidByteBufferTrackingThreadFactory(Executors.defaultThreadFactory())));
 
         private final MessageStore.MessageStoreReader _storeReader;
+        private final int _prefetchSize;
+        private final long _progressLogInterval;
+        private final long _recoveryStartTime;
         private AtomicBoolean _continueRecovery = new AtomicBoolean(true);
 
         private AsynchronousRecoverer(final QueueManagingVirtualHost<?> virtualHost)
@@ -122,6 +162,17 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
             Collection children = _virtualHost.getChildren(Queue.class);
             _recoveringQueues.addAll((Collection<? extends Queue<?>>) children);
 
+            final Integer prefetchSize =
+                    virtualHost.getContextValue(Integer.class, QueueManagingVirtualHost.MESSAGE_RECOVERY_PREFETCH_SIZE);
+            _prefetchSize = prefetchSize == null
+                    ? QueueManagingVirtualHost.DEFAULT_MESSAGE_RECOVERY_PREFETCH_SIZE
+                    : Math.max(1, prefetchSize);
+            final Long progressLogInterval =
+                    virtualHost.getContextValue(Long.class, QueueManagingVirtualHost.MESSAGE_RECOVERY_PROGRESS_LOG_INTERVAL);
+            _progressLogInterval = progressLogInterval == null
+                    ? QueueManagingVirtualHost.DEFAULT_MESSAGE_RECOVERY_PROGRESS_LOG_INTERVAL
+                    : progressLogInterval;
+            _recoveryStartTime = System.nanoTime();
         }
 
         public ListenableFuture<Void> recover()
@@ -170,10 +221,61 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
             return _recoveringQueues.contains(queue);
         }
 
+        long getRecoveredMessageCount()
+        {
+            long recoveredMessageCount = 0L;
+            for (QueueRecoveryProgress progress : _queueRecoveryProgress.values())
+            {
+                recoveredMessageCount += progress.getRecoveredCount();
+            }
+            return recoveredMessageCount;
+        }
+
+        long getRecoveryRate()
+        {
+            if (_recoveryComplete.get())
+            {
+                return 0L;
+            }
+            final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - _recoveryStartTime);
+            return elapsedMillis == 0L ? 0L : getRecoveredMessageCount() * 1000L / elapsedMillis;
+        }
+
+        long getEstimatedRecoveryTimeRemaining()
+        {
+            if (_recoveryComplete.get())
+            {
+                return 0L;
+            }
+            final long now = System.nanoTime();
+            long timeRemaining = 0L;
+            for (QueueRecoveryProgress progress : _queueRecoveryProgress.values())
+            {
+                timeRemaining = Math.max(timeRemaining, progress.getEstimatedTimeRemaining(now));
+            }
+            return timeRemaining;
+        }
+
+        long getRecoveryRate(final Queue<?> queue)
+        {
+            final QueueRecoveryProgress progress = _queueRecoveryProgress.get(queue);
+            return progress == null ? 0L : progress.getRate(System.nanoTime());
+        }
+
+        long getEstimatedRecoveryTimeRemaining(final Queue<?> queue)
+        {
+            final QueueRecoveryProgress progress = _queueRecoveryProgress.get(queue);
+            return progress == null ? 0L : progress.getEstimatedTimeRemaining(System.nanoTime());
+        }
+
         private void recoverQueue(Queue<?> queue)
         {
-            MessageInstanceVisitor handler = new MessageInstanceVisitor(queue);
+            final QueueRecoveryProgress progress = new QueueRecoveryProgress(_maxMessageId);
+            _queueRecoveryProgress.put(queue, progress);
+            MessageInstanceVisitor handler = new MessageInstanceVisitor(queue, progress);
             _storeReader.visitMessageInstances(queue, handler);
+            handler.recoverPrefetched();
+            progress.complete();
 
             if (handler.getNumberOfUnknownMessageInstances() > 0)
             {
@@ -181,7 +283,7 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
                              + "does not exist.", handler.getNumberOfUnknownMessageInstances(), queue.getName());
             }
 
-            getEventLogger().message(getLogSubject(), TransactionLogMessages.RECOVERED(handler.getRecoveredCount(), queue.getName()));
+            getEventLogger().message(getLogSubject(), TransactionLogMessages.RECOVERED(progress.getRecoveredCount(), queue.getName()));
             getEventLogger().message(getLogSubject(), TransactionLogMessages.RECOVERY_COMPLETE(queue.getName(), true));
             queue.completeRecovery();
 
@@ -198,24 +300,25 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
             for (Map.Entry<Long,MessageReference<? extends ServerMessage<?>>> entry : _recoveredMessages.entrySet())
             {
                 entry.getValue().release();
-                entry.setValue(null); // free up any memory associated with the reference object
+                entry.setValue(PendingMessageReference.RELEASED); // free up any memory associated with the reference object
             }
             final List<StoredMessage<?>> messagesToDelete = new ArrayList<>();
-            getStoreReader().visitMessages(new MessageHandler()
+            MessageStoreRecoverer.createPartitionedVisitor(_virtualHost, getStoreReader()).visitMessages(new MessageHandler()
             {
                 @Override
                 public boolean handle(final StoredMessage<?> storedMessage)
                 {
+                    if (!_continueRecovery.get())
+                    {
+                        return false;
+                    }
+                    // partitions are read concurrently, so messages arrive out of id order
                     long messageNumber = storedMessage.getMessageNumber();
-                    if ( _continueRecovery.get() && messageNumber < _maxMessageId)
+                    if (messageNumber < _maxMessageId && !_recoveredMessages.containsKey(messageNumber))
                     {
-                        if (!_recoveredMessages.containsKey(messageNumber))
-                        {
-                            messagesToDelete.add(storedMessage);
-                        }
-                        return true;
+                        messagesToDelete.add(storedMessage);
                     }
-                    return false;
+                    return true;
                 }
             });
             int unusedMessageCounter = 0;
@@ -240,27 +343,79 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
             _queueRecoveryExecutor.shutdown();
         }
 
-        private synchronized ServerMessage<?> getRecoveredMessage(final long messageId)
+        private ServerMessage<?> getRecoveredMessage(final long messageId)
         {
             MessageReference<? extends ServerMessage<?>> ref = _recoveredMessages.get(messageId);
             if (ref == null)
             {
-                StoredMessage<?> message = _storeReader.getMessage(messageId);
-                if(message != null)
+                prefetchMessages(new long[]{messageId});
+                ref = _recoveredMessages.get(messageId);
+            }
+            return ref == null ? null : ref.getMessage();
+        }
+
+        /**
+         * Reads from the store, in a single batch, those of the given messages which are not already recovered or
+         * being recovered by another queue.  Each message is claimed with a placeholder so that it is read and
+         * instantiated only once; the placeholder is replaced by the reference to the recovered message.
+         */
+        private void prefetchMessages(final long[] messageIds)
+        {
+            final List<PendingMessageReference> claimed = new ArrayList<>();
+            final long[] claimedIds = new long[messageIds.length];
+            for (long messageId : messageIds)
+            {
+                if (!_recoveredMessages.containsKey(messageId))
                 {
-                    StorableMessageMetaData metaData = message.getMetaData();
+                    final PendingMessageReference pending = new PendingMessageReference();
+                    if (_recoveredMessages.putIfAbsent(messageId, pending) == null)
+                    {
+                        claimedIds[claimed.size()] = messageId;
+                        claimed.add(pending);
+                    }
+                }
+            }
 
-                    @SuppressWarnings("rawtypes")
-                    MessageMetaDataType type = metaData.getType();
+            if (!claimed.isEmpty())
+            {
+                try
+                {
+                    final long[] ids = claimed.size() == claimedIds.length
+                            ? claimedIds
+                            : Arrays.copyOf(claimedIds, claimed.size());
+                    final List<StoredMessage<?>> messages = _storeReader.getMessages(ids);
+                    for (int i = 0; i < ids.length; i++)
+                    {
+                        final StoredMessage<?> message = messages.get(i);
+                        if (message != null)
+                        {
+                            StorableMessageMetaData metaData = message.getMetaData();
+
+                            @SuppressWarnings("rawtypes")
+                            MessageMetaDataType type = metaData.getType();
 
-                    @SuppressWarnings("unchecked")
-                    ServerMessage<?> serverMessage = type.createMessage(message);
+                            @SuppressWarnings("unchecked")
+                            ServerMessage<?> serverMessage = type.createMessage(message);
 
-                    ref = serverMessage.newReference();
-                    _recoveredMessages.put(messageId, ref);
+                            final MessageReference<? extends ServerMessage<?>> ref = serverMessage.newReference();
+                            _recoveredMessages.put(ids[i], ref);
+                            claimed.get(i).resolve(serverMessage);
+                        }
+                    }
+                }
+                finally
+                {
+                    for (int i = 0; i < claimed.size(); i++)
+                    {
+                        final PendingMessageReference pending = claimed.get(i);
+                        if (!pending.isResolved())
+                        {
+                            _recoveredMessages.remove(claimedIds[i], pending);
+                            pending.resolve(null);
+                        }
+                    }
                 }
             }
-            return ref == null ? null : ref.getMessage();
         }
 
         public void cancel()
@@ -515,23 +670,63 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
         private class MessageInstanceVisitor implements MessageInstanceHandler
         {
             private final Queue<?> _queue;
-            long _recoveredCount;
+            private final QueueRecoveryProgress _progress;
+            private final List<MessageEnqueueRecord> _prefetched = new ArrayList<>();
             private int _numberOfUnknownMessageInstances;
+            private long _lastProgressLogTime;
 
-            private MessageInstanceVisitor(Queue<?> queue)
+            private MessageInstanceVisitor(Queue<?> queue, final QueueRecoveryProgress progress)
             {
                 _queue = queue;
+                _progress = progress;
                 _numberOfUnknownMessageInstances = 0;
+                _lastProgressLogTime = System.nanoTime();
             }
 
             @Override
             public boolean handle(final MessageEnqueueRecord record)
             {
                 long messageId = record.getMessageNumber();
-                String queueName = _queue.getName();
 
                 if(messageId < _maxMessageId)
                 {
+                    _prefetched.add(record);
+                    if (_prefetched.size() >= _prefetchSize)
+                    {
+                        recoverPrefetched();
+                    }
+                    return _continueRecovery.get();
+                }
+                else
+                {
+                    return false;
+                }
+
+            }
+
+            void recoverPrefetched()
+            {
+                if (_prefetched.isEmpty())
+                {
+                    return;
+                }
+
+                final long[] messageIds = new long[_prefetched.size()];
+                for (int i = 0; i < messageIds.length; i++)
+                {
+                    messageIds[i] = _prefetched.get(i).getMessageNumber();
+                }
+                prefetchMessages(messageIds);
+
+                String queueName = _queue.getName();
+                for (MessageEnqueueRecord record : _prefetched)
+                {
+                    if (!_continueRecovery.get())
+                    {
+                        break;
+                    }
+
+                    long messageId = record.getMessageNumber();
                     ServerMessage<?> message = getRecoveredMessage(messageId);
 
                     if (message != null)
@@ -539,7 +734,7 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
                         LOGGER.debug("Delivering message id '{}' to queue '{}'", message.getMessageNumber(), queueName);
 
                         _queue.recover(message, record);
-                        _recoveredCount++;
+                        _progress.recovered(messageId);
                     }
                     else
                     {
@@ -550,24 +745,151 @@ public class AsynchronousMessageStoreRecoverer implements MessageStoreRecoverer
                         txn.commitTranAsync((Void) null);
                         _numberOfUnknownMessageInstances++;
                     }
-                    return _continueRecovery.get();
                 }
-                else
+                _prefetched.clear();
+                logProgressIfDue();
+            }
+
+            private void logProgressIfDue()
+            {
+                final long now = System.nanoTime();
+                if (_progressLogInterval > 0L
+                    && TimeUnit.NANOSECONDS.toMillis(now - _lastProgressLogTime) >= _progressLogInterval)
                 {
-                    return false;
+                    _lastProgressLogTime = now;
+                    LOGGER.info("Recovering queue '{}': {} message(s) recovered at {} message(s)/s",
+                                _queue.getName(),
+                                _progress.getRecoveredCount(),
+                                _progress.getRate(now));
+                }
+            }
+
+            int getNumberOfUnknownMessageInstances()
+            {
+                return _numberOfUnknownMessageInstances;
+            }
+        }
+    }
+
+    /**
+     * Placeholder for a message which is being read from the store by one queue recovery task.  Other tasks which
+     * need the same message wait for it to be resolved rather than reading it themselves.
+     */
+    private static final class PendingMessageReference implements MessageReference<ServerMessage<?>>
+    {
+        private static final PendingMessageReference RELEASED = new PendingMessageReference();
+        static
+        {
+            RELEASED.resolve(null);
+        }
+
+        private ServerMessage<?> _message;
+        private boolean _resolved;
+
+        synchronized void resolve(final ServerMessage<?> message)
+        {
+            _message = message;
+            _resolved = true;
+            notifyAll();
+        }
+
+        synchronized boolean isResolved()
+        {
+            return _resolved;
+        }
+
+        @Override
+        public synchronized ServerMessage<?> getMessage()
+        {
+            boolean interrupted = false;
+            while (!_resolved)
+            {
+                try
+                {
+                    wait();
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
                 }
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+            return _message;
+        }
+
+        @Override
+        public void release()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
 
+    /**
+     * Tracks the progress of the recovery of a queue.  Queue entries are visited in ascending message id order, so
+     * the fraction of the range between the first message id and the store's next message id covered so far is
+     * used to estimate the time remaining.
+     */
+    private static final class QueueRecoveryProgress
+    {
+        private final long _maxMessageId;
+        private final long _startTime = System.nanoTime();
+        private volatile long _recoveredCount;
+        private volatile long _firstMessageId = -1L;
+        private volatile long _lastMessageId;
+        private volatile boolean _complete;
+
+        private QueueRecoveryProgress(final long maxMessageId)
+        {
+            _maxMessageId = maxMessageId;
+        }
+
+        void recovered(final long messageId)
+        {
+            if (_firstMessageId < 0L)
+            {
+                _firstMessageId = messageId;
             }
+            _lastMessageId = messageId;
+            _recoveredCount++;
+        }
+
+        void complete()
+        {
+            _complete = true;
+        }
+
+        long getRecoveredCount()
+        {
+            return _recoveredCount;
+        }
 
-            long getRecoveredCount()
+        long getRate(final long now)
+        {
+            if (_complete)
             {
-                return _recoveredCount;
+                return 0L;
             }
+            final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - _startTime);
+            return elapsedMillis == 0L ? 0L : _recoveredCount * 1000L / elapsedMillis;
+        }
 
-            int getNumberOfUnknownMessageInstances()
+        long getEstimatedTimeRemaining(final long now)
+        {
+            final long firstMessageId = _firstMessageId;
+            if (_complete || firstMessageId < 0L || _maxMessageId <= firstMessageId)
             {
-                return _numberOfUnknownMessageInstances;
+                return 0L;
             }
+            final double fraction = (double) (_lastMessageId - firstMessageId + 1) / (_maxMessageId - firstMessageId);
+            final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - _startTime);
+            return fraction >= 1.0d ? 0L : (long) (elapsedMillis * (1.0d - fraction) / fraction);
         }
     }
 
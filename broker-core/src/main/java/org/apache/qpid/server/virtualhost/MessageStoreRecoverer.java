@@ -22,6 +22,10 @@ package org.apache.qpid.server.virtualhost;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.PartitionedMessageStoreVisitor;
+
 public interface MessageStoreRecoverer
 {
     ListenableFuture<Void> recover(QueueManagingVirtualHost<?> virtualHost);
@@ -31,4 +35,68 @@ public interface MessageStoreRecoverer
      * completed, this method call has no effect.
      */
     void cancel();
+
+    /**
+     * Returns the number of queue entries recovered so far.
+     */
+    default long getRecoveredMessageCount()
+    {
+        return 0L;
+    }
+
+    /**
+     * Returns the number of queue entries recovered per second since recovery began, or zero if no recovery is in
+     * progress.
+     */
+    default long getRecoveryRate()
+    {
+        return 0L;
+    }
+
+    /**
+     * Returns an estimate, in milliseconds, of the time remaining until recovery completes, or zero if no
+     * recovery is in progress.
+     */
+    default long getEstimatedRecoveryTimeRemaining()
+    {
+        return 0L;
+    }
+
+    /**
+     * Returns the number of entries of the given queue recovered per second since its recovery began, or zero if
+     * the queue is not being recovered.
+     */
+    default long getRecoveryRate(final Queue<?> queue)
+    {
+        return 0L;
+    }
+
+    /**
+     * Returns an estimate, in milliseconds, of the time remaining until the recovery of the given queue completes,
+     * or zero if the queue is not being recovered.
+     */
+    default long getEstimatedRecoveryTimeRemaining(final Queue<?> queue)
+    {
+        return 0L;
+    }
+
+    /**
+     * Creates a visitor reading the messages of the given store in the number of partitions, and with the read
+     * ahead, configured for the virtual host.
+     */
+    static PartitionedMessageStoreVisitor createPartitionedVisitor(final QueueManagingVirtualHost<?> virtualHost,
+                                                                  final MessageStore.MessageStoreReader storeReader)
+    {
+        final Integer partitions =
+                virtualHost.getContextValue(Integer.class, QueueManagingVirtualHost.MESSAGE_STORE_VISIT_PARTITIONS);
+        final Integer readAhead =
+                virtualHost.getContextValue(Integer.class, QueueManagingVirtualHost.MESSAGE_STORE_VISIT_READ_AHEAD);
+        return new PartitionedMessageStoreVisitor(storeReader,
+                                                  partitions == null
+                                                          ? QueueManagingVirtualHost.DEFAULT_MESSAGE_STORE_VISIT_PARTITIONS
+                                                          : partitions,
+                                                  readAhead == null
+                                                          ? QueueManagingVirtualHost.DEFAULT_MESSAGE_STORE_VISIT_READ_AHEAD
+                                                          : readAhead);
+    }
 }
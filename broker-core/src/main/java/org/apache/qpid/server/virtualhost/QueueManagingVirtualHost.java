@@ -29,6 +29,7 @@ import java.util.concurrent.ScheduledFuture;
 
 import com.google.common.util.concurrent.ListenableFuture;
 
+import org.apache.qpid.server.exchange.topic.TopicMatcherAutomatonCache;
 import org.apache.qpid.server.logging.EventLoggerProvider;
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.model.Broker;
@@ -46,11 +47,13 @@ import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.model.StatisticType;
 import org.apache.qpid.server.model.StatisticUnit;
 import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.protocol.MessageConversionCache;
 import org.apache.qpid.server.queue.QueueEntry;
 import org.apache.qpid.server.security.auth.SocketConnectionMetaData;
 import org.apache.qpid.server.stats.StatisticsGatherer;
 import org.apache.qpid.server.store.DurableConfigurationStore;
 import org.apache.qpid.server.store.EventListener;
+import org.apache.qpid.server.store.PartitionedMessageStoreVisitor;
 import org.apache.qpid.server.store.preferences.UserPreferencesCreator;
 
 public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>> extends VirtualHost<X>,
@@ -78,10 +81,47 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
     @ManagedContextDefault( name = "virtualhost.housekeepingCheckPeriod")
     long DEFAULT_HOUSEKEEPING_CHECK_PERIOD = 30000L;
 
+    String EXPIRY_TIMING_WHEEL_TICK_DURATION = "virtualhost.expiryTimingWheelTickDuration";
+    @ManagedContextDefault(name = EXPIRY_TIMING_WHEEL_TICK_DURATION,
+            description = "Resolution in milliseconds of the timing wheel used to expire messages."
+                          + " A value of zero or less disables the timing wheel and messages are expired"
+                          + " by scanning the queues during housekeeping.")
+    long DEFAULT_EXPIRY_TIMING_WHEEL_TICK_DURATION = 1000L;
+
     String FLOW_TO_DISK_CHECK_PERIOD = "virtualhost.flowToDiskCheckPeriod";
     @ManagedContextDefault(name = FLOW_TO_DISK_CHECK_PERIOD)
     long DEFAULT_FLOW_TO_DISK_CHECK_PERIOD = 30000L;
 
+    String TOPIC_MATCHER_AUTOMATON_CACHE_SIZE = "virtualhost.topicMatcherAutomatonCacheSize";
+    @ManagedContextDefault(name = TOPIC_MATCHER_AUTOMATON_CACHE_SIZE,
+            description = "Maximum number of compiled binding key automata shared by the topic exchanges"
+                          + " of the virtual host.")
+    int DEFAULT_TOPIC_MATCHER_AUTOMATON_CACHE_SIZE = 65536;
+
+    String MESSAGE_RECOVERY_PREFETCH_SIZE = "virtualhost.messageRecoveryPrefetchSize";
+    @ManagedContextDefault(name = MESSAGE_RECOVERY_PREFETCH_SIZE,
+            description = "Number of queue entries for which the messages are read from the store in a single batch"
+                          + " during asynchronous recovery.")
+    int DEFAULT_MESSAGE_RECOVERY_PREFETCH_SIZE = 1024;
+
+    String MESSAGE_RECOVERY_PROGRESS_LOG_INTERVAL = "virtualhost.messageRecoveryProgressLogInterval";
+    @ManagedContextDefault(name = MESSAGE_RECOVERY_PROGRESS_LOG_INTERVAL,
+            description = "Interval in milliseconds at which the progress of the asynchronous recovery of each queue"
+                          + " is logged.  A value of zero or less disables progress logging.")
+    long DEFAULT_MESSAGE_RECOVERY_PROGRESS_LOG_INTERVAL = 30000L;
+
+    String MESSAGE_STORE_VISIT_PARTITIONS = "virtualhost.messageStoreVisitPartitions";
+    @ManagedContextDefault(name = MESSAGE_STORE_VISIT_PARTITIONS,
+            description = "Number of ranges of message ids read from the message store concurrently when all stored"
+                          + " messages are visited during recovery.  A value of 1 reads the store sequentially.")
+    int DEFAULT_MESSAGE_STORE_VISIT_PARTITIONS = PartitionedMessageStoreVisitor.DEFAULT_PARTITIONS;
+
+    String MESSAGE_STORE_VISIT_READ_AHEAD = "virtualhost.messageStoreVisitReadAhead";
+    @ManagedContextDefault(name = MESSAGE_STORE_VISIT_READ_AHEAD,
+            description = "Maximum number of messages read from the message store ahead of their processing when"
+                          + " the store is read in several partitions.")
+    int DEFAULT_MESSAGE_STORE_VISIT_READ_AHEAD = PartitionedMessageStoreVisitor.DEFAULT_READ_AHEAD;
+
     String CONNECTION_THREAD_POOL_KEEP_ALIVE_TIMEOUT = "connectionThreadPoolKeepAliveTimeout";
     @SuppressWarnings("unused")
     @ManagedContextDefault(name = QueueManagingVirtualHost.CONNECTION_THREAD_POOL_KEEP_ALIVE_TIMEOUT)
@@ -280,6 +320,21 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
                       description = "Total Number of Bytes Evacuated from Memory Due to Flow to Disk.")
     long getBytesEvacuatedFromMemory();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Evacuated Messages",
+                      description = "Total number of messages evacuated from memory by the flow to disk task.")
+    long getMessagesEvacuatedFromMemory();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.TIME_DURATION, label = "Flow to Disk Time",
+                      description = "Total time, in milliseconds, spent by the flow to disk task evacuating messages from memory.")
+    long getFlowToDiskTime();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Last Flow to Disk Duration",
+                      description = "Time, in milliseconds, taken by the most recent run of the flow to disk task which found the virtualhost over its target size.")
+    long getLastFlowToDiskDuration();
+
     @SuppressWarnings("unused")
     @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME,
             units = StatisticUnit.BYTES,
@@ -287,6 +342,58 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
             description = "Maximum size of message published into the Virtual Host since start-up.")
     long getInboundMessageSizeHighWatermark();
 
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Shared Conversions",
+                      description = "Total number of deliveries which reused a conversion of a message into another"
+                                    + " protocol's format made for an earlier consumer.")
+    long getMessageConversionCacheHits();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Cached Conversions",
+                      description = "Total number of conversions into another protocol's format which were retained"
+                                    + " for reuse by other consumers.")
+    long getMessageConversionsRetained();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.BYTES, label = "Conversion Bytes Saved",
+                      description = "Total size of converted messages which were reused rather than converted again.")
+    long getMessageConversionBytesSaved();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.BYTES, label = "Conversion Cache Size",
+                      description = "Total size of converted messages currently retained for reuse by other consumers."
+                                    + " Counts towards the in-memory size kept below the flow to disk target.")
+    long getMessageConversionCacheSize();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.MESSAGES, label = "Recovered Messages",
+                      description = "Total number of queue entries recovered from the message store when the virtual"
+                                    + " host was activated.")
+    long getRecoveredMessages();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Message Recovery Rate",
+                      description = "Number of queue entries recovered per second, averaged since recovery began."
+                                    + " Zero when no recovery is in progress.")
+    long getMessageRecoveryRate();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Message Recovery Time Remaining",
+                      description = "Estimate, in milliseconds, of the time until the recovery of the slowest queue"
+                                    + " completes.  Zero when no recovery is in progress.")
+    long getMessageRecoveryTimeRemaining();
+
+    /**
+     * @return the number of entries of the given queue recovered per second, or zero if it is not being recovered
+     */
+    long getMessageRecoveryRate(Queue<?> queue);
+
+    /**
+     * @return an estimate, in milliseconds, of the time until the recovery of the given queue completes, or zero if
+     * it is not being recovered
+     */
+    long getMessageRecoveryTimeRemaining(Queue<?> queue);
+
     @Override
     @ManagedOperation(nonModifying = true, changesConfiguredObjectState = false)
     Collection<? extends Connection<?>> getConnections();
@@ -372,6 +479,25 @@ public interface QueueManagingVirtualHost<X extends QueueManagingVirtualHost<X>>
 
     boolean isOverTargetSize();
 
+    /**
+     * @return the compiled binding key automata shared by the topic exchanges of this virtual host
+     */
+    TopicMatcherAutomatonCache getTopicMatcherAutomatonCache();
+
+    void registerConversionCacheHit(long bytesSaved);
+
+    void registerConversionRetained();
+
+    /**
+     * Reserves space for a converted message to be retained by the given cache. Space is only granted while the
+     * in-memory message size and the retained conversions together stay within the target size.
+     *
+     * @return true if the conversion may be retained
+     */
+    boolean reserveConversionCacheSpace(MessageConversionCache cache, long size);
+
+    void releaseConversionCacheSpace(MessageConversionCache cache, long size);
+
     interface Transaction
     {
         void dequeue(QueueEntry entry);
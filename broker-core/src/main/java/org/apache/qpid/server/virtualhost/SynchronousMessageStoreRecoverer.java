@@ -76,7 +76,8 @@ public class SynchronousMessageStoreRecoverer implements MessageStoreRecoverer
 
         eventLogger.message(logSubject, MessageStoreMessages.RECOVERY_START());
 
-        storeReader.visitMessages(new MessageVisitor(recoveredMessages, unusedMessages));
+        MessageStoreRecoverer.createPartitionedVisitor(virtualHost, storeReader)
+                             .visitMessages(new MessageVisitor(recoveredMessages, unusedMessages));
 
         eventLogger.message(logSubject, TransactionLogMessages.RECOVERY_START(null, false));
         try
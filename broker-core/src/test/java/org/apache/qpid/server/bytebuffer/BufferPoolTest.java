@@ -0,0 +1,144 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.bytebuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class BufferPoolTest extends UnitTestBase
+{
+    private static final int BUFFER_SIZE = 8;
+
+    @Test
+    public void testGetBufferFromEmptyPool()
+    {
+        final BufferPool pool = new BufferPool(BUFFER_SIZE, 16);
+
+        assertNull("Unexpected buffer", pool.getBuffer());
+        assertEquals("Unexpected miss count", 1, pool.getMissCount());
+        assertEquals("Unexpected hit count", 0, pool.getHitCount());
+    }
+
+    @Test
+    public void testReturnedBufferIsReused()
+    {
+        final BufferPool pool = new BufferPool(BUFFER_SIZE, 16);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        pool.returnBuffer(buffer);
+        assertEquals("Unexpected pool size", 1, pool.size());
+
+        assertSame("Unexpected buffer", buffer, pool.getBuffer());
+        assertEquals("Unexpected pool size", 0, pool.size());
+        assertEquals("Unexpected hit count", 1, pool.getHitCount());
+    }
+
+    @Test
+    public void testPoolSizeIsBounded()
+    {
+        final int maxSize = 16;
+        final BufferPool pool = new BufferPool(BUFFER_SIZE, maxSize);
+        for (int i = 0; i < maxSize * 2; i++)
+        {
+            pool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+        assertEquals("Unexpected pool size", maxSize, pool.size());
+    }
+
+    @Test
+    public void testBuffersReleasedByOneThreadAreUsedByAnother() throws Exception
+    {
+        final BufferPool pool = new BufferPool(BUFFER_SIZE, 16);
+        final Thread thread = new Thread(() ->
+                                         {
+                                             pool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+                                             pool.releaseThreadLocalBuffers();
+                                         });
+        thread.start();
+        thread.join();
+
+        final AtomicReference<ByteBuffer> refilled = new AtomicReference<>();
+        final Thread consumer = new Thread(() -> refilled.set(pool.getBuffer()));
+        consumer.start();
+        consumer.join();
+
+        assertNotNull("Expected buffer from depot", refilled.get());
+        assertEquals("Unexpected depot refill count", 1, pool.getDepotRefillCount());
+        assertEquals("Unexpected pool size", 0, pool.size());
+    }
+
+    @Test
+    public void testPoolSizeIsBoundedAcrossThreads() throws Exception
+    {
+        final int maxSize = 16;
+        final BufferPool pool = new BufferPool(BUFFER_SIZE, maxSize);
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i] = new Thread(() ->
+                                    {
+                                        for (int j = 0; j < maxSize; j++)
+                                        {
+                                            pool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE));
+                                        }
+                                    });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertTrue("Pool size exceeds maximum : " + pool.size(), pool.size() <= maxSize);
+    }
+
+    @Test
+    public void testBuffersOfTerminatedThreadAreReclaimed() throws Exception
+    {
+        final BufferPool pool = new BufferPool(BUFFER_SIZE, 16);
+        Thread thread = new Thread(() -> pool.returnBuffer(ByteBuffer.allocateDirect(BUFFER_SIZE)));
+        thread.start();
+        thread.join();
+        thread = null;
+
+        final AtomicReference<ByteBuffer> reclaimed = new AtomicReference<>();
+        final long timeout = System.currentTimeMillis() + 10000L;
+        while (reclaimed.get() == null && System.currentTimeMillis() < timeout)
+        {
+            System.gc();
+            final Thread consumer = new Thread(() -> reclaimed.set(pool.getBuffer()));
+            consumer.start();
+            consumer.join();
+        }
+
+        assertNotNull("Buffer of terminated thread should have been reclaimed", reclaimed.get());
+        assertEquals("Unexpected pool size", 0, pool.size());
+    }
+}
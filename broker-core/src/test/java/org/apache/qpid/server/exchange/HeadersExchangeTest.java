@@ -178,6 +178,23 @@ public class HeadersExchangeTest extends UnitTestBase
         routeAndTest(createTestMessage(getArgsMapFromStrings("F0002")));
     }
 
+    @Test
+    public void testHeaderWithNullValueMatchesOnPresence() throws Exception
+    {
+        Queue<?> q1 = createAndBind("Q1", "F0000", "X-match=any");
+        Queue<?> q2 = createAndBind("Q2", "F0000=Aardvark", "F0001", "X-match=any");
+        Queue<?> q3 = createAndBind("Q3", "F0001=Bear", "F0000", "X-match=any");
+        Queue<?> q4 = createAndBind("Q4", "F0000");
+        Queue<?> q5 = createAndBind("Q5", "F0000=Aardvark", "X-match=any");
+
+        final Map<String, Object> headers = new HashMap<>();
+        headers.put("F0000", null);
+        routeAndTest(createTestMessage(headers), q1, q3, q4);
+
+        headers.put("F0001", null);
+        routeAndTest(createTestMessage(headers), q1, q2, q3, q4);
+    }
+
     @Test
     public void testOnUnbind() throws Exception
     {
@@ -196,6 +213,38 @@ public class HeadersExchangeTest extends UnitTestBase
     }
 
 
+    @Test
+    public void testReplaceBinding() throws Exception
+    {
+        Queue<?> q1 = createAndBind("Q1", "F0000=Aardvark");
+
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=Aardvark")), q1);
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0001=Bear")));
+
+        _exchange.replaceBinding("Q1", q1, getArgsMapFromStrings("F0001=Bear"));
+
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=Aardvark")));
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0001=Bear")), q1);
+
+        _exchange.replaceBinding("Q1", q1, getArgsMapFromStrings("F0000", "F0001", "X-match=any"));
+
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=Aardvark")), q1);
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0001=Bear")), q1);
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0002")));
+    }
+
+    @Test
+    public void testBindingWithoutHeadersMatchesAllMessages() throws Exception
+    {
+        Queue<?> q1 = createAndBind("Q1");
+        Queue<?> q2 = createAndBind("Q2", "X-match=any");
+        Queue<?> q3 = createAndBind("Q3", "F0000=Aardvark");
+
+        routeAndTest(_messageWithNoHeaders, q1, q2);
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0000=Aardvark")), q1, q2, q3);
+        routeAndTest(createTestMessage(getArgsMapFromStrings("F0001")), q1, q2);
+    }
+
     @Test
     public void testWithSelectors() throws Exception
     {
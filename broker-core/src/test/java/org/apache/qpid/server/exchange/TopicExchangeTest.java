@@ -657,6 +657,27 @@ public class TopicExchangeTest extends UnitTestBase
         assertTrue("Message should be be possible to route using old binding", result2.hasRoutes());
     }
 
+    @Test
+    public void testUnbindAndRebind() throws Exception
+    {
+        Queue<?> queue1 = _vhost.createChild(Queue.class, Collections.singletonMap(Queue.NAME, getTestName() + "_queue1"));
+        Queue<?> queue2 = _vhost.createChild(Queue.class, Collections.singletonMap(Queue.NAME, getTestName() + "_queue2"));
+
+        _exchange.bind(queue1.getName(), "a.*", null, false);
+        _exchange.bind(queue2.getName(), "*.b", null, false);
+
+        assertEquals(2, _exchange.route(_messageWithNoHeaders, "a.b", _instanceProperties).getNumberOfRoutes());
+
+        assertTrue("Unbind operation should be successful", _exchange.unbind(queue1.getName(), "a.*"));
+        assertEquals(1, _exchange.route(_messageWithNoHeaders, "a.b", _instanceProperties).getNumberOfRoutes());
+        assertFalse("Message unexpectedly routed after unbind",
+                    _exchange.route(_messageWithNoHeaders, "a.c", _instanceProperties).hasRoutes());
+
+        _exchange.bind(queue1.getName(), "a.*", null, false);
+        assertEquals(2, _exchange.route(_messageWithNoHeaders, "a.b", _instanceProperties).getNumberOfRoutes());
+        assertEquals(1, _exchange.route(_messageWithNoHeaders, "a.c", _instanceProperties).getNumberOfRoutes());
+    }
+
     private ServerMessage<?> createTestMessage(Map<String, Object> headerValues)
     {
         AMQMessageHeader header = mock(AMQMessageHeader.class);
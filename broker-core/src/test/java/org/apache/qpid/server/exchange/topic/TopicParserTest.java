@@ -0,0 +1,172 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange.topic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class TopicParserTest extends UnitTestBase
+{
+    private final TopicMatcherAutomatonCache _automatonCache = new TopicMatcherAutomatonCache(16);
+
+    @Test
+    public void testAddBindingPublishesNewSnapshot()
+    {
+        final TopicMatcherResult result = new TopicMatcherResult() {};
+        final TopicParser empty = new TopicParser(_automatonCache);
+        final TopicParser parser = empty.addBinding("a.*.c", result);
+
+        assertTrue(empty.parse("a.b.c").isEmpty());
+        assertEquals(Collections.singleton(result), new HashSet<>(parser.parse("a.b.c")));
+        assertTrue(parser.parse("a.b").isEmpty());
+    }
+
+    @Test
+    public void testWildcardAndExactBindings()
+    {
+        final TopicMatcherResult exact = new TopicMatcherResult() {};
+        final TopicMatcherResult wildcard = new TopicMatcherResult() {};
+        final TopicParser parser = new TopicParser(_automatonCache).addBinding("a.b", exact)
+                                                                   .addBinding("a.#", wildcard);
+
+        assertEquals(new HashSet<>(Arrays.asList(exact, wildcard)), new HashSet<>(parser.parse("a.b")));
+        assertEquals(Collections.singleton(wildcard), new HashSet<>(parser.parse("a.c.d")));
+        assertTrue(parser.parse("b.a").isEmpty());
+    }
+
+    @Test
+    public void testRemoveBindingAndRebuild()
+    {
+        final TopicMatcherResult first = new TopicMatcherResult() {};
+        final TopicMatcherResult second = new TopicMatcherResult() {};
+        final TopicParser parser = new TopicParser(_automatonCache).addBinding("a.*", first)
+                                                                   .addBinding("*.b", second);
+        assertFalse(parser.isRebuildRequired());
+
+        final TopicParser removed = parser.removeBinding("a.*");
+        assertSame("Removing a binding should not require a new snapshot", parser, removed);
+        assertTrue(removed.isRebuildRequired());
+        assertEquals(Collections.singleton(second), new HashSet<>(removed.parse("a.b")));
+        assertTrue(removed.parse("a.c").isEmpty());
+
+        final TopicParser rebuilt = removed.rebuild();
+        assertFalse(rebuilt.isRebuildRequired());
+        assertEquals(Collections.singleton(second), new HashSet<>(rebuilt.parse("a.b")));
+        assertTrue(rebuilt.parse("a.c").isEmpty());
+    }
+
+    @Test
+    public void testReplaceResultOfCompiledBindingKey()
+    {
+        final TopicMatcherResult first = new TopicMatcherResult() {};
+        final TopicMatcherResult second = new TopicMatcherResult() {};
+        final TopicParser parser = new TopicParser(_automatonCache).addBinding("a.b", first)
+                                                                   .removeBinding("a.b")
+                                                                   .addBinding("a.b", second);
+
+        assertFalse(parser.isRebuildRequired());
+        assertEquals(Collections.singleton(second), new HashSet<>(parser.parse("a.b")));
+    }
+
+    @Test
+    public void testRebindingRemovedKeyPublishesNewSnapshot()
+    {
+        final TopicMatcherResult first = new TopicMatcherResult() {};
+        final TopicMatcherResult second = new TopicMatcherResult() {};
+        final TopicParser parser = new TopicParser(_automatonCache).addBinding("a.b", first);
+
+        assertSame(parser, parser.addBinding("a.b", second));
+        assertNotSame(parser, parser.removeBinding("a.b").addBinding("a.b", first));
+        assertEquals(Collections.singleton(first), new HashSet<>(parser.parse("a.b")));
+    }
+
+    @Test
+    public void testAutomataSharedBetweenParsers()
+    {
+        new TopicParser(_automatonCache).addBinding("x.#", new TopicMatcherResult() {});
+        final TopicMatcherResult result = new TopicMatcherResult() {};
+        final TopicParser parser = new TopicParser(_automatonCache).addBinding("x.#", result);
+
+        assertEquals(1, _automatonCache.getSize());
+        assertSame(result, parser.parse("x.y.z").iterator().next());
+    }
+
+    @Test
+    public void testCacheBeyondMaximumSize()
+    {
+        final TopicMatcherAutomatonCache automatonCache = new TopicMatcherAutomatonCache(1);
+        final TopicMatcherResult first = new TopicMatcherResult() {};
+        final TopicMatcherResult second = new TopicMatcherResult() {};
+        final TopicParser parser = new TopicParser(automatonCache).addBinding("a", first).addBinding("b", second);
+
+        assertEquals(1, automatonCache.getSize());
+        assertEquals(Collections.singleton(first), new HashSet<>(parser.parse("a")));
+        assertEquals(Collections.singleton(second), new HashSet<>(parser.parse("b")));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedAutomatonEvicted()
+    {
+        final TopicMatcherAutomatonCache automatonCache = new TopicMatcherAutomatonCache(1);
+        automatonCache.getStateMachine(new TopicBindingKey("a"));
+        final TopicMatcherDFAState stateMachine = automatonCache.getStateMachine(new TopicBindingKey("b"));
+
+        assertEquals(1, automatonCache.getSize());
+        assertSame(stateMachine, automatonCache.getStateMachine(new TopicBindingKey("b")));
+    }
+
+    @Test
+    public void testPendingBindingsMatchedBeforeAndAfterMerge()
+    {
+        final TopicMatcherResult first = new TopicMatcherResult() {};
+        final TopicMatcherResult second = new TopicMatcherResult() {};
+        final TopicMatcherResult third = new TopicMatcherResult() {};
+        final TopicParser merged = new TopicParser(_automatonCache).addBinding("a.#", first).mergePendingBindings();
+        assertFalse(merged.hasPendingBindings());
+
+        final TopicParser parser = merged.addBinding("a.b", second).addBinding("*.b", third);
+        assertTrue(parser.hasPendingBindings());
+        assertEquals(new HashSet<>(Arrays.asList(first, second, third)), new HashSet<>(parser.parse("a.b")));
+        assertEquals(Collections.singleton(third), new HashSet<>(parser.parse("c.b")));
+        assertEquals(Collections.singleton(first), new HashSet<>(parser.parse("a.c")));
+
+        final TopicParser mergedAgain = parser.mergePendingBindings();
+        assertFalse(mergedAgain.hasPendingBindings());
+        assertEquals(new HashSet<>(Arrays.asList(first, second, third)), new HashSet<>(mergedAgain.parse("a.b")));
+        assertEquals(Collections.singleton(third), new HashSet<>(mergedAgain.parse("c.b")));
+        assertEquals(Collections.singleton(first), new HashSet<>(mergedAgain.parse("a.c")));
+
+        final TopicParser removed = parser.removeBinding("a.b").rebuild();
+        assertFalse(removed.hasPendingBindings());
+        assertEquals(new HashSet<>(Arrays.asList(first, third)), new HashSet<>(removed.parse("a.b")));
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.server.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.apache.qpid.server.filter.selector.SelectorParser;
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class SelectorCompilerTest extends UnitTestBase
+{
+    private static final List<String> SELECTORS = Arrays.asList(
+            "prop = 5",
+            "prop <> 5",
+            "prop > 5",
+            "prop >= 5",
+            "prop < 5.5",
+            "prop <= 5.5",
+            "5 < prop",
+            "5.0 >= prop",
+            "prop BETWEEN 2 AND 7",
+            "prop NOT BETWEEN 2 AND 7",
+            "prop = 'five'",
+            "prop <> 'five'",
+            "prop = TRUE",
+            "prop",
+            "NOT prop",
+            "prop IS NULL",
+            "prop IS NOT NULL",
+            "prop IN ('a', 'b', 'five')",
+            "prop NOT IN ('a', 'b', 'c', 'd', 'e', 'five')",
+            "prop LIKE 'fi%'",
+            "prop LIKE '%ve'",
+            "prop LIKE '%iv%'",
+            "prop LIKE 'five'",
+            "prop LIKE 'f_ve'",
+            "prop LIKE 'f!%%' ESCAPE '!'",
+            "prop NOT LIKE 'fi%'",
+            "prop > 2 AND other = 'x'",
+            "prop > 2 OR other = 'x'",
+            "NOT (prop > 2 AND other = 'x')",
+            "NOT (prop > 2 OR other = 'x')",
+            "prop + 1 > 5",
+            "prop = other",
+            "JMSPriority > 3 AND JMSDeliveryMode = 'PERSISTENT'",
+            "TRUE",
+            "FALSE OR prop = 5");
+
+    private static final List<Object> VALUES = Arrays.asList(
+            null, (byte) 5, (short) 5, 5, 6, 5L, 1L, 5.0f, 5.5f, Float.NaN, 5.0d, -0.0d, Double.NaN,
+            "five", "x", "f%", "", true, false, new BigDecimal("5"));
+
+    @Test
+    public void testCompiledSelectorsMatchInterpreter() throws Exception
+    {
+        for (String selector : SELECTORS)
+        {
+            final BooleanExpression<FilterableMessage> interpreted = parse(selector);
+            final BooleanExpression<FilterableMessage> compiled = SelectorCompiler.compile(interpreted);
+
+            for (Object value : VALUES)
+            {
+                for (Object other : Arrays.asList(null, "x", 5))
+                {
+                    final FilterableMessage message = createMessage(value, other);
+                    final String description = String.format("Selector '%s' with prop=%s (%s), other=%s",
+                                                             selector,
+                                                             value,
+                                                             value == null ? null : value.getClass().getSimpleName(),
+                                                             other);
+                    assertEquals(description, evaluate(interpreted, message), evaluate(compiled, message));
+                    assertEquals(description, matches(interpreted, message), matches(compiled, message));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSelectorFilterUsesCompiledSelector() throws Exception
+    {
+        final JMSSelectorFilter filter = new JMSSelectorFilter("prop > 5 AND other LIKE 'x%'", true);
+        final Filterable matching = createFilterable(6, "xy");
+        final Filterable notMatching = createFilterable(5, "xy");
+
+        assertTrue(filter.matches(matching));
+        assertFalse(filter.matches(notMatching));
+    }
+
+    @Test
+    public void testInterpretedFilterConvertedToCompiled() throws Exception
+    {
+        final JMSSelectorFilter interpreted = new JMSSelectorFilter("prop > 5 AND other LIKE 'x%'");
+        assertFalse(interpreted.isCompiled());
+
+        final JMSSelectorFilter compiled = interpreted.toCompiled();
+        assertTrue(compiled.isCompiled());
+        assertSame(compiled, compiled.toCompiled());
+        assertEquals(interpreted, compiled);
+        assertTrue(compiled.matches(createFilterable(6, "xy")));
+        assertFalse(compiled.matches(createFilterable(5, "xy")));
+    }
+
+    @Test
+    public void testUnsupportedExpressionFallsBackToInterpreter() throws Exception
+    {
+        final BooleanExpression<FilterableMessage> unsupported = new BooleanExpression<FilterableMessage>()
+        {
+            @Override
+            public boolean matches(final FilterableMessage object)
+            {
+                return true;
+            }
+
+            @Override
+            public Object evaluate(final FilterableMessage object)
+            {
+                return Boolean.TRUE;
+            }
+        };
+
+        try
+        {
+            SelectorCompiler.compile(unsupported);
+        }
+        catch (UnsupportedOperationException e)
+        {
+            return;
+        }
+        throw new AssertionError("Compilation of an unsupported expression should fail");
+    }
+
+    private static Object evaluate(final BooleanExpression<FilterableMessage> expression,
+                                   final FilterableMessage message)
+    {
+        try
+        {
+            return expression.evaluate(message);
+        }
+        catch (RuntimeException e)
+        {
+            return e.getClass();
+        }
+    }
+
+    private static Object matches(final BooleanExpression<FilterableMessage> expression,
+                                  final FilterableMessage message)
+    {
+        try
+        {
+            return expression.matches(message);
+        }
+        catch (RuntimeException e)
+        {
+            return e.getClass();
+        }
+    }
+
+    private static BooleanExpression<FilterableMessage> parse(final String selector) throws Exception
+    {
+        final SelectorParser<FilterableMessage> parser = new SelectorParser<>();
+        parser.setPropertyExpressionFactory(JMSMessagePropertyExpression.FACTORY);
+        return parser.parse(selector);
+    }
+
+    private static FilterableMessage createMessage(final Object prop, final Object other)
+    {
+        return createFilterable(prop, other);
+    }
+
+    private static Filterable createFilterable(final Object prop, final Object other)
+    {
+        final Map<String, Object> headers = new HashMap<>();
+        headers.put("prop", prop);
+        headers.put("other", other);
+        return new TestFilterable(Collections.unmodifiableMap(headers));
+    }
+
+    private static class TestFilterable implements Filterable
+    {
+        private final Map<String, Object> _headers;
+
+        private TestFilterable(final Map<String, Object> headers)
+        {
+            _headers = headers;
+        }
+
+        @Override
+        public AMQMessageHeader getMessageHeader()
+        {
+            return null;
+        }
+
+        @Override
+        public boolean isPersistent()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean isRedelivered()
+        {
+            return false;
+        }
+
+        @Override
+        public Object getHeader(final String name)
+        {
+            return _headers.get(name);
+        }
+
+        @Override
+        public String getReplyTo()
+        {
+            return null;
+        }
+
+        @Override
+        public String getType()
+        {
+            return null;
+        }
+
+        @Override
+        public byte getPriority()
+        {
+            return 4;
+        }
+
+        @Override
+        public String getMessageId()
+        {
+            return null;
+        }
+
+        @Override
+        public long getTimestamp()
+        {
+            return 0;
+        }
+
+        @Override
+        public String getCorrelationId()
+        {
+            return null;
+        }
+
+        @Override
+        public long getExpiration()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getMessageNumber()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getArrivalTime()
+        {
+            return 0;
+        }
+
+        @Override
+        public Object getConnectionReference()
+        {
+            return null;
+        }
+    }
+}
@@ -64,6 +64,7 @@ import org.apache.qpid.server.configuration.store.StoreConfigurationChangeListen
 import org.apache.qpid.server.configuration.updater.CurrentThreadTaskExecutor;
 import org.apache.qpid.server.configuration.updater.TaskExecutor;
 import org.apache.qpid.server.exchange.ExchangeDefaults;
+import org.apache.qpid.server.model.port.AmqpPort;
 import org.apache.qpid.server.security.AccessControl;
 import org.apache.qpid.server.security.Result;
 import org.apache.qpid.server.security.access.Operation;
@@ -76,6 +77,7 @@ import org.apache.qpid.server.store.preferences.PreferenceStore;
 import org.apache.qpid.server.store.preferences.PreferenceStoreUpdater;
 import org.apache.qpid.server.transport.AMQPConnection;
 import org.apache.qpid.server.transport.AbstractAMQPConnection;
+import org.apache.qpid.server.transport.NetworkConnectionScheduler;
 import org.apache.qpid.server.util.Action;
 import org.apache.qpid.server.virtualhost.NodeAutoCreationPolicy;
 import org.apache.qpid.server.virtualhost.NoopConnectionEstablishmentPolicy;
@@ -165,6 +167,17 @@ public class VirtualHostTest extends UnitTestBase
         verify(_configStore).update(eq(true), matchesRecord(virtualHost.getId(), virtualHost.getType()));
     }
 
+    @Test
+    public void testAttainedMessageSourceAndDestinationWithNullName()
+    {
+        QueueManagingVirtualHost<?> virtualHost = createVirtualHost(getTestName());
+
+        assertNull("Unexpected source", virtualHost.getAttainedMessageSource(null));
+        assertNull("Unexpected destination", virtualHost.getAttainedMessageDestination(null, false));
+        assertNull("Unexpected destination", virtualHost.getAttainedMessageDestination(null, true));
+        assertNull("Unexpected system destination", virtualHost.getSystemDestination(null));
+    }
+
     @Test
     public void testDeleteVirtualHost()
     {
@@ -508,6 +521,23 @@ public class VirtualHostTest extends UnitTestBase
         verify(connection).block();
     }
 
+    @Test
+    public void testRegisteredConnectionStaysOnReactorOfMultiReactorVirtualHost()
+    {
+        VirtualHost<?> host = createVirtualHost(getTestName(),
+                                                Collections.singletonMap(ConfiguredObject.CONTEXT,
+                                                                         Collections.singletonMap(AmqpPort.PORT_AMQP_MULTI_REACTOR,
+                                                                                                  "true")));
+        AbstractAMQPConnection connection = mock(AbstractAMQPConnection.class);
+        host.registerConnection(connection, new NoopConnectionEstablishmentPolicy());
+
+        final ArgumentCaptor<NetworkConnectionScheduler> schedulerCaptor =
+                ArgumentCaptor.forClass(NetworkConnectionScheduler.class);
+        verify(connection).pushScheduler(schedulerCaptor.capture());
+        assertTrue("Virtual host scheduler should be in multi-reactor mode",
+                   schedulerCaptor.getValue().isMultiReactor());
+    }
+
     @Test
     public void testCreateValidation()
     {
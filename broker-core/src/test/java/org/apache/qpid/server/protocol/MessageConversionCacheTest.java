@@ -0,0 +1,145 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.NamedAddressSpace;
+import org.apache.qpid.server.plugin.MessageConverter;
+import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class MessageConversionCacheTest extends UnitTestBase
+{
+    private static final long CONVERTED_SIZE = 100L;
+
+    private MessageConversionCache _cache;
+    private MessageConverter<ServerMessage, ServerMessage> _converter;
+    private ServerMessage _message;
+    private ServerMessage _converted;
+    private QueueManagingVirtualHost<?> _addressSpace;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        _cache = new MessageConversionCache();
+        _converter = mock(MessageConverter.class);
+        _message = mock(ServerMessage.class);
+        _converted = mock(ServerMessage.class);
+        _addressSpace = mock(QueueManagingVirtualHost.class);
+        when(_converted.getSizeIncludingHeader()).thenReturn(CONVERTED_SIZE);
+        when(_converter.convert(any(ServerMessage.class), any(NamedAddressSpace.class))).thenReturn(_converted);
+        when(_addressSpace.reserveConversionCacheSpace(any(MessageConversionCache.class), anyLong())).thenReturn(true);
+    }
+
+    @Test
+    public void testConversionSharedUntilCacheClosed()
+    {
+        final ConvertedMessage<ServerMessage> first = _cache.convert(_message, ServerMessage.class, _converter, _addressSpace);
+        final ConvertedMessage<ServerMessage> second = _cache.convert(_message, ServerMessage.class, _converter, _addressSpace);
+
+        assertFalse(first.isShared());
+        assertTrue(second.isShared());
+        assertSame(_converted, second.getMessage());
+        verify(_converter, times(1)).convert(_message, _addressSpace);
+        verify(_addressSpace, times(1)).registerConversionRetained();
+
+        first.release();
+        second.release();
+        verify(_converter, never()).dispose(_converted);
+
+        _cache.close();
+        verify(_converter).dispose(_converted);
+        verify(_addressSpace).reserveConversionCacheSpace(_cache, CONVERTED_SIZE);
+        verify(_addressSpace).releaseConversionCacheSpace(_cache, CONVERTED_SIZE);
+    }
+
+    @Test
+    public void testConversionNotRetainedWithoutSpace()
+    {
+        when(_addressSpace.reserveConversionCacheSpace(any(MessageConversionCache.class), anyLong())).thenReturn(false);
+
+        final ConvertedMessage<ServerMessage> first = _cache.convert(_message, ServerMessage.class, _converter, _addressSpace);
+        assertEquals("Conversion retained without space", 0, _cache.getSize());
+        verify(_addressSpace, never()).registerConversionRetained();
+        first.release();
+        verify(_converter).dispose(_converted);
+
+        final ConvertedMessage<ServerMessage> second = _cache.convert(_message, ServerMessage.class, _converter, _addressSpace);
+        assertFalse(second.isShared());
+        verify(_converter, times(2)).convert(_message, _addressSpace);
+        verify(_addressSpace, never()).releaseConversionCacheSpace(any(MessageConversionCache.class), anyLong());
+    }
+
+    @Test
+    public void testEvictedConversionReleasesSpaceAndIsNotShared()
+    {
+        final ConvertedMessage<ServerMessage> first = _cache.convert(_message, ServerMessage.class, _converter, _addressSpace);
+
+        assertEquals("Unexpected evicted size", CONVERTED_SIZE, _cache.evict());
+        assertEquals("Conversion retained after eviction", 0, _cache.getSize());
+        verify(_addressSpace).releaseConversionCacheSpace(_cache, CONVERTED_SIZE);
+        verify(_converter, never()).dispose(_converted);
+
+        first.release();
+        verify(_converter).dispose(_converted);
+
+        final ConvertedMessage<ServerMessage> second = _cache.convert(_message, ServerMessage.class, _converter, _addressSpace);
+        assertFalse("Evicted conversion reused", second.isShared());
+        assertEquals("Conversion not retained again", 1, _cache.getSize());
+    }
+
+    @Test
+    public void testConversionDisposedByLastConsumerAfterClose()
+    {
+        final ConvertedMessage<ServerMessage> converted = _cache.convert(_message, ServerMessage.class, _converter, _addressSpace);
+        _cache.close();
+        verify(_converter, never()).dispose(_converted);
+
+        converted.release();
+        verify(_converter).dispose(_converted);
+    }
+
+    @Test
+    public void testConversionNotCachedAfterClose()
+    {
+        _cache.close();
+
+        final ConvertedMessage<ServerMessage> converted = _cache.convert(_message, ServerMessage.class, _converter, _addressSpace);
+        assertFalse(converted.isShared());
+        converted.release();
+        verify(_converter).dispose(_converted);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.qpid.server.message.MessageDestination;
+import org.apache.qpid.server.model.NamedAddressSpace;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class MessageDestinationCacheTest extends UnitTestBase
+{
+    private static final String DESTINATION_NAME = "destination";
+
+    private NamedAddressSpace _addressSpace;
+    private MessageDestination _destination;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        _addressSpace = mock(NamedAddressSpace.class);
+        _destination = mock(MessageDestination.class);
+        when(_addressSpace.getAttainedMessageDestination(DESTINATION_NAME)).thenReturn(_destination);
+    }
+
+    @Test
+    public void testDestinationResolvedOnceWhileVersionUnchanged()
+    {
+        when(_addressSpace.getMessageDestinationsVersion()).thenReturn(1L);
+        final MessageDestinationCache cache = new MessageDestinationCache(_addressSpace, 10);
+
+        assertSame(_destination, cache.getAttainedMessageDestination(DESTINATION_NAME));
+        assertSame(_destination, cache.getAttainedMessageDestination(DESTINATION_NAME));
+
+        verify(_addressSpace, times(1)).getAttainedMessageDestination(DESTINATION_NAME);
+    }
+
+    @Test
+    public void testCacheDiscardedWhenVersionChanges()
+    {
+        when(_addressSpace.getMessageDestinationsVersion()).thenReturn(1L);
+        final MessageDestinationCache cache = new MessageDestinationCache(_addressSpace, 10);
+        assertSame(_destination, cache.getAttainedMessageDestination(DESTINATION_NAME));
+
+        when(_addressSpace.getMessageDestinationsVersion()).thenReturn(2L);
+        when(_addressSpace.getAttainedMessageDestination(DESTINATION_NAME)).thenReturn(null);
+
+        assertNull(cache.getAttainedMessageDestination(DESTINATION_NAME));
+    }
+
+    @Test
+    public void testUnresolvedDestinationNotCached()
+    {
+        when(_addressSpace.getMessageDestinationsVersion()).thenReturn(1L);
+        final MessageDestinationCache cache = new MessageDestinationCache(_addressSpace, 10);
+
+        assertNull(cache.getAttainedMessageDestination("unknown"));
+        assertNull(cache.getAttainedMessageDestination("unknown"));
+
+        verify(_addressSpace, times(2)).getAttainedMessageDestination("unknown");
+    }
+
+    @Test
+    public void testAddressSpaceWithoutVersionNotCached()
+    {
+        final MessageDestinationCache cache = new MessageDestinationCache(_addressSpace, 10);
+
+        assertSame(_destination, cache.getAttainedMessageDestination(DESTINATION_NAME));
+        assertSame(_destination, cache.getAttainedMessageDestination(DESTINATION_NAME));
+
+        verify(_addressSpace, times(2)).getAttainedMessageDestination(DESTINATION_NAME);
+    }
+
+    @Test
+    public void testCacheSizeBounded()
+    {
+        when(_addressSpace.getMessageDestinationsVersion()).thenReturn(1L);
+        final MessageDestination other = mock(MessageDestination.class);
+        when(_addressSpace.getAttainedMessageDestination("other")).thenReturn(other);
+        final MessageDestinationCache cache = new MessageDestinationCache(_addressSpace, 1);
+
+        cache.getAttainedMessageDestination(DESTINATION_NAME);
+        cache.getAttainedMessageDestination("other");
+        cache.getAttainedMessageDestination(DESTINATION_NAME);
+
+        verify(_addressSpace, times(2)).getAttainedMessageDestination(DESTINATION_NAME);
+    }
+}
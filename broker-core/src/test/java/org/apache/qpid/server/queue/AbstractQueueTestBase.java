@@ -37,6 +37,7 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -1120,6 +1121,35 @@ abstract class AbstractQueueTestBase extends UnitTestBase
         doMoveOrCopyMessageTest(false);
     }
 
+    @Test
+    public void testMessageIdIndex() throws Exception
+    {
+        Map<String, Object> attributes = new HashMap<>(_arguments);
+        attributes.put(Queue.NAME, getTestName() + "_indexed");
+        attributes.put(Queue.CONTEXT, Collections.singletonMap(Queue.QUEUE_MESSAGE_ID_INDEX_ENABLED, "true"));
+        Queue<?> queue = _virtualHost.createChild(Queue.class, attributes);
+        Queue<?> target = _virtualHost.createChild(Queue.class, Collections.singletonMap(Queue.NAME, getTestName() + "_target"));
+
+        queue.enqueue(createMessage(1L), null, null);
+        queue.enqueue(createMessage(2L), null, null);
+        queue.enqueue(createMessage(3L), null, null);
+
+        QueueEntry entry = queue.getMessageOnTheQueue(2L);
+        assertNotNull("Message not found by id", entry);
+        assertEquals("Unexpected message", 2L, entry.getMessage().getMessageNumber());
+        assertNull("Unexpected message found", queue.getMessageOnTheQueue(4L));
+
+        List<Long> deleted = queue.deleteMessages(Collections.singletonList(2L), null, -1);
+        assertEquals("Unexpected deleted message ids", Collections.singletonList(2L), deleted);
+        assertNull("Deleted message still found", queue.getMessageOnTheQueue(2L));
+
+        List<Long> moved = queue.moveMessages(target, Arrays.asList(3L, 2L), null, -1);
+        assertEquals("Unexpected moved message ids", Collections.singletonList(3L), moved);
+        assertEquals("Unexpected number of messages on source queue", 1, queue.getQueueDepthMessages());
+        assertEquals("Unexpected number of messages on target queue", 1, target.getQueueDepthMessages());
+        assertNotNull("Remaining message not found by id", queue.getMessageOnTheQueue(1L));
+    }
+
     @Test
     public void testExpiryPolicyRouteToAlternate()
     {
@@ -0,0 +1,398 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageInstance;
+import org.apache.qpid.server.message.MessageInstance.EntryState;
+import org.apache.qpid.server.message.MessageInstanceConsumer;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.util.StateChangeListener;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class DefinedGroupMessageGroupManagerTest extends UnitTestBase
+{
+    private static final String DEFAULT_GROUP = "qpid.no-group";
+
+    private final List<QueueEntry> _resetEntries = new CopyOnWriteArrayList<>();
+    private final Map<QueueEntry, Long> _positions = new ConcurrentHashMap<>();
+    private DefinedGroupMessageGroupManager _groupManager;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        _groupManager = new DefinedGroupMessageGroupManager(null, DEFAULT_GROUP, new MessageGroupManager.ConsumerResetHelper()
+        {
+            @Override
+            public void resetSubPointersForGroups(final QueueEntry entry)
+            {
+                _resetEntries.add(entry);
+            }
+
+            @Override
+            public boolean isEntryAheadOfConsumer(final QueueEntry entry, final QueueConsumer<?, ?> sub)
+            {
+                return false;
+            }
+        });
+    }
+
+    @Test
+    public void testGroupAssignedToConsumerUntilItHoldsNoMessages()
+    {
+        final QueueConsumer<?, ?> consumer1 = createConsumer(new AtomicBoolean());
+        final QueueConsumer<?, ?> consumer2 = createConsumer(new AtomicBoolean());
+        final TestEntry entry1 = new TestEntry(1, "A");
+        final TestEntry entry2 = new TestEntry(2, "A");
+        final TestEntry entry3 = new TestEntry(3, "B");
+
+        assertTrue("First message of group not accepted", _groupManager.acceptMessage(consumer1, entry1.getEntry()));
+        assertFalse("Group assigned to another consumer", _groupManager.mightAssign(entry2.getEntry(), consumer2));
+        assertFalse("Group assigned to another consumer", _groupManager.acceptMessage(consumer2, entry2.getEntry()));
+        assertTrue("Other group not accepted", _groupManager.acceptMessage(consumer2, entry3.getEntry()));
+        assertSame("Skipped entry not found for assigned consumer",
+                   entry2.getEntry(), _groupManager.findEarliestAssignedAvailableEntry(consumer1));
+        assertNull("Unexpected entry for consumer of other group",
+                   _groupManager.findEarliestAssignedAvailableEntry(consumer2));
+
+        entry1.delete();
+
+        assertEquals("Consumer pointers not reset to skipped entry",
+                     Collections.singletonList(entry2.getEntry()), _resetEntries);
+        assertNull("Group still assigned", _groupManager.findEarliestAssignedAvailableEntry(consumer1));
+        assertTrue("Group not reassigned", _groupManager.acceptMessage(consumer2, entry2.getEntry()));
+    }
+
+    @Test
+    public void testGroupRetainedWhileConsumerHoldsOtherMessages()
+    {
+        final QueueConsumer<?, ?> consumer1 = createConsumer(new AtomicBoolean());
+        final QueueConsumer<?, ?> consumer2 = createConsumer(new AtomicBoolean());
+        final TestEntry entry1 = new TestEntry(1, "A");
+        final TestEntry entry2 = new TestEntry(2, "A");
+        final TestEntry entry3 = new TestEntry(3, "A");
+
+        assertTrue(_groupManager.acceptMessage(consumer1, entry1.getEntry()));
+        assertTrue(_groupManager.acceptMessage(consumer1, entry2.getEntry()));
+
+        entry1.delete();
+        assertFalse("Group released while consumer holds a message",
+                    _groupManager.acceptMessage(consumer2, entry3.getEntry()));
+
+        entry2.release();
+        assertTrue("Group not released", _groupManager.acceptMessage(consumer2, entry3.getEntry()));
+        assertFalse("Released entry of reassigned group accepted by previous consumer",
+                    _groupManager.acceptMessage(consumer1, entry2.getEntry()));
+    }
+
+    @Test
+    public void testGroupReassignedAfterConsumerRemoved()
+    {
+        final AtomicBoolean consumer1Closed = new AtomicBoolean();
+        final QueueConsumer<?, ?> consumer1 = createConsumer(consumer1Closed);
+        final QueueConsumer<?, ?> consumer2 = createConsumer(new AtomicBoolean());
+        final TestEntry entry1 = new TestEntry(1, "A");
+        final TestEntry entry2 = new TestEntry(2, "A");
+
+        assertTrue(_groupManager.acceptMessage(consumer1, entry1.getEntry()));
+        assertFalse(_groupManager.acceptMessage(consumer2, entry2.getEntry()));
+
+        consumer1Closed.set(true);
+        entry1.release();
+        _groupManager.clearAssignments(consumer1);
+
+        assertNull("Assignments not cleared", _groupManager.findEarliestAssignedAvailableEntry(consumer1));
+        assertTrue("Released entry not accepted", _groupManager.acceptMessage(consumer2, entry1.getEntry()));
+        assertTrue("Skipped entry not accepted", _groupManager.acceptMessage(consumer2, entry2.getEntry()));
+    }
+
+    @Test
+    public void testMessagesWithoutGroupAssignedToDefaultGroup()
+    {
+        final QueueConsumer<?, ?> consumer1 = createConsumer(new AtomicBoolean());
+        final QueueConsumer<?, ?> consumer2 = createConsumer(new AtomicBoolean());
+
+        assertTrue(_groupManager.acceptMessage(consumer1, new TestEntry(1, null).getEntry()));
+        assertFalse("Message without group should join the default group",
+                    _groupManager.acceptMessage(consumer2, new TestEntry(2, null).getEntry()));
+        assertFalse("Message of default group should join the default group",
+                    _groupManager.acceptMessage(consumer2, new TestEntry(3, DEFAULT_GROUP).getEntry()));
+    }
+
+    @Test
+    public void testConcurrentAcquireReleaseAndConsumerRemoval() throws Exception
+    {
+        final int numberOfConsumers = 8;
+        final int numberOfGroups = 4;
+        final int entriesPerGroup = 1000;
+
+        final ConcurrentLinkedQueue<TestEntry> available = new ConcurrentLinkedQueue<>();
+        final Map<String, GroupOwnership> ownerships = new HashMap<>();
+        for (int i = 0; i < numberOfGroups * entriesPerGroup; i++)
+        {
+            final String group = "group" + (i % numberOfGroups);
+            available.add(new TestEntry(i, group));
+            ownerships.putIfAbsent(group, new GroupOwnership());
+        }
+
+        final AtomicInteger consumed = new AtomicInteger();
+        final AtomicReference<String> violation = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(numberOfConsumers);
+        final long deadline = System.currentTimeMillis() + 20000L;
+
+        for (int c = 0; c < numberOfConsumers; c++)
+        {
+            final boolean removedEarly = c == 0;
+            final AtomicBoolean closed = new AtomicBoolean();
+            final QueueConsumer<?, ?> consumer = createConsumer(closed);
+            final Thread thread = new Thread(() ->
+            {
+                final Deque<TestEntry> held = new ArrayDeque<>();
+                int accepted = 0;
+                try
+                {
+                    while (consumed.get() < numberOfGroups * entriesPerGroup
+                           && System.currentTimeMillis() < deadline
+                           && !(removedEarly && accepted >= 100))
+                    {
+                        final TestEntry entry = available.poll();
+                        if (entry == null || !_groupManager.acceptMessage(consumer, entry.getEntry()))
+                        {
+                            if (entry != null)
+                            {
+                                available.add(entry);
+                            }
+                            if (held.isEmpty())
+                            {
+                                Thread.yield();
+                            }
+                            else
+                            {
+                                settle(held.poll(), ownerships, available, consumed);
+                            }
+                        }
+                        else
+                        {
+                            accepted++;
+                            final GroupOwnership ownership = ownerships.get(entry.getGroup());
+                            if (!ownership.acquired(consumer))
+                            {
+                                violation.compareAndSet(null, "Group " + entry.getGroup()
+                                                              + " held by two consumers at once");
+                            }
+                            held.add(entry);
+                            if (held.size() > 3)
+                            {
+                                settle(held.poll(), ownerships, available, consumed);
+                            }
+                        }
+                    }
+                }
+                catch (RuntimeException | Error e)
+                {
+                    violation.compareAndSet(null, "Consumer failed: " + e);
+                }
+                finally
+                {
+                    closed.set(true);
+                    for (TestEntry entry : held)
+                    {
+                        ownerships.get(entry.getGroup()).released();
+                        entry.release();
+                        available.add(entry);
+                    }
+                    _groupManager.clearAssignments(consumer);
+                    done.countDown();
+                }
+            }, "consumer-" + c);
+            thread.start();
+        }
+
+        assertTrue("Consumers did not finish", done.await(30, TimeUnit.SECONDS));
+        assertNull(violation.get(), violation.get());
+        assertEquals("Not all messages consumed", numberOfGroups * entriesPerGroup, consumed.get());
+    }
+
+    private void settle(final TestEntry entry,
+                        final Map<String, GroupOwnership> ownerships,
+                        final ConcurrentLinkedQueue<TestEntry> available,
+                        final AtomicInteger consumed)
+    {
+        ownerships.get(entry.getGroup()).released();
+        if (ThreadLocalRandom.current().nextInt(4) == 0)
+        {
+            entry.release();
+            available.add(entry);
+        }
+        else
+        {
+            entry.delete();
+            consumed.incrementAndGet();
+        }
+    }
+
+    private QueueConsumer<?, ?> createConsumer(final AtomicBoolean closed)
+    {
+        final QueueConsumer<?, ?> consumer = mock(QueueConsumer.class);
+        when(consumer.isClosed()).then(invocation -> closed.get());
+        return consumer;
+    }
+
+    /**
+     * Records which consumer holds messages of a group, as observed by the consumers themselves.  A consumer gives up
+     * a message here before the message leaves its acquired state, so another consumer can only become the holder
+     * once the group manager could have reassigned the group.
+     */
+    private static final class GroupOwnership
+    {
+        private Object _holder;
+        private int _held;
+
+        synchronized boolean acquired(final Object consumer)
+        {
+            final boolean exclusive = _held == 0 || _holder == consumer;
+            _holder = consumer;
+            _held++;
+            return exclusive;
+        }
+
+        synchronized void released()
+        {
+            _held--;
+        }
+    }
+
+    /**
+     * A queue entry which moves between the available, acquired and deleted states and notifies its listeners as
+     * a real entry does.
+     */
+    private final class TestEntry
+    {
+        private final long _position;
+        private final String _group;
+        private final QueueEntry _entry;
+        private final List<StateChangeListener<? super MessageInstance, EntryState>> _listeners =
+                new CopyOnWriteArrayList<>();
+        private final AtomicReference<EntryState> _state = new AtomicReference<>(MessageInstance.AVAILABLE_STATE);
+
+        @SuppressWarnings("unchecked")
+        private TestEntry(final long position, final String group)
+        {
+            _position = position;
+            _group = group;
+
+            final AMQMessageHeader header = mock(AMQMessageHeader.class);
+            when(header.getGroupId()).thenReturn(group);
+            final ServerMessage<?> message = mock(ServerMessage.class);
+            when(message.getMessageHeader()).thenReturn(header);
+
+            _entry = mock(QueueEntry.class);
+            when(_entry.getMessage()).thenReturn(message);
+            when(_entry.acquire(any(MessageInstanceConsumer.class)))
+                    .then(invocation -> acquire(invocation.getArgument(0)));
+            doAnswer(invocation -> _listeners.add(invocation.getArgument(0)))
+                    .when(_entry).addStateChangeListener(any());
+            when(_entry.removeStateChangeListener(any()))
+                    .then(invocation -> _listeners.remove(invocation.getArguments()[0]));
+            when(_entry.isAvailable()).then(invocation -> _state.get() == MessageInstance.AVAILABLE_STATE);
+            when(_entry.isDeleted()).then(invocation -> _state.get() == MessageInstance.DELETED_STATE);
+            when(_entry.compareTo(any(QueueEntry.class)))
+                    .then(invocation -> Long.compare(_position, _positions.get(invocation.getArgument(0))));
+            _positions.put(_entry, position);
+        }
+
+        QueueEntry getEntry()
+        {
+            return _entry;
+        }
+
+        String getGroup()
+        {
+            return _group == null ? DEFAULT_GROUP : _group;
+        }
+
+        void release()
+        {
+            changeState(MessageInstance.AVAILABLE_STATE);
+        }
+
+        void delete()
+        {
+            changeState(MessageInstance.DELETED_STATE);
+        }
+
+        private boolean acquire(final MessageInstanceConsumer<?> consumer)
+        {
+            final EntryState acquiredState = new MessageInstance.StealableConsumerAcquiredState<>(consumer);
+            if (_state.compareAndSet(MessageInstance.AVAILABLE_STATE, acquiredState))
+            {
+                notifyListeners(MessageInstance.AVAILABLE_STATE, acquiredState);
+                return true;
+            }
+            return false;
+        }
+
+        private void changeState(final EntryState newState)
+        {
+            final EntryState oldState = _state.getAndSet(newState);
+            notifyListeners(oldState, newState);
+        }
+
+        private void notifyListeners(final EntryState oldState, final EntryState newState)
+        {
+            for (StateChangeListener<? super MessageInstance, EntryState> listener : new ArrayList<>(_listeners))
+            {
+                listener.stateChanged(_entry, oldState, newState);
+            }
+        }
+
+    }
+}
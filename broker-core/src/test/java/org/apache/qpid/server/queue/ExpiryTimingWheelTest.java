@@ -0,0 +1,164 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class ExpiryTimingWheelTest extends UnitTestBase
+{
+    private static final long TICK = 100L;
+    private static final long START = 1000000L;
+
+    private ExpiryTimingWheel _wheel;
+    private AbstractQueue<?> _queue;
+    private long _now;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        _now = START;
+        _wheel = new ExpiryTimingWheel(TICK, START);
+        _queue = mock(StandardQueueImpl.class);
+    }
+
+    @Test
+    public void testEntryAlreadyExpiredIsExpiredImmediately()
+    {
+        final QueueEntry entry = createEntry(START - 1000L);
+        _wheel.schedule(entry);
+
+        assertEquals("Unexpected number of expired entries", 1, _wheel.expire(_now));
+        verify(_queue).expireEntry(entry);
+    }
+
+    @Test
+    public void testEntriesExpiredAtTheirExpirationTime()
+    {
+        final long[] expirations = {START + 150L, START + 10000L, START + 500000L, START + 30000000L};
+        final QueueEntry[] entries = new QueueEntry[expirations.length];
+        for (int i = 0; i < expirations.length; i++)
+        {
+            entries[i] = createEntry(expirations[i]);
+            _wheel.schedule(entries[i]);
+        }
+        assertEquals("Unexpected number of expired entries", 0, _wheel.expire(_now));
+        assertEquals("Unexpected number of scheduled entries", expirations.length, _wheel.getScheduledEntryCount());
+
+        for (int i = 0; i < expirations.length; i++)
+        {
+            _now = expirations[i] - 1;
+            _wheel.expire(_now);
+            verify(_queue, never()).expireEntry(entries[i]);
+
+            _now = expirations[i] + TICK;
+            _wheel.expire(_now);
+            verify(_queue).expireEntry(entries[i]);
+        }
+        assertEquals("Unexpected number of scheduled entries", 0, _wheel.getScheduledEntryCount());
+    }
+
+    @Test
+    public void testDeletedEntryIsNotExpired()
+    {
+        final QueueEntry entry = createEntry(START + 150L);
+        _wheel.schedule(entry);
+        _wheel.expire(_now);
+
+        when(entry.isDeleted()).thenReturn(true);
+        _now = START + 1000L;
+
+        assertEquals("Unexpected number of expired entries", 0, _wheel.expire(_now));
+        verify(_queue, never()).expireEntry(entry);
+    }
+
+    @Test
+    public void testEntryWithExtendedExpirationIsRescheduled()
+    {
+        final QueueEntry entry = createEntry(START + 150L);
+        _wheel.schedule(entry);
+        _wheel.expire(_now);
+
+        when(entry.getExpiration()).thenReturn(START + 5000L);
+        _now = START + 1000L;
+        _wheel.expire(_now);
+        verify(_queue, never()).expireEntry(entry);
+
+        _now = START + 6000L;
+        _wheel.expire(_now);
+        verify(_queue).expireEntry(entry);
+    }
+
+    @Test
+    public void testUnscheduledEntryIsReleased()
+    {
+        final QueueEntry entry = createEntry(START + 150L);
+        _wheel.schedule(entry);
+        _wheel.expire(_now);
+        assertEquals("Unexpected number of scheduled entries", 1, _wheel.getScheduledEntryCount());
+
+        _wheel.unschedule(entry);
+        assertEquals("Unexpected number of scheduled entries", 0, _wheel.getScheduledEntryCount());
+
+        _now = START + 1000L;
+        assertEquals("Unexpected number of expired entries", 0, _wheel.expire(_now));
+        verify(_queue, never()).expireEntry(entry);
+    }
+
+    @Test
+    public void testRescheduledEntryIsNotDuplicated()
+    {
+        final QueueEntry entry = createEntry(START + 150L);
+        _wheel.schedule(entry);
+        _wheel.expire(_now);
+
+        when(entry.getExpiration()).thenReturn(START + 5000L);
+        _wheel.schedule(entry);
+        _wheel.schedule(entry);
+        assertEquals("Unexpected number of scheduled entries", 1, _wheel.getScheduledEntryCount());
+
+        _now = START + 1000L;
+        assertEquals("Unexpected number of expired entries", 0, _wheel.expire(_now));
+
+        _now = START + 6000L;
+        assertEquals("Unexpected number of expired entries", 1, _wheel.expire(_now));
+        verify(_queue, times(1)).expireEntry(entry);
+        assertEquals("Unexpected number of scheduled entries", 0, _wheel.getScheduledEntryCount());
+    }
+
+    private QueueEntry createEntry(final long expiration)
+    {
+        final QueueEntry entry = mock(QueueEntry.class);
+        when(entry.getExpiration()).thenReturn(expiration);
+        when(entry.expired()).thenAnswer(invocation -> _now > entry.getExpiration());
+        when(entry.getQueue()).thenAnswer(invocation -> _queue);
+        return entry;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class FlowToDiskEvictorTest extends UnitTestBase
+{
+    private static final int CONTENT_SIZE = 1000;
+
+    private final Map<StoredMessage<?>, QueueEntry> _entries = new HashMap<>();
+    private FlowToDiskEvictor _evictor;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        _evictor = new FlowToDiskEvictor();
+    }
+
+    @Test
+    public void testOldestEntriesEvictedFirst()
+    {
+        final StoredMessage<?> oldest = track();
+        final StoredMessage<?> middle = track();
+        final StoredMessage<?> newest = track();
+
+        assertEquals("Unexpected number of evicted messages", 2, _evictor.evict(CONTENT_SIZE + 1));
+
+        verify(oldest).flowToDisk();
+        verify(middle).flowToDisk();
+        verify(newest, never()).flowToDisk();
+        assertEquals("Unexpected number of tracked entries", 1, _evictor.getTrackedEntryCount());
+    }
+
+    @Test
+    public void testAcquiredEntryNotEvicted()
+    {
+        final StoredMessage<?> acquired = track();
+        final StoredMessage<?> available = track();
+        when(getEntry(acquired).isAcquired()).thenReturn(true);
+
+        assertEquals("Unexpected number of evicted messages", 1, _evictor.evict(CONTENT_SIZE));
+
+        verify(acquired, never()).flowToDisk();
+        verify(available).flowToDisk();
+    }
+
+    @Test
+    public void testDeletedEntriesDroppedByEvictionNoLongerCounted()
+    {
+        final StoredMessage<?> available = track();
+        final StoredMessage<?> consumed = track();
+        final StoredMessage<?> newest = track();
+        when(getEntry(available).isAcquired()).thenReturn(true);
+        when(getEntry(consumed).isDeleted()).thenReturn(true);
+        _evictor.entryDeleted();
+
+        assertEquals("Unexpected number of evicted messages", 1, _evictor.evict(CONTENT_SIZE));
+
+        verify(newest).flowToDisk();
+        verify(consumed, never()).flowToDisk();
+        assertEquals("Unexpected number of deleted entries", 0, _evictor.getDeletedEntryCount());
+        assertEquals("Unexpected number of tracked entries", 1, _evictor.getTrackedEntryCount());
+    }
+
+    @Test
+    public void testDeletedEntriesDropped()
+    {
+        final StoredMessage<?> first = track();
+        final StoredMessage<?> second = track();
+        when(getEntry(first).isDeleted()).thenReturn(true);
+        when(getEntry(second).isDeleted()).thenReturn(true);
+        _evictor.entryDeleted();
+        _evictor.entryDeleted();
+
+        final StoredMessage<?> third = track();
+        assertEquals("Tracking should not drop entries", 3, _evictor.getTrackedEntryCount());
+
+        _evictor.housekeep();
+        assertEquals("Unexpected number of tracked entries", 1, _evictor.getTrackedEntryCount());
+        assertEquals("Unexpected number of deleted entries", 0, _evictor.getDeletedEntryCount());
+
+        when(getEntry(third).isDeleted()).thenReturn(true);
+        _evictor.purge();
+        assertEquals("Unexpected number of tracked entries", 0, _evictor.getTrackedEntryCount());
+        verify(first, never()).flowToDisk();
+    }
+
+    @Test
+    public void testEntriesDeletedOutOfOrderPurgedOnHousekeeping()
+    {
+        final StoredMessage<?> head = track();
+        for (int i = 0; i < 200; i++)
+        {
+            final StoredMessage<?> consumed = track();
+            when(getEntry(consumed).isDeleted()).thenReturn(true);
+            _evictor.entryDeleted();
+        }
+        assertEquals("Tracking should not purge entries", 201, _evictor.getTrackedEntryCount());
+
+        _evictor.housekeep();
+        assertEquals("Deleted entries should have been purged", 1, _evictor.getTrackedEntryCount());
+
+        assertEquals("Unexpected number of evicted messages", 1, _evictor.evict(CONTENT_SIZE));
+        verify(head).flowToDisk();
+    }
+
+    private QueueEntry getEntry(final StoredMessage<?> storedMessage)
+    {
+        return _entries.get(storedMessage);
+    }
+
+    private StoredMessage<?> track()
+    {
+        final StoredMessage storedMessage = mock(StoredMessage.class);
+        final boolean[] inMemory = {true};
+        when(storedMessage.isInMemory()).thenAnswer(invocation -> inMemory[0]);
+        when(storedMessage.getContentSize()).thenReturn(CONTENT_SIZE);
+        when(storedMessage.flowToDisk()).thenAnswer(invocation ->
+                                                    {
+                                                        inMemory[0] = false;
+                                                        return true;
+                                                    });
+
+        final ServerMessage message = mock(ServerMessage.class);
+        when(message.getStoredMessage()).thenReturn(storedMessage);
+        final MessageReference reference = mock(MessageReference.class);
+        when(reference.getMessage()).thenReturn(message);
+        when(message.newReference()).thenReturn(reference);
+
+        final QueueEntry entry = mock(QueueEntry.class);
+        when(entry.getMessage()).thenReturn(message);
+        _entries.put(storedMessage, entry);
+
+        _evictor.track(entry);
+        return storedMessage;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class QueueStatisticsTest extends UnitTestBase
+{
+    @Test
+    public void testExactStatistics()
+    {
+        assertStatistics(new QueueStatistics(false));
+    }
+
+    @Test
+    public void testStripedStatistics()
+    {
+        assertStatistics(new QueueStatistics(true));
+    }
+
+    @Test
+    public void testStripedHighWaterMarkRaisedOnRead()
+    {
+        final QueueStatistics statistics = new QueueStatistics(true);
+        statistics.addToQueue(10);
+        statistics.addToQueue(20);
+
+        assertEquals(2, statistics.getQueueCount());
+        statistics.removeFromQueue(10);
+        statistics.removeFromQueue(20);
+
+        assertEquals("High water mark should retain value observed on read", 2, statistics.getQueueCountHwm());
+    }
+
+    @Test
+    public void testStripedHighWaterMarkRaisedWhenSampled()
+    {
+        final QueueStatistics statistics = new QueueStatistics(true);
+        statistics.addToQueue(10);
+        statistics.addToQueue(20);
+        statistics.addToAvailable(5);
+
+        statistics.sampleHighWaterMarks();
+        statistics.removeFromQueue(10);
+        statistics.removeFromQueue(20);
+        statistics.removeFromAvailable(5);
+
+        assertEquals(0, statistics.getQueueCount());
+        assertEquals("Unexpected queue count high water mark", 2, statistics.getQueueCountHwm());
+        assertEquals("Unexpected queue size high water mark", 30, statistics.getQueueSizeHwm());
+        assertEquals("Unexpected available count high water mark", 1, statistics.getAvailableCountHwm());
+        assertEquals("Unexpected available size high water mark", 5, statistics.getAvailableSizeHwm());
+    }
+
+    private void assertStatistics(final QueueStatistics statistics)
+    {
+        statistics.addToQueue(10);
+        statistics.addToQueue(20);
+        statistics.addToAvailable(10);
+        statistics.addToAvailable(20);
+        statistics.addToEnqueued(10);
+        statistics.addToEnqueued(20);
+        statistics.addToPersistentEnqueued(20);
+
+        assertEquals(2, statistics.getQueueCountHwm());
+        assertEquals(30, statistics.getQueueSizeHwm());
+        assertEquals(2, statistics.getAvailableCountHwm());
+        assertEquals(30, statistics.getAvailableSizeHwm());
+
+        statistics.removeFromAvailable(10);
+        statistics.addToUnacknowledged(10);
+        statistics.removeFromUnacknowledged(10);
+        statistics.removeFromQueue(10);
+        statistics.addToDequeued(10);
+        statistics.removeFromAvailable(20);
+        statistics.removeFromQueue(20);
+        statistics.addToExpired(20);
+
+        assertEquals(0, statistics.getQueueCount());
+        assertEquals(0, statistics.getQueueSize());
+        assertEquals(0, statistics.getAvailableCount());
+        assertEquals(0, statistics.getAvailableSize());
+        assertEquals(0, statistics.getUnackedCount());
+        assertEquals(0, statistics.getUnackedSize());
+        assertEquals(2, statistics.getEnqueueCount());
+        assertEquals(30, statistics.getEnqueueSize());
+        assertEquals(1, statistics.getDequeueCount());
+        assertEquals(10, statistics.getDequeueSize());
+        assertEquals(1, statistics.getPersistentEnqueueCount());
+        assertEquals(20, statistics.getPersistentEnqueueSize());
+        assertEquals(0, statistics.getPersistentDequeueCount());
+        assertEquals(1, statistics.getExpiredCount());
+        assertEquals(20, statistics.getExpiredSize());
+        assertEquals(2, statistics.getQueueCountHwm());
+        assertEquals(30, statistics.getQueueSizeHwm());
+    }
+}
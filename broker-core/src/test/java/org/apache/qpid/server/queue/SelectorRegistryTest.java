@@ -0,0 +1,202 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.qpid.server.filter.AMQPFilterTypes;
+import org.apache.qpid.server.filter.FilterManager;
+import org.apache.qpid.server.filter.JMSSelectorFilter;
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.BrokerTestHelper;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.store.TransactionLogResource;
+import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class SelectorRegistryTest extends UnitTestBase
+{
+    private QueueManagingVirtualHost<?> _virtualHost;
+    private QueueEntryList _queueEntryList;
+    private SelectorRegistry _registry;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        Map<String, Object> queueAttributes = new HashMap<>();
+        queueAttributes.put(Queue.ID, UUID.randomUUID());
+        queueAttributes.put(Queue.NAME, getTestName());
+        _virtualHost = BrokerTestHelper.createVirtualHost("testVH", this);
+        StandardQueueImpl queue = new StandardQueueImpl(queueAttributes, _virtualHost);
+        queue.open();
+        _queueEntryList = queue.getEntries();
+        _registry = new SelectorRegistry();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        if (_virtualHost != null)
+        {
+            _virtualHost.close();
+        }
+    }
+
+    @Test
+    public void testCanonicalise()
+    {
+        assertEquals("a = 'x  y' AND b > 1", SelectorRegistry.canonicalise("  a  =\t'x  y'\n AND b >  1 "));
+    }
+
+    @Test
+    public void testSelectorEvaluatedOncePerEntryForSharedSelector() throws Exception
+    {
+        final SelectorRegistry.ConsumerFilters consumer1 = _registry.register(createFilters("colour = 'red'"), false);
+        final SelectorRegistry.ConsumerFilters consumer2 = _registry.register(createFilters("colour  =  'red'"), false);
+        assertEquals(1, _registry.getSharedSelectorCount());
+
+        final AMQMessageHeader header = mock(AMQMessageHeader.class);
+        when(header.getHeader("colour")).thenReturn("red");
+        final QueueEntry entry = createEntry(header);
+
+        assertTrue(consumer1.allAllow(entry));
+        assertTrue(consumer2.allAllow(entry));
+        assertTrue(consumer1.allAllow(entry));
+
+        verify(header, times(1)).getHeader("colour");
+    }
+
+    @Test
+    public void testDistinctSelectorsEvaluatedSeparately() throws Exception
+    {
+        final SelectorRegistry.ConsumerFilters red = _registry.register(createFilters("colour = 'red'"), false);
+        final SelectorRegistry.ConsumerFilters blue = _registry.register(createFilters("colour = 'blue'"), false);
+        assertEquals(2, _registry.getSharedSelectorCount());
+
+        final AMQMessageHeader header = mock(AMQMessageHeader.class);
+        when(header.getHeader("colour")).thenReturn("blue");
+        final QueueEntry entry = createEntry(header);
+
+        assertFalse(red.allAllow(entry));
+        assertTrue(blue.allAllow(entry));
+        assertFalse(red.allAllow(entry));
+        assertTrue(blue.allAllow(entry));
+
+        verify(header, times(2)).getHeader("colour");
+    }
+
+    @Test
+    public void testReleasedSlotReuseInvalidatesRememberedResults() throws Exception
+    {
+        final SelectorRegistry.ConsumerFilters[] consumers =
+                new SelectorRegistry.ConsumerFilters[SelectorRegistry.MAXIMUM_SHARED_SELECTORS];
+        for (int i = 0; i < consumers.length; i++)
+        {
+            consumers[i] = _registry.register(createFilters("colour = 'colour" + i + "'"), false);
+        }
+
+        final AMQMessageHeader header = mock(AMQMessageHeader.class);
+        when(header.getHeader("colour")).thenReturn("colour0");
+        final QueueEntry entry = createEntry(header);
+        assertTrue(consumers[0].allAllow(entry));
+
+        consumers[0].release();
+        assertEquals(SelectorRegistry.MAXIMUM_SHARED_SELECTORS - 1, _registry.getSharedSelectorCount());
+
+        final SelectorRegistry.ConsumerFilters replacement = _registry.register(createFilters("colour = 'other'"), false);
+        assertFalse("Result of released selector should not be reused", replacement.allAllow(entry));
+        assertFalse(consumers[1].allAllow(entry));
+    }
+
+    @Test
+    public void testSelectorsBeyondMaximumAreStillEvaluated() throws Exception
+    {
+        for (int i = 0; i < SelectorRegistry.MAXIMUM_SHARED_SELECTORS; i++)
+        {
+            _registry.register(createFilters("colour = 'colour" + i + "'"), false);
+        }
+        final SelectorRegistry.ConsumerFilters overflow = _registry.register(createFilters("colour = 'red'"), false);
+
+        final AMQMessageHeader header = mock(AMQMessageHeader.class);
+        when(header.getHeader("colour")).thenReturn("red");
+        final QueueEntry entry = createEntry(header);
+
+        assertTrue(overflow.allAllow(entry));
+        assertTrue(overflow.allAllow(entry));
+        verify(header, times(2)).getHeader("colour");
+    }
+
+    @Test
+    public void testReferencesMutableProperty()
+    {
+        assertTrue(SelectorRegistry.referencesMutableProperty("JMSRedelivered = TRUE"));
+        assertTrue(SelectorRegistry.referencesMutableProperty("colour = 'red' OR NOT JMSRedelivered"));
+        assertFalse(SelectorRegistry.referencesMutableProperty("colour = 'JMSRedelivered'"));
+        assertFalse(SelectorRegistry.referencesMutableProperty("XJMSRedelivered = TRUE"));
+    }
+
+    @Test
+    public void testRedeliverySelectorResultNotRemembered() throws Exception
+    {
+        final SelectorRegistry.ConsumerFilters consumer = _registry.register(createFilters("JMSRedelivered = TRUE"), false);
+
+        final QueueEntry entry = createEntry(mock(AMQMessageHeader.class));
+        assertFalse(consumer.allAllow(entry));
+
+        entry.setRedelivered();
+        assertTrue("Selector should see the redelivery of the entry", consumer.allAllow(entry));
+    }
+
+    private FilterManager createFilters(final String selector) throws Exception
+    {
+        final FilterManager filters = new FilterManager();
+        filters.add(AMQPFilterTypes.JMS_SELECTOR.toString(), new JMSSelectorFilter(selector));
+        return filters;
+    }
+
+    private QueueEntry createEntry(final AMQMessageHeader header)
+    {
+        final ServerMessage message = mock(ServerMessage.class);
+        when(message.getMessageHeader()).thenReturn(header);
+        final MessageReference reference = mock(MessageReference.class);
+        when(reference.getMessage()).thenReturn(message);
+        when(message.newReference()).thenReturn(reference);
+        when(message.newReference(any(TransactionLogResource.class))).thenReturn(reference);
+        return _queueEntryList.add(message, null);
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.qpid.server.store;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -35,6 +36,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -51,6 +53,7 @@ import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.ConfiguredObjectFactory;
 import org.apache.qpid.server.model.ConfiguredObjectFactoryImpl;
 import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.model.SystemConfig;
 import org.apache.qpid.server.model.VirtualHost;
 import org.apache.qpid.server.store.handler.ConfiguredObjectRecordHandler;
 import org.apache.qpid.server.util.FileUtils;
@@ -447,6 +450,144 @@ public class JsonFileConfigStoreTest extends UnitTestBase
     }
 
 
+    @Test
+    public void testJournalledChangesRecoveredAfterUncleanShutdown() throws Exception
+    {
+        enableJournal();
+        _store.init(_parent);
+        _store.openConfigurationStore(mock(ConfiguredObjectRecordHandler.class));
+        createRootRecord();
+
+        final UUID queueId = new UUID(0, 1);
+        final UUID queue2Id = new UUID(1, 1);
+        final Map<String, Object> queueAttr = new HashMap<>();
+        queueAttr.put("name", "q1");
+        _store.create(new ConfiguredObjectRecordImpl(queueId, "Queue", queueAttr, getRootAsParentMap()));
+        final ConfiguredObjectRecordImpl queue2 = new ConfiguredObjectRecordImpl(queue2Id, "Queue",
+                                                                                 Collections.singletonMap("name", "q2"),
+                                                                                 getRootAsParentMap());
+        _store.create(queue2);
+        queueAttr.put("owner", "theowner");
+        _store.update(false, new ConfiguredObjectRecordImpl(queueId, "Queue", queueAttr, getRootAsParentMap()));
+        _store.remove(queue2);
+
+        final File journal = new File(_storeLocation, getTestName() + ".json.journal");
+        assertTrue("Journal should contain the changes", journal.length() > 0);
+
+        // copy the store before it is closed to simulate the broker stopping abruptly
+        final File copyLocation = TestFileUtils.createTestDirectory("json", true);
+        try
+        {
+            copyStoreFiles(copyLocation);
+            _store.closeConfigurationStore();
+
+            when(_parent.getStorePath()).thenReturn(copyLocation.getAbsolutePath());
+            final JsonFileConfigStore recoveredStore = new JsonFileConfigStore(VirtualHost.class);
+            recoveredStore.init(_parent);
+            recoveredStore.openConfigurationStore(_handler);
+            verify(_handler).handle(matchesRecord(queueId, "Queue", queueAttr));
+            verify(_handler).handle(matchesRecord(ANY_UUID, VIRTUAL_HOST_TYPE, ANY_MAP));
+            verify(_handler, times(2)).handle(any(ConfiguredObjectRecord.class));
+            recoveredStore.closeConfigurationStore();
+        }
+        finally
+        {
+            FileUtils.delete(copyLocation, true);
+        }
+    }
+
+    @Test
+    public void testJournalCompactedOnClose() throws Exception
+    {
+        enableJournal();
+        _store.init(_parent);
+        _store.openConfigurationStore(mock(ConfiguredObjectRecordHandler.class));
+        createRootRecord();
+
+        final UUID queueId = new UUID(0, 1);
+        final Map<String, Object> queueAttr = Collections.singletonMap("name", "q1");
+        _store.create(new ConfiguredObjectRecordImpl(queueId, "Queue", queueAttr, getRootAsParentMap()));
+        _store.closeConfigurationStore();
+
+        final File journal = new File(_storeLocation, getTestName() + ".json.journal");
+        assertFalse("Journal should be removed once compacted", journal.exists());
+
+        when(_parent.getContextValue(Boolean.class, SystemConfig.JSON_CONFIG_STORE_JOURNAL_ENABLED)).thenReturn(false);
+        _store.init(_parent);
+        _store.openConfigurationStore(_handler);
+        verify(_handler).handle(matchesRecord(queueId, "Queue", queueAttr));
+        verify(_handler).handle(matchesRecord(ANY_UUID, VIRTUAL_HOST_TYPE, ANY_MAP));
+        _store.closeConfigurationStore();
+        assertEquals("Unexpected journal files in store directory",
+                     0, _storeLocation.listFiles((dir, name) -> name.contains(".journal")).length);
+    }
+
+    @Test
+    public void testChangesAfterCompactionRecoveredAfterUncleanShutdown() throws Exception
+    {
+        enableJournal();
+        when(_parent.getContextValue(Integer.class, SystemConfig.JSON_CONFIG_STORE_COMPACTION_THRESHOLD)).thenReturn(2);
+        when(_parent.getContextValue(Long.class, SystemConfig.JSON_CONFIG_STORE_COMPACTION_INTERVAL)).thenReturn(0L);
+        _store.init(_parent);
+        _store.openConfigurationStore(mock(ConfiguredObjectRecordHandler.class));
+        createRootRecord();
+
+        final UUID queueId = new UUID(0, 1);
+        final Map<String, Object> queueAttr = new HashMap<>();
+        queueAttr.put("name", "q1");
+        _store.create(new ConfiguredObjectRecordImpl(queueId, "Queue", queueAttr, getRootAsParentMap()));
+
+        final File configFile = new File(_storeLocation, getTestName() + ".json");
+        final File sealedJournal = new File(_storeLocation, getTestName() + ".json.journal.sealed");
+        final long timeout = System.currentTimeMillis() + 10000L;
+        while (sealedJournal.exists() || !new String(Files.readAllBytes(configFile.toPath())).contains("q1"))
+        {
+            assertTrue("Journal was not compacted in time", System.currentTimeMillis() < timeout);
+            Thread.sleep(10);
+        }
+
+        queueAttr.put("owner", "theowner");
+        _store.update(false, new ConfiguredObjectRecordImpl(queueId, "Queue", queueAttr, getRootAsParentMap()));
+
+        final File copyLocation = TestFileUtils.createTestDirectory("json", true);
+        try
+        {
+            copyStoreFiles(copyLocation);
+            _store.closeConfigurationStore();
+
+            when(_parent.getStorePath()).thenReturn(copyLocation.getAbsolutePath());
+            final JsonFileConfigStore recoveredStore = new JsonFileConfigStore(VirtualHost.class);
+            recoveredStore.init(_parent);
+            recoveredStore.openConfigurationStore(_handler);
+            verify(_handler).handle(matchesRecord(queueId, "Queue", queueAttr));
+            verify(_handler).handle(matchesRecord(ANY_UUID, VIRTUAL_HOST_TYPE, ANY_MAP));
+            verify(_handler, times(2)).handle(any(ConfiguredObjectRecord.class));
+            recoveredStore.closeConfigurationStore();
+            assertEquals("Unexpected journal files in store directory",
+                         0, copyLocation.listFiles((dir, name) -> name.contains(".journal")).length);
+        }
+        finally
+        {
+            FileUtils.delete(copyLocation, true);
+        }
+    }
+
+    private void enableJournal()
+    {
+        when(_parent.getContextValue(Boolean.class, SystemConfig.JSON_CONFIG_STORE_JOURNAL_ENABLED)).thenReturn(true);
+    }
+
+    private void copyStoreFiles(final File copyLocation) throws Exception
+    {
+        for (File file : _storeLocation.listFiles())
+        {
+            if (!file.getName().endsWith(".lck"))
+            {
+                Files.copy(file.toPath(), new File(copyLocation, file.getName()).toPath());
+            }
+        }
+    }
+
     private void createRootRecord()
     {
         UUID rootRecordId = UUID.randomUUID();
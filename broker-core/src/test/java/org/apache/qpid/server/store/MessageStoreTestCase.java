@@ -34,7 +34,9 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
@@ -223,6 +225,93 @@ public abstract class MessageStoreTestCase extends UnitTestBase
         verify(handler, times(2)).handle(any(StoredMessage.class));
     }
 
+    @Test
+    public void testVisitMessagesInRange() throws Exception
+    {
+        final List<Long> messageIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            final StoredMessage<TestMessageMetaData> message =
+                    _store.addMessage(new TestMessageMetaData(i + 1, 0)).allContentAdded();
+            enqueueMessage(message, "dummyQ");
+            messageIds.add(message.getMessageNumber());
+        }
+
+        final MessageIdRange storedRange = _storeReader.getMessageIdRange();
+        if (storedRange != null)
+        {
+            for (long messageId : messageIds)
+            {
+                assertTrue("Range " + storedRange + " does not contain message " + messageId,
+                           storedRange.contains(messageId));
+            }
+        }
+
+        final Set<Long> visited = new HashSet<>();
+        _storeReader.visitMessages(new MessageIdRange(messageIds.get(1), messageIds.get(3)),
+                                   message -> visited.add(message.getMessageNumber()));
+
+        assertEquals("Unexpected messages visited", new HashSet<>(messageIds.subList(1, 4)), visited);
+    }
+
+    @Test
+    public void testPartitionedVisitMessages() throws Exception
+    {
+        final Set<Long> messageIds = new HashSet<>();
+        for (int i = 0; i < 10; i++)
+        {
+            final StoredMessage<TestMessageMetaData> message =
+                    _store.addMessage(new TestMessageMetaData(i + 1, 0)).allContentAdded();
+            enqueueMessage(message, "dummyQ");
+            messageIds.add(message.getMessageNumber());
+        }
+
+        final Set<Long> visited = new HashSet<>();
+        new PartitionedMessageStoreVisitor(_storeReader, 3, 2).visitMessages(message -> visited.add(message.getMessageNumber()));
+
+        assertEquals("Unexpected messages visited", messageIds, visited);
+    }
+
+    @Test
+    public void testGetMessages() throws Exception
+    {
+        final List<StoredMessage<TestMessageMetaData>> messages = new ArrayList<>();
+        for (int i = 0; i < 6; i++)
+        {
+            final StoredMessage<TestMessageMetaData> message =
+                    _store.addMessage(new TestMessageMetaData(i + 1, 0)).allContentAdded();
+            enqueueMessage(message, "dummyQ");
+            messages.add(message);
+        }
+        final long removedMessageId = messages.get(2).getMessageNumber();
+        messages.get(2).remove();
+        final long unknownMessageId = messages.get(5).getMessageNumber() + 100;
+
+        final long[] requestedIds = new long[]{messages.get(4).getMessageNumber(),
+                                               messages.get(0).getMessageNumber(),
+                                               removedMessageId,
+                                               unknownMessageId,
+                                               messages.get(1).getMessageNumber(),
+                                               messages.get(3).getMessageNumber(),
+                                               messages.get(0).getMessageNumber()};
+        final List<StoredMessage<?>> retrieved = _storeReader.getMessages(requestedIds);
+
+        assertEquals("Unexpected number of messages", requestedIds.length, retrieved.size());
+        for (int i = 0; i < requestedIds.length; i++)
+        {
+            if (requestedIds[i] == removedMessageId || requestedIds[i] == unknownMessageId)
+            {
+                assertNull("Unexpected message for id " + requestedIds[i], retrieved.get(i));
+            }
+            else
+            {
+                assertNotNull("Message not found for id " + requestedIds[i], retrieved.get(i));
+                assertEquals("Unexpected message at position " + i,
+                             requestedIds[i], retrieved.get(i).getMessageNumber());
+            }
+        }
+    }
+
     @Test
     public void testReopenedMessageStoreUsesLastMessageId() throws Exception
     {
@@ -0,0 +1,90 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import org.apache.qpid.server.store.handler.MessageHandler;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class PartitionedMessageStoreVisitorTest extends UnitTestBase
+{
+    @Test
+    public void testStoreWithoutMessageIdRangeVisitedSequentially()
+    {
+        final MessageStore.MessageStoreReader reader = mock(MessageStore.MessageStoreReader.class);
+        when(reader.getMessageIdRange()).thenReturn(null);
+        final MessageHandler handler = message -> true;
+
+        new PartitionedMessageStoreVisitor(reader, 4, 16).visitMessages(handler);
+
+        verify(reader).visitMessages(handler);
+        verify(reader, never()).visitMessages(any(MessageIdRange.class), any(MessageHandler.class));
+    }
+
+    @Test
+    public void testPartitionsReadByBoundedSharedThreads()
+    {
+        final MessageStore.MessageStoreReader reader = mock(MessageStore.MessageStoreReader.class);
+        when(reader.getMessageIdRange()).thenReturn(new MessageIdRange(1, 100));
+        final Set<String> readerThreads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation ->
+                 {
+                     final MessageIdRange range = invocation.getArgument(0);
+                     final MessageHandler handler = invocation.getArgument(1);
+                     readerThreads.add(Thread.currentThread().getName());
+                     for (long messageId = range.getFrom(); messageId <= range.getTo(); messageId++)
+                     {
+                         final StoredMessage<?> message = mock(StoredMessage.class);
+                         when(message.getMessageNumber()).thenReturn(messageId);
+                         if (!handler.handle(message))
+                         {
+                             break;
+                         }
+                     }
+                     return null;
+                 }).when(reader).visitMessages(any(MessageIdRange.class), any(MessageHandler.class));
+
+        for (int i = 0; i < 3; i++)
+        {
+            final Set<Long> visited = new HashSet<>();
+            new PartitionedMessageStoreVisitor(reader, 4, 8).visitMessages(message -> visited.add(message.getMessageNumber()));
+            assertEquals("Unexpected number of messages visited", 100, visited.size());
+        }
+
+        assertTrue("Unexpected reader threads " + readerThreads,
+                   readerThreads.size() <= PartitionedMessageStoreVisitor.MAXIMUM_READER_THREADS);
+        verify(reader, never()).visitMessages(any(MessageHandler.class));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.qpid.server.model.port.AmqpPort;
+import org.apache.qpid.server.transport.network.TransportEncryption;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class NetworkConnectionSchedulerTest extends UnitTestBase
+{
+    private NetworkConnectionScheduler _portScheduler;
+    private NetworkConnectionScheduler _virtualHostScheduler;
+    private ServerSocketChannel _serverSocketChannel;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        _portScheduler = new NetworkConnectionScheduler("port", 1, 2, 60000L, true);
+        _portScheduler.start();
+        _virtualHostScheduler = new NetworkConnectionScheduler("virtualhost", 1, 2, 60000L, true);
+        _virtualHostScheduler.start();
+        _serverSocketChannel = ServerSocketChannel.open();
+        _serverSocketChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        _serverSocketChannel.close();
+        _portScheduler.close();
+        _virtualHostScheduler.close();
+    }
+
+    @Test
+    public void testDelegatedTaskExecutorIsBounded()
+    {
+        final NetworkConnectionScheduler scheduler = new NetworkConnectionScheduler("tls", 1, 1, 1L, false, 3);
+        scheduler.start();
+        try
+        {
+            final ThreadPoolExecutor executor = (ThreadPoolExecutor) scheduler.getDelegatedTaskExecutor();
+            assertEquals("Unexpected maximum pool size", 3, executor.getMaximumPoolSize());
+            assertSame("Executor not reused", executor, scheduler.getDelegatedTaskExecutor());
+        }
+        finally
+        {
+            scheduler.close();
+        }
+        assertNull("Executor available after close", scheduler.getDelegatedTaskExecutor());
+    }
+
+    @Test
+    public void testConnectionStaysOnReactorAfterMovingToVirtualHostScheduler() throws Exception
+    {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), _serverSocketChannel.socket().getLocalPort()))
+        {
+            final SocketChannel socketChannel = _serverSocketChannel.accept();
+            socketChannel.configureBlocking(false);
+
+            final ProtocolEngine protocolEngine = mock(ProtocolEngine.class);
+            when(protocolEngine.getAggregateTicker()).thenReturn(new AggregateTicker());
+            when(protocolEngine.processPendingIterator()).thenAnswer(invocation -> Collections.emptyIterator());
+            final AmqpPort<?> port = mock(AmqpPort.class);
+            when(port.getNetworkBufferSize()).thenReturn(64 * 1024);
+
+            final NonBlockingConnection connection = new NonBlockingConnection(socketChannel,
+                                                                               protocolEngine,
+                                                                               EnumSet.of(TransportEncryption.NONE),
+                                                                               () -> {},
+                                                                               _portScheduler,
+                                                                               port);
+            _portScheduler.addConnection(connection);
+            waitForMaximumReactorConnectionCount(_portScheduler, 1);
+
+            connection.pushScheduler(_virtualHostScheduler);
+            // the connection is handed over the next time the port scheduler processes it
+            socket.getOutputStream().write(1);
+            socket.getOutputStream().flush();
+
+            waitForMaximumReactorConnectionCount(_virtualHostScheduler, 1);
+            waitForMaximumReactorConnectionCount(_portScheduler, 0);
+            assertTrue("Virtual host scheduler should be in multi-reactor mode", _virtualHostScheduler.isMultiReactor());
+
+            connection.close();
+        }
+    }
+
+    static void waitForMaximumReactorConnectionCount(final NetworkConnectionScheduler scheduler,
+                                                     final int expectedCount) throws InterruptedException
+    {
+        final long timeout = System.currentTimeMillis() + 10000L;
+        while (scheduler.getMaximumReactorConnectionCount() != expectedCount && System.currentTimeMillis() < timeout)
+        {
+            Thread.sleep(10L);
+        }
+        assertEquals("Unexpected number of connections assigned to a reactor",
+                     expectedCount,
+                     scheduler.getMaximumReactorConnectionCount());
+    }
+}
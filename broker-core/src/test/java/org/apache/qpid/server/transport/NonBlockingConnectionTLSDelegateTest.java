@@ -0,0 +1,373 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.model.port.AmqpPort;
+import org.apache.qpid.server.transport.network.security.ssl.SSLUtil;
+import org.apache.qpid.server.transport.network.security.ssl.SSLUtil.KeyCertPair;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class NonBlockingConnectionTLSDelegateTest extends UnitTestBase
+{
+    private static final int NETWORK_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_TLS_RECORD_PLAINTEXT_SIZE = 16 * 1024;
+    private static final char[] KEYSTORE_PASSWORD = "password".toCharArray();
+
+    private final ByteArrayOutputStream _transportBytes = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream _receivedBytes = new ByteArrayOutputStream();
+    private volatile int _transportWriteLimit = Integer.MAX_VALUE;
+    private NonBlockingConnectionTLSDelegate _delegate;
+    private SSLEngine _clientEngine;
+    private ByteBuffer _clientNetInput;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        assumeThat(SSLUtil.canGenerateCerts(), is(true));
+
+        QpidByteBuffer.deinitialisePool();
+        QpidByteBuffer.initialisePool(NETWORK_BUFFER_SIZE, 16, 0.5);
+
+        final AmqpPort<?> port = mock(AmqpPort.class);
+        when(port.getSSLContext()).thenReturn(createServerContext());
+        when(port.getNetworkBufferSize()).thenReturn(NETWORK_BUFFER_SIZE);
+        when(port.isTlsRecordCoalescing()).thenReturn(true);
+
+        final NonBlockingConnection parent = mock(NonBlockingConnection.class);
+        when(parent.writeToTransport(any())).then(invocation -> writeToTransport(invocation.getArgument(0)));
+
+        _delegate = new NonBlockingConnectionTLSDelegate(parent, port);
+
+        final SSLContext clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, new TrustManager[]{new TrustingTrustManager()}, null);
+        _clientEngine = clientContext.createSSLEngine();
+        _clientEngine.setUseClientMode(true);
+        _clientNetInput = ByteBuffer.allocate(4 * NETWORK_BUFFER_SIZE);
+
+        performHandshake();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            if (_delegate != null)
+            {
+                _delegate.shutdownOutput();
+            }
+        }
+        finally
+        {
+            QpidByteBuffer.deinitialisePool();
+        }
+    }
+
+    @Test
+    public void testSmallBuffersShareStagedRecord() throws Exception
+    {
+        final long recordsBefore = _delegate.getTlsRecordsWritten();
+        final List<QpidByteBuffer> buffers = createBuffers(64, 100);
+        final byte[] expected = contentOf(buffers);
+
+        final NonBlockingConnectionDelegate.WriteResult result = _delegate.doWrite(buffers);
+
+        assertTrue("Write not complete", result.isComplete());
+        assertEquals("Unexpected amount consumed", expected.length, result.getBytesConsumed());
+        assertEquals("Small buffers not coalesced into one record",
+                     1, _delegate.getTlsRecordsWritten() - recordsBefore);
+        assertArrayEquals("Unexpected data received", expected, receiveAll());
+        dispose(buffers);
+    }
+
+    @Test
+    public void testStagedRecordsFilledAcrossBufferBoundaries() throws Exception
+    {
+        final long recordsBefore = _delegate.getTlsRecordsWritten();
+        final List<QpidByteBuffer> buffers = createBuffers(5, 10000);
+        final byte[] expected = contentOf(buffers);
+
+        final NonBlockingConnectionDelegate.WriteResult result = _delegate.doWrite(buffers);
+
+        assertTrue("Write not complete", result.isComplete());
+        final int expectedRecords = (expected.length + MAX_TLS_RECORD_PLAINTEXT_SIZE - 1) / MAX_TLS_RECORD_PLAINTEXT_SIZE;
+        assertEquals("Records not filled to the maximum plaintext size",
+                     expectedRecords, _delegate.getTlsRecordsWritten() - recordsBefore);
+        assertArrayEquals("Unexpected data received", expected, receiveAll());
+        dispose(buffers);
+    }
+
+    @Test
+    public void testPartiallyWrittenOutputCompletedOnLaterWrites() throws Exception
+    {
+        final List<QpidByteBuffer> buffers = createBuffers(4, 5000);
+        final byte[] expected = contentOf(buffers);
+
+        _transportWriteLimit = 1000;
+        NonBlockingConnectionDelegate.WriteResult result = _delegate.doWrite(buffers);
+        assertFalse("Write unexpectedly complete", result.isComplete());
+
+        int attempts = 0;
+        while (!result.isComplete())
+        {
+            assertTrue("Write did not complete", ++attempts < 1000);
+            result = _delegate.doWrite(buffers);
+        }
+
+        assertArrayEquals("Unexpected data received", expected, receiveAll());
+        dispose(buffers);
+    }
+
+    @Test
+    public void testNetworkOutputBufferReusedOnceWritten() throws Exception
+    {
+        final long allocationsBefore = QpidByteBuffer.getBufferPoolHitCount() + QpidByteBuffer.getBufferPoolMissCount();
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+        // far more encrypted output than fits in one network buffer
+        for (int i = 0; i < 50; i++)
+        {
+            final List<QpidByteBuffer> buffers = createBuffers(5, 1000);
+            expected.write(contentOf(buffers));
+
+            assertTrue("Write not complete", _delegate.doWrite(buffers).isComplete());
+            dispose(buffers);
+        }
+
+        assertEquals("Network output buffer was reallocated rather than reused",
+                     allocationsBefore,
+                     QpidByteBuffer.getBufferPoolHitCount() + QpidByteBuffer.getBufferPoolMissCount());
+        assertArrayEquals("Unexpected data received", expected.toByteArray(), receiveAll());
+    }
+
+    private long writeToTransport(final Collection<QpidByteBuffer> buffers)
+    {
+        long written = 0;
+        for (QpidByteBuffer buffer : buffers)
+        {
+            final int length = (int) Math.min(buffer.remaining(), _transportWriteLimit - written);
+            final byte[] data = new byte[length];
+            buffer.get(data);
+            _transportBytes.write(data, 0, length);
+            written += length;
+            if (buffer.hasRemaining())
+            {
+                break;
+            }
+        }
+        return written;
+    }
+
+    private void performHandshake() throws Exception
+    {
+        _clientEngine.beginHandshake();
+        int iterations = 0;
+        SSLEngineResult.HandshakeStatus status;
+        while ((status = _clientEngine.getHandshakeStatus()) != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+               && status != SSLEngineResult.HandshakeStatus.FINISHED)
+        {
+            assertTrue("Handshake did not complete", ++iterations < 100);
+            switch (status)
+            {
+                case NEED_WRAP:
+                    clientWrap();
+                    break;
+                case NEED_TASK:
+                    Runnable task;
+                    while ((task = _clientEngine.getDelegatedTask()) != null)
+                    {
+                        task.run();
+                    }
+                    break;
+                default:
+                    _delegate.doWrite(Collections.emptyList());
+                    receiveAll();
+                    break;
+            }
+        }
+        _delegate.doWrite(Collections.emptyList());
+        receiveAll();
+        _receivedBytes.reset();
+    }
+
+    private void clientWrap() throws Exception
+    {
+        final ByteBuffer netOutput = ByteBuffer.allocate(_clientEngine.getSession().getPacketBufferSize());
+        _clientEngine.wrap(ByteBuffer.allocate(0), netOutput);
+        netOutput.flip();
+
+        final QpidByteBuffer serverInput = _delegate.getNetInputBuffer();
+        final byte[] data = new byte[netOutput.remaining()];
+        netOutput.get(data);
+        serverInput.put(data);
+        _delegate.processData();
+    }
+
+    private byte[] receiveAll() throws Exception
+    {
+        _clientNetInput.put(_transportBytes.toByteArray());
+        _transportBytes.reset();
+        _clientNetInput.flip();
+
+        final ByteBuffer applicationData = ByteBuffer.allocate(_clientEngine.getSession().getApplicationBufferSize());
+        while (_clientNetInput.hasRemaining())
+        {
+            final SSLEngineResult result = _clientEngine.unwrap(_clientNetInput, applicationData);
+            Runnable task;
+            while ((task = _clientEngine.getDelegatedTask()) != null)
+            {
+                task.run();
+            }
+            applicationData.flip();
+            _receivedBytes.write(applicationData.array(), 0, applicationData.limit());
+            applicationData.clear();
+            if (result.getStatus() != SSLEngineResult.Status.OK || result.bytesConsumed() == 0)
+            {
+                break;
+            }
+        }
+        _clientNetInput.compact();
+
+        final byte[] received = _receivedBytes.toByteArray();
+        _receivedBytes.reset();
+        return received;
+    }
+
+    private List<QpidByteBuffer> createBuffers(final int count, final int size)
+    {
+        final List<QpidByteBuffer> buffers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            final byte[] data = new byte[size];
+            for (int j = 0; j < size; j++)
+            {
+                data[j] = (byte) (i * 31 + j);
+            }
+            buffers.add(QpidByteBuffer.wrap(data));
+        }
+        return buffers;
+    }
+
+    private byte[] contentOf(final List<QpidByteBuffer> buffers)
+    {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (QpidByteBuffer buffer : buffers)
+        {
+            try (QpidByteBuffer duplicate = buffer.duplicate())
+            {
+                final byte[] data = new byte[duplicate.remaining()];
+                duplicate.get(data);
+                content.write(data, 0, data.length);
+            }
+        }
+        return content.toByteArray();
+    }
+
+    private void dispose(final List<QpidByteBuffer> buffers)
+    {
+        for (QpidByteBuffer buffer : buffers)
+        {
+            buffer.dispose();
+        }
+    }
+
+    private SSLContext createServerContext() throws Exception
+    {
+        final KeyCertPair keyCertPair = SSLUtil.generateSelfSignedCertificate("RSA",
+                                                                              "SHA256WithRSA",
+                                                                              2048,
+                                                                              Instant.now()
+                                                                                     .minus(1, ChronoUnit.DAYS)
+                                                                                     .toEpochMilli(),
+                                                                              Duration.of(365, ChronoUnit.DAYS)
+                                                                                      .getSeconds(),
+                                                                              "CN=localhost",
+                                                                              Collections.emptySet(),
+                                                                              Collections.emptySet());
+        final KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(null, KEYSTORE_PASSWORD);
+        keyStore.setKeyEntry("key",
+                             keyCertPair.getPrivateKey(),
+                             KEYSTORE_PASSWORD,
+                             new X509Certificate[]{keyCertPair.getCertificate()});
+
+        final KeyManagerFactory keyManagerFactory =
+                KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, KEYSTORE_PASSWORD);
+
+        final SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagerFactory.getKeyManagers(), null, null);
+        return context;
+    }
+
+    private static class TrustingTrustManager implements X509TrustManager
+    {
+        @Override
+        public void checkClientTrusted(final X509Certificate[] chain, final String authType)
+        {
+        }
+
+        @Override
+        public void checkServerTrusted(final X509Certificate[] chain, final String authType)
+        {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers()
+        {
+            return new X509Certificate[0];
+        }
+    }
+}
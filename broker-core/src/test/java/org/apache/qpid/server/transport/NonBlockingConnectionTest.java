@@ -0,0 +1,289 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
+import org.apache.qpid.server.model.port.AmqpPort;
+import org.apache.qpid.server.transport.network.TransportEncryption;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class NonBlockingConnectionTest extends UnitTestBase
+{
+    private static final int NETWORK_BUFFER_SIZE = 64 * 1024;
+
+    private final ByteArrayOutputStream _receivedBytes = new ByteArrayOutputStream();
+    private ServerSocketChannel _serverSocketChannel;
+    private SocketChannel _socketChannel;
+    private SocketChannel _peerChannel;
+    private AmqpPort<?> _port;
+    private ProtocolEngine _protocolEngine;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        QpidByteBuffer.deinitialisePool();
+        QpidByteBuffer.initialisePool(NETWORK_BUFFER_SIZE, 16, 0.5);
+
+        _serverSocketChannel = ServerSocketChannel.open();
+        _serverSocketChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        _socketChannel = SocketChannel.open(_serverSocketChannel.getLocalAddress());
+        _socketChannel.configureBlocking(false);
+        _peerChannel = _serverSocketChannel.accept();
+        _peerChannel.configureBlocking(false);
+
+        _port = mock(AmqpPort.class);
+        when(_port.getNetworkBufferSize()).thenReturn(NETWORK_BUFFER_SIZE);
+
+        _protocolEngine = mock(ProtocolEngine.class);
+        when(_protocolEngine.getAggregateTicker()).thenReturn(mock(AggregateTicker.class));
+        when(_protocolEngine.processPendingIterator()).thenReturn(Collections.<Runnable>emptyIterator());
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            closeQuietly(_peerChannel);
+            closeQuietly(_socketChannel);
+            closeQuietly(_serverSocketChannel);
+        }
+        finally
+        {
+            QpidByteBuffer.deinitialisePool();
+        }
+    }
+
+    @Test
+    public void testSmallFramesCoalescedIntoSingleWrite() throws Exception
+    {
+        final NonBlockingConnection connection = createConnection(1024, 256);
+        final List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+        {
+            frames.add(createData(i, 10));
+        }
+        final byte[] largeFrame = createData(10, 2048);
+        frames.add(largeFrame);
+        frames.add(createData(11, 10));
+
+        for (byte[] frame : frames)
+        {
+            send(connection, frame);
+        }
+        connection.doWork();
+
+        assertEquals("Unexpected number of network writes", 1, connection.getNetworkWrites());
+        assertEquals("Unexpected number of buffers written", 3, connection.getNetworkWriteBuffers());
+        assertEquals("Unexpected number of bytes written", 110 + largeFrame.length, connection.getNetworkBytesWritten());
+        assertArrayEquals("Unexpected bytes received", concatenate(frames), receive(110 + largeFrame.length));
+    }
+
+    @Test
+    public void testWriteBufferReleasedOnceFullyWritten() throws Exception
+    {
+        // a send buffer at least the network buffer size makes the write buffer a whole pooled buffer
+        _socketChannel.setOption(StandardSocketOptions.SO_SNDBUF, NETWORK_BUFFER_SIZE);
+        final NonBlockingConnection connection = createConnection(1024, 256);
+        final int buffersInUse = QpidByteBuffer.getNumberOfBuffersInUse();
+
+        send(connection, createData(0, 10));
+        assertEquals("Write buffer not taken from the pool", buffersInUse + 1, QpidByteBuffer.getNumberOfBuffersInUse());
+
+        connection.doWork();
+
+        assertEquals("Unexpected number of bytes written", 10, connection.getNetworkBytesWritten());
+        assertEquals("Write buffer not returned once written", buffersInUse, QpidByteBuffer.getNumberOfBuffersInUse());
+
+        final byte[] next = createData(1, 10);
+        send(connection, next);
+        connection.doWork();
+        assertArrayEquals("Unexpected bytes received",
+                          concatenate(Arrays.asList(createData(0, 10), next)),
+                          receive(20));
+    }
+
+    @Test
+    public void testBuffersExceedingCapWrittenInSeveralWrites() throws Exception
+    {
+        final NonBlockingConnection connection = createConnection(0, 2);
+        final List<byte[]> data = new ArrayList<>();
+        final List<QpidByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            final byte[] bytes = createData(i, 100);
+            data.add(bytes);
+            buffers.add(QpidByteBuffer.wrap(bytes));
+        }
+
+        final long written = connection.writeToTransport(buffers);
+
+        assertEquals("Unexpected number of bytes written", 500, written);
+        assertEquals("Unexpected number of network writes", 3, connection.getNetworkWrites());
+        assertEquals("Unexpected number of buffers written", 5, connection.getNetworkWriteBuffers());
+        assertEquals("Unexpected number of bytes counted", 500, connection.getNetworkBytesWritten());
+        for (QpidByteBuffer buffer : buffers)
+        {
+            assertFalse("Buffer not fully written", buffer.hasRemaining());
+        }
+        assertArrayEquals("Unexpected bytes received", concatenate(data), receive(500));
+    }
+
+    @Test
+    public void testPartialWriteStopsAndResumes() throws Exception
+    {
+        final int bufferCap = 4;
+        final NonBlockingConnection connection = createConnection(0, bufferCap);
+        final List<byte[]> data = new ArrayList<>();
+        final List<QpidByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 128; i++)
+        {
+            final byte[] bytes = createData(i, NETWORK_BUFFER_SIZE);
+            data.add(bytes);
+            buffers.add(QpidByteBuffer.wrap(bytes));
+        }
+        final byte[] expected = concatenate(data);
+
+        final long written = connection.writeToTransport(buffers);
+
+        assertTrue("Expected a partial write as the peer is not reading", written < expected.length);
+        assertEquals("Unexpected number of bytes counted", written, connection.getNetworkBytesWritten());
+        assertTrue("Writes should stop at the first incomplete batch",
+                   connection.getNetworkWrites() <= written / (bufferCap * NETWORK_BUFFER_SIZE) + 1);
+        final int partiallyWritten = (int) (written / NETWORK_BUFFER_SIZE);
+        for (int i = partiallyWritten + 1; i < buffers.size(); i++)
+        {
+            assertEquals("Buffer after the incomplete one should not be touched",
+                         NETWORK_BUFFER_SIZE, buffers.get(i).remaining());
+        }
+
+        long totalWritten = written;
+        while (totalWritten < expected.length)
+        {
+            drain();
+            totalWritten += connection.writeToTransport(buffers);
+        }
+
+        assertEquals("Unexpected number of bytes counted", expected.length, connection.getNetworkBytesWritten());
+        assertArrayEquals("Unexpected bytes received", expected, receive(expected.length));
+    }
+
+    private NonBlockingConnection createConnection(final int coalescingThreshold, final int maxBuffersPerWrite)
+    {
+        when(_port.getWriteCoalescingThreshold()).thenReturn(coalescingThreshold);
+        when(_port.getMaxBuffersPerWrite()).thenReturn(maxBuffersPerWrite);
+        return new NonBlockingConnection(_socketChannel,
+                                         _protocolEngine,
+                                         Collections.singleton(TransportEncryption.NONE),
+                                         () -> {},
+                                         mock(NetworkConnectionScheduler.class),
+                                         _port);
+    }
+
+    private void send(final NonBlockingConnection connection, final byte[] frame)
+    {
+        try (QpidByteBuffer buffer = QpidByteBuffer.wrap(frame))
+        {
+            connection.send(buffer);
+        }
+    }
+
+    private void drain() throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate(NETWORK_BUFFER_SIZE);
+        while (_peerChannel.read(buffer) > 0)
+        {
+            _receivedBytes.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+
+    private byte[] receive(final int length) throws Exception
+    {
+        final long timeout = System.currentTimeMillis() + 10000L;
+        while (_receivedBytes.size() < length && System.currentTimeMillis() < timeout)
+        {
+            drain();
+            Thread.sleep(1);
+        }
+        return _receivedBytes.toByteArray();
+    }
+
+    private byte[] createData(final int seed, final int length)
+    {
+        final byte[] data = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            data[i] = (byte) (seed + i);
+        }
+        return data;
+    }
+
+    private byte[] concatenate(final List<byte[]> data)
+    {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (byte[] bytes : data)
+        {
+            output.write(bytes, 0, bytes.length);
+        }
+        return output.toByteArray();
+    }
+
+    private void closeQuietly(final Channel channel)
+    {
+        if (channel != null)
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                // ignore
+            }
+        }
+    }
+}
@@ -24,6 +24,8 @@ import static org.apache.qpid.test.utils.JvmVendor.IBM;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,6 +34,7 @@ import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
 import java.net.InetAddress;
+import java.net.Socket;
 import java.net.SocketAddress;
 import java.security.KeyStore;
 import java.util.Arrays;
@@ -140,6 +143,50 @@ public class TCPandSSLTransportTest extends UnitTestBase
 
 
 
+    @Test
+    public void testConnectionPinnedToReactorOnMultiReactorPort() throws Exception
+    {
+        final AmqpPort<?> port = mock(AmqpPort.class);
+        when(port.getPort()).thenReturn(0);
+        when(port.getName()).thenReturn("testAmqp");
+        when(port.getNetworkBufferSize()).thenReturn(64*1024);
+        when(port.canAcceptNewConnection(any(SocketAddress.class))).thenReturn(true);
+        when(port.getThreadPoolSize()).thenReturn(2);
+        when(port.getNumberOfSelectors()).thenReturn(1);
+        when(port.getContextValue(Long.class, AmqpPort.PORT_AMQP_THREAD_POOL_KEEP_ALIVE_TIMEOUT)).thenReturn(1L);
+        when(port.getContextValue(Boolean.class, AmqpPort.PORT_AMQP_MULTI_REACTOR)).thenReturn(true);
+        when(port.getContextValue(Integer.class, AmqpPort.PORT_AMQP_ACCEPT_BACKLOG)).thenReturn(AmqpPort.DEFAULT_PORT_AMQP_ACCEPT_BACKLOG);
+        when(port.getProtocolHandshakeTimeout()).thenReturn(AmqpPort.DEFAULT_PROTOCOL_HANDSHAKE_TIMEOUT);
+        final Broker broker = mock(Broker.class);
+        when(broker.getEventLogger()).thenReturn(mock(EventLogger.class));
+        when(port.getParent()).thenReturn(broker);
+
+        TCPandSSLTransport transport = new TCPandSSLTransport(new HashSet<>(Arrays.asList(Transport.TCP)),
+                                                              port,
+                                                              new HashSet<>(Arrays.asList(Protocol.AMQP_0_9_1,
+                                                                                          Protocol.AMQP_1_0)),
+                                                              Protocol.AMQP_0_9_1);
+        transport.start();
+        try
+        {
+            final NetworkConnectionScheduler scheduler = transport.getNetworkConnectionScheduler();
+            assertTrue("Scheduler should be in multi-reactor mode", scheduler.isMultiReactor());
+            assertEquals("Unexpected number of reactors",
+                         port.getThreadPoolSize(),
+                         scheduler.getReactorStatistics().size());
+
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), transport.getAcceptingPort()))
+            {
+                NetworkConnectionSchedulerTest.waitForMaximumReactorConnectionCount(scheduler, 1);
+            }
+            NetworkConnectionSchedulerTest.waitForMaximumReactorConnectionCount(scheduler, 0);
+        }
+        finally
+        {
+            transport.close();
+        }
+    }
+
     private void checkSSLExcluded(String clientProtocol, final Transport... transports) throws Exception
     {
         KeyStore keyStore = KeyStore.getInstance("JKS");
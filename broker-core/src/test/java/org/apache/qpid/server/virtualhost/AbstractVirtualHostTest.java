@@ -21,6 +21,7 @@
 package org.apache.qpid.server.virtualhost;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.any;
@@ -58,6 +59,7 @@ import org.apache.qpid.server.model.BrokerModel;
 import org.apache.qpid.server.model.BrokerTestHelper;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.State;
+import org.apache.qpid.server.protocol.MessageConversionCache;
 import org.apache.qpid.server.model.SystemConfig;
 import org.apache.qpid.server.model.VirtualHost;
 import org.apache.qpid.server.model.VirtualHostNode;
@@ -215,6 +217,47 @@ public class AbstractVirtualHostTest extends UnitTestBase
         host.close();
     }
 
+    @Test
+    public void testConversionCacheSpaceCountedTowardsTargetSize()
+    {
+        Map<String,Object> attributes = Collections.<String, Object>singletonMap(AbstractVirtualHost.NAME, getTestName());
+        final MessageStore store = mock(MessageStore.class);
+        when(store.newMessageStoreReader()).thenReturn(mock(MessageStore.MessageStoreReader.class));
+        when(store.getInMemorySize()).thenReturn(900L);
+
+        AbstractVirtualHost host = new AbstractVirtualHost(attributes, _node)
+        {
+            @Override
+            protected MessageStore createMessageStore()
+            {
+                return  store;
+            }
+        };
+
+        host.open();
+        try
+        {
+            host.setTargetSize(1000L);
+            final MessageConversionCache cache = new MessageConversionCache();
+
+            assertTrue("Space not reserved", host.reserveConversionCacheSpace(cache, 60L));
+            assertFalse("Space reserved beyond target size", host.reserveConversionCacheSpace(cache, 60L));
+            assertEquals("Unexpected conversion cache size", 60L, host.getMessageConversionCacheSize());
+            assertFalse("Unexpectedly over target size", host.isOverTargetSize());
+
+            when(store.getInMemorySize()).thenReturn(990L);
+            assertTrue("Retained conversions not counted towards target size", host.isOverTargetSize());
+
+            host.releaseConversionCacheSpace(cache, 60L);
+            assertEquals("Unexpected conversion cache size", 0L, host.getMessageConversionCacheSize());
+            assertFalse("Unexpectedly over target size", host.isOverTargetSize());
+        }
+        finally
+        {
+            host.close();
+        }
+    }
+
     @Test
     public void testDeleteInErrorStateAfterOpen() throws Exception
     {
@@ -34,10 +34,12 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import org.junit.Before;
@@ -150,6 +152,43 @@ public class AsynchronousMessageStoreRecovererTest extends UnitTestBase
                               same(messageEnqueueRecord));
     }
 
+    @Test
+    public void testMessageSharedBetweenQueuesIsReadFromStoreOnce() throws Exception
+    {
+        final Queue<?> queue1 = mock(Queue.class);
+        when(queue1.getId()).thenReturn(UUID.randomUUID());
+        final Queue<?> queue2 = mock(Queue.class);
+        when(queue2.getId()).thenReturn(UUID.randomUUID());
+        when(_virtualHost.getChildren(eq(Queue.class))).thenReturn(Arrays.asList(queue1, queue2));
+        when(_store.getNextMessageId()).thenReturn(2L);
+        when(_store.newTransaction()).thenReturn(mock(Transaction.class));
+
+        final StoredMessage<?> storedMessage = createTestMessage(1L);
+        final MockStoreReader storeReader = new MockStoreReader(Arrays.asList(createEnqueueRecord(queue1, 1L),
+                                                                              createEnqueueRecord(queue2, 1L)),
+                                                                Collections.singletonList(storedMessage));
+        when(_store.newMessageStoreReader()).thenReturn(storeReader);
+
+        final AsynchronousMessageStoreRecoverer recoverer = new AsynchronousMessageStoreRecoverer();
+        final ListenableFuture<Void> result = recoverer.recover(_virtualHost);
+        assertNull(result.get());
+
+        assertEquals("Unexpected number of message retrievals", 1, storeReader.getMessageRetrievalCount());
+        assertEquals("Unexpected number of recovered messages", 2L, recoverer.getRecoveredMessageCount());
+        verify(queue1).recover(any(ServerMessage.class), any(MessageEnqueueRecord.class));
+        verify(queue2).recover(any(ServerMessage.class), any(MessageEnqueueRecord.class));
+        verify(storedMessage, times(0)).remove();
+    }
+
+    private MessageEnqueueRecord createEnqueueRecord(final Queue<?> queue, final long messageNumber)
+    {
+        final UUID queueId = queue.getId();
+        final MessageEnqueueRecord record = mock(MessageEnqueueRecord.class);
+        when(record.getQueueId()).thenReturn(queueId);
+        when(record.getMessageNumber()).thenReturn(messageNumber);
+        return record;
+    }
+
     private StoredMessage<?> createTestMessage(final long messageNumber)
     {
         final StorableMessageMetaData metaData = new TestMessageMetaData(messageNumber, 0);
@@ -163,6 +202,7 @@ public class AsynchronousMessageStoreRecovererTest extends UnitTestBase
     {
         private final List<MessageEnqueueRecord> _messageEnqueueRecords;
         private final List<StoredMessage<?>> _messages;
+        private final AtomicInteger _messageRetrievalCount = new AtomicInteger();
 
         private MockStoreReader(final List<MessageEnqueueRecord> messageEnqueueRecords, List<StoredMessage<?>> messages)
         {
@@ -192,7 +232,13 @@ public class AsynchronousMessageStoreRecovererTest extends UnitTestBase
         public void visitMessageInstances(final TransactionLogResource queue, final MessageInstanceHandler handler)
                     throws StoreException
         {
-            visitMessageInstances(handler);
+            for(MessageEnqueueRecord record: _messageEnqueueRecords)
+            {
+                if (record.getQueueId().equals(queue.getId()))
+                {
+                    handler.handle(record);
+                }
+            }
         }
 
         @Override
@@ -204,6 +250,7 @@ public class AsynchronousMessageStoreRecovererTest extends UnitTestBase
         @Override
         public StoredMessage<?> getMessage(final long messageId)
         {
+            _messageRetrievalCount.incrementAndGet();
             for(StoredMessage<?> message: _messages)
             {
                 if (message.getMessageNumber() == messageId)
@@ -219,5 +266,10 @@ public class AsynchronousMessageStoreRecovererTest extends UnitTestBase
         {
 
         }
+
+        int getMessageRetrievalCount()
+        {
+            return _messageRetrievalCount.get();
+        }
     }
 }
@@ -58,6 +58,16 @@ public class RuleBasedAccessControl implements AccessControl<CachingSecurityToke
         return _ruleSet.getDefault();
     }
 
+    public long getRuleCacheHitCount()
+    {
+        return _ruleSet.getRuleCacheHitCount();
+    }
+
+    public long getRuleCacheMissCount()
+    {
+        return _ruleSet.getRuleCacheMissCount();
+    }
+
     @Override
     public CachingSecurityToken newToken()
     {
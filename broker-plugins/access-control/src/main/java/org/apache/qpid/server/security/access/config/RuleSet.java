@@ -23,16 +23,19 @@ import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import javax.security.auth.Subject;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,9 +53,12 @@ public class RuleSet implements EventLoggerProvider
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(RuleSet.class);
 
+    public static final int DEFAULT_RULE_CACHE_SIZE = 1000;
+
+    private static final List<Rule> UNCONTROLLED = Collections.unmodifiableList(new ArrayList<>());
+
     private final List<Rule> _rules;
-    private final Map<Subject, Map<LegacyOperation, Map<ObjectType, List<Rule>>>> _cache =
-                        Collections.synchronizedMap(new WeakHashMap<Subject, Map<LegacyOperation, Map<ObjectType, List<Rule>>>>());
+    private final Cache<Set<String>, CompiledRules> _cache;
 
     private final EventLoggerProvider _eventLogger;
     private Result _defaultResult = Result.DENIED;
@@ -60,10 +66,22 @@ public class RuleSet implements EventLoggerProvider
     public RuleSet(final EventLoggerProvider eventLogger,
                    final Collection<Rule> rules,
                    final Result defaultResult)
+    {
+        this(eventLogger, rules, defaultResult, DEFAULT_RULE_CACHE_SIZE);
+    }
+
+    public RuleSet(final EventLoggerProvider eventLogger,
+                   final Collection<Rule> rules,
+                   final Result defaultResult,
+                   final int ruleCacheSize)
     {
         _eventLogger = eventLogger;
         _rules = new ArrayList<>(rules);
         _defaultResult = defaultResult;
+        _cache = CacheBuilder.newBuilder()
+                             .maximumSize(Math.max(ruleCacheSize, 1))
+                             .recordStats()
+                             .build();
     }
 
     int getRuleCount()
@@ -79,43 +97,7 @@ public class RuleSet implements EventLoggerProvider
      */
     private List<Rule> getRules(final Subject subject, final LegacyOperation operation, final ObjectType objectType)
     {
-        final Map<ObjectType, List<Rule>> objects = getObjectToRuleCache(subject, operation);
-
-        // Lookup object type rules for the operation
-        if (!objects.containsKey(objectType))
-        {
-            final Set<Principal> principals = subject.getPrincipals();
-            boolean controlled = false;
-            List<Rule> filtered = new LinkedList<>();
-            for (Rule rule : _rules)
-            {
-                final Action ruleAction = rule.getAction();
-                if ((ruleAction.getOperation() == LegacyOperation.ALL || ruleAction.getOperation() == operation)
-                    && (ruleAction.getObjectType() == ObjectType.ALL || ruleAction.getObjectType() == objectType))
-                {
-                    controlled = true;
-
-                    if (isRelevant(principals,rule))
-                    {
-                        filtered.add(rule);
-                    }
-                }
-            }
-
-            // Return null if there are no rules at all for this operation and object type
-            if (filtered.isEmpty() && !controlled)
-            {
-                filtered = null;
-            }
-
-            // Save the rules we selected
-            objects.put(objectType, filtered == null ? null : Collections.unmodifiableList(filtered));
-
-            LOGGER.debug("Cached {} RulesList: {}", objectType, filtered);
-        }
-
-        // Return the cached rules
-        List<Rule> rules = objects.get(objectType);
+        final List<Rule> rules = getCompiledRules(subject).getRules(operation, objectType);
 
         LOGGER.debug("Returning RuleList: {}", rules);
 
@@ -234,7 +216,7 @@ public class RuleSet implements EventLoggerProvider
          return Collections.unmodifiableList(_rules);
      }
 
-    private boolean isRelevant(final Set<Principal> principals, final Rule rule)
+    private boolean isRelevant(final Set<String> principalNames, final Rule rule)
     {
         if (rule.getIdentity().equalsIgnoreCase(Rule.ALL) ||
             rule.getIdentity().equalsIgnoreCase(Rule.OWNER))
@@ -243,11 +225,11 @@ public class RuleSet implements EventLoggerProvider
         }
         else
         {
-            for (Iterator<Principal> iterator = principals.iterator(); iterator.hasNext();)
+            for (Iterator<String> iterator = principalNames.iterator(); iterator.hasNext();)
             {
-                final Principal principal = iterator.next();
+                final String principalName = iterator.next();
 
-                if (rule.getIdentity().equalsIgnoreCase(principal.getName()))
+                if (rule.getIdentity().equalsIgnoreCase(principalName))
                 {
                     return true;
                 }
@@ -257,24 +239,104 @@ public class RuleSet implements EventLoggerProvider
         return false;
     }
 
-    private Map<ObjectType, List<Rule>> getObjectToRuleCache(final Subject subject, final LegacyOperation operation)
+    private CompiledRules getCompiledRules(final Subject subject)
+    {
+        final Set<String> principalNames = new HashSet<>();
+        for (Principal principal : subject.getPrincipals())
+        {
+            principalNames.add(principal.getName());
+        }
+
+        try
+        {
+            return _cache.get(principalNames, () -> new CompiledRules(principalNames));
+        }
+        catch (ExecutionException | UncheckedExecutionException e)
+        {
+            throw new RuntimeException("Unable to compile rules for principals " + principalNames, e.getCause());
+        }
+    }
+
+    public long getRuleCacheHitCount()
+    {
+        return _cache.stats().hitCount();
+    }
+
+    public long getRuleCacheMissCount()
+    {
+        return _cache.stats().missCount();
+    }
+
+    /**
+     * Rules relevant to one set of principal names, filtered further by operation and object type on first use.
+     * Shared by every subject carrying the same principal names.
+     */
+    private final class CompiledRules
     {
-        // Lookup identity in cache and create empty operation map if required
-        Map<LegacyOperation, Map<ObjectType, List<Rule>>> operations = _cache.get(subject);
-        if (operations == null)
+        private final List<Rule> _relevantRules = new ArrayList<>();
+        private final AtomicReferenceArray<List<Rule>> _rulesByAction =
+                new AtomicReferenceArray<>(LegacyOperation.values().length * ObjectType.values().length);
+
+        private CompiledRules(final Set<String> principalNames)
+        {
+            for (Rule rule : _rules)
+            {
+                if (isRelevant(principalNames, rule))
+                {
+                    _relevantRules.add(rule);
+                }
+            }
+        }
+
+        List<Rule> getRules(final LegacyOperation operation, final ObjectType objectType)
+        {
+            final int index = operation.ordinal() * ObjectType.values().length + objectType.ordinal();
+            List<Rule> rules = _rulesByAction.get(index);
+            if (rules == null)
+            {
+                rules = filter(operation, objectType);
+                _rulesByAction.set(index, rules);
+
+                LOGGER.debug("Cached {} RulesList: {}", objectType, rules);
+            }
+            return rules == UNCONTROLLED ? null : rules;
+        }
+
+        private List<Rule> filter(final LegacyOperation operation, final ObjectType objectType)
         {
-            operations = Collections.synchronizedMap(new EnumMap<LegacyOperation, Map<ObjectType, List<Rule>>>(LegacyOperation.class));
-            _cache.put(subject, operations);
+            boolean controlled = false;
+            for (Rule rule : _rules)
+            {
+                if (matches(rule, operation, objectType))
+                {
+                    controlled = true;
+                    break;
+                }
+            }
+
+            // Return null if there are no rules at all for this operation and object type
+            if (!controlled)
+            {
+                return UNCONTROLLED;
+            }
+
+            final List<Rule> filtered = new LinkedList<>();
+            for (Rule rule : _relevantRules)
+            {
+                if (matches(rule, operation, objectType))
+                {
+                    filtered.add(rule);
+                }
+            }
+            return Collections.unmodifiableList(filtered);
         }
 
-        // Lookup operation and create empty object type map if required
-        Map<ObjectType, List<Rule>> objects = operations.get(operation);
-        if (objects == null)
+        private boolean matches(final Rule rule, final LegacyOperation operation, final ObjectType objectType)
         {
-            objects = Collections.synchronizedMap(new EnumMap<ObjectType, List<Rule>>(ObjectType.class));
-            operations.put(operation, objects);
+            final Action ruleAction = rule.getAction();
+            return (ruleAction.getOperation() == LegacyOperation.ALL || ruleAction.getOperation() == operation)
+                   && (ruleAction.getObjectType() == ObjectType.ALL || ruleAction.getObjectType() == objectType);
         }
-        return objects;
     }
 
     @Override
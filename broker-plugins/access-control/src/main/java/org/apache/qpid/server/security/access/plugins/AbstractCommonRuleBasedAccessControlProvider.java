@@ -90,7 +90,7 @@ abstract class AbstractCommonRuleBasedAccessControlProvider<X extends AbstractCo
                                              new AclRulePredicates(configuredRule.getAttributes())),
                                configuredRule.getOutcome()));
         }
-        return new RuleBasedAccessControl(new RuleSet(this, rules, _defaultResult), getModel());
+        return new RuleBasedAccessControl(new RuleSet(this, rules, _defaultResult, getRuleCacheSize()), getModel());
     }
 
     public Result getDefaultResult()
@@ -50,6 +50,8 @@ abstract class AbstractLegacyAccessControlProvider<X extends AbstractLegacyAcces
     }
 
     private volatile RuleBasedAccessControl _accessControl;
+    private volatile long _retiredRuleCacheHits;
+    private volatile long _retiredRuleCacheMisses;
 
 
     AbstractLegacyAccessControlProvider(Map<String, Object> attributes, T parent)
@@ -113,7 +115,32 @@ abstract class AbstractLegacyAccessControlProvider<X extends AbstractLegacyAcces
 
     protected final void recreateAccessController()
     {
+        final RuleBasedAccessControl previous = _accessControl;
         _accessControl = createRuleBasedAccessController();
+        if (previous != null)
+        {
+            _retiredRuleCacheHits += previous.getRuleCacheHitCount();
+            _retiredRuleCacheMisses += previous.getRuleCacheMissCount();
+        }
+    }
+
+    protected int getRuleCacheSize()
+    {
+        final Integer ruleCacheSize =
+                getContextValue(Integer.class, CachingRuleBasedAccessControlProvider.RULE_CACHE_MAX_SIZE);
+        return ruleCacheSize == null ? CachingRuleBasedAccessControlProvider.DEFAULT_RULE_CACHE_MAX_SIZE : ruleCacheSize;
+    }
+
+    public long getRuleCacheHits()
+    {
+        final RuleBasedAccessControl accessControl = _accessControl;
+        return _retiredRuleCacheHits + (accessControl == null ? 0L : accessControl.getRuleCacheHitCount());
+    }
+
+    public long getRuleCacheMisses()
+    {
+        final RuleBasedAccessControl accessControl = _accessControl;
+        return _retiredRuleCacheMisses + (accessControl == null ? 0L : accessControl.getRuleCacheMissCount());
     }
 
 
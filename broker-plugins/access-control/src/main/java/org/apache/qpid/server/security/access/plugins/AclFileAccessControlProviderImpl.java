@@ -40,6 +40,7 @@ import org.apache.qpid.server.model.StateTransition;
 import org.apache.qpid.server.security.access.Operation;
 import org.apache.qpid.server.security.access.config.AclFileParser;
 import org.apache.qpid.server.security.access.config.RuleBasedAccessControl;
+import org.apache.qpid.server.security.access.config.RuleSet;
 import org.apache.qpid.server.util.StringUtil;
 import org.apache.qpid.server.util.urlstreamhandler.data.Handler;
 
@@ -69,7 +70,9 @@ public class AclFileAccessControlProviderImpl
     @Override
     protected RuleBasedAccessControl createRuleBasedAccessController()
     {
-        return new RuleBasedAccessControl(AclFileParser.parse(getPath(), this), getModel());
+        final RuleSet ruleSet = AclFileParser.parse(getPath(), this);
+        return new RuleBasedAccessControl(new RuleSet(this, ruleSet.getAllRules(), ruleSet.getDefault(), getRuleCacheSize()),
+                                          getModel());
     }
 
     @Override
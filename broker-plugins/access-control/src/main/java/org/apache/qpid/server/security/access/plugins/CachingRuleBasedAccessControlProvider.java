@@ -0,0 +1,47 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.security.access.plugins;
+
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.ManagedContextDefault;
+import org.apache.qpid.server.model.ManagedStatistic;
+import org.apache.qpid.server.model.StatisticType;
+import org.apache.qpid.server.model.StatisticUnit;
+
+public interface CachingRuleBasedAccessControlProvider<X extends ConfiguredObject<X>> extends ConfiguredObject<X>
+{
+    String RULE_CACHE_MAX_SIZE = "qpid.acl.ruleCache.size";
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = RULE_CACHE_MAX_SIZE,
+            description = "Upper bound of distinct principal sets for which the access control provider caches the"
+                          + " rules that apply.")
+    int DEFAULT_RULE_CACHE_MAX_SIZE = 1000;
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Rule cache hits",
+                      description = "Number of access control checks which found the rules for their principals in the cache.")
+    long getRuleCacheHits();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Rule cache misses",
+                      description = "Number of access control checks which had to select the rules for their principals.")
+    long getRuleCacheMisses();
+}
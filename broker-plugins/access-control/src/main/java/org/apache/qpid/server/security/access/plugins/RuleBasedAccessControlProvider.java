@@ -32,7 +32,7 @@ import org.apache.qpid.server.model.Param;
 import org.apache.qpid.server.security.Result;
 
 @ManagedObject( category = false, type= RuleBasedAccessControlProvider.RULE_BASED_TYPE)
-public interface RuleBasedAccessControlProvider<X extends RuleBasedAccessControlProvider<X>> extends AccessControlProvider<X>
+public interface RuleBasedAccessControlProvider<X extends RuleBasedAccessControlProvider<X>> extends AccessControlProvider<X>, CachingRuleBasedAccessControlProvider<X>
 {
     String RULE_BASED_TYPE = "RuleBased";
     String DEFAULT_RESULT= "defaultResult";
@@ -657,4 +657,26 @@ public class RuleSetTest extends UnitTestBase
 
     }
 
+    @Test
+    public void testSubjectsWithSamePrincipalsShareCachedRules()
+    {
+        _ruleSetCreator.addRule(1, TEST_USER, RuleOutcome.ALLOW, LegacyOperation.ACCESS, ObjectType.VIRTUALHOST, ObjectProperties.EMPTY);
+        RuleSet ruleSet = createRuleSet();
+
+        assertEquals(Result.ALLOWED,
+                     ruleSet.check(_testSubject, LegacyOperation.ACCESS, ObjectType.VIRTUALHOST, ObjectProperties.EMPTY));
+        assertEquals(0, ruleSet.getRuleCacheHitCount());
+        assertEquals(1, ruleSet.getRuleCacheMissCount());
+
+        final Subject otherSubject = TestPrincipalUtils.createTestSubject(TEST_USER);
+        assertEquals(Result.ALLOWED,
+                     ruleSet.check(otherSubject, LegacyOperation.ACCESS, ObjectType.VIRTUALHOST, ObjectProperties.EMPTY));
+        assertEquals(1, ruleSet.getRuleCacheHitCount());
+        assertEquals(1, ruleSet.getRuleCacheMissCount());
+
+        final Subject anotherUser = TestPrincipalUtils.createTestSubject("anotherUser");
+        assertEquals(Result.DEFER,
+                     ruleSet.check(anotherUser, LegacyOperation.ACCESS, ObjectType.VIRTUALHOST, ObjectProperties.EMPTY));
+        assertEquals(2, ruleSet.getRuleCacheMissCount());
+    }
 }
@@ -38,7 +38,7 @@ import org.apache.qpid.server.message.MessageInstance.EntryState;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Queue;
-import org.apache.qpid.server.plugin.MessageConverter;
+import org.apache.qpid.server.protocol.ConvertedMessage;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
 import org.apache.qpid.server.protocol.v0_10.transport.DeliveryProperties;
 import org.apache.qpid.server.protocol.v0_10.transport.Header;
@@ -193,7 +193,7 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
         MessageProperties messageProps = null;
 
         MessageTransferMessage msg;
-        MessageConverter<? super ServerMessage, MessageTransferMessage> converter = null;
+        ConvertedMessage<MessageTransferMessage> convertedMessage = null;
 
         if(serverMsg instanceof MessageTransferMessage)
         {
@@ -203,8 +203,8 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
         }
         else
         {
-            converter = (MessageConverter<? super ServerMessage, MessageTransferMessage>) MessageConverterRegistry.getConverter(serverMsg.getClass(), MessageTransferMessage.class);
-            msg = converter.convert(serverMsg, _session.getAddressSpace());
+            convertedMessage = MessageConverterRegistry.convert(serverMsg, MessageTransferMessage.class, _session.getAddressSpace());
+            msg = convertedMessage.getMessage();
         }
 
         DeliveryProperties origDeliveryProps = msg.getHeader() == null ? null : msg.getHeader().getDeliveryProperties();
@@ -323,9 +323,9 @@ public class ConsumerTarget_0_10 extends AbstractConsumerTarget<ConsumerTarget_0
 
         _session.sendMessage(xfr, _postIdSettingAction);
         xfr.dispose();
-        if(converter != null)
+        if(convertedMessage != null)
         {
-            converter.dispose(msg);
+            convertedMessage.release();
         }
         _postIdSettingAction.setAction(null);
         _postIdSettingAction.setXfr(null);
@@ -0,0 +1,418 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_10;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.qpid.server.protocol.v0_10.transport.Range;
+import org.apache.qpid.server.protocol.v0_10.transport.RangeSet;
+
+/**
+ * Holds values keyed by command id in a ring indexed by the low bits of the id.  Command ids are allocated
+ * sequentially, so the ids held form a window [first, next) which slides forward as commands are completed.  The ring
+ * grows on demand up to a maximum capacity; values which would stretch the window beyond it (e.g. a transfer left
+ * unaccepted while many others are sent) are moved to an overflow map.
+ *
+ * Ids are compared using serial number arithmetic.  Instances are not thread safe, with the exception of
+ * {@link #size()}.
+ */
+final class SequenceWindow<T>
+{
+    static final int INITIAL_CAPACITY = 64;
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private final int _maximumCapacity;
+    private final Map<Integer, T> _overflow = new HashMap<>();
+    private Object[] _ring;
+    private int _first;
+    private int _next;
+    private int _ringCount;
+    private volatile int _size;
+
+    interface Visitor<T>
+    {
+        void visit(int id, T value);
+    }
+
+    SequenceWindow(final int maximumCapacity)
+    {
+        if (maximumCapacity <= INITIAL_CAPACITY)
+        {
+            _maximumCapacity = INITIAL_CAPACITY;
+        }
+        else if (maximumCapacity >= MAXIMUM_CAPACITY)
+        {
+            _maximumCapacity = MAXIMUM_CAPACITY;
+        }
+        else
+        {
+            _maximumCapacity = Integer.highestOneBit(maximumCapacity - 1) << 1;
+        }
+        _ring = new Object[INITIAL_CAPACITY];
+    }
+
+    void put(final int id, final T value)
+    {
+        if (!_overflow.isEmpty())
+        {
+            _overflow.remove(id);
+        }
+
+        if (_ringCount == 0)
+        {
+            _first = id;
+            _next = id + 1;
+        }
+        else if (id - _first < 0)
+        {
+            final int span = _next - id;
+            if (span <= 0 || span > _maximumCapacity)
+            {
+                _overflow.put(id, value);
+                updateSize();
+                return;
+            }
+            ensureCapacity(span);
+            _first = id;
+        }
+        else if (id - _next >= 0)
+        {
+            moveToOverflowBefore(id + 1 - _maximumCapacity);
+            if (_ringCount == 0)
+            {
+                _first = id;
+            }
+            else
+            {
+                ensureCapacity(id + 1 - _first);
+            }
+            _next = id + 1;
+        }
+
+        final int index = id & (_ring.length - 1);
+        if (_ring[index] == null)
+        {
+            _ringCount++;
+        }
+        _ring[index] = value;
+        updateSize();
+    }
+
+    T get(final int id)
+    {
+        T value = null;
+        if (isInWindow(id))
+        {
+            value = ringValue(id);
+        }
+        if (value == null && !_overflow.isEmpty())
+        {
+            value = _overflow.get(id);
+        }
+        return value;
+    }
+
+    T remove(final int id)
+    {
+        T value = null;
+        if (isInWindow(id))
+        {
+            value = removeFromRing(id);
+        }
+        if (value == null && !_overflow.isEmpty())
+        {
+            value = _overflow.remove(id);
+        }
+        updateSize();
+        return value;
+    }
+
+    /**
+     * Removes the values with ids in [lower, upper], passing each to the visitor in id order.  Only the intersection
+     * of the range with the window is examined, so the cost is bounded by the number of ids held rather than by the
+     * width of the range.
+     */
+    void removeRange(final int lower, final int upper, final Visitor<? super T> visitor)
+    {
+        if (upper - lower < 0)
+        {
+            return;
+        }
+
+        if (!_overflow.isEmpty())
+        {
+            for (int id : overflowIdsInRange(lower, upper))
+            {
+                final T value = _overflow.remove(id);
+                if (value != null)
+                {
+                    updateSize();
+                    visitor.visit(id, value);
+                }
+            }
+        }
+
+        if (_ringCount > 0)
+        {
+            final int start = lower - _first < 0 ? _first : lower;
+            final int end = upper - (_next - 1) > 0 ? _next - 1 : upper;
+            for (int id = start; id - end <= 0 && _ringCount > 0; id++)
+            {
+                if (isInWindow(id))
+                {
+                    final T value = removeFromRing(id);
+                    if (value != null)
+                    {
+                        updateSize();
+                        visitor.visit(id, value);
+                    }
+                }
+            }
+        }
+    }
+
+    void removeRanges(final RangeSet ranges, final Visitor<? super T> visitor)
+    {
+        for (Range range : ranges)
+        {
+            if (_size == 0)
+            {
+                break;
+            }
+            removeRange(range.getLower(), range.getUpper(), visitor);
+        }
+    }
+
+    /**
+     * Passes the values with ids in [lower, upper] to the visitor in id order, without removing them.
+     */
+    void visitRange(final int lower, final int upper, final Visitor<? super T> visitor)
+    {
+        if (upper - lower < 0)
+        {
+            return;
+        }
+
+        if (!_overflow.isEmpty())
+        {
+            for (int id : overflowIdsInRange(lower, upper))
+            {
+                final T value = _overflow.get(id);
+                if (value != null)
+                {
+                    visitor.visit(id, value);
+                }
+            }
+        }
+
+        if (_ringCount > 0)
+        {
+            final int start = lower - _first < 0 ? _first : lower;
+            final int end = upper - (_next - 1) > 0 ? _next - 1 : upper;
+            for (int id = start; id - end <= 0 && _ringCount > 0; id++)
+            {
+                if (isInWindow(id))
+                {
+                    final T value = ringValue(id);
+                    if (value != null)
+                    {
+                        visitor.visit(id, value);
+                    }
+                }
+            }
+        }
+    }
+
+    void visitRanges(final RangeSet ranges, final Visitor<? super T> visitor)
+    {
+        for (Range range : ranges)
+        {
+            if (_size == 0)
+            {
+                break;
+            }
+            visitRange(range.getLower(), range.getUpper(), visitor);
+        }
+    }
+
+    /**
+     * Passes every value to the visitor, without removing them.
+     */
+    void visitAll(final Visitor<? super T> visitor)
+    {
+        for (Map.Entry<Integer, T> entry : new ArrayList<>(_overflow.entrySet()))
+        {
+            visitor.visit(entry.getKey(), entry.getValue());
+        }
+        if (_ringCount > 0)
+        {
+            visitRange(_first, _next - 1, visitor);
+        }
+    }
+
+    /**
+     * Removes all values, passing each to the visitor in id order.
+     */
+    void clear(final Visitor<? super T> visitor)
+    {
+        if (!_overflow.isEmpty())
+        {
+            final List<Integer> ids = new ArrayList<>(_overflow.keySet());
+            ids.sort((id1, id2) -> id1 - id2);
+            for (int id : ids)
+            {
+                final T value = _overflow.remove(id);
+                if (value != null)
+                {
+                    updateSize();
+                    visitor.visit(id, value);
+                }
+            }
+        }
+        if (_ringCount > 0)
+        {
+            final int end = _next;
+            for (int id = _first; id - end < 0 && _ringCount > 0; id++)
+            {
+                final T value = removeFromRing(id);
+                if (value != null)
+                {
+                    updateSize();
+                    visitor.visit(id, value);
+                }
+            }
+        }
+        updateSize();
+    }
+
+    boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    int size()
+    {
+        return _size;
+    }
+
+    private boolean isInWindow(final int id)
+    {
+        return _ringCount > 0 && id - _first >= 0 && id - _next < 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T ringValue(final int id)
+    {
+        return (T) _ring[id & (_ring.length - 1)];
+    }
+
+    private T removeFromRing(final int id)
+    {
+        final int mask = _ring.length - 1;
+        final int index = id & mask;
+        @SuppressWarnings("unchecked")
+        final T value = (T) _ring[index];
+        if (value != null)
+        {
+            _ring[index] = null;
+            _ringCount--;
+
+            if (_ringCount == 0)
+            {
+                _first = _next;
+            }
+            else if (id == _first)
+            {
+                while (_ring[_first & mask] == null)
+                {
+                    _first++;
+                }
+            }
+            else if (id == _next - 1)
+            {
+                while (_ring[(_next - 1) & mask] == null)
+                {
+                    _next--;
+                }
+            }
+        }
+        return value;
+    }
+
+    private List<Integer> overflowIdsInRange(final int lower, final int upper)
+    {
+        final List<Integer> ids = new ArrayList<>();
+        for (Integer id : _overflow.keySet())
+        {
+            if (id - lower >= 0 && upper - id >= 0)
+            {
+                ids.add(id);
+            }
+        }
+        ids.sort((id1, id2) -> id1 - id2);
+        return ids;
+    }
+
+    private void moveToOverflowBefore(final int newFirst)
+    {
+        final int mask = _ring.length - 1;
+        while (_ringCount > 0 && _first - newFirst < 0)
+        {
+            final int index = _first & mask;
+            @SuppressWarnings("unchecked")
+            final T value = (T) _ring[index];
+            if (value != null)
+            {
+                _ring[index] = null;
+                _ringCount--;
+                _overflow.put(_first, value);
+            }
+            _first++;
+        }
+        // the new first id may fall on a gap; the lowest held id must always be occupied
+        while (_ringCount > 0 && _ring[_first & mask] == null)
+        {
+            _first++;
+        }
+    }
+
+    private void ensureCapacity(final int span)
+    {
+        if (span > _ring.length)
+        {
+            final int capacity = Integer.highestOneBit(span - 1) << 1;
+            final Object[] ring = new Object[capacity];
+            for (int id = _first; id - _next < 0; id++)
+            {
+                ring[id & (capacity - 1)] = _ring[id & (_ring.length - 1)];
+            }
+            _ring = ring;
+        }
+    }
+
+    private void updateSize()
+    {
+        _size = _ringCount + _overflow.size();
+    }
+}
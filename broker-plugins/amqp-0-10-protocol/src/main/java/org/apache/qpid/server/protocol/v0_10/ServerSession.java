@@ -46,17 +46,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -137,7 +134,7 @@ public class ServerSession extends SessionInvoker
     private int syncPoint;
     // outgoing command count
     private int commandsOut = 0;
-    private Map<Integer,Method> commands = new HashMap<>();
+    private final SequenceWindow<Method> commands = new SequenceWindow<>(commandLimit);
     private int commandBytes = 0;
     private int byteLimit = Integer.getInteger("qpid.session.byte_limit", 1024 * 1024);
     private int maxComplete = commandsOut - 1;
@@ -147,11 +144,16 @@ public class ServerSession extends SessionInvoker
     private boolean transacted = false;
     private SessionDetachCode detachCode;
     private boolean _isNoReplay = false;
-    private Map<Integer,ResultFuture<?>> results = new HashMap<>();
+    private final SequenceWindow<ResultFuture<?>> results = new SequenceWindow<>(commandLimit);
     private org.apache.qpid.server.protocol.v0_10.transport.ExecutionException exception = null;
 
-    private final SortedMap<Integer, MessageDispositionChangeListener> _messageDispositionListenerMap =
-            new ConcurrentSkipListMap<>();
+    private final SequenceWindow<MessageDispositionChangeListener> _messageDispositionListeners =
+            new SequenceWindow<>(commandLimit);
+    private final SequenceWindow.Visitor<Method> _commandCompleter = (id, m) ->
+    {
+        commandBytes -= m.getBodySize();
+        m.complete();
+    };
 
     private volatile ServerTransaction _transaction;
     private Map<String, ConsumerTarget_0_10> _subscriptions = new ConcurrentHashMap<String, ConsumerTarget_0_10>();
@@ -294,11 +296,6 @@ public class ServerSession extends SessionInvoker
         commands.put(commandId, command);
     }
 
-    private Method removeCommand(int id)
-    {
-        return commands.remove(id);
-    }
-
     final void commandPoint(int id)
     {
         synchronized (processedLock)
@@ -481,15 +478,7 @@ public class ServerSession extends SessionInvoker
         synchronized (commandsLock)
         {
             int old = maxComplete;
-            for (int id = max(maxComplete, lower); le(id, upper); id++)
-            {
-                Method m = removeCommand(id);
-                if (m != null)
-                {
-                    commandBytes -= m.getBodySize();
-                    m.complete();
-                }
-            }
+            commands.removeRange(max(maxComplete, lower), upper, _commandCompleter);
             if (le(lower, maxComplete + 1))
             {
                 maxComplete = max(maxComplete, upper);
@@ -791,13 +780,13 @@ public class ServerSession extends SessionInvoker
 
             synchronized (results)
             {
-                for (ResultFuture<?> result : results.values())
-                {
-                    synchronized(result)
-                    {
-                        result.notifyAll();
-                    }
-                }
+                results.visitAll((id, result) ->
+                                 {
+                                     synchronized (result)
+                                     {
+                                         result.notifyAll();
+                                     }
+                                 });
             }
             if(state == CLOSED)
             {
@@ -989,7 +978,7 @@ public class ServerSession extends SessionInvoker
 
     public void onMessageDispositionChange(MessageTransfer xfr, MessageDispositionChangeListener acceptListener)
     {
-        _messageDispositionListenerMap.put(xfr.getId(), acceptListener);
+        _messageDispositionListeners.put(xfr.getId(), acceptListener);
     }
 
     public void accept(RangeSet ranges)
@@ -1031,49 +1020,14 @@ public class ServerSession extends SessionInvoker
 
     public RangeSet acquire(RangeSet transfers)
     {
-        RangeSet acquired = RangeSetFactory.createRangeSet();
-
-        if(!_messageDispositionListenerMap.isEmpty())
+        final RangeSet acquired = RangeSetFactory.createRangeSet();
+        _messageDispositionListeners.visitRanges(transfers, (id, changeListener) ->
         {
-            Iterator<Integer> unacceptedMessages = _messageDispositionListenerMap.keySet().iterator();
-            Iterator<Range> rangeIter = transfers.iterator();
-
-            if(rangeIter.hasNext())
+            if (changeListener.acquire())
             {
-                Range range = rangeIter.next();
-
-                while(range != null && unacceptedMessages.hasNext())
-                {
-                    int next = unacceptedMessages.next();
-                    while(gt(next, range.getUpper()))
-                    {
-                        if(rangeIter.hasNext())
-                        {
-                            range = rangeIter.next();
-                        }
-                        else
-                        {
-                            range = null;
-                            break;
-                        }
-                    }
-                    if(range != null && range.includes(next))
-                    {
-                        MessageDispositionChangeListener changeListener = _messageDispositionListenerMap.get(next);
-                        if(changeListener != null && changeListener.acquire())
-                        {
-                            acquired.add(next);
-                        }
-                    }
-
-
-                }
-
+                acquired.add(id);
             }
-
-
-        }
-
+        });
         return acquired;
     }
 
@@ -1081,60 +1035,13 @@ public class ServerSession extends SessionInvoker
     {
         if(ranges != null)
         {
-
-            if(ranges.size() == 1)
-            {
-                Range r = ranges.getFirst();
-                for(int i = r.getLower(); i <= r.getUpper(); i++)
-                {
-                    MessageDispositionChangeListener changeListener = _messageDispositionListenerMap.remove(i);
-                    if(changeListener != null)
-                    {
-                        action.performAction(changeListener);
-                    }
-                }
-            }
-            else if(!_messageDispositionListenerMap.isEmpty())
-            {
-                Iterator<Integer> unacceptedMessages = _messageDispositionListenerMap.keySet().iterator();
-                Iterator<Range> rangeIter = ranges.iterator();
-
-                if(rangeIter.hasNext())
-                {
-                    Range range = rangeIter.next();
-
-                    while(range != null && unacceptedMessages.hasNext())
-                    {
-                        int next = unacceptedMessages.next();
-                        while(gt(next, range.getUpper()))
-                        {
-                            if(rangeIter.hasNext())
-                            {
-                                range = rangeIter.next();
-                            }
-                            else
-                            {
-                                range = null;
-                                break;
-                            }
-                        }
-                        if(range != null && range.includes(next))
-                        {
-                            MessageDispositionChangeListener changeListener = _messageDispositionListenerMap.remove(next);
-                            action.performAction(changeListener);
-                        }
-
-
-                    }
-
-                }
-            }
+            _messageDispositionListeners.removeRanges(ranges, (id, changeListener) -> action.performAction(changeListener));
         }
     }
 
     public void removeDispositionListener(Method method)
     {
-        _messageDispositionListenerMap.remove(method.getId());
+        _messageDispositionListeners.remove(method.getId());
     }
 
     public void onClose()
@@ -1156,11 +1063,7 @@ public class ServerSession extends SessionInvoker
             getAddressSpace().getDtxRegistry().endAssociations(_modelObject);
         }
 
-        for(MessageDispositionChangeListener listener : _messageDispositionListenerMap.values())
-        {
-            listener.onRelease(true, true);
-        }
-        _messageDispositionListenerMap.clear();
+        _messageDispositionListeners.clear((id, listener) -> listener.onRelease(true, true));
 
         for (Action<? super Session_0_10> task : _modelObject.getTaskList())
         {
@@ -1611,7 +1514,7 @@ public class ServerSession extends SessionInvoker
 
     public int getUnacknowledgedMessageCount()
     {
-        return _messageDispositionListenerMap.size();
+        return _messageDispositionListeners.size();
     }
 
     public boolean getBlocking()
@@ -71,6 +71,7 @@ import org.apache.qpid.server.model.NamedAddressSpace;
 import org.apache.qpid.server.model.NoFactoryForTypeException;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.protocol.ErrorCodes;
+import org.apache.qpid.server.protocol.MessageDestinationCache;
 import org.apache.qpid.server.protocol.v0_10.transport.*;
 import org.apache.qpid.server.queue.QueueArgumentsConverter;
 import org.apache.qpid.server.store.MessageHandle;
@@ -1048,11 +1049,12 @@ public class ServerSessionDelegate extends MethodDelegate<ServerSession> impleme
     private MessageDestination getDestinationForMessage(ServerSession ssn, MessageTransfer xfr)
     {
         NamedAddressSpace addressSpace = getAddressSpace(ssn);
+        MessageDestinationCache destinationCache = ssn.getModelObject().getDestinationCache();
 
         MessageDestination destination;
         if(xfr.hasDestination())
         {
-            destination = addressSpace.getAttainedMessageDestination(xfr.getDestination());
+            destination = destinationCache.getAttainedMessageDestination(xfr.getDestination());
             if(destination == null)
             {
                 destination = addressSpace.getDefaultDestination();
@@ -1087,7 +1089,7 @@ public class ServerSessionDelegate extends MethodDelegate<ServerSession> impleme
                 && xfr.getHeader().getDeliveryProperties() != null
                 && xfr.getHeader().getDeliveryProperties().getExchange() != null)
         {
-            destination = addressSpace.getAttainedMessageDestination(xfr.getHeader().getDeliveryProperties().getExchange());
+            destination = destinationCache.getAttainedMessageDestination(xfr.getHeader().getDeliveryProperties().getExchange());
         }
         else
         {
@@ -28,6 +28,7 @@ import javax.security.auth.Subject;
 import org.apache.qpid.server.logging.LogSubject;
 import org.apache.qpid.server.model.Connection;
 import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.protocol.MessageDestinationCache;
 import org.apache.qpid.server.protocol.PublishAuthorisationCache;
 import org.apache.qpid.server.session.AbstractAMQPSession;
 import org.apache.qpid.server.util.Action;
@@ -144,6 +145,11 @@ public class Session_0_10 extends AbstractAMQPSession<Session_0_10, ConsumerTarg
         return _publishAuthCache;
     }
 
+    MessageDestinationCache getDestinationCache()
+    {
+        return _destinationCache;
+    }
+
     List<Action<? super Session_0_10>> getTaskList()
     {
         return _taskList;
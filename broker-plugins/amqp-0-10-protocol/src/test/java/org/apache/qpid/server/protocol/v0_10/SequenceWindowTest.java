@@ -0,0 +1,133 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_10;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.apache.qpid.server.protocol.v0_10.transport.RangeSet;
+import org.apache.qpid.server.protocol.v0_10.transport.RangeSetFactory;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class SequenceWindowTest extends UnitTestBase
+{
+    @Test
+    public void testPutGetAndRemove()
+    {
+        final SequenceWindow<String> window = new SequenceWindow<>(1024);
+        for (int id = 0; id < 100; id++)
+        {
+            window.put(id, "v" + id);
+        }
+        assertEquals(100, window.size());
+        assertEquals("v42", window.get(42));
+        assertEquals("v42", window.remove(42));
+        assertNull(window.get(42));
+        assertNull(window.remove(42));
+        assertEquals(99, window.size());
+    }
+
+    @Test
+    public void testRemoveRangesVisitsInIdOrder()
+    {
+        final SequenceWindow<Integer> window = new SequenceWindow<>(1024);
+        for (int id = 0; id < 20; id++)
+        {
+            window.put(id, id);
+        }
+        final RangeSet ranges = RangeSetFactory.createRangeSet();
+        ranges.add(2, 4);
+        ranges.add(10, 11);
+        ranges.add(18, 30);
+
+        final List<Integer> removed = new ArrayList<>();
+        window.removeRanges(ranges, (id, value) -> removed.add(id));
+
+        assertEquals(Arrays.asList(2, 3, 4, 10, 11, 18, 19), removed);
+        assertEquals(13, window.size());
+        assertNull(window.get(3));
+        assertEquals(Integer.valueOf(5), window.get(5));
+    }
+
+    @Test
+    public void testIdsWrapAround()
+    {
+        final SequenceWindow<Integer> window = new SequenceWindow<>(1024);
+        final int first = Integer.MAX_VALUE - 5;
+        for (int i = 0; i < 10; i++)
+        {
+            window.put(first + i, i);
+        }
+
+        final List<Integer> removed = new ArrayList<>();
+        window.removeRange(first, first + 9, (id, value) -> removed.add(value));
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), removed);
+        assertTrue(window.isEmpty());
+    }
+
+    @Test
+    public void testValuesBeyondCapacityRetained()
+    {
+        final SequenceWindow<Integer> window = new SequenceWindow<>(SequenceWindow.INITIAL_CAPACITY);
+        final int count = SequenceWindow.INITIAL_CAPACITY * 4;
+        for (int id = 0; id < count; id++)
+        {
+            window.put(id, id);
+        }
+        assertEquals(count, window.size());
+        assertEquals(Integer.valueOf(0), window.get(0));
+
+        final List<Integer> released = new ArrayList<>();
+        window.clear((id, value) -> released.add(id));
+
+        assertEquals(count, released.size());
+        for (int id = 0; id < count; id++)
+        {
+            assertEquals(Integer.valueOf(id), released.get(id));
+        }
+        assertTrue(window.isEmpty());
+    }
+
+    @Test
+    public void testClearAfterOverflowWithGap()
+    {
+        final SequenceWindow<Integer> window = new SequenceWindow<>(SequenceWindow.INITIAL_CAPACITY);
+        window.put(0, 0);
+        window.put(3, 3);
+        window.put(SequenceWindow.INITIAL_CAPACITY + 1, SequenceWindow.INITIAL_CAPACITY + 1);
+        assertEquals(3, window.size());
+        assertEquals(Integer.valueOf(3), window.get(3));
+
+        final List<Integer> released = new ArrayList<>();
+        window.clear((id, value) -> released.add(id));
+
+        assertEquals(Arrays.asList(0, 3, SequenceWindow.INITIAL_CAPACITY + 1), released);
+        assertTrue(window.isEmpty());
+    }
+}
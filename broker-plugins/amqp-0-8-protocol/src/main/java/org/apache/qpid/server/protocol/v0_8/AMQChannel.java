@@ -1984,7 +1984,7 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
             }
             else
             {
-                destination = vHost.getAttainedMessageDestination(exchangeName.toString());
+                destination = _destinationCache.getAttainedMessageDestination(exchangeName.toString());
             }
 
             // if the exchange does not exist we raise a channel exception
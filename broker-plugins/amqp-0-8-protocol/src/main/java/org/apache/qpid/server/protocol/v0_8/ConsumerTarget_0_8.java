@@ -29,7 +29,7 @@ import org.apache.qpid.server.message.MessageInstance.EntryState;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
 import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.ServerMessage;
-import org.apache.qpid.server.plugin.MessageConverter;
+import org.apache.qpid.server.protocol.ConvertedMessage;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
 import org.apache.qpid.server.txn.AutoCommitTransaction;
 import org.apache.qpid.server.txn.ServerTransaction;
@@ -394,7 +394,7 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget<Consumer
     final protected void doSend(final MessageInstanceConsumer consumer, final MessageInstance entry, final boolean batch)
     {
         ServerMessage serverMessage = entry.getMessage();
-        MessageConverter<ServerMessage<?>, AMQMessage> messageConverter = null;
+        ConvertedMessage<AMQMessage> convertedMessage = null;
         final AMQMessage msg;
         if(serverMessage instanceof AMQMessage)
         {
@@ -402,8 +402,8 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget<Consumer
         }
         else
         {
-            messageConverter = MessageConverterRegistry.getConverter((Class<ServerMessage<?>>) serverMessage.getClass(), AMQMessage.class);
-            msg = messageConverter.convert(serverMessage, getConnection().getAddressSpace());
+            convertedMessage = MessageConverterRegistry.convert(serverMessage, AMQMessage.class, getConnection().getAddressSpace());
+            msg = convertedMessage.getMessage();
         }
 
         try
@@ -412,9 +412,9 @@ public abstract class ConsumerTarget_0_8 extends AbstractConsumerTarget<Consumer
         }
         finally
         {
-            if(messageConverter != null)
+            if(convertedMessage != null)
             {
-                messageConverter.dispose(msg);
+                convertedMessage.release();
             }
         }
     }
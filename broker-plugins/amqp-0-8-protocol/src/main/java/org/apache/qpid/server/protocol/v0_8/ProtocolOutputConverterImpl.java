@@ -177,27 +177,26 @@ public class ProtocolOutputConverterImpl implements ProtocolOutputConverter
         else
         {
             int maxFrameBodySize = (int) _connection.getMaxFrameSize() - AMQFrame.getFrameOverhead();
-            try (QpidByteBuffer contentByteBuffer = content.getContent())
+            // each frame's worth of content is fetched separately, so that content which is not held in memory
+            // is read from the store in pieces no larger than a frame
+            int contentChunkSize = bodySize > maxFrameBodySize ? maxFrameBodySize : bodySize;
+            try (QpidByteBuffer chunk = content.getContent(0, contentChunkSize))
             {
-                int contentChunkSize = bodySize > maxFrameBodySize ? maxFrameBodySize : bodySize;
-                try (QpidByteBuffer chunk = contentByteBuffer.view(0, contentChunkSize))
-                {
-                    writeFrame(new CompositeAMQBodyBlock(channelId,
-                                                         deliverBody,
-                                                         contentHeaderBody,
-                                                         new MessageContentSourceBody(chunk)));
-                }
+                writeFrame(new CompositeAMQBodyBlock(channelId,
+                                                     deliverBody,
+                                                     contentHeaderBody,
+                                                     new MessageContentSourceBody(chunk)));
+            }
 
-                int writtenSize = contentChunkSize;
-                while (writtenSize < bodySize)
+            int writtenSize = contentChunkSize;
+            while (writtenSize < bodySize)
+            {
+                contentChunkSize =
+                        (bodySize - writtenSize) > maxFrameBodySize ? maxFrameBodySize : bodySize - writtenSize;
+                try (QpidByteBuffer chunk = content.getContent(writtenSize, contentChunkSize))
                 {
-                    contentChunkSize =
-                            (bodySize - writtenSize) > maxFrameBodySize ? maxFrameBodySize : bodySize - writtenSize;
-                    try (QpidByteBuffer chunk = contentByteBuffer.view(writtenSize, contentChunkSize))
-                    {
-                        writtenSize += contentChunkSize;
-                        writeFrame(new AMQFrame(channelId, new MessageContentSourceBody(chunk)));
-                    }
+                    writtenSize += contentChunkSize;
+                    writeFrame(new AMQFrame(channelId, new MessageContentSourceBody(chunk)));
                 }
             }
         }
@@ -110,7 +110,7 @@ public abstract class AbstractReceivingLinkEndpoint<T extends BaseTarget> extend
                 getDeliveryCount().incr();
 
                 getSession().getIncomingDeliveryRegistry()
-                            .addDelivery(transfer.getDeliveryId(),
+                            .addDelivery(transfer.getDeliveryId().intValue(),
                                          new UnsettledDelivery(transfer.getDeliveryTag(), this));
             }
             else
@@ -147,7 +147,7 @@ public abstract class AbstractReceivingLinkEndpoint<T extends BaseTarget> extend
             if (_currentDelivery.isAborted() || (_currentDelivery.getResume() && !_unsettled.containsKey(_currentDelivery.getDeliveryTag())))
             {
                 _unsettled.remove(_currentDelivery.getDeliveryTag());
-                getSession().getIncomingDeliveryRegistry().removeDelivery(_currentDelivery.getDeliveryId());
+                getSession().getIncomingDeliveryRegistry().removeDelivery(_currentDelivery.getDeliveryId().intValue());
                 _currentDelivery = null;
 
                 setLinkCredit(getLinkCredit().add(UnsignedInteger.ONE));
@@ -160,7 +160,7 @@ public abstract class AbstractReceivingLinkEndpoint<T extends BaseTarget> extend
                     if (_currentDelivery.isSettled())
                     {
                         _unsettled.remove(_currentDelivery.getDeliveryTag());
-                        getSession().getIncomingDeliveryRegistry().removeDelivery(_currentDelivery.getDeliveryId());
+                        getSession().getIncomingDeliveryRegistry().removeDelivery(_currentDelivery.getDeliveryId().intValue());
                     }
                     error = receiveDelivery(_currentDelivery);
                     if (error != null)
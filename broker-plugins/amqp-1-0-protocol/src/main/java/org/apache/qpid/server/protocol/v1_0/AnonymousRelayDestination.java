@@ -28,7 +28,7 @@ import org.apache.qpid.server.logging.messages.ExchangeMessages;
 import org.apache.qpid.server.message.MessageDestination;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.DestinationAddress;
-import org.apache.qpid.server.model.NamedAddressSpace;
+import org.apache.qpid.server.protocol.MessageDestinationCache;
 import org.apache.qpid.server.protocol.v1_0.type.Symbol;
 import org.apache.qpid.server.protocol.v1_0.type.messaging.Target;
 import org.apache.qpid.server.protocol.v1_0.type.transport.AmqpError;
@@ -38,15 +38,15 @@ import org.apache.qpid.server.txn.ServerTransaction;
 public class AnonymousRelayDestination implements ReceivingDestination
 {
     private final Target _target;
-    private final NamedAddressSpace _addressSpace;
+    private final MessageDestinationCache _destinationCache;
     private final EventLogger _eventLogger;
     private final boolean _discardUnroutable;
 
-    AnonymousRelayDestination(final NamedAddressSpace addressSpace,
+    AnonymousRelayDestination(final MessageDestinationCache destinationCache,
                                      final Target target,
                                      final EventLogger eventLogger)
     {
-        _addressSpace = addressSpace;
+        _destinationCache = destinationCache;
         _target = target;
         _eventLogger = eventLogger;
         _discardUnroutable = target.getCapabilities() != null && Arrays.asList(target.getCapabilities())
@@ -66,7 +66,7 @@ public class AnonymousRelayDestination implements ReceivingDestination
     {
         final ReceivingDestination destination;
         final String routingAddress = message.getTo();
-        DestinationAddress destinationAddress = new DestinationAddress(_addressSpace, routingAddress);
+        DestinationAddress destinationAddress = new DestinationAddress(_destinationCache, routingAddress);
         MessageDestination messageDestination = destinationAddress.getMessageDestination();
         if (messageDestination != null)
         {
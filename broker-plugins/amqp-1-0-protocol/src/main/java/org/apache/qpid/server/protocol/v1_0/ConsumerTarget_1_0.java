@@ -37,7 +37,7 @@ import org.apache.qpid.server.message.MessageInstance;
 import org.apache.qpid.server.message.MessageInstanceConsumer;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Queue;
-import org.apache.qpid.server.plugin.MessageConverter;
+import org.apache.qpid.server.protocol.ConvertedMessage;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
 import org.apache.qpid.server.protocol.v1_0.type.Binary;
 import org.apache.qpid.server.protocol.v1_0.type.DeliveryState;
@@ -128,17 +128,16 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
     {
         ServerMessage serverMessage = entry.getMessage();
         Message_1_0 message;
-        final MessageConverter<? super ServerMessage, Message_1_0> converter;
+        final ConvertedMessage<Message_1_0> convertedMessage;
         if(serverMessage instanceof Message_1_0)
         {
-            converter = null;
+            convertedMessage = null;
             message = (Message_1_0) serverMessage;
         }
         else
         {
-            converter =
-                    (MessageConverter<? super ServerMessage, Message_1_0>) MessageConverterRegistry.getConverter(serverMessage.getClass(), Message_1_0.class);
-            if (converter == null)
+            convertedMessage = MessageConverterRegistry.convert(serverMessage, Message_1_0.class, _linkEndpoint.getAddressSpace());
+            if (convertedMessage == null)
             {
                 throw new ServerScopedRuntimeException(String.format(
                         "Could not find message converter from '%s' to '%s'."
@@ -146,7 +145,7 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
                         serverMessage.getClass(),
                         Message_1_0.class));
             }
-            message = converter.convert(serverMessage, _linkEndpoint.getAddressSpace());
+            message = convertedMessage.getMessage();
         }
 
         Transfer transfer = new Transfer();
@@ -307,9 +306,9 @@ class ConsumerTarget_1_0 extends AbstractConsumerTarget<ConsumerTarget_1_0>
         finally
         {
             transfer.dispose();
-            if(converter != null)
+            if(convertedMessage != null)
             {
-                converter.dispose(message);
+                convertedMessage.release();
             }
         }
     }
@@ -235,14 +235,7 @@ public class Session_1_0 extends AbstractAMQPSession<Session_1_0, ConsumerTarget
         if (settled)
         {
             final DeliveryRegistry deliveryRegistry = role == Role.RECEIVER ? _incomingDeliveryRegistry : _outgoingDeliveryRegistry;
-
-            SequenceNumber pos = new SequenceNumber(first.intValue());
-            SequenceNumber end = new SequenceNumber(last.intValue());
-            while (pos.compareTo(end) <= 0)
-            {
-                deliveryRegistry.removeDelivery(UnsignedInteger.valueOf(pos.intValue()));
-                pos.incr();
-            }
+            deliveryRegistry.removeDeliveries(first.intValue(), last.intValue());
         }
 
         send(disposition);
@@ -317,7 +310,7 @@ public class Session_1_0 extends AbstractAMQPSession<Session_1_0, ConsumerTarget
         if (!settled)
         {
             final UnsettledDelivery delivery = new UnsettledDelivery(xfr.getDeliveryTag(), endpoint);
-            _outgoingDeliveryRegistry.addDelivery(deliveryId, delivery);
+            _outgoingDeliveryRegistry.addDelivery(deliveryId.intValue(), delivery);
         }
 
         _remoteIncomingWindow--;
@@ -471,7 +464,7 @@ public class Session_1_0 extends AbstractAMQPSession<Session_1_0, ConsumerTarget
     {
         Role dispositionRole = disposition.getRole();
 
-        DeliveryRegistry unsettledDeliveries;
+        final DeliveryRegistry unsettledDeliveries;
 
         if(dispositionRole == Role.RECEIVER)
         {
@@ -482,33 +475,20 @@ public class Session_1_0 extends AbstractAMQPSession<Session_1_0, ConsumerTarget
             unsettledDeliveries = _incomingDeliveryRegistry;
         }
 
-        SequenceNumber deliveryId = new SequenceNumber(disposition.getFirst().intValue());
-        SequenceNumber last;
-        if(disposition.getLast() == null)
-        {
-            last = new SequenceNumber(deliveryId.intValue());
-        }
-        else
-        {
-            last = new SequenceNumber(disposition.getLast().intValue());
-        }
+        final int first = disposition.getFirst().intValue();
+        final int last = disposition.getLast() == null ? first : disposition.getLast().intValue();
+        final DeliveryState state = disposition.getState();
+        final Boolean settled = disposition.getSettled();
 
-        while(deliveryId.compareTo(last)<=0)
+        unsettledDeliveries.visitDeliveries(first, last, (deliveryId, unsettledDelivery) ->
         {
-            UnsignedInteger deliveryIdUnsigned = UnsignedInteger.valueOf(deliveryId.intValue());
-            UnsettledDelivery unsettledDelivery = unsettledDeliveries.getDelivery(deliveryIdUnsigned);
-
-            if(unsettledDelivery != null)
+            LinkEndpoint<?,?> linkEndpoint  = unsettledDelivery.getLinkEndpoint();
+            linkEndpoint.receiveDeliveryState(unsettledDelivery.getDeliveryTag(), state, settled);
+            if (Boolean.TRUE.equals(settled))
             {
-                LinkEndpoint<?,?> linkEndpoint  = unsettledDelivery.getLinkEndpoint();
-                linkEndpoint.receiveDeliveryState(unsettledDelivery.getDeliveryTag(), disposition.getState(), disposition.getSettled());
-                if (Boolean.TRUE.equals(disposition.getSettled()))
-                {
-                    unsettledDeliveries.removeDelivery(deliveryIdUnsigned);
-                }
+                unsettledDeliveries.removeDelivery(deliveryId);
             }
-            deliveryId.incr();
-        }
+        });
     }
 
     public SessionState getSessionState()
@@ -652,7 +632,7 @@ public class Session_1_0 extends AbstractAMQPSession<Session_1_0, ConsumerTarget
             String addr = target.getAddress();
             if (addr == null || "".equals(addr.trim()))
             {
-                destination = new AnonymousRelayDestination(getAddressSpace(), target, _connection.getEventLogger());
+                destination = new AnonymousRelayDestination(_destinationCache, target, _connection.getEventLogger());
             }
             else
             {
@@ -26,10 +26,27 @@ import org.apache.qpid.server.protocol.v1_0.type.UnsignedInteger;
 
 public interface DeliveryRegistry
 {
-    void addDelivery(UnsignedInteger deliveryId, UnsettledDelivery unsettledDelivery);
-    void removeDelivery(UnsignedInteger deliveryId);
-    UnsettledDelivery getDelivery(UnsignedInteger deliveryId);
+    void addDelivery(int deliveryId, UnsettledDelivery unsettledDelivery);
+    void removeDelivery(int deliveryId);
+    UnsettledDelivery getDelivery(int deliveryId);
+
+    /**
+     * Removes all deliveries with ids in the serial number range [first, last].
+     */
+    void removeDeliveries(int first, int last);
+
+    /**
+     * Visits all deliveries with ids in the serial number range [first, last].
+     * The visitor may remove the visited delivery.
+     */
+    void visitDeliveries(int first, int last, DeliveryVisitor visitor);
+
     void removeDeliveriesForLinkEndpoint(LinkEndpoint<?, ?> linkEndpoint);
     UnsignedInteger getDeliveryIdByTag(Binary deliveryTag);
     int size();
+
+    interface DeliveryVisitor
+    {
+        void visit(int deliveryId, UnsettledDelivery unsettledDelivery);
+    }
 }
@@ -20,66 +20,330 @@
  */
 package org.apache.qpid.server.protocol.v1_0.delivery;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 import org.apache.qpid.server.protocol.v1_0.LinkEndpoint;
 import org.apache.qpid.server.protocol.v1_0.type.Binary;
 import org.apache.qpid.server.protocol.v1_0.type.UnsignedInteger;
 
+/**
+ * Holds unsettled deliveries in a ring indexed by the low bits of the delivery id.  Delivery ids are allocated
+ * sequentially by the sending side, so the ids held form a window [first, next) which slides forward as the
+ * deliveries are settled.  Deliveries which would stretch the window beyond {@link #MAXIMUM_CAPACITY} (e.g. a
+ * delivery left unsettled while many others are transferred) are moved to an overflow map ordered by delivery id.
+ * The ring grows to fit the window and shrinks again once the window has fallen to a quarter of its capacity.
+ *
+ * Instances are confined to the connection's IO thread, with the exception of {@link #size()}.
+ */
 public class DeliveryRegistryImpl implements DeliveryRegistry
 {
-    private final Map<UnsignedInteger, UnsettledDelivery> _deliveries = new ConcurrentHashMap<>();
-    private final Map<Binary, UnsignedInteger> _deliveryIds = new ConcurrentHashMap<>();
+    static final int INITIAL_CAPACITY = 64;
+    static final int MAXIMUM_CAPACITY = 1 << 16;
+
+    private final Map<Binary, UnsettledDelivery> _deliveriesByTag = new HashMap<>();
+    private final NavigableMap<Integer, UnsettledDelivery> _overflow = new TreeMap<>();
+    private UnsettledDelivery[] _ring = new UnsettledDelivery[INITIAL_CAPACITY];
+    private int _first;
+    private int _next;
+    private int _ringCount;
+    private volatile int _size;
+
+    private final DeliveryVisitor _remover = (deliveryId, unsettledDelivery) -> removeDelivery(deliveryId);
 
     @Override
-    public void addDelivery(final UnsignedInteger deliveryId, final UnsettledDelivery unsettledDelivery)
+    public void addDelivery(final int deliveryId, final UnsettledDelivery unsettledDelivery)
     {
-        _deliveries.put(deliveryId, unsettledDelivery);
-        _deliveryIds.put(unsettledDelivery.getDeliveryTag(), deliveryId);
+        unsettledDelivery.setDeliveryId(deliveryId);
+        if (_overflow.containsKey(deliveryId))
+        {
+            removeFromOverflow(deliveryId);
+        }
+
+        if (_ringCount == 0)
+        {
+            _first = deliveryId;
+            _next = deliveryId + 1;
+        }
+        else if (deliveryId - _first < 0)
+        {
+            final int span = _next - deliveryId;
+            if (span <= 0 || span > MAXIMUM_CAPACITY)
+            {
+                addToOverflow(deliveryId, unsettledDelivery);
+                return;
+            }
+            ensureCapacity(span);
+            _first = deliveryId;
+        }
+        else if (deliveryId - _next >= 0)
+        {
+            moveToOverflowBefore(deliveryId + 1 - MAXIMUM_CAPACITY);
+            if (_ringCount == 0)
+            {
+                _first = deliveryId;
+            }
+            else
+            {
+                ensureCapacity(deliveryId + 1 - _first);
+            }
+            _next = deliveryId + 1;
+        }
+
+        final int index = deliveryId & (_ring.length - 1);
+        final UnsettledDelivery previous = _ring[index];
+        if (previous == null)
+        {
+            _ringCount++;
+        }
+        else
+        {
+            _deliveriesByTag.remove(previous.getDeliveryTag(), previous);
+        }
+        _ring[index] = unsettledDelivery;
+        _deliveriesByTag.put(unsettledDelivery.getDeliveryTag(), unsettledDelivery);
+        updateSize();
     }
 
     @Override
-    public void removeDelivery(final UnsignedInteger deliveryId)
+    public void removeDelivery(final int deliveryId)
     {
-        UnsettledDelivery unsettledDelivery = _deliveries.remove(deliveryId);
-        if (unsettledDelivery != null)
+        if (isInWindow(deliveryId) && _ring[deliveryId & (_ring.length - 1)] != null)
+        {
+            removeFromRing(deliveryId);
+        }
+        else if (!_overflow.isEmpty())
+        {
+            removeFromOverflow(deliveryId);
+        }
+        updateSize();
+    }
+
+    @Override
+    public UnsettledDelivery getDelivery(final int deliveryId)
+    {
+        UnsettledDelivery unsettledDelivery = null;
+        if (isInWindow(deliveryId))
         {
-            _deliveryIds.remove(unsettledDelivery.getDeliveryTag());
+            unsettledDelivery = _ring[deliveryId & (_ring.length - 1)];
         }
+        if (unsettledDelivery == null && !_overflow.isEmpty())
+        {
+            unsettledDelivery = _overflow.get(deliveryId);
+        }
+        return unsettledDelivery;
     }
 
     @Override
-    public UnsettledDelivery getDelivery(final UnsignedInteger deliveryId)
+    public void removeDeliveries(final int first, final int last)
     {
-        return _deliveries.get(deliveryId);
+        visitDeliveries(first, last, _remover);
+    }
+
+    @Override
+    public void visitDeliveries(final int first, final int last, final DeliveryVisitor visitor)
+    {
+        if (last - first < 0)
+        {
+            return;
+        }
+
+        if (!_overflow.isEmpty())
+        {
+            final List<UnsettledDelivery> overflowed;
+            if (first <= last)
+            {
+                overflowed = new ArrayList<>(_overflow.subMap(first, true, last, true).values());
+            }
+            else
+            {
+                // the range wraps past the largest signed delivery id
+                overflowed = new ArrayList<>(_overflow.tailMap(first, true).values());
+                overflowed.addAll(_overflow.headMap(last, true).values());
+            }
+            for (UnsettledDelivery unsettledDelivery : overflowed)
+            {
+                final int deliveryId = unsettledDelivery.getDeliveryId();
+                if (_overflow.get(deliveryId) == unsettledDelivery)
+                {
+                    visitor.visit(deliveryId, unsettledDelivery);
+                }
+            }
+        }
+
+        if (_ringCount > 0)
+        {
+            // only the intersection of the range with the window needs to be examined
+            final int start = first - _first < 0 ? _first : first;
+            final int end = last - (_next - 1) > 0 ? _next - 1 : last;
+            for (int deliveryId = start; deliveryId - end <= 0 && _ringCount > 0; deliveryId++)
+            {
+                if (isInWindow(deliveryId))
+                {
+                    final UnsettledDelivery unsettledDelivery = _ring[deliveryId & (_ring.length - 1)];
+                    if (unsettledDelivery != null)
+                    {
+                        visitor.visit(deliveryId, unsettledDelivery);
+                    }
+                }
+            }
+        }
     }
 
     @Override
     public void removeDeliveriesForLinkEndpoint(final LinkEndpoint<?, ?> linkEndpoint)
     {
-        Iterator<UnsettledDelivery> iterator = _deliveries.values().iterator();
+        Iterator<UnsettledDelivery> iterator = _overflow.values().iterator();
         while (iterator.hasNext())
         {
             UnsettledDelivery unsettledDelivery = iterator.next();
             if (unsettledDelivery.getLinkEndpoint() == linkEndpoint)
             {
                 iterator.remove();
-                _deliveryIds.remove(unsettledDelivery.getDeliveryTag());
+                _deliveriesByTag.remove(unsettledDelivery.getDeliveryTag(), unsettledDelivery);
+            }
+        }
+
+        for (int deliveryId = _first; _ringCount > 0 && isInWindow(deliveryId); deliveryId++)
+        {
+            final UnsettledDelivery unsettledDelivery = _ring[deliveryId & (_ring.length - 1)];
+            if (unsettledDelivery != null && unsettledDelivery.getLinkEndpoint() == linkEndpoint)
+            {
+                removeFromRing(deliveryId);
             }
         }
+        updateSize();
     }
 
     @Override
     public UnsignedInteger getDeliveryIdByTag(final Binary deliveryTag)
     {
-        return _deliveryIds.get(deliveryTag);
+        final UnsettledDelivery unsettledDelivery = _deliveriesByTag.get(deliveryTag);
+        return unsettledDelivery == null ? null : UnsignedInteger.valueOf(unsettledDelivery.getDeliveryId());
     }
 
     @Override
     public int size()
     {
-        return _deliveries.size();
+        return _size;
+    }
+
+    int getRingCapacity()
+    {
+        return _ring.length;
+    }
+
+    private boolean isInWindow(final int deliveryId)
+    {
+        return _ringCount > 0 && deliveryId - _first >= 0 && deliveryId - _next < 0;
+    }
+
+    private void removeFromRing(final int deliveryId)
+    {
+        final int mask = _ring.length - 1;
+        final int index = deliveryId & mask;
+        final UnsettledDelivery unsettledDelivery = _ring[index];
+        if (unsettledDelivery != null)
+        {
+            _ring[index] = null;
+            _ringCount--;
+            _deliveriesByTag.remove(unsettledDelivery.getDeliveryTag(), unsettledDelivery);
+
+            if (_ringCount == 0)
+            {
+                _first = _next;
+            }
+            else if (deliveryId == _first)
+            {
+                while (_ring[_first & mask] == null)
+                {
+                    _first++;
+                }
+            }
+            else if (deliveryId == _next - 1)
+            {
+                while (_ring[(_next - 1) & mask] == null)
+                {
+                    _next--;
+                }
+            }
+
+            shrinkIfSparse();
+        }
+    }
+
+    private void removeFromOverflow(final int deliveryId)
+    {
+        final UnsettledDelivery unsettledDelivery = _overflow.remove(deliveryId);
+        if (unsettledDelivery != null)
+        {
+            _deliveriesByTag.remove(unsettledDelivery.getDeliveryTag(), unsettledDelivery);
+        }
+    }
+
+    private void addToOverflow(final int deliveryId, final UnsettledDelivery unsettledDelivery)
+    {
+        _overflow.put(deliveryId, unsettledDelivery);
+        _deliveriesByTag.put(unsettledDelivery.getDeliveryTag(), unsettledDelivery);
+        updateSize();
+    }
+
+    private void moveToOverflowBefore(final int newFirst)
+    {
+        final int mask = _ring.length - 1;
+        while (_ringCount > 0 && _first - newFirst < 0)
+        {
+            final int index = _first & mask;
+            final UnsettledDelivery unsettledDelivery = _ring[index];
+            if (unsettledDelivery != null)
+            {
+                _ring[index] = null;
+                _ringCount--;
+                _overflow.put(_first, unsettledDelivery);
+            }
+            _first++;
+        }
+    }
+
+    private void ensureCapacity(final int span)
+    {
+        if (span > _ring.length)
+        {
+            resize(Integer.highestOneBit(span - 1) << 1);
+        }
+    }
+
+    private void shrinkIfSparse()
+    {
+        final int span = _next - _first;
+        int capacity = _ring.length;
+        while (capacity > INITIAL_CAPACITY && span <= capacity >> 2)
+        {
+            capacity >>= 1;
+        }
+        if (capacity != _ring.length)
+        {
+            resize(capacity);
+        }
+    }
+
+    private void resize(final int capacity)
+    {
+        final UnsettledDelivery[] ring = new UnsettledDelivery[capacity];
+        for (int deliveryId = _first; deliveryId - _next < 0; deliveryId++)
+        {
+            ring[deliveryId & (capacity - 1)] = _ring[deliveryId & (_ring.length - 1)];
+        }
+        _ring = ring;
+    }
+
+    private void updateSize()
+    {
+        _size = _ringCount + _overflow.size();
     }
 }
@@ -27,6 +27,7 @@ public class UnsettledDelivery
 {
     private final Binary _deliveryTag;
     private final LinkEndpoint<?,?> _linkEndpoint;
+    private int _deliveryId;
 
     public UnsettledDelivery(final Binary deliveryTag, final LinkEndpoint<?, ?> linkEndpoint)
     {
@@ -43,4 +44,14 @@ public class UnsettledDelivery
     {
         return _linkEndpoint;
     }
+
+    public int getDeliveryId()
+    {
+        return _deliveryId;
+    }
+
+    void setDeliveryId(final int deliveryId)
+    {
+        _deliveryId = deliveryId;
+    }
 }
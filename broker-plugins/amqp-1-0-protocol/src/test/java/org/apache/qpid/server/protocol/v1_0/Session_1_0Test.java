@@ -790,6 +790,7 @@ public class Session_1_0Test extends UnitTestBase
         when(connection.getModel()).thenReturn(BrokerModel.getInstance());
         when(connection.getContextValue(Long.class, Session.PRODUCER_AUTH_CACHE_TIMEOUT)).thenReturn(Session.PRODUCER_AUTH_CACHE_TIMEOUT_DEFAULT);
         when(connection.getContextValue(Integer.class, Session.PRODUCER_AUTH_CACHE_SIZE)).thenReturn(Session.PRODUCER_AUTH_CACHE_SIZE_DEFAULT);
+        when(connection.getContextValue(Integer.class, Session.PRODUCER_DESTINATION_CACHE_SIZE)).thenReturn(Session.PRODUCER_DESTINATION_CACHE_SIZE_DEFAULT);
         when(connection.getContextValue(Long.class, Connection.MAX_UNCOMMITTED_IN_MEMORY_SIZE)).thenReturn(Connection.DEFAULT_MAX_UNCOMMITTED_IN_MEMORY_SIZE);
         when(connection.getDescribedTypeRegistry()).thenReturn(DESCRIBED_TYPE_REGISTRY);
         when(connection.getMaxFrameSize()).thenReturn(512);
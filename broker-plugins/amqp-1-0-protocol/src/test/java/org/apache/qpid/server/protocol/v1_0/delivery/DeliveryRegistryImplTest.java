@@ -0,0 +1,211 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v1_0.delivery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.qpid.server.protocol.v1_0.LinkEndpoint;
+import org.apache.qpid.server.protocol.v1_0.type.Binary;
+import org.apache.qpid.server.protocol.v1_0.type.UnsignedInteger;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class DeliveryRegistryImplTest extends UnitTestBase
+{
+    private DeliveryRegistryImpl _registry;
+    private LinkEndpoint<?, ?> _linkEndpoint;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        _registry = new DeliveryRegistryImpl();
+        _linkEndpoint = mock(LinkEndpoint.class);
+    }
+
+    @Test
+    public void testAddGetAndRemove()
+    {
+        final UnsettledDelivery delivery = createDelivery(_linkEndpoint, "tag");
+        _registry.addDelivery(10, delivery);
+
+        assertEquals("Unexpected size", 1, _registry.size());
+        assertSame("Unexpected delivery", delivery, _registry.getDelivery(10));
+        assertNull("Unexpected delivery", _registry.getDelivery(11));
+        assertEquals("Unexpected delivery id", UnsignedInteger.valueOf(10), _registry.getDeliveryIdByTag(delivery.getDeliveryTag()));
+
+        _registry.removeDelivery(10);
+
+        assertEquals("Unexpected size", 0, _registry.size());
+        assertNull("Unexpected delivery", _registry.getDelivery(10));
+        assertNull("Unexpected delivery id", _registry.getDeliveryIdByTag(delivery.getDeliveryTag()));
+    }
+
+    @Test
+    public void testRemoveDeliveriesInRange()
+    {
+        final int count = DeliveryRegistryImpl.INITIAL_CAPACITY * 3;
+        for (int i = 0; i < count; i++)
+        {
+            _registry.addDelivery(i, createDelivery(_linkEndpoint, "tag" + i));
+        }
+        assertEquals("Unexpected size", count, _registry.size());
+
+        _registry.removeDeliveries(1, count - 2);
+
+        assertEquals("Unexpected size", 2, _registry.size());
+        assertEquals("Unexpected delivery id", UnsignedInteger.valueOf(0), _registry.getDeliveryIdByTag(tag("tag0")));
+        assertEquals("Unexpected delivery id",
+                     UnsignedInteger.valueOf(count - 1),
+                     _registry.getDeliveryIdByTag(tag("tag" + (count - 1))));
+        assertNull("Unexpected delivery", _registry.getDelivery(1));
+    }
+
+    @Test
+    public void testDeliveryIdWrapAround()
+    {
+        final UnsettledDelivery first = createDelivery(_linkEndpoint, "first");
+        final UnsettledDelivery second = createDelivery(_linkEndpoint, "second");
+        _registry.addDelivery(-1, first);
+        _registry.addDelivery(0, second);
+
+        final List<UnsettledDelivery> visited = new ArrayList<>();
+        _registry.visitDeliveries(-1, 0, (deliveryId, unsettledDelivery) -> visited.add(unsettledDelivery));
+
+        assertEquals("Unexpected number of visited deliveries", 2, visited.size());
+        assertSame("Unexpected delivery", first, visited.get(0));
+        assertSame("Unexpected delivery", second, visited.get(1));
+        assertEquals("Unexpected delivery id",
+                     UnsignedInteger.valueOf(0xFFFFFFFFL),
+                     _registry.getDeliveryIdByTag(first.getDeliveryTag()));
+    }
+
+    @Test
+    public void testLongUnsettledDeliveryMovedToOverflow()
+    {
+        final UnsettledDelivery oldest = createDelivery(_linkEndpoint, "oldest");
+        _registry.addDelivery(0, oldest);
+        for (int i = 1; i <= DeliveryRegistryImpl.MAXIMUM_CAPACITY * 2; i++)
+        {
+            _registry.addDelivery(i, createDelivery(_linkEndpoint, "tag" + i));
+            _registry.removeDelivery(i);
+        }
+        final UnsettledDelivery latest = createDelivery(_linkEndpoint, "latest");
+        _registry.addDelivery(DeliveryRegistryImpl.MAXIMUM_CAPACITY * 3, latest);
+
+        assertEquals("Unexpected size", 2, _registry.size());
+        assertSame("Unexpected delivery", oldest, _registry.getDelivery(0));
+        assertSame("Unexpected delivery", latest, _registry.getDelivery(DeliveryRegistryImpl.MAXIMUM_CAPACITY * 3));
+
+        _registry.removeDeliveries(0, DeliveryRegistryImpl.MAXIMUM_CAPACITY * 3);
+
+        assertEquals("Unexpected size", 0, _registry.size());
+    }
+
+    @Test
+    public void testVisitOverflowedDeliveriesInRangeAcrossWrapAround()
+    {
+        final UnsettledDelivery first = createDelivery(_linkEndpoint, "first");
+        final UnsettledDelivery second = createDelivery(_linkEndpoint, "second");
+        final UnsettledDelivery latest = createDelivery(_linkEndpoint, "latest");
+        _registry.addDelivery(Integer.MAX_VALUE, first);
+        _registry.addDelivery(Integer.MIN_VALUE, second);
+        _registry.addDelivery(Integer.MIN_VALUE + DeliveryRegistryImpl.MAXIMUM_CAPACITY * 2, latest);
+
+        final List<UnsettledDelivery> visited = new ArrayList<>();
+        _registry.visitDeliveries(Integer.MAX_VALUE - 10,
+                                  Integer.MIN_VALUE + 10,
+                                  (deliveryId, unsettledDelivery) -> visited.add(unsettledDelivery));
+
+        assertEquals("Unexpected number of visited deliveries", 2, visited.size());
+        assertSame("Unexpected delivery", first, visited.get(0));
+        assertSame("Unexpected delivery", second, visited.get(1));
+
+        _registry.removeDeliveries(Integer.MAX_VALUE, Integer.MIN_VALUE + DeliveryRegistryImpl.MAXIMUM_CAPACITY * 2);
+
+        assertEquals("Unexpected size", 0, _registry.size());
+    }
+
+    @Test
+    public void testRingShrinksWhenWindowFalls()
+    {
+        final int count = DeliveryRegistryImpl.INITIAL_CAPACITY * 16;
+        for (int i = 0; i < count; i++)
+        {
+            _registry.addDelivery(i, createDelivery(_linkEndpoint, "tag" + i));
+        }
+        assertEquals("Unexpected ring capacity", count, _registry.getRingCapacity());
+
+        for (int i = 0; i < count - 10; i++)
+        {
+            _registry.removeDelivery(i);
+        }
+
+        assertEquals("Unexpected ring capacity", DeliveryRegistryImpl.INITIAL_CAPACITY, _registry.getRingCapacity());
+        assertEquals("Unexpected size", 10, _registry.size());
+        for (int i = count - 10; i < count; i++)
+        {
+            assertEquals("Unexpected delivery id",
+                         UnsignedInteger.valueOf(i),
+                         _registry.getDeliveryIdByTag(_registry.getDelivery(i).getDeliveryTag()));
+        }
+
+        _registry.addDelivery(count, createDelivery(_linkEndpoint, "tag" + count));
+        _registry.removeDeliveries(count - 10, count);
+
+        assertEquals("Unexpected size", 0, _registry.size());
+        assertEquals("Unexpected ring capacity", DeliveryRegistryImpl.INITIAL_CAPACITY, _registry.getRingCapacity());
+    }
+
+    @Test
+    public void testRemoveDeliveriesForLinkEndpoint()
+    {
+        final LinkEndpoint<?, ?> otherLinkEndpoint = mock(LinkEndpoint.class);
+        _registry.addDelivery(1, createDelivery(_linkEndpoint, "tag1"));
+        _registry.addDelivery(2, createDelivery(otherLinkEndpoint, "tag2"));
+        _registry.addDelivery(3, createDelivery(_linkEndpoint, "tag3"));
+
+        _registry.removeDeliveriesForLinkEndpoint(_linkEndpoint);
+
+        assertEquals("Unexpected size", 1, _registry.size());
+        assertNull("Unexpected delivery", _registry.getDelivery(1));
+        assertSame("Unexpected link endpoint", otherLinkEndpoint, _registry.getDelivery(2).getLinkEndpoint());
+        assertNull("Unexpected delivery", _registry.getDelivery(3));
+    }
+
+    private UnsettledDelivery createDelivery(final LinkEndpoint<?, ?> linkEndpoint, final String tag)
+    {
+        return new UnsettledDelivery(tag(tag), linkEndpoint);
+    }
+
+    private Binary tag(final String tag)
+    {
+        return new Binary(tag.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -93,6 +93,7 @@ public abstract class AbstractDerbyMessageStore extends AbstractJDBCMessageStore
         {
             try
             {
+                stopCommitter();
                 doClose();
             }
             finally
@@ -31,7 +31,9 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -46,7 +48,6 @@ import java.util.stream.Collectors;
 
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.SettableFuture;
 import org.slf4j.Logger;
 
 import org.apache.qpid.server.bytebuffer.QpidByteBuffer;
@@ -59,6 +60,7 @@ import org.apache.qpid.server.store.EventManager;
 import org.apache.qpid.server.store.MessageDurability;
 import org.apache.qpid.server.store.MessageEnqueueRecord;
 import org.apache.qpid.server.store.MessageHandle;
+import org.apache.qpid.server.store.MessageIdRange;
 import org.apache.qpid.server.store.MessageMetaDataTypeRegistry;
 import org.apache.qpid.server.store.MessageStore;
 import org.apache.qpid.server.store.StorableMessageMetaData;
@@ -84,11 +86,18 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
     private static final int DB_VERSION = 8;
 
+    public static final String COMMIT_BATCH_SIZE = "qpid.jdbcstore.commitBatchSize";
+    public static final int DEFAULT_COMMIT_BATCH_SIZE = 256;
+
+    public static final String COMMIT_MAXIMUM_WAIT = "qpid.jdbcstore.commitMaximumWait";
+    public static final long DEFAULT_COMMIT_MAXIMUM_WAIT = 0L;
+
     private final AtomicLong _messageId = new AtomicLong(0);
 
     private static final List<Long> EMPTY_LIST = Collections.emptyList();
     private final AtomicReference<List<Long>> _messagesToDelete = new AtomicReference<>(EMPTY_LIST);
     private final AtomicBoolean _messageRemovalScheduled = new AtomicBoolean();
+    private final Object _messageRemovalLock = new Object();
 
 
     protected final EventManager _eventManager = new EventManager();
@@ -104,6 +113,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
     protected abstract void checkMessageStoreOpen();
     private ScheduledThreadPoolExecutor _executor;
+    private CoalescingCommitter<PendingCommit> _committer;
 
     public AbstractJDBCMessageStore()
     {
@@ -227,11 +237,32 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         });
         _executor.prestartAllCoreThreads();
 
+        final Integer commitBatchSize = parent.getContextValue(Integer.class, COMMIT_BATCH_SIZE);
+        final Long commitMaximumWait = parent.getContextValue(Long.class, COMMIT_MAXIMUM_WAIT);
+        _committer = new CoalescingCommitter<>(parent.getName(),
+                                               this::newConnection,
+                                               this::writePendingCommits,
+                                               commitBatchSize == null ? DEFAULT_COMMIT_BATCH_SIZE : commitBatchSize,
+                                               commitMaximumWait == null ? DEFAULT_COMMIT_MAXIMUM_WAIT : commitMaximumWait);
+        _committer.start();
+    }
+
+    /**
+     * Commits any transactions still waiting for the commit thread.  Must be called before the connection provider
+     * is closed.
+     */
+    protected void stopCommitter()
+    {
+        if (_committer != null)
+        {
+            _committer.stop();
+        }
     }
 
     @Override
     public void closeMessageStore()
     {
+        stopCommitter();
         for (StoredJDBCMessage<?> message : _messages)
         {
             message.clear();
@@ -436,26 +467,75 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         if(_messageRemovalScheduled.compareAndSet(false, true))
         {
             _executor.submit(() -> {
-                List<Long> messageIds;
-                do
+                boolean completed = false;
+                try
                 {
-                    messageIds = _messagesToDelete.getAndSet(EMPTY_LIST);
-                    removeMessages(messageIds);
-                } while(!messageIds.isEmpty());
-
-                _messageRemovalScheduled.set(false);
-                if(!_messagesToDelete.get().isEmpty())
+                    while (!completed)
+                    {
+                        final List<Long> messageIds = _messagesToDelete.getAndSet(EMPTY_LIST);
+                        if (messageIds.isEmpty())
+                        {
+                            // only stand down once nothing is pending, so that a waiting reader is not released early
+                            synchronized (_messageRemovalLock)
+                            {
+                                if (_messagesToDelete.get().isEmpty())
+                                {
+                                    completed = true;
+                                    _messageRemovalScheduled.set(false);
+                                    _messageRemovalLock.notifyAll();
+                                }
+                            }
+                        }
+                        else
+                        {
+                            removeMessages(messageIds);
+                        }
+                    }
+                }
+                finally
                 {
-                    scheduleMessageRemoval();
+                    if (!completed)
+                    {
+                        synchronized (_messageRemovalLock)
+                        {
+                            _messageRemovalScheduled.set(false);
+                            _messageRemovalLock.notifyAll();
+                        }
+                        if (!_messagesToDelete.get().isEmpty())
+                        {
+                            scheduleMessageRemoval();
+                        }
+                    }
                 }
-
             });
         }
     }
 
-    boolean isMessageRemovalScheduled()
+    /**
+     * Blocks until no removal of messages is scheduled, so that a subsequent read of the store does not see messages
+     * which have already been removed.
+     */
+    private void awaitMessageRemoval()
     {
-        return _messageRemovalScheduled.get();
+        boolean interrupted = false;
+        synchronized (_messageRemovalLock)
+        {
+            while (_messageRemovalScheduled.get())
+            {
+                try
+                {
+                    _messageRemovalLock.wait();
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
     }
 
     private void removeMessages(List<Long> messageIds)
@@ -576,78 +656,9 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         return new JDBCTransaction();
     }
 
-    private void enqueueMessage(ConnectionWrapper connWrapper, final TransactionLogResource queue, Long messageId) throws StoreException
-    {
-        Connection conn = connWrapper.getConnection();
-
-
-        try
-        {
-            if (getLogger().isDebugEnabled())
-            {
-                getLogger().debug("Enqueuing message {} on queue {} with id {} [Connection {}]",
-                                  messageId, queue.getName(), queue.getId(), conn);
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO " + getQueueEntryTableName()
-                                                                + " (queue_id, message_id) values (?,?)"))
-            {
-                stmt.setString(1, queue.getId().toString());
-                stmt.setLong(2, messageId);
-                stmt.executeUpdate();
-            }
-
-        }
-        catch (SQLException e)
-        {
-            getLogger().error("Failed to enqueue message {}", messageId, e);
-            throw new StoreException("Error writing enqueued message with id " + messageId + " for queue " + queue.getName() + " with id " + queue.getId()
-                                     + " to database", e);
-        }
-
-    }
-
-    private void dequeueMessage(ConnectionWrapper connWrapper, final UUID queueId,
-                                Long messageId) throws StoreException
-    {
-
-        Connection conn = connWrapper.getConnection();
-
-        try
-        {
-            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + getQueueEntryTableName()
-                                                                + " WHERE queue_id = ? AND message_id =?"))
-            {
-                stmt.setString(1, queueId.toString());
-                stmt.setLong(2, messageId);
-                int results = stmt.executeUpdate();
-
-
-                if (results != 1)
-                {
-                    throw new StoreException("Unable to find message with id " + messageId
-                                             + " on queue with id " + queueId);
-                }
-
-                getLogger().debug("Dequeuing message {} on queue with id {}", messageId, queueId);
-
-            }
-
-        }
-        catch (SQLException e)
-        {
-            getLogger().error("Failed to dequeue message {}", messageId, e);
-            throw new StoreException("Error deleting enqueued message with id " + messageId + " for queue with id "
-                                     + queueId + " from database", e);
-        }
-
-    }
-
-    private void removeXid(ConnectionWrapper connWrapper, long format, byte[] globalId, byte[] branchId)
+    private void removeXid(Connection conn, long format, byte[] globalId, byte[] branchId)
             throws StoreException
     {
-        Connection conn = connWrapper.getConnection();
-
         try
         {
             try(PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + getXidTableName()
@@ -684,11 +695,9 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
     }
 
-    private List<Runnable> recordXid(ConnectionWrapper connWrapper, long format, byte[] globalId, byte[] branchId,
-                                     Transaction.EnqueueRecord[] enqueues, Transaction.DequeueRecord[] dequeues) throws StoreException
+    private void recordXid(Connection conn, long format, byte[] globalId, byte[] branchId,
+                           Transaction.EnqueueRecord[] enqueues, Transaction.DequeueRecord[] dequeues) throws StoreException
     {
-        Connection conn = connWrapper.getConnection();
-
 
         try
         {
@@ -742,7 +751,6 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
                 }
 
             }
-            return Collections.emptyList();
         }
         catch (SQLException e)
         {
@@ -797,83 +805,6 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         _deleteActions.remove(action);
     }
 
-    private static final class ConnectionWrapper
-    {
-        private final Connection _connection;
-
-        public ConnectionWrapper(Connection conn)
-        {
-            _connection = conn;
-        }
-
-        public Connection getConnection()
-        {
-            return _connection;
-        }
-    }
-
-
-    private void commitTran(ConnectionWrapper connWrapper) throws StoreException
-    {
-        try
-        {
-            Connection conn = connWrapper.getConnection();
-            conn.commit();
-
-            getLogger().debug("commit tran completed");
-
-            conn.close();
-        }
-        catch (SQLException e)
-        {
-            throw new StoreException("Error commit tx", e);
-        }
-    }
-
-    private <X> ListenableFuture<X> commitTranAsync(final ConnectionWrapper connWrapper, final X val) throws StoreException
-    {
-        final SettableFuture<X> future = SettableFuture.create();
-        _executor.submit(new Runnable()
-                        {
-                            @Override
-                            public void run()
-                            {
-                                try
-                                {
-                                    commitTran(connWrapper);
-                                    future.set(val);
-                                }
-                                catch (RuntimeException e)
-                                {
-                                    future.setException(e);
-                                }
-                            }
-                        });
-        return future;
-    }
-
-    private void abortTran(ConnectionWrapper connWrapper) throws StoreException
-    {
-        if (connWrapper == null)
-        {
-            throw new StoreException("Fatal internal error: transactional context is empty at abortTran");
-        }
-
-        getLogger().debug("abort tran called: {}", connWrapper.getConnection());
-
-        try
-        {
-            Connection conn = connWrapper.getConnection();
-            conn.rollback();
-            conn.close();
-        }
-        catch (SQLException e)
-        {
-            throw new StoreException("Error aborting transaction: " + e.getMessage(), e);
-        }
-
-    }
-
     private void storeMetaData(Connection conn, long messageId, StorableMessageMetaData metaData)
             throws SQLException
     {
@@ -884,17 +815,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             stmt.setLong(1, messageId);
 
-            final int bodySize = 1 + metaData.getStorableSize();
-            byte[] underlying = new byte[bodySize];
-            underlying[0] = (byte) metaData.getType().ordinal();
-            try (QpidByteBuffer buf = QpidByteBuffer.wrap(underlying))
-            {
-                buf.position(1);
-                try (QpidByteBuffer bufSlice = buf.slice())
-                {
-                    metaData.writeToBuffer(buf);
-                }
-            }
+            final byte[] underlying = encodeMetaData(metaData);
             try(ByteArrayInputStream bis = new ByteArrayInputStream(underlying))
             {
                 stmt.setBinaryStream(2, bis, underlying.length);
@@ -914,6 +835,22 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
     }
 
 
+    private static byte[] encodeMetaData(final StorableMessageMetaData metaData)
+    {
+        final int bodySize = 1 + metaData.getStorableSize();
+        byte[] underlying = new byte[bodySize];
+        underlying[0] = (byte) metaData.getType().ordinal();
+        try (QpidByteBuffer buf = QpidByteBuffer.wrap(underlying))
+        {
+            buf.position(1);
+            try (QpidByteBuffer bufSlice = buf.slice())
+            {
+                metaData.writeToBuffer(buf);
+            }
+        }
+        return underlying;
+    }
+
     private static class RecordImpl implements Transaction.EnqueueRecord, Transaction.DequeueRecord, TransactionLogResource, EnqueueableMessage
     {
 
@@ -1107,21 +1044,13 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
     protected class JDBCTransaction implements Transaction
     {
-        private final ConnectionWrapper _connWrapper;
-        private int _storeSizeIncrease;
-        private final List<Runnable> _preCommitActions = new ArrayList<>();
-        private final List<Runnable> _postCommitActions = new ArrayList<>();
+        private final List<StoredJDBCMessage<?>> _messagesToStore = new ArrayList<>();
+        private final List<JDBCEnqueueRecord> _enqueues = new ArrayList<>();
+        private final List<JDBCEnqueueRecord> _dequeues = new ArrayList<>();
+        private final List<Action<Connection>> _xidActions = new ArrayList<>();
 
         protected JDBCTransaction()
         {
-            try
-            {
-                _connWrapper = new ConnectionWrapper(newConnection());
-            }
-            catch (SQLException e)
-            {
-                throw new StoreException(e);
-            }
         }
 
         @Override
@@ -1132,26 +1061,14 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
             final StoredMessage storedMessage = message.getStoredMessage();
             if(storedMessage instanceof StoredJDBCMessage)
             {
-                _preCommitActions.add(new Runnable()
-                {
-                    @Override
-                    public void run()
-                    {
-                        try
-                        {
-                            ((StoredJDBCMessage) storedMessage).store(_connWrapper.getConnection());
-                            _storeSizeIncrease += storedMessage.getContentSize();
-                        }
-                        catch (SQLException e)
-                        {
-                            throw new StoreException("Exception on enqueuing message into message store" + _messageId,
-                                                     e);
-                        }
-                    }
-                });
+                _messagesToStore.add((StoredJDBCMessage<?>) storedMessage);
             }
-            AbstractJDBCMessageStore.this.enqueueMessage(_connWrapper, queue, message.getMessageNumber());
-            return new JDBCEnqueueRecord(queue.getId(), message.getMessageNumber());
+            getLogger().debug("Enqueuing message {} on queue {} with id {}",
+                              message.getMessageNumber(), queue.getName(), queue.getId());
+
+            final JDBCEnqueueRecord record = new JDBCEnqueueRecord(queue.getId(), message.getMessageNumber());
+            _enqueues.add(record);
+            return record;
         }
 
         @Override
@@ -1159,60 +1076,59 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             checkMessageStoreOpen();
 
-            AbstractJDBCMessageStore.this.dequeueMessage(_connWrapper,
-                                                         enqueueRecord.getQueueId(),
-                                                         enqueueRecord.getMessageNumber());
+            _dequeues.add(new JDBCEnqueueRecord(enqueueRecord.getQueueId(), enqueueRecord.getMessageNumber()));
         }
 
         @Override
         public void commitTran()
         {
             checkMessageStoreOpen();
-            doPreCommitActions();
-            AbstractJDBCMessageStore.this.commitTran(_connWrapper);
-            storedSizeChange(_storeSizeIncrease);
-            doPostCommitActions();
+            final PendingCommit pendingCommit = createPendingCommit();
+            _committer.commit(pendingCommit);
+            storedSizeChange(pendingCommit.getStoreSizeIncrease());
         }
 
         @Override
         public <X> ListenableFuture<X> commitTranAsync(final X val)
         {
             checkMessageStoreOpen();
-            doPreCommitActions();
-            ListenableFuture<X> futureResult = AbstractJDBCMessageStore.this.commitTranAsync(_connWrapper, val);
-            storedSizeChange(_storeSizeIncrease);
-            doPostCommitActions();
+            final PendingCommit pendingCommit = createPendingCommit();
+            ListenableFuture<X> futureResult = _committer.commitAsync(pendingCommit, val);
+            storedSizeChange(pendingCommit.getStoreSizeIncrease());
             return futureResult;
         }
 
-        private void doPreCommitActions()
+        private PendingCommit createPendingCommit()
         {
-            for(Runnable action : _preCommitActions)
+            final List<PendingMessage> messages = new ArrayList<>(_messagesToStore.size());
+            for (StoredJDBCMessage<?> storedMessage : _messagesToStore)
             {
-                action.run();
+                final PendingMessage pendingMessage = storedMessage.prepareStore();
+                if (pendingMessage != null)
+                {
+                    messages.add(pendingMessage);
+                }
             }
-            _preCommitActions.clear();
+            final PendingCommit pendingCommit =
+                    new PendingCommit(messages, new ArrayList<>(_enqueues), new ArrayList<>(_dequeues), new ArrayList<>(_xidActions));
+            clear();
+            return pendingCommit;
         }
 
-        private void doPostCommitActions()
+        private void clear()
         {
-            // QPID-7447: prevent unnecessary allocation of empty iterator
-            if (!_postCommitActions.isEmpty())
-            {
-                for (Runnable action : _postCommitActions)
-                {
-                    action.run();
-                }
-                _postCommitActions.clear();
-            }
+            _messagesToStore.clear();
+            _enqueues.clear();
+            _dequeues.clear();
+            _xidActions.clear();
         }
 
         @Override
         public void abortTran()
         {
             checkMessageStoreOpen();
-            _preCommitActions.clear();
-            AbstractJDBCMessageStore.this.abortTran(_connWrapper);
+            getLogger().debug("abort tran called");
+            clear();
         }
 
         @Override
@@ -1220,10 +1136,10 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             checkMessageStoreOpen();
 
-            AbstractJDBCMessageStore.this.removeXid(_connWrapper,
-                                                    record.getFormat(),
-                                                    record.getGlobalId(),
-                                                    record.getBranchId());
+            _xidActions.add(conn -> AbstractJDBCMessageStore.this.removeXid(conn,
+                                                                            record.getFormat(),
+                                                                            record.getGlobalId(),
+                                                                            record.getBranchId()));
         }
 
         @Override
@@ -1235,13 +1151,202 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         {
             checkMessageStoreOpen();
 
-            _postCommitActions.addAll(AbstractJDBCMessageStore.this.recordXid(_connWrapper, format, globalId, branchId, enqueues, dequeues));
+            _xidActions.add(conn -> AbstractJDBCMessageStore.this.recordXid(conn, format, globalId, branchId, enqueues, dequeues));
             return new JDBCStoredXidRecord(format, globalId, branchId);
         }
 
 
     }
 
+    /**
+     * Content of a message captured when the transaction enqueuing it commits, so that it can be written by the
+     * commit thread after the message has been released by the committing thread.
+     */
+    private static final class PendingMessage
+    {
+        private final StoredJDBCMessage<?> _storedMessage;
+        private final byte[] _metaData;
+        private final QpidByteBuffer _content;
+
+        private PendingMessage(final StoredJDBCMessage<?> storedMessage,
+                               final byte[] metaData,
+                               final QpidByteBuffer content)
+        {
+            _storedMessage = storedMessage;
+            _metaData = metaData;
+            _content = content;
+        }
+    }
+
+    /**
+     * The work of a committed transaction waiting to be written by the {@link CoalescingCommitter}.
+     */
+    private final class PendingCommit implements CoalescingCommitter.Work
+    {
+        private final List<PendingMessage> _messages;
+        private final List<JDBCEnqueueRecord> _enqueues;
+        private final List<JDBCEnqueueRecord> _dequeues;
+        private final List<Action<Connection>> _xidActions;
+
+        private PendingCommit(final List<PendingMessage> messages,
+                              final List<JDBCEnqueueRecord> enqueues,
+                              final List<JDBCEnqueueRecord> dequeues,
+                              final List<Action<Connection>> xidActions)
+        {
+            _messages = messages;
+            _enqueues = enqueues;
+            _dequeues = dequeues;
+            _xidActions = xidActions;
+        }
+
+        int getStoreSizeIncrease()
+        {
+            int storeSizeIncrease = 0;
+            for (PendingMessage message : _messages)
+            {
+                storeSizeIncrease += message._storedMessage.getContentSize();
+            }
+            return storeSizeIncrease;
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return _messages.isEmpty() && _enqueues.isEmpty() && _dequeues.isEmpty() && _xidActions.isEmpty();
+        }
+
+        @Override
+        public void committed()
+        {
+            for (PendingMessage message : _messages)
+            {
+                message._storedMessage.storeCompleted();
+                message._content.dispose();
+            }
+        }
+
+        @Override
+        public void aborted()
+        {
+            for (PendingMessage message : _messages)
+            {
+                message._storedMessage.storeFailed();
+                message._content.dispose();
+            }
+            storedSizeChange(-getStoreSizeIncrease());
+        }
+    }
+
+    /**
+     * Writes the work of a batch of committed transactions using a single batched statement per table.  Rows are
+     * inserted before any are deleted so that a dequeue may follow the enqueue it refers to within the same batch.
+     */
+    private void writePendingCommits(final Connection conn, final List<PendingCommit> pendingCommits) throws SQLException
+    {
+        final List<QpidByteBuffer> contentStreams = new ArrayList<>();
+        try (PreparedStatement metaDataStmt = conn.prepareStatement("INSERT INTO " + getMetaDataTableName()
+                                                                     + "( message_id , meta_data ) values (?, ?)");
+             PreparedStatement contentStmt = conn.prepareStatement("INSERT INTO " + getMessageContentTableName()
+                                                                    + "( message_id, content ) values (?, ?)");
+             PreparedStatement enqueueStmt = conn.prepareStatement("INSERT INTO " + getQueueEntryTableName()
+                                                                    + " (queue_id, message_id) values (?,?)");
+             PreparedStatement dequeueStmt = conn.prepareStatement("DELETE FROM " + getQueueEntryTableName()
+                                                                    + " WHERE queue_id = ? AND message_id =?"))
+        {
+            int messages = 0;
+            final List<JDBCEnqueueRecord> dequeues = new ArrayList<>();
+            for (PendingCommit pendingCommit : pendingCommits)
+            {
+                for (PendingMessage message : pendingCommit._messages)
+                {
+                    final long messageId = message._storedMessage.getMessageNumber();
+                    metaDataStmt.setLong(1, messageId);
+                    metaDataStmt.setBinaryStream(2, new ByteArrayInputStream(message._metaData), message._metaData.length);
+                    metaDataStmt.addBatch();
+
+                    final QpidByteBuffer content = message._content.duplicate();
+                    contentStreams.add(content);
+                    contentStmt.setLong(1, messageId);
+                    contentStmt.setBinaryStream(2, content.asInputStream(), content.remaining());
+                    contentStmt.addBatch();
+                    messages++;
+                }
+                for (JDBCEnqueueRecord enqueue : pendingCommit._enqueues)
+                {
+                    enqueueStmt.setString(1, enqueue.getQueueId().toString());
+                    enqueueStmt.setLong(2, enqueue.getMessageNumber());
+                    enqueueStmt.addBatch();
+                }
+                dequeues.addAll(pendingCommit._dequeues);
+            }
+
+            for (JDBCEnqueueRecord dequeue : dequeues)
+            {
+                dequeueStmt.setString(1, dequeue.getQueueId().toString());
+                dequeueStmt.setLong(2, dequeue.getMessageNumber());
+                dequeueStmt.addBatch();
+            }
+
+            if (messages > 0)
+            {
+                metaDataStmt.executeBatch();
+                contentStmt.executeBatch();
+            }
+            enqueueStmt.executeBatch();
+            final int[] results = dequeueStmt.executeBatch();
+            for (int i = 0; i < results.length; i++)
+            {
+                if (results[i] != 1 && results[i] != Statement.SUCCESS_NO_INFO)
+                {
+                    final JDBCEnqueueRecord dequeue = dequeues.get(i);
+                    throw new StoreException("Unable to find message with id " + dequeue.getMessageNumber()
+                                             + " on queue with id " + dequeue.getQueueId());
+                }
+            }
+
+            for (PendingCommit pendingCommit : pendingCommits)
+            {
+                for (Action<Connection> xidAction : pendingCommit._xidActions)
+                {
+                    xidAction.performAction(conn);
+                }
+            }
+            getLogger().debug("Wrote {} messages for {} transactions", messages, pendingCommits.size());
+        }
+        finally
+        {
+            for (QpidByteBuffer content : contentStreams)
+            {
+                content.dispose();
+            }
+        }
+    }
+
+    public long getCommitCount()
+    {
+        return _committer == null ? 0L : _committer.getCommitCount();
+    }
+
+    public long getCommittedTransactionCount()
+    {
+        return _committer == null ? 0L : _committer.getCommittedTransactionCount();
+    }
+
+    public long getTotalCommitTime()
+    {
+        return _committer == null ? 0L : _committer.getTotalCommitTime();
+    }
+
+    public int getLastCommitBatchSize()
+    {
+        return _committer == null ? 0 : _committer.getLastBatchSize();
+    }
+
+    public long getLastCommitLatency()
+    {
+        return _committer == null ? 0L : _committer.getLastCommitLatency();
+    }
+
     private static class JDBCStoredXidRecord implements Transaction.StoredXidRecord
     {
         private final long _format;
@@ -1395,6 +1500,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         private final int _metadataSize;
 
         private MessageDataRef<T> _messageDataRef;
+        private boolean _storePending;
 
         StoredJDBCMessage(long messageId,
                           T metaData, boolean isRecovered)
@@ -1515,7 +1621,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
         synchronized void store(final Connection conn) throws SQLException
         {
-            if (!stored())
+            if (!stored() && !_storePending)
             {
                 AbstractJDBCMessageStore.this.storeMetaData(conn, _messageId, _messageDataRef.getMetaData());
                 AbstractJDBCMessageStore.this.addContent(conn, _messageId,
@@ -1529,11 +1635,51 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
             }
         }
 
+        /**
+         * Captures the message for writing by the commit thread.  Until the write completes the message is neither
+         * flowed to disk nor stored by another transaction.
+         *
+         * @return the captured message, or null if the message is already stored or being stored
+         */
+        synchronized PendingMessage prepareStore()
+        {
+            if (_messageDataRef == null || stored() || _storePending)
+            {
+                return null;
+            }
+            _storePending = true;
+            final QpidByteBuffer data = _messageDataRef.getData();
+            return new PendingMessage(this,
+                                      encodeMetaData(_messageDataRef.getMetaData()),
+                                      data == null ? QpidByteBuffer.emptyQpidByteBuffer() : data.duplicate());
+        }
+
+        synchronized void storeCompleted()
+        {
+            _storePending = false;
+            getLogger().debug("Stored message {} to store", _messageId);
+            if (_messageDataRef == null)
+            {
+                // removed whilst the store was pending
+                AbstractJDBCMessageStore.this.removeMessageAsync(_messageId);
+                storedSizeChange(-getContentSize());
+            }
+            else
+            {
+                _messageDataRef.setSoft();
+            }
+        }
+
+        synchronized void storeFailed()
+        {
+            _storePending = false;
+        }
+
         synchronized ListenableFuture<Void> flushToStore()
         {
             if (_messageDataRef != null)
             {
-                if(!stored())
+                if(!stored() && !_storePending)
                 {
                     try (Connection conn = newConnection())
                     {
@@ -1605,6 +1751,11 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         @Override
         public synchronized boolean flowToDisk()
         {
+            if (_storePending)
+            {
+                // the commit thread is still writing the content, so it cannot be released yet
+                return false;
+            }
 
             flushToStore();
             if(_messageDataRef != null && !_messageDataRef.isHardRef())
@@ -1654,6 +1805,60 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
 
     private class JDBCMessageStoreReader implements MessageStoreReader
     {
+        /**
+         * Maximum number of message ids in the IN clause of a single statement retrieving messages in bulk.
+         */
+        private static final int MESSAGE_RETRIEVAL_BATCH_SIZE = 256;
+
+        @Override
+        public List<StoredMessage<?>> getMessages(final long[] messageIds) throws StoreException
+        {
+            checkMessageStoreOpen();
+            awaitMessageRemoval();
+
+            final Map<Long, StoredMessage<?>> messagesById = new HashMap<>();
+            try (Connection conn = newAutoCommitConnection())
+            {
+                for (int offset = 0; offset < messageIds.length; offset += MESSAGE_RETRIEVAL_BATCH_SIZE)
+                {
+                    final int batchSize = Math.min(MESSAGE_RETRIEVAL_BATCH_SIZE, messageIds.length - offset);
+                    final String parameters = String.join(",", Collections.nCopies(batchSize, "?"));
+                    try (PreparedStatement stmt = conn.prepareStatement("SELECT message_id, meta_data FROM "
+                                                                        + getMetaDataTableName()
+                                                                        + " WHERE message_id IN (" + parameters + ")"))
+                    {
+                        for (int i = 0; i < batchSize; i++)
+                        {
+                            stmt.setLong(i + 1, messageIds[offset + i]);
+                        }
+                        try (ResultSet rs = stmt.executeQuery())
+                        {
+                            while (rs.next())
+                            {
+                                final long messageId = rs.getLong(1);
+                                try (InputStream blobAsInputStream = getBlobAsInputStream(rs, 2))
+                                {
+                                    final StorableMessageMetaData metaData =
+                                            getStorableMessageMetaData(messageId, blobAsInputStream);
+                                    messagesById.put(messageId, createStoredJDBCMessage(messageId, metaData, true));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            catch (SQLException | IOException e)
+            {
+                throw new StoreException("Error encountered when retrieving messages", e);
+            }
+
+            final List<StoredMessage<?>> messages = new ArrayList<>(messageIds.length);
+            for (long messageId : messageIds)
+            {
+                messages.add(messagesById.get(messageId));
+            }
+            return messages;
+        }
 
         @Override
         public StoredMessage<?> getMessage(long messageId) throws StoreException
@@ -1702,7 +1907,7 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
         public void visitMessages(MessageHandler handler) throws StoreException
         {
             checkMessageStoreOpen();
-            while(isMessageRemovalScheduled());
+            awaitMessageRemoval();
             try(Connection conn = newAutoCommitConnection())
             {
                 try (Statement stmt = conn.createStatement())
@@ -1732,6 +1937,72 @@ public abstract class AbstractJDBCMessageStore implements MessageStore
             }
         }
 
+        @Override
+        public MessageIdRange getMessageIdRange() throws StoreException
+        {
+            checkMessageStoreOpen();
+            awaitMessageRemoval();
+            try(Connection conn = newAutoCommitConnection())
+            {
+                try (Statement stmt = conn.createStatement())
+                {
+                    try (ResultSet rs = stmt.executeQuery("SELECT MIN(message_id), MAX(message_id) FROM "
+                                                          + getMetaDataTableName()))
+                    {
+                        if (rs.next())
+                        {
+                            final long from = rs.getLong(1);
+                            if (!rs.wasNull())
+                            {
+                                return new MessageIdRange(from, rs.getLong(2));
+                            }
+                        }
+                        return null;
+                    }
+                }
+            }
+            catch (SQLException e)
+            {
+                throw new StoreException("Error encountered when determining message id range", e);
+            }
+        }
+
+        @Override
+        public void visitMessages(MessageIdRange range, MessageHandler handler) throws StoreException
+        {
+            checkMessageStoreOpen();
+            try(Connection conn = newAutoCommitConnection())
+            {
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT message_id, meta_data FROM "
+                                                                    + getMetaDataTableName()
+                                                                    + " WHERE message_id >= ? AND message_id <= ?"))
+                {
+                    stmt.setLong(1, range.getFrom());
+                    stmt.setLong(2, range.getTo());
+                    try (ResultSet rs = stmt.executeQuery())
+                    {
+                        while (rs.next())
+                        {
+                            long messageId = rs.getLong(1);
+                            try (InputStream dataAsInputStream = getBlobAsInputStream(rs, 2))
+                            {
+                                StorableMessageMetaData metaData = getStorableMessageMetaData(messageId, dataAsInputStream);
+                                StoredJDBCMessage message = createStoredJDBCMessage(messageId, metaData, true);
+                                if (!handler.handle(message))
+                                {
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            catch (SQLException | IOException e)
+            {
+                throw new StoreException("Error encountered when visiting messages", e);
+            }
+        }
+
         @Override
         public void visitMessageInstances(TransactionLogResource queue, MessageInstanceHandler handler)
                 throws StoreException
@@ -0,0 +1,426 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.qpid.server.store.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.server.store.StoreException;
+
+/**
+ * Commits the work of concurrent store transactions together.  A single commit thread takes the work queued by
+ * transactions committing at the same time, writes it within one JDBC transaction (allowing the writer to batch the
+ * statements), and commits once, completing every transaction in the batch.
+ *
+ * If a batch cannot be committed it is rolled back and each transaction in it is retried on its own, so that a
+ * failing transaction does not cause the failure of the others.  Any failure, including an Error, fails the
+ * transactions concerned rather than the commit thread.  Once a batch is committed, a failure notifying one of its
+ * transactions fails only that transaction; the batch is never written again.
+ */
+class CoalescingCommitter<W extends CoalescingCommitter.Work>
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoalescingCommitter.class);
+
+    interface Work
+    {
+        boolean isEmpty();
+
+        void committed();
+
+        void aborted();
+    }
+
+    interface Writer<W>
+    {
+        void write(Connection connection, List<W> work) throws SQLException;
+    }
+
+    interface ConnectionSource
+    {
+        Connection newConnection() throws SQLException;
+    }
+
+    private final BlockingQueue<Job<W, ?>> _jobQueue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean _stopped = new AtomicBoolean();
+    private final ConnectionSource _connectionSource;
+    private final Writer<W> _writer;
+    private final int _maximumBatchSize;
+    private final long _maximumWaitNanos;
+    private final Thread _commitThread;
+
+    private final AtomicLong _commitCount = new AtomicLong();
+    private final AtomicLong _committedTransactionCount = new AtomicLong();
+    private final AtomicLong _totalCommitTime = new AtomicLong();
+    private volatile int _lastBatchSize;
+    private volatile long _lastCommitLatency;
+
+    CoalescingCommitter(final String name,
+                        final ConnectionSource connectionSource,
+                        final Writer<W> writer,
+                        final int maximumBatchSize,
+                        final long maximumWait)
+    {
+        _connectionSource = connectionSource;
+        _writer = writer;
+        _maximumBatchSize = Math.max(1, maximumBatchSize);
+        _maximumWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, maximumWait));
+        _commitThread = new Thread(this::run, "Commit-Thread-" + name);
+        _commitThread.setDaemon(true);
+    }
+
+    void start()
+    {
+        _commitThread.start();
+    }
+
+    void stop()
+    {
+        if (_stopped.compareAndSet(false, true))
+        {
+            if (Thread.currentThread() != _commitThread)
+            {
+                try
+                {
+                    _commitThread.join();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                abortRemainingJobs();
+            }
+        }
+    }
+
+    void commit(final W work)
+    {
+        if (work.isEmpty())
+        {
+            work.committed();
+        }
+        else if (Thread.currentThread() == _commitThread)
+        {
+            final Job<W, Void> job = new Job<>(work, null);
+            process(Collections.singletonList(job));
+            job.getResult();
+        }
+        else
+        {
+            final Job<W, Void> job = new Job<>(work, null);
+            addJob(job);
+            job.getResult();
+        }
+    }
+
+    <X> ListenableFuture<X> commitAsync(final W work, final X val)
+    {
+        if (work.isEmpty())
+        {
+            work.committed();
+            return Futures.immediateFuture(val);
+        }
+        final Job<W, X> job = new Job<>(work, val);
+        addJob(job);
+        return job.getFuture();
+    }
+
+    long getCommitCount()
+    {
+        return _commitCount.get();
+    }
+
+    long getCommittedTransactionCount()
+    {
+        return _committedTransactionCount.get();
+    }
+
+    long getTotalCommitTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_totalCommitTime.get());
+    }
+
+    int getLastBatchSize()
+    {
+        return _lastBatchSize;
+    }
+
+    long getLastCommitLatency()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_lastCommitLatency);
+    }
+
+    private void addJob(final Job<W, ?> job)
+    {
+        if (_stopped.get())
+        {
+            throw new StoreException("Commit thread has been stopped");
+        }
+        _jobQueue.add(job);
+        // the commit thread may have taken its last look at the queue before the job was added
+        if (_stopped.get() && _jobQueue.remove(job))
+        {
+            throw new StoreException("Commit thread has been stopped");
+        }
+    }
+
+    private void abortRemainingJobs()
+    {
+        Job<W, ?> job;
+        while ((job = _jobQueue.poll()) != null)
+        {
+            job.abort(new StoreException("Commit thread has been stopped"));
+        }
+    }
+
+    private void run()
+    {
+        final List<Job<W, ?>> batch = new ArrayList<>(_maximumBatchSize);
+        while (!_stopped.get() || !_jobQueue.isEmpty())
+        {
+            try
+            {
+                final Job<W, ?> first = _stopped.get() ? _jobQueue.poll() : _jobQueue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null)
+                {
+                    continue;
+                }
+                batch.add(first);
+                _jobQueue.drainTo(batch, _maximumBatchSize - batch.size());
+
+                final long deadline = System.nanoTime() + _maximumWaitNanos;
+                long remaining;
+                while (batch.size() < _maximumBatchSize
+                       && !_stopped.get()
+                       && (remaining = deadline - System.nanoTime()) > 0)
+                {
+                    final Job<W, ?> job = _jobQueue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (job == null)
+                    {
+                        break;
+                    }
+                    batch.add(job);
+                    _jobQueue.drainTo(batch, _maximumBatchSize - batch.size());
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                _stopped.set(true);
+            }
+
+            if (!batch.isEmpty())
+            {
+                try
+                {
+                    process(batch);
+                }
+                catch (Throwable t)
+                {
+                    // keep the commit thread alive, failing anything left incomplete so that no caller waits forever
+                    LOGGER.error("Unexpected failure committing batch of {} transactions", batch.size(), t);
+                    for (Job<W, ?> job : batch)
+                    {
+                        job.abort(t);
+                    }
+                }
+                finally
+                {
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void process(final List<Job<W, ?>> batch)
+    {
+        final long startTime = System.nanoTime();
+        try
+        {
+            write(batch);
+        }
+        catch (Throwable e)
+        {
+            if (batch.size() == 1)
+            {
+                batch.get(0).abort(e);
+            }
+            else
+            {
+                LOGGER.debug("Failed to commit batch of {} transactions, committing individually", batch.size(), e);
+                for (Job<W, ?> job : batch)
+                {
+                    process(Collections.singletonList(job));
+                }
+            }
+            return;
+        }
+
+        final long endTime = System.nanoTime();
+        _commitCount.incrementAndGet();
+        _committedTransactionCount.addAndGet(batch.size());
+        _totalCommitTime.addAndGet(endTime - startTime);
+        _lastBatchSize = batch.size();
+        _lastCommitLatency = endTime - batch.get(0).getCreateTime();
+
+        for (Job<W, ?> job : batch)
+        {
+            job.complete();
+        }
+    }
+
+    private void write(final List<Job<W, ?>> batch) throws SQLException
+    {
+        final List<W> work = new ArrayList<>(batch.size());
+        for (Job<W, ?> job : batch)
+        {
+            work.add(job.getWork());
+        }
+
+        try (Connection connection = _connectionSource.newConnection())
+        {
+            try
+            {
+                _writer.write(connection, work);
+                connection.commit();
+            }
+            catch (Throwable e)
+            {
+                try
+                {
+                    connection.rollback();
+                }
+                catch (SQLException t)
+                {
+                    // ignore - we are re-throwing underlying exception
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static final class Job<W extends Work, X>
+    {
+        private final W _work;
+        private final X _value;
+        private final SettableFuture<X> _future = SettableFuture.create();
+        private final long _createTime = System.nanoTime();
+
+        private Job(final W work, final X value)
+        {
+            _work = work;
+            _value = value;
+        }
+
+        W getWork()
+        {
+            return _work;
+        }
+
+        long getCreateTime()
+        {
+            return _createTime;
+        }
+
+        ListenableFuture<X> getFuture()
+        {
+            return _future;
+        }
+
+        void complete()
+        {
+            try
+            {
+                _work.committed();
+                _future.set(_value);
+            }
+            catch (Throwable e)
+            {
+                // the work is already committed, so it must not be aborted
+                LOGGER.error("Failed to complete committed transaction", e);
+                _future.setException(e instanceof StoreException ? e : new StoreException("Error commit tx", e));
+            }
+        }
+
+        void abort(final Throwable e)
+        {
+            if (_future.isDone())
+            {
+                return;
+            }
+            try
+            {
+                _work.aborted();
+            }
+            finally
+            {
+                _future.setException(e instanceof StoreException ? e : new StoreException("Error commit tx", e));
+            }
+        }
+
+        void getResult()
+        {
+            boolean interrupted = false;
+            try
+            {
+                while (true)
+                {
+                    try
+                    {
+                        _future.get();
+                        return;
+                    }
+                    catch (InterruptedException e)
+                    {
+                        interrupted = true;
+                    }
+                    catch (ExecutionException e)
+                    {
+                        final Throwable cause = e.getCause();
+                        throw cause instanceof StoreException
+                                ? (StoreException) cause
+                                : new StoreException("Error commit tx", cause);
+                    }
+                }
+            }
+            finally
+            {
+                if (interrupted)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -21,6 +21,10 @@ package org.apache.qpid.server.virtualhost.jdbc;
 
 import org.apache.qpid.server.model.ManagedAttribute;
 import org.apache.qpid.server.model.ManagedContextDefault;
+import org.apache.qpid.server.model.ManagedStatistic;
+import org.apache.qpid.server.model.StatisticType;
+import org.apache.qpid.server.model.StatisticUnit;
+import org.apache.qpid.server.store.jdbc.AbstractJDBCMessageStore;
 import org.apache.qpid.server.store.jdbc.DefaultConnectionProviderFactory;
 import org.apache.qpid.server.store.jdbc.JDBCSettings;
 import org.apache.qpid.server.virtualhost.QueueManagingVirtualHost;
@@ -57,4 +61,43 @@ public interface JDBCVirtualHost<X extends JDBCVirtualHost<X>> extends QueueMana
             immutable = true)
     String getTableNamePrefix();
 
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = AbstractJDBCMessageStore.COMMIT_BATCH_SIZE,
+            description = "Maximum number of concurrently committing store transactions written together"
+                          + " within a single database transaction")
+    int DEFAULT_COMMIT_BATCH_SIZE = AbstractJDBCMessageStore.DEFAULT_COMMIT_BATCH_SIZE;
+
+    @SuppressWarnings("unused")
+    @ManagedContextDefault(name = AbstractJDBCMessageStore.COMMIT_MAXIMUM_WAIT,
+            description = "Maximum time, in milliseconds, the store waits for further transactions to join a"
+                          + " batch before committing it.  Zero commits the transactions already waiting"
+                          + " without delay.")
+    long DEFAULT_COMMIT_MAXIMUM_WAIT = AbstractJDBCMessageStore.DEFAULT_COMMIT_MAXIMUM_WAIT;
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Store Commits",
+                      description = "Total number of database transactions committed by the message store.")
+    long getStoreCommitCount();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.COUNT, label = "Store Transactions",
+                      description = "Total number of store transactions committed by the message store. Divided by"
+                                    + " the number of store commits, gives the average commit batch size.")
+    long getStoreCommittedTransactionCount();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.COUNT, label = "Last Store Commit Batch Size",
+                      description = "Number of store transactions written by the most recent database commit.")
+    int getStoreLastCommitBatchSize();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.CUMULATIVE, units = StatisticUnit.TIME_DURATION, label = "Store Commit Time",
+                      description = "Total time, in milliseconds, spent writing and committing store transactions.")
+    long getStoreCommitTime();
+
+    @SuppressWarnings("unused")
+    @ManagedStatistic(statisticType = StatisticType.POINT_IN_TIME, units = StatisticUnit.TIME_DURATION, label = "Last Store Commit Latency",
+                      description = "Time, in milliseconds, from the oldest transaction of the most recent commit"
+                                    + " being queued to the completion of the commit.")
+    long getStoreLastCommitLatency();
 }
@@ -122,6 +122,41 @@ public class JDBCVirtualHostImpl extends AbstractVirtualHost<JDBCVirtualHostImpl
         }
     }
 
+    @Override
+    public long getStoreCommitCount()
+    {
+        final AbstractJDBCMessageStore store = getStore();
+        return store == null ? 0L : store.getCommitCount();
+    }
+
+    @Override
+    public long getStoreCommittedTransactionCount()
+    {
+        final AbstractJDBCMessageStore store = getStore();
+        return store == null ? 0L : store.getCommittedTransactionCount();
+    }
+
+    @Override
+    public int getStoreLastCommitBatchSize()
+    {
+        final AbstractJDBCMessageStore store = getStore();
+        return store == null ? 0 : store.getLastCommitBatchSize();
+    }
+
+    @Override
+    public long getStoreCommitTime()
+    {
+        final AbstractJDBCMessageStore store = getStore();
+        return store == null ? 0L : store.getTotalCommitTime();
+    }
+
+    @Override
+    public long getStoreLastCommitLatency()
+    {
+        final AbstractJDBCMessageStore store = getStore();
+        return store == null ? 0L : store.getLastCommitLatency();
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.qpid.server.store.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.After;
+import org.junit.Test;
+
+import org.apache.qpid.server.store.StoreException;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class CoalescingCommitterTest extends UnitTestBase
+{
+    private final List<Integer> _batchSizes = Collections.synchronizedList(new ArrayList<>());
+    private CoalescingCommitter<TestWork> _committer;
+
+    @After
+    public void tearDown() throws Exception
+    {
+        if (_committer != null)
+        {
+            _committer.stop();
+        }
+    }
+
+    @Test
+    public void testConcurrentTransactionsCommittedTogether() throws Exception
+    {
+        final CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        final CountDownLatch firstWriteReleased = new CountDownLatch(1);
+        _committer = createCommitter(10, 0L, (connection, work) -> {
+            _batchSizes.add(work.size());
+            if (_batchSizes.size() == 1)
+            {
+                firstWriteStarted.countDown();
+                awaitLatch(firstWriteReleased);
+            }
+        });
+
+        final TestWork first = new TestWork(false);
+        final ListenableFuture<String> firstFuture = _committer.commitAsync(first, "first");
+        assertTrue("First write did not start", firstWriteStarted.await(5, TimeUnit.SECONDS));
+
+        final List<TestWork> work = new ArrayList<>();
+        final List<ListenableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            final TestWork testWork = new TestWork(false);
+            work.add(testWork);
+            futures.add(_committer.commitAsync(testWork, i));
+        }
+        firstWriteReleased.countDown();
+
+        assertEquals("Unexpected result", "first", firstFuture.get(5, TimeUnit.SECONDS));
+        for (int i = 0; i < futures.size(); i++)
+        {
+            assertEquals("Unexpected result", Integer.valueOf(i), futures.get(i).get(5, TimeUnit.SECONDS));
+            assertTrue("Work not committed", work.get(i)._committed);
+        }
+        assertTrue("Work not committed", first._committed);
+
+        assertEquals("Unexpected batch sizes", Arrays.asList(1, 3), new ArrayList<>(_batchSizes));
+        assertEquals("Unexpected commit count", 2, _committer.getCommitCount());
+        assertEquals("Unexpected committed transaction count", 4, _committer.getCommittedTransactionCount());
+        assertEquals("Unexpected last batch size", 3, _committer.getLastBatchSize());
+    }
+
+    @Test
+    public void testFailingTransactionDoesNotFailBatch() throws Exception
+    {
+        _committer = createCommitter(3, TimeUnit.SECONDS.toMillis(5), (connection, work) -> {
+            _batchSizes.add(work.size());
+            for (TestWork testWork : work)
+            {
+                if (testWork._failing)
+                {
+                    throw new SQLException("Failing work");
+                }
+            }
+        });
+
+        final TestWork good1 = new TestWork(false);
+        final TestWork bad = new TestWork(true);
+        final TestWork good2 = new TestWork(false);
+        final ListenableFuture<Void> future1 = _committer.commitAsync(good1, null);
+        final ListenableFuture<Void> future2 = _committer.commitAsync(bad, null);
+        final ListenableFuture<Void> future3 = _committer.commitAsync(good2, null);
+
+        future1.get(5, TimeUnit.SECONDS);
+        future3.get(5, TimeUnit.SECONDS);
+        try
+        {
+            future2.get(5, TimeUnit.SECONDS);
+            fail("Exception not thrown");
+        }
+        catch (ExecutionException e)
+        {
+            // pass
+        }
+
+        assertTrue("Work not committed", good1._committed);
+        assertTrue("Work not committed", good2._committed);
+        assertTrue("Work not aborted", bad._aborted);
+        assertEquals("Unexpected batch sizes", Arrays.asList(3, 1, 1, 1), new ArrayList<>(_batchSizes));
+        assertEquals("Unexpected committed transaction count", 2, _committer.getCommittedTransactionCount());
+    }
+
+    @Test
+    public void testErrorFailsTransactionWithoutStoppingCommitThread() throws Exception
+    {
+        _committer = createCommitter(1, 0L, (connection, work) -> {
+            _batchSizes.add(work.size());
+            if (work.get(0)._failing)
+            {
+                throw new OutOfMemoryError("Test error");
+            }
+        });
+
+        final TestWork bad = new TestWork(true);
+        final ListenableFuture<Void> failedFuture = _committer.commitAsync(bad, null);
+        try
+        {
+            failedFuture.get(5, TimeUnit.SECONDS);
+            fail("Exception not thrown");
+        }
+        catch (ExecutionException e)
+        {
+            // pass
+        }
+        assertTrue("Work not aborted", bad._aborted);
+
+        final TestWork good = new TestWork(false);
+        assertEquals("Unexpected result", "done", _committer.commitAsync(good, "done").get(5, TimeUnit.SECONDS));
+        assertTrue("Work not committed", good._committed);
+    }
+
+    @Test
+    public void testFailureCompletingCommittedWorkDoesNotRewriteBatch() throws Exception
+    {
+        final CountDownLatch writeReleased = new CountDownLatch(1);
+        _committer = createCommitter(2, TimeUnit.SECONDS.toMillis(5), (connection, work) -> {
+            _batchSizes.add(work.size());
+            awaitLatch(writeReleased);
+        });
+
+        final TestWork throwing = new TestWork(false);
+        throwing._throwOnCommitted = true;
+        final TestWork good = new TestWork(false);
+        final ListenableFuture<Void> throwingFuture = _committer.commitAsync(throwing, null);
+        final ListenableFuture<Void> goodFuture = _committer.commitAsync(good, null);
+        writeReleased.countDown();
+
+        goodFuture.get(5, TimeUnit.SECONDS);
+        try
+        {
+            throwingFuture.get(5, TimeUnit.SECONDS);
+            fail("Exception not thrown");
+        }
+        catch (ExecutionException e)
+        {
+            // pass
+        }
+
+        assertTrue("Work not committed", good._committed);
+        assertFalse("Committed work aborted", throwing._aborted);
+        assertFalse("Committed work aborted", good._aborted);
+        assertEquals("Unexpected batch sizes", Collections.singletonList(2), new ArrayList<>(_batchSizes));
+        assertEquals("Unexpected commit count", 1, _committer.getCommitCount());
+        assertEquals("Unexpected committed transaction count", 2, _committer.getCommittedTransactionCount());
+    }
+
+    @Test
+    public void testCommitAfterStopFails() throws Exception
+    {
+        _committer = createCommitter(10, 0L, (connection, work) -> _batchSizes.add(work.size()));
+        _committer.stop();
+
+        try
+        {
+            _committer.commitAsync(new TestWork(false), null);
+            fail("Exception not thrown");
+        }
+        catch (StoreException e)
+        {
+            // pass
+        }
+        assertTrue("Unexpected writes", _batchSizes.isEmpty());
+    }
+
+    @Test
+    public void testEmptyWorkCompletesImmediately() throws Exception
+    {
+        _committer = createCommitter(10, 0L, (connection, work) -> _batchSizes.add(work.size()));
+
+        final TestWork work = new TestWork(false);
+        work._empty = true;
+        assertEquals("Unexpected result", "done", _committer.commitAsync(work, "done").get(5, TimeUnit.SECONDS));
+        _committer.commit(work);
+
+        assertTrue("Unexpected writes", _batchSizes.isEmpty());
+    }
+
+    private CoalescingCommitter<TestWork> createCommitter(final int batchSize,
+                                                          final long maximumWait,
+                                                          final CoalescingCommitter.Writer<TestWork> writer)
+    {
+        final CoalescingCommitter<TestWork> committer =
+                new CoalescingCommitter<>(getTestName(), () -> mock(Connection.class), writer, batchSize, maximumWait);
+        committer.start();
+        return committer;
+    }
+
+    private static void awaitLatch(final CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class TestWork implements CoalescingCommitter.Work
+    {
+        private final boolean _failing;
+        private volatile boolean _empty;
+        private volatile boolean _throwOnCommitted;
+        private volatile boolean _committed;
+        private volatile boolean _aborted;
+
+        private TestWork(final boolean failing)
+        {
+            _failing = failing;
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return _empty;
+        }
+
+        @Override
+        public void committed()
+        {
+            _committed = true;
+            if (_throwOnCommitted)
+            {
+                throw new IllegalStateException("Test failure");
+            }
+        }
+
+        @Override
+        public void aborted()
+        {
+            _aborted = true;
+        }
+    }
+}
@@ -525,17 +525,15 @@ public abstract class AbstractLegacyConfiguredObjectController extends AbstractM
         }
         else if (content instanceof Collection)
         {
-            Collection<Map<String, Object>> results = ((Collection<?>) content).stream()
-                                                                               .filter(o -> o instanceof LegacyConfiguredObject)
-                                                                               .map(LegacyConfiguredObject.class::cast)
-                                                                               .map(o -> convertObject(
-                                                                                       o,
-                                                                                       depth,
-                                                                                       actuals,
-                                                                                       oversizeThreshold,
-                                                                                       isSecureOrAllowedOnInsecureChannel,
-                                                                                       excludeInheritedContext))
-                                                                               .collect(Collectors.toSet());
+            Collection<Map<String, Object>> results = new ConvertingCollection<>((Collection<?>) content,
+                                                                                 LegacyConfiguredObject.class,
+                                                                                 o -> convertObject(
+                                                                                         o,
+                                                                                         depth,
+                                                                                         actuals,
+                                                                                         oversizeThreshold,
+                                                                                         isSecureOrAllowedOnInsecureChannel,
+                                                                                         excludeInheritedContext));
             if (!results.isEmpty())
             {
                 return results;
@@ -0,0 +1,117 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.management.plugin.controller;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Read-only view of the elements of a collection which are instances of a given type, converted on demand.
+ * <p>
+ * Elements are converted one at a time as the view is iterated, so that a response serializer walking the
+ * view never holds more than a single converted element in memory.
+ */
+public final class ConvertingCollection<S, T> extends AbstractCollection<T>
+{
+    private final Collection<?> _source;
+    private final Class<S> _sourceType;
+    private final Function<S, T> _converter;
+
+    public ConvertingCollection(final Collection<?> source,
+                                final Class<S> sourceType,
+                                final Function<S, T> converter)
+    {
+        _source = source;
+        _sourceType = sourceType;
+        _converter = converter;
+    }
+
+    @Override
+    public Iterator<T> iterator()
+    {
+        final Iterator<?> sourceIterator = _source.iterator();
+        return new Iterator<T>()
+        {
+            private S _next = advance();
+
+            @Override
+            public boolean hasNext()
+            {
+                return _next != null;
+            }
+
+            @Override
+            public T next()
+            {
+                if (_next == null)
+                {
+                    throw new NoSuchElementException();
+                }
+                final S current = _next;
+                _next = advance();
+                return _converter.apply(current);
+            }
+
+            private S advance()
+            {
+                while (sourceIterator.hasNext())
+                {
+                    final Object candidate = sourceIterator.next();
+                    if (_sourceType.isInstance(candidate))
+                    {
+                        return _sourceType.cast(candidate);
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public int size()
+    {
+        int size = 0;
+        for (Object candidate : _source)
+        {
+            if (_sourceType.isInstance(candidate))
+            {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (Object candidate : _source)
+        {
+            if (_sourceType.isInstance(candidate))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
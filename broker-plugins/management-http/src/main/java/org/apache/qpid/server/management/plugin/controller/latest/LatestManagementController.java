@@ -56,6 +56,7 @@ import org.apache.qpid.server.management.plugin.ResponseType;
 import org.apache.qpid.server.management.plugin.controller.AbstractManagementController;
 import org.apache.qpid.server.management.plugin.controller.ControllerManagementResponse;
 import org.apache.qpid.server.management.plugin.controller.ConverterHelper;
+import org.apache.qpid.server.management.plugin.controller.ConvertingCollection;
 import org.apache.qpid.server.management.plugin.servlet.rest.ConfiguredObjectToMapConverter;
 import org.apache.qpid.server.management.plugin.servlet.rest.NotFoundException;
 import org.apache.qpid.server.management.plugin.servlet.rest.RequestInfo;
@@ -544,16 +545,15 @@ public class LatestManagementController extends AbstractManagementController
         }
         else if (content instanceof Collection)
         {
-            Collection<Map<String,Object>> results = ((Collection<?>) content).stream()
-                                                                              .filter(o -> o instanceof ConfiguredObject)
-                                                                              .map(ConfiguredObject.class::cast)
-                                                                              .map(o -> convertObject(
-                                                                                      o,
-                                                                                      depth,
-                                                                                      actuals,
-                                                                                      oversizeThreshold,
-                                                                                      isSecureOrAllowedOnInsecureChannel,
-                                                                                      excludeInheritedContext)).collect(Collectors.toSet());
+            Collection<Map<String,Object>> results = new ConvertingCollection<>((Collection<?>) content,
+                                                                                ConfiguredObject.class,
+                                                                                o -> convertObject(
+                                                                                        o,
+                                                                                        depth,
+                                                                                        actuals,
+                                                                                        oversizeThreshold,
+                                                                                        isSecureOrAllowedOnInsecureChannel,
+                                                                                        excludeInheritedContext));
             if (!results.isEmpty())
             {
                 return results;
@@ -0,0 +1,561 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.management.plugin.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.ConfiguredObjectStatistic;
+import org.apache.qpid.server.model.ConfiguredObjectTypeRegistry;
+import org.apache.qpid.server.model.Model;
+import org.apache.qpid.server.model.StatisticType;
+import org.apache.qpid.server.model.StatisticUnit;
+
+/**
+ * Writes the statistics of a configured object hierarchy in the OpenMetrics text exposition format.
+ * <p>
+ * Each statistic declared with {@link org.apache.qpid.server.model.ManagedStatistic} becomes a metric family named
+ * {@code qpid_<category>_<statistic>}, with one sample per object labelled by the names of the object and its
+ * ancestors below the root. Samples are written directly to the writer while the model is walked; the only state
+ * retained between the walk and the output is the list of objects of each category and their label text.
+ */
+public final class OpenMetricsWriter
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenMetricsWriter.class);
+
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+    public static final String JVM_CATEGORY = "JVM";
+
+    private static final String PREFIX = "qpid_";
+
+    private final Set<String> _categories;
+    private final Set<String> _names;
+
+    /**
+     * @param categories categories (case insensitive) to write metrics for, or empty for all categories
+     * @param names statistic or metric family names to write, or empty for all statistics
+     */
+    public OpenMetricsWriter(final Collection<String> categories, final Collection<String> names)
+    {
+        _categories = categories.stream().map(c -> c.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        _names = new HashSet<>(names);
+    }
+
+    public void write(final ConfiguredObject<?> root, final Writer writer) throws IOException
+    {
+        final Model model = root.getModel();
+        final Map<Class<? extends ConfiguredObject>, List<Target>> targets = new LinkedHashMap<>();
+        collectTargets(model, root, "", targets);
+
+        final ConfiguredObjectTypeRegistry typeRegistry = model.getTypeRegistry();
+        for (Map.Entry<Class<? extends ConfiguredObject>, List<Target>> entry : targets.entrySet())
+        {
+            writeCategory(typeRegistry, entry.getKey(), entry.getValue(), writer);
+        }
+
+        if (isCategoryIncluded(JVM_CATEGORY))
+        {
+            writeJvm(writer);
+        }
+        writer.write("# EOF\n");
+    }
+
+    private void collectTargets(final Model model,
+                                final ConfiguredObject<?> object,
+                                final String labels,
+                                final Map<Class<? extends ConfiguredObject>, List<Target>> targets)
+    {
+        final Class<? extends ConfiguredObject> category = object.getCategoryClass();
+        if (isCategoryIncluded(category.getSimpleName()))
+        {
+            targets.computeIfAbsent(category, c -> new ArrayList<>()).add(new Target(object, labels));
+        }
+
+        for (Class<? extends ConfiguredObject> childCategory : model.getChildTypes(category))
+        {
+            if (isCategoryOrDescendantIncluded(model, childCategory))
+            {
+                final String labelName = toSnakeCase(childCategory.getSimpleName());
+                for (ConfiguredObject<?> child : object.getChildren(childCategory))
+                {
+                    final StringBuilder childLabels = new StringBuilder(labels);
+                    if (childLabels.length() > 0)
+                    {
+                        childLabels.append(',');
+                    }
+                    childLabels.append(labelName).append("=\"");
+                    appendEscapedLabelValue(childLabels, child.getName());
+                    childLabels.append('"');
+                    collectTargets(model, child, childLabels.toString(), targets);
+                }
+            }
+        }
+    }
+
+    private void writeCategory(final ConfiguredObjectTypeRegistry typeRegistry,
+                               final Class<? extends ConfiguredObject> category,
+                               final List<Target> categoryTargets,
+                               final Writer writer) throws IOException
+    {
+        // objects of a category may be of several types, each declaring its own type specific statistics
+        final Map<Class<?>, Map<String, ConfiguredObjectStatistic<?, ?>>> statisticsByType = new HashMap<>();
+        final Map<String, ConfiguredObjectStatistic<?, ?>> allStatistics = new LinkedHashMap<>();
+        for (Target target : categoryTargets)
+        {
+            statisticsByType.computeIfAbsent(target._object.getClass(), type ->
+            {
+                final Map<String, ConfiguredObjectStatistic<?, ?>> statistics = new HashMap<>();
+                for (ConfiguredObjectStatistic<?, ?> statistic : typeRegistry.getStatistics(target._object.getClass()))
+                {
+                    statistics.put(statistic.getName(), statistic);
+                    allStatistics.putIfAbsent(statistic.getName(), statistic);
+                }
+                return statistics;
+            });
+        }
+
+        final String categoryName = toSnakeCase(category.getSimpleName());
+        for (ConfiguredObjectStatistic<?, ?> statistic : allStatistics.values())
+        {
+            final String familyName = getFamilyName(categoryName, statistic);
+            if (!isNameIncluded(statistic.getName(), familyName))
+            {
+                continue;
+            }
+
+            writeFamilyMetadata(writer, familyName, statistic);
+            final String sampleName = statistic.getStatisticType() == StatisticType.CUMULATIVE
+                    ? familyName + "_total"
+                    : familyName;
+            for (Target target : categoryTargets)
+            {
+                final ConfiguredObjectStatistic statisticOfType =
+                        statisticsByType.get(target._object.getClass()).get(statistic.getName());
+                if (statisticOfType != null)
+                {
+                    writeSample(writer, sampleName, target._labels, statisticOfType, target._object);
+                }
+            }
+        }
+    }
+
+    private void writeSample(final Writer writer,
+                             final String sampleName,
+                             final String labels,
+                             final ConfiguredObjectStatistic statistic,
+                             final ConfiguredObject<?> object) throws IOException
+    {
+        final Object value;
+        try
+        {
+            value = statistic.getValue(object);
+        }
+        catch (RuntimeException e)
+        {
+            LOGGER.debug("Unable to get value of statistic '{}' from {}", statistic.getName(), object, e);
+            return;
+        }
+
+        if (value == null)
+        {
+            return;
+        }
+
+        writer.write(sampleName);
+        if (!labels.isEmpty())
+        {
+            writer.write('{');
+            writer.write(labels);
+            writer.write('}');
+        }
+        writer.write(' ');
+        if (value instanceof Date)
+        {
+            writeMillisAsSeconds(writer, ((Date) value).getTime());
+        }
+        else if (statistic.getUnits() == StatisticUnit.TIME_DURATION && value instanceof Number)
+        {
+            writeMillisAsSeconds(writer, ((Number) value).longValue());
+        }
+        else if (value instanceof Double || value instanceof Float)
+        {
+            writeDouble(writer, ((Number) value).doubleValue());
+        }
+        else if (value instanceof Number)
+        {
+            writer.write(Long.toString(((Number) value).longValue()));
+        }
+        else if (value instanceof Boolean)
+        {
+            writer.write((Boolean) value ? '1' : '0');
+        }
+        else
+        {
+            writer.write("NaN");
+        }
+        writer.write('\n');
+    }
+
+    private void writeJvm(final Writer writer) throws IOException
+    {
+        final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        final MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        if (isNameIncluded("jvm_memory_used_bytes"))
+        {
+            writeFamilyMetadata(writer, "jvm_memory_used_bytes", "gauge", "bytes", "Used memory");
+            writeSimpleSample(writer, "jvm_memory_used_bytes", "area", "heap", heap.getUsed());
+            writeSimpleSample(writer, "jvm_memory_used_bytes", "area", "nonheap", nonHeap.getUsed());
+        }
+        if (isNameIncluded("jvm_memory_committed_bytes"))
+        {
+            writeFamilyMetadata(writer, "jvm_memory_committed_bytes", "gauge", "bytes", "Committed memory");
+            writeSimpleSample(writer, "jvm_memory_committed_bytes", "area", "heap", heap.getCommitted());
+            writeSimpleSample(writer, "jvm_memory_committed_bytes", "area", "nonheap", nonHeap.getCommitted());
+        }
+        if (isNameIncluded("jvm_memory_max_bytes"))
+        {
+            writeFamilyMetadata(writer, "jvm_memory_max_bytes", "gauge", "bytes", "Maximum memory, -1 if undefined");
+            writeSimpleSample(writer, "jvm_memory_max_bytes", "area", "heap", heap.getMax());
+            writeSimpleSample(writer, "jvm_memory_max_bytes", "area", "nonheap", nonHeap.getMax());
+        }
+
+        final List<BufferPoolMXBean> bufferPools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+        if (isNameIncluded("jvm_buffer_pool_used_bytes"))
+        {
+            writeFamilyMetadata(writer, "jvm_buffer_pool_used_bytes", "gauge", "bytes", "Memory used by the buffer pool");
+            for (BufferPoolMXBean pool : bufferPools)
+            {
+                writeSimpleSample(writer, "jvm_buffer_pool_used_bytes", "pool", pool.getName(), pool.getMemoryUsed());
+            }
+        }
+        if (isNameIncluded("jvm_buffer_pool_capacity_bytes"))
+        {
+            writeFamilyMetadata(writer, "jvm_buffer_pool_capacity_bytes", "gauge", "bytes", "Total capacity of the buffers in the buffer pool");
+            for (BufferPoolMXBean pool : bufferPools)
+            {
+                writeSimpleSample(writer, "jvm_buffer_pool_capacity_bytes", "pool", pool.getName(), pool.getTotalCapacity());
+            }
+        }
+        if (isNameIncluded("jvm_buffer_pool_buffers"))
+        {
+            writeFamilyMetadata(writer, "jvm_buffer_pool_buffers", "gauge", null, "Number of buffers in the buffer pool");
+            for (BufferPoolMXBean pool : bufferPools)
+            {
+                writeSimpleSample(writer, "jvm_buffer_pool_buffers", "pool", pool.getName(), pool.getCount());
+            }
+        }
+
+        final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        if (isNameIncluded("jvm_gc_collections"))
+        {
+            writeFamilyMetadata(writer, "jvm_gc_collections", "counter", null, "Number of collections");
+            for (GarbageCollectorMXBean collector : collectors)
+            {
+                writeSimpleSample(writer, "jvm_gc_collections_total", "gc", collector.getName(), collector.getCollectionCount());
+            }
+        }
+        if (isNameIncluded("jvm_gc_collection_seconds"))
+        {
+            writeFamilyMetadata(writer, "jvm_gc_collection_seconds", "counter", "seconds", "Accumulated collection time");
+            for (GarbageCollectorMXBean collector : collectors)
+            {
+                writer.write("jvm_gc_collection_seconds_total{gc=\"");
+                writeEscapedLabelValue(writer, collector.getName());
+                writer.write("\"} ");
+                writeMillisAsSeconds(writer, collector.getCollectionTime());
+                writer.write('\n');
+            }
+        }
+
+        if (isNameIncluded("jvm_threads_live"))
+        {
+            writeFamilyMetadata(writer, "jvm_threads_live", "gauge", null, "Number of live threads");
+            writer.write("jvm_threads_live ");
+            writer.write(Integer.toString(ManagementFactory.getThreadMXBean().getThreadCount()));
+            writer.write('\n');
+        }
+    }
+
+    private void writeSimpleSample(final Writer writer,
+                                   final String sampleName,
+                                   final String labelName,
+                                   final String labelValue,
+                                   final long value) throws IOException
+    {
+        writer.write(sampleName);
+        writer.write('{');
+        writer.write(labelName);
+        writer.write("=\"");
+        writeEscapedLabelValue(writer, labelValue);
+        writer.write("\"} ");
+        writer.write(Long.toString(value));
+        writer.write('\n');
+    }
+
+    private void writeFamilyMetadata(final Writer writer,
+                                     final String familyName,
+                                     final ConfiguredObjectStatistic<?, ?> statistic) throws IOException
+    {
+        writeFamilyMetadata(writer,
+                            familyName,
+                            statistic.getStatisticType() == StatisticType.CUMULATIVE ? "counter" : "gauge",
+                            getUnit(statistic.getUnits()),
+                            statistic.getDescription());
+    }
+
+    private void writeFamilyMetadata(final Writer writer,
+                                     final String familyName,
+                                     final String type,
+                                     final String unit,
+                                     final String help) throws IOException
+    {
+        writer.write("# TYPE ");
+        writer.write(familyName);
+        writer.write(' ');
+        writer.write(type);
+        writer.write('\n');
+        if (unit != null)
+        {
+            writer.write("# UNIT ");
+            writer.write(familyName);
+            writer.write(' ');
+            writer.write(unit);
+            writer.write('\n');
+        }
+        if (help != null && !help.isEmpty())
+        {
+            writer.write("# HELP ");
+            writer.write(familyName);
+            writer.write(' ');
+            writeEscapedLabelValue(writer, help);
+            writer.write('\n');
+        }
+    }
+
+    private boolean isCategoryIncluded(final String category)
+    {
+        return _categories.isEmpty() || _categories.contains(category.toLowerCase(Locale.ROOT));
+    }
+
+    private boolean isCategoryOrDescendantIncluded(final Model model, final Class<? extends ConfiguredObject> category)
+    {
+        if (_categories.isEmpty() || isCategoryIncluded(category.getSimpleName()))
+        {
+            return true;
+        }
+        for (Class<? extends ConfiguredObject> descendant : model.getDescendantCategories(category))
+        {
+            if (isCategoryIncluded(descendant.getSimpleName()))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isNameIncluded(final String... names)
+    {
+        if (_names.isEmpty())
+        {
+            return true;
+        }
+        for (String name : names)
+        {
+            if (_names.contains(name))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String getFamilyName(final String categoryName, final ConfiguredObjectStatistic<?, ?> statistic)
+    {
+        String statisticName = toSnakeCase(statistic.getName());
+        if (statisticName.startsWith(categoryName + "_"))
+        {
+            statisticName = statisticName.substring(categoryName.length() + 1);
+        }
+        if (statistic.getStatisticType() == StatisticType.CUMULATIVE && statisticName.endsWith("_total"))
+        {
+            statisticName = statisticName.substring(0, statisticName.length() - "_total".length());
+        }
+
+        final String unit = getUnit(statistic.getUnits());
+        final StringBuilder familyName = new StringBuilder(PREFIX).append(categoryName).append('_').append(statisticName);
+        if (unit != null && !statisticName.endsWith("_" + unit))
+        {
+            familyName.append('_').append(unit);
+        }
+        return familyName.toString();
+    }
+
+    private static String getUnit(final StatisticUnit unit)
+    {
+        switch (unit)
+        {
+            case BYTES:
+                return "bytes";
+            case ABSOLUTE_TIME:
+            case TIME_DURATION:
+                return "seconds";
+            default:
+                return null;
+        }
+    }
+
+    static String toSnakeCase(final String name)
+    {
+        final StringBuilder snakeCase = new StringBuilder(name.length() + 8);
+        for (int i = 0; i < name.length(); i++)
+        {
+            final char c = name.charAt(i);
+            if (Character.isUpperCase(c))
+            {
+                final boolean afterLowerOrDigit = i > 0
+                                                  && (Character.isLowerCase(name.charAt(i - 1))
+                                                      || Character.isDigit(name.charAt(i - 1)));
+                final boolean endOfAcronym = i > 0
+                                             && i + 1 < name.length()
+                                             && Character.isUpperCase(name.charAt(i - 1))
+                                             && Character.isLowerCase(name.charAt(i + 1));
+                if (afterLowerOrDigit || endOfAcronym)
+                {
+                    snakeCase.append('_');
+                }
+                snakeCase.append(Character.toLowerCase(c));
+            }
+            else if (Character.isLetterOrDigit(c) && c < 128)
+            {
+                snakeCase.append(c);
+            }
+            else
+            {
+                snakeCase.append('_');
+            }
+        }
+        return snakeCase.toString();
+    }
+
+    private static void appendEscapedLabelValue(final StringBuilder builder, final String value)
+    {
+        if (value == null)
+        {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++)
+        {
+            final char c = value.charAt(i);
+            switch (c)
+            {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+    }
+
+    private static void writeEscapedLabelValue(final Writer writer, final String value) throws IOException
+    {
+        final StringBuilder builder = new StringBuilder(value.length() + 8);
+        appendEscapedLabelValue(builder, value);
+        writer.write(builder.toString());
+    }
+
+    private static void writeMillisAsSeconds(final Writer writer, final long millis) throws IOException
+    {
+        if (millis < 0)
+        {
+            writeDouble(writer, millis / 1000.0);
+            return;
+        }
+        writer.write(Long.toString(millis / 1000));
+        final long fraction = millis % 1000;
+        if (fraction != 0)
+        {
+            writer.write('.');
+            if (fraction < 100)
+            {
+                writer.write('0');
+            }
+            if (fraction < 10)
+            {
+                writer.write('0');
+            }
+            writer.write(Long.toString(fraction));
+        }
+    }
+
+    private static void writeDouble(final Writer writer, final double value) throws IOException
+    {
+        if (Double.isNaN(value))
+        {
+            writer.write("NaN");
+        }
+        else if (Double.isInfinite(value))
+        {
+            writer.write(value > 0 ? "+Inf" : "-Inf");
+        }
+        else
+        {
+            writer.write(Double.toString(value));
+        }
+    }
+
+    private static final class Target
+    {
+        private final ConfiguredObject<?> _object;
+        private final String _labels;
+
+        private Target(final ConfiguredObject<?> object, final String labels)
+        {
+            _object = object;
+            _labels = labels;
+        }
+    }
+}
@@ -20,13 +20,23 @@
  */
 package org.apache.qpid.server.management.plugin.servlet.query;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Predicate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,12 +53,16 @@ public final class ConfiguredObjectQuery
     private static final String[] STANDARD_FIELDS = new String[]{ConfiguredObject.ID, ConfiguredObject.NAME};
     public static final int DEFAULT_LIMIT = -1;
     public static final int DEFAULT_OFFSET = 0;
+    private static final Comparator<ConfiguredObject<?>> ID_COMPARATOR =
+            Comparator.comparing(ConfiguredObject::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+    private static final ObjectMapper CURSOR_MAPPER = new ObjectMapper();
 
     private final ConfiguredObjectExpressionFactory _expressionFactory = new ConfiguredObjectExpressionFactory();
 
     private final List<List<Object>> _results;
     private final List<String> _headers;
     private final int _totalNumberOfRows;
+    private final String _next;
 
     interface HeadersAndValueExpressions
     {
@@ -77,21 +91,93 @@ public final class ConfiguredObjectQuery
                                  String orderByClause,
                                  String limitClause,
                                  String offsetClause)
+    {
+        this(objects, selectClause, whereClause, orderByClause, limitClause, offsetClause, null);
+    }
+
+    /**
+     * @param afterClause when set, even if empty, the query is paged by keyset: objects are ordered with the id as a
+     *                    final tie-break (by id alone without an orderBy clause), and only the objects ordered after
+     *                    the cursor returned as {@link #getNext() next} by the previous page are returned. The cursor
+     *                    holds the orderBy values of the last object as well as its id, so the page is positioned
+     *                    even if that object has since been deleted.
+     */
+    public ConfiguredObjectQuery(List<ConfiguredObject<?>> objects,
+                                 String selectClause,
+                                 String whereClause,
+                                 String orderByClause,
+                                 String limitClause,
+                                 String offsetClause,
+                                 String afterClause)
     {
         int limit = toInt(limitClause, DEFAULT_LIMIT);
         int offset = toInt(offsetClause, DEFAULT_OFFSET);
 
         HeadersAndValueExpressions headersAndValueExpressions = parseSelectClause(selectClause);
 
-        List<ConfiguredObject<?>> filteredObjects = whereClause == null ? objects : filterObjects(objects, whereClause);
-        List<ConfiguredObject<?>> orderedObjects = orderByClause == null ? filteredObjects : orderObjects(filteredObjects,
-                                                                                                          orderByClause,
-                                                                                                          headersAndValueExpressions);
-        List<ConfiguredObject<?>> limitedOrderedObjects = applyLimitAndOffset(orderedObjects, limit, offset);
+        BooleanExpression<ConfiguredObject> whereExpression = whereClause == null ? null : parseWhereClause(whereClause);
+        boolean keyset = afterClause != null;
+        OrderByComparator orderByComparator = orderByClause == null
+                ? null
+                : new OrderByComparator(parseOrderByClause(orderByClause, headersAndValueExpressions),
+                                        headersAndValueExpressions.getValueExpressions());
+        Comparator<ConfiguredObject<?>> comparator = createComparator(orderByComparator, keyset);
+        Predicate<ConfiguredObject<?>> afterFilter = keyset && !afterClause.isEmpty()
+                ? createAfterFilter(objects, afterClause, orderByComparator, comparator)
+                : null;
+
+        int totalNumberOfRows = 0;
+        int numberOfCandidateRows = 0;
+        // only the first offset + limit rows are retained when ordering, rather than sorting every candidate
+        boolean bounded = comparator != null && limit >= 0 && offset >= 0 && (long) offset + limit < objects.size();
+        Comparator<IndexedObject> rowComparator = comparator == null ? null : indexedComparator(comparator);
+        PriorityQueue<IndexedObject> topRows = bounded ? new PriorityQueue<>(Math.max(1, offset + limit),
+                                                                              rowComparator.reversed()) : null;
+        List<IndexedObject> candidates = bounded ? null : new ArrayList<>();
+        for (ConfiguredObject<?> object : objects)
+        {
+            if (whereExpression != null && !matches(whereExpression, object))
+            {
+                continue;
+            }
+            totalNumberOfRows++;
+            if (afterFilter != null && !afterFilter.test(object))
+            {
+                continue;
+            }
+            IndexedObject row = new IndexedObject(object, numberOfCandidateRows++);
+            if (!bounded)
+            {
+                candidates.add(row);
+            }
+            else if (topRows.size() < offset + limit)
+            {
+                topRows.add(row);
+            }
+            else if (!topRows.isEmpty() && rowComparator.compare(row, topRows.peek()) < 0)
+            {
+                topRows.poll();
+                topRows.add(row);
+            }
+        }
+
+        List<IndexedObject> orderedRows = bounded ? new ArrayList<>(topRows) : candidates;
+        if (rowComparator != null)
+        {
+            orderedRows.sort(rowComparator);
+        }
+
+        int firstIndex = offset < 0 ? Math.max(0, numberOfCandidateRows + offset) : Math.min(numberOfCandidateRows, offset);
+        int lastIndex = limit < 0 ? numberOfCandidateRows : Math.min(numberOfCandidateRows, firstIndex + limit);
+        List<IndexedObject> limitedOrderedRows = orderedRows.subList(Math.min(firstIndex, orderedRows.size()),
+                                                                     Math.min(lastIndex, orderedRows.size()));
 
         _headers = headersAndValueExpressions.getHeaders();
-        _results = evaluateResults(limitedOrderedObjects, headersAndValueExpressions.getValueExpressions());
-        _totalNumberOfRows = filteredObjects.size();
+        _results = new EvaluatingList(limitedOrderedRows, headersAndValueExpressions.getValueExpressions());
+        _totalNumberOfRows = totalNumberOfRows;
+        _next = keyset && lastIndex < numberOfCandidateRows && !limitedOrderedRows.isEmpty()
+                ? createCursor(limitedOrderedRows.get(limitedOrderedRows.size() - 1)._object, orderByComparator)
+                : null;
     }
 
     public List<List<Object>> getResults()
@@ -109,6 +195,15 @@ public final class ConfiguredObjectQuery
         return _totalNumberOfRows;
     }
 
+    /**
+     * @return for a keyset paged query followed by further objects, the cursor to be passed as the after clause of the
+     * query for the next page, or null otherwise
+     */
+    public String getNext()
+    {
+        return _next;
+    }
+
     private int toInt(String value, int defaultValue)
     {
         int returnValue = defaultValue;
@@ -192,47 +287,180 @@ public final class ConfiguredObjectQuery
                 };
     }
 
-    private List<ConfiguredObject<?>> filterObjects(final List<ConfiguredObject<?>> objects, final String whereClause)
+    private BooleanExpression<ConfiguredObject> parseWhereClause(final String whereClause)
     {
-        List<ConfiguredObject<?>> filteredObjects = new ArrayList<>();
         ConfiguredObjectFilterParser parser = new ConfiguredObjectFilterParser();
         parser.setConfiguredObjectExpressionFactory(_expressionFactory);
         try
         {
-            final BooleanExpression<ConfiguredObject> expression =
-                    parser.parseWhere(whereClause);
+            return parser.parseWhere(whereClause);
+        }
+        catch (ParseException | TokenMgrError e)
+        {
+            throw new SelectorParsingException("Unable to parse where clause", e);
+        }
+    }
 
+    private boolean matches(final BooleanExpression<ConfiguredObject> expression, final ConfiguredObject<?> object)
+    {
+        try
+        {
+            return expression.matches(object);
+        }
+        catch (RuntimeException e)
+        {
+            throw new EvaluationException("Error while evaluating object against where clause", e);
+        }
+    }
 
-            for (ConfiguredObject<?> object : objects)
+    private Comparator<ConfiguredObject<?>> createComparator(final OrderByComparator orderByComparator,
+                                                             final boolean keyset)
+    {
+        if (orderByComparator != null)
+        {
+            // ties keep their input order unless paging by keyset, which needs a total order
+            final Comparator<ConfiguredObject<?>> comparator = orderByComparator::compare;
+            return keyset ? comparator.thenComparing(ID_COMPARATOR) : comparator;
+        }
+        return keyset ? ID_COMPARATOR : null;
+    }
+
+    private Predicate<ConfiguredObject<?>> createAfterFilter(final List<ConfiguredObject<?>> objects,
+                                                             final String afterClause,
+                                                             final OrderByComparator orderByComparator,
+                                                             final Comparator<ConfiguredObject<?>> comparator)
+    {
+        UUID afterId = null;
+        try
+        {
+            afterId = UUID.fromString(afterClause);
+        }
+        catch (IllegalArgumentException e)
+        {
+            // not an id, so a cursor holding the orderBy values as well
+        }
+
+        if (afterId == null)
+        {
+            final List<Object> cursor = parseCursor(afterClause);
+            if (orderByComparator == null || cursor.size() != orderByComparator.getNumberOfExpressions() + 1)
             {
-                try
-                {
-                    if (expression.matches(object))
-                    {
-                        filteredObjects.add(object);
-                    }
-                }
-                catch (RuntimeException e)
-                {
-                    throw new EvaluationException("Error while evaluating object against where clause", e);
-                }
+                throw new SelectorParsingException("After clause does not match the orderBy clause");
             }
+            final List<Object> keyValues = cursor.subList(0, cursor.size() - 1);
+            final UUID cursorId = toUUID(cursor.get(cursor.size() - 1));
+            return o ->
+            {
+                final int result = orderByComparator.compareToKey(o, keyValues);
+                return result > 0 || (result == 0 && o.getId() != null && o.getId().compareTo(cursorId) > 0);
+            };
+        }
 
+        if (orderByComparator == null)
+        {
+            final UUID id = afterId;
+            return o -> o.getId() != null && o.getId().compareTo(id) > 0;
         }
-        catch (ParseException | TokenMgrError e)
+
+        for (ConfiguredObject<?> object : objects)
         {
-            throw new SelectorParsingException("Unable to parse where clause", e);
+            if (afterId.equals(object.getId()))
+            {
+                return o -> comparator.compare(o, object) > 0;
+            }
         }
-        return filteredObjects;
+        throw new EvaluationException(String.format("Object with id '%s' from after clause is not found", afterId));
     }
 
-    private List<List<Object>> evaluateResults(final List<ConfiguredObject<?>> filteredObjects, List<Expression> valueExpressions)
+    private String createCursor(final ConfiguredObject<?> lastObject, final OrderByComparator orderByComparator)
     {
-        List<List<Object>> values = new ArrayList<>();
-        for (ConfiguredObject<?> object : filteredObjects)
+        if (orderByComparator == null)
         {
-            List<Object> objectVals = new ArrayList<>();
-            for (Expression<ConfiguredObject<?>> evaluator : valueExpressions)
+            return String.valueOf(lastObject.getId());
+        }
+        final List<Object> cursor = new ArrayList<>(orderByComparator.toKey(lastObject));
+        cursor.add(String.valueOf(lastObject.getId()));
+        try
+        {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(CURSOR_MAPPER.writeValueAsBytes(cursor));
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Unable to create cursor for the next page", e);
+        }
+    }
+
+    private List<Object> parseCursor(final String afterClause)
+    {
+        try
+        {
+            final Object cursor = CURSOR_MAPPER.readValue(Base64.getUrlDecoder().decode(afterClause), Object.class);
+            if (cursor instanceof List)
+            {
+                return (List<Object>) cursor;
+            }
+        }
+        catch (IllegalArgumentException | IOException e)
+        {
+            throw new SelectorParsingException("Unable to parse after clause", e);
+        }
+        throw new SelectorParsingException("Unable to parse after clause");
+    }
+
+    private UUID toUUID(final Object value)
+    {
+        try
+        {
+            return UUID.fromString(String.valueOf(value));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new SelectorParsingException("Unable to parse after clause", e);
+        }
+    }
+
+    private Comparator<IndexedObject> indexedComparator(final Comparator<ConfiguredObject<?>> comparator)
+    {
+        return (o1, o2) ->
+        {
+            int result = comparator.compare(o1._object, o2._object);
+            return result == 0 ? Integer.compare(o1._index, o2._index) : result;
+        };
+    }
+
+    private static final class IndexedObject
+    {
+        private final ConfiguredObject<?> _object;
+        private final int _index;
+
+        private IndexedObject(final ConfiguredObject<?> object, final int index)
+        {
+            _object = object;
+            _index = index;
+        }
+    }
+
+    /**
+     * Evaluates the select expressions against a row only when the row is requested, so that serialising a large
+     * result does not require all of the row values to be held at once.
+     */
+    private static final class EvaluatingList extends AbstractList<List<Object>>
+    {
+        private final List<IndexedObject> _rows;
+        private final List<Expression> _valueExpressions;
+
+        private EvaluatingList(final List<IndexedObject> rows, final List<Expression> valueExpressions)
+        {
+            _rows = rows;
+            _valueExpressions = valueExpressions;
+        }
+
+        @Override
+        public List<Object> get(final int index)
+        {
+            ConfiguredObject<?> object = _rows.get(index)._object;
+            List<Object> objectVals = new ArrayList<>(_valueExpressions.size());
+            for (Expression<ConfiguredObject<?>> evaluator : _valueExpressions)
             {
                 Object value;
                 try
@@ -246,21 +474,16 @@ public final class ConfiguredObjectQuery
                 }
                 objectVals.add(value);
             }
-            values.add(objectVals);
+            return objectVals;
         }
-        return values;
-    }
 
-    private List<ConfiguredObject<?>> applyLimitAndOffset(final List<ConfiguredObject<?>> orderedObjects, final int limit, int offset)
-    {
-        int size = orderedObjects.size();
-        int firstIndex = offset < 0 ? Math.max(0, size + offset) : Math.min(size, offset);
-        int lastIndex = limit < 0 ? size : Math.min(size, firstIndex + limit);
-
-        return orderedObjects.subList(firstIndex, lastIndex);
+        @Override
+        public int size()
+        {
+            return _rows.size();
+        }
     }
 
-
     class OrderByComparator implements Comparator<Object>
     {
         private final List<OrderByExpression> _orderByExpressions;
@@ -293,55 +516,191 @@ public final class ConfiguredObjectQuery
         public int compare(final Object o1, final Object o2)
         {
             int index = 0;
-            int comparisonResult = 0;
             for (OrderByExpression orderByExpression : _orderByExpressions)
             {
-                try
+                final int comparisonResult = compare(index,
+                                                     orderByExpression,
+                                                     evaluate(index, orderByExpression, o1),
+                                                     evaluate(index, orderByExpression, o2));
+                if (comparisonResult != 0)
                 {
-                    Comparable left = (Comparable) orderByExpression.evaluate(o1);
-                    Comparable right = (Comparable) orderByExpression.evaluate(o2);
-                    if (left == null && right != null)
-                    {
-                        comparisonResult = -1;
-                    }
-                    else if (left != null && right == null)
-                    {
-                        comparisonResult = 1;
-                    }
-                    else if (left != null && right != null)
-                    {
-                        comparisonResult = left.compareTo(right);
-                    }
-                    if (comparisonResult != 0)
-                    {
-                        int order = 1;
-                        if (orderByExpression.getOrder() == OrderByExpression.Order.DESC)
-                        {
-                            order = -1;
-                        }
-                        return order * comparisonResult;
-                    }
-                    index++;
+                    return comparisonResult;
                 }
-                catch (ClassCastException e)
+                index++;
+            }
+            return 0;
+        }
+
+        int getNumberOfExpressions()
+        {
+            return _orderByExpressions.size();
+        }
+
+        /**
+         * @return the values of the orderBy expressions for the object in a form which can be written as JSON
+         */
+        List<Object> toKey(final Object object)
+        {
+            final List<Object> key = new ArrayList<>(_orderByExpressions.size());
+            int index = 0;
+            for (OrderByExpression orderByExpression : _orderByExpressions)
+            {
+                key.add(toKeyValue(index, evaluate(index, orderByExpression, object)));
+                index++;
+            }
+            return key;
+        }
+
+        /**
+         * Compares the object with the values returned by {@link #toKey(Object)} for another, converting each value
+         * back to the type of the corresponding value of the object.
+         */
+        int compareToKey(final Object object, final List<Object> key)
+        {
+            int index = 0;
+            for (OrderByExpression orderByExpression : _orderByExpressions)
+            {
+                final Comparable left = evaluate(index, orderByExpression, object);
+                final Comparable right = fromKeyValue(index, key.get(index), left);
+                final int comparisonResult = compare(index, orderByExpression, left, right);
+                if (comparisonResult != 0)
                 {
-                    throw new EvaluationException(String.format("The orderBy expression at position '%d' is unsupported", index), e);
+                    return comparisonResult;
                 }
+                index++;
             }
-            return comparisonResult;
+            return 0;
         }
-    }
 
-    private List<ConfiguredObject<?>> orderObjects(final List<ConfiguredObject<?>> unorderedResults,
-                                                   final String orderByClause,
-                                                   final HeadersAndValueExpressions headersAndValue)
-    {
-        List<OrderByExpression> orderByExpressions = parseOrderByClause(orderByClause, headersAndValue);
-        List<ConfiguredObject<?>> orderedObjects = new ArrayList<>(unorderedResults.size());
-        orderedObjects.addAll(unorderedResults);
-        Comparator<Object> comparator = new OrderByComparator(orderByExpressions, headersAndValue.getValueExpressions());
-        Collections.sort(orderedObjects, comparator);
-        return orderedObjects;
+        private Comparable evaluate(final int index, final OrderByExpression orderByExpression, final Object object)
+        {
+            try
+            {
+                return (Comparable) orderByExpression.evaluate(object);
+            }
+            catch (ClassCastException e)
+            {
+                throw new EvaluationException(String.format("The orderBy expression at position '%d' is unsupported", index), e);
+            }
+        }
+
+        private int compare(final int index,
+                            final OrderByExpression orderByExpression,
+                            final Comparable left,
+                            final Comparable right)
+        {
+            int comparisonResult = 0;
+            try
+            {
+                if (left == null && right != null)
+                {
+                    comparisonResult = -1;
+                }
+                else if (left != null && right == null)
+                {
+                    comparisonResult = 1;
+                }
+                else if (left != null && right != null)
+                {
+                    comparisonResult = left.compareTo(right);
+                }
+            }
+            catch (ClassCastException e)
+            {
+                throw new EvaluationException(String.format("The orderBy expression at position '%d' is unsupported", index), e);
+            }
+            return orderByExpression.getOrder() == OrderByExpression.Order.DESC ? -comparisonResult : comparisonResult;
+        }
+
+        private Object toKeyValue(final int index, final Comparable value)
+        {
+            if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean)
+            {
+                return value;
+            }
+            else if (value instanceof Enum)
+            {
+                return ((Enum) value).name();
+            }
+            else if (value instanceof UUID)
+            {
+                return value.toString();
+            }
+            else if (value instanceof Date)
+            {
+                return ((Date) value).getTime();
+            }
+            throw new EvaluationException(String.format("The orderBy expression at position '%d' cannot be used for"
+                                                        + " keyset pagination", index));
+        }
+
+        private Comparable fromKeyValue(final int index, final Object keyValue, final Comparable sample)
+        {
+            if (keyValue == null || sample == null || sample.getClass().isInstance(keyValue))
+            {
+                return (Comparable) keyValue;
+            }
+            try
+            {
+                if (sample instanceof Enum)
+                {
+                    return Enum.valueOf(((Enum) sample).getDeclaringClass(), String.valueOf(keyValue));
+                }
+                else if (sample instanceof Date)
+                {
+                    return new Date(((Number) keyValue).longValue());
+                }
+                else if (sample instanceof Long)
+                {
+                    return ((Number) keyValue).longValue();
+                }
+                else if (sample instanceof Integer)
+                {
+                    return ((Number) keyValue).intValue();
+                }
+                else if (sample instanceof Short)
+                {
+                    return ((Number) keyValue).shortValue();
+                }
+                else if (sample instanceof Byte)
+                {
+                    return ((Number) keyValue).byteValue();
+                }
+                else if (sample instanceof Double)
+                {
+                    return ((Number) keyValue).doubleValue();
+                }
+                else if (sample instanceof Float)
+                {
+                    return ((Number) keyValue).floatValue();
+                }
+                else if (sample instanceof BigDecimal)
+                {
+                    return new BigDecimal(String.valueOf(keyValue));
+                }
+                else if (sample instanceof BigInteger)
+                {
+                    return new BigInteger(String.valueOf(keyValue));
+                }
+                else if (sample instanceof UUID)
+                {
+                    return UUID.fromString(String.valueOf(keyValue));
+                }
+                else if (sample instanceof String)
+                {
+                    return String.valueOf(keyValue);
+                }
+                else if (sample instanceof Boolean)
+                {
+                    return Boolean.valueOf(String.valueOf(keyValue));
+                }
+            }
+            catch (ClassCastException | IllegalArgumentException e)
+            {
+                throw new SelectorParsingException(String.format("After clause value at position '%d' is unsupported", index), e);
+            }
+            throw new SelectorParsingException(String.format("After clause value at position '%d' is unsupported", index));
+        }
     }
 
     private List<OrderByExpression> parseOrderByClause(final String orderByClause,
@@ -42,7 +42,7 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,6 +74,12 @@ public abstract class AbstractServlet extends HttpServlet
     public static final String CONTENT_DISPOSITION_ATTACHMENT_FILENAME_PARAM = "contentDispositionAttachmentFilename";
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractServlet.class);
     public static final String CONTENT_DISPOSITION = "Content-Disposition";
+    /**
+     * Object writers are immutable and thread safe, so a single instance is shared by all servlets rather than
+     * building a new mapper (and its serializer caches) for every response.
+     */
+    protected static final ObjectWriter JSON_WRITER =
+            ConfiguredObjectJacksonModule.newObjectMapper(false).writer(SerializationFeature.INDENT_OUTPUT);
 
     private transient Broker<?> _broker;
     private transient HttpManagementConfiguration _managementConfiguration;
@@ -269,9 +275,7 @@ public abstract class AbstractServlet extends HttpServlet
     private void writeObjectToResponse(Object object, HttpServletRequest request,  HttpServletResponse response) throws IOException
     {
         OutputStream stream = getOutputStream(request, response);
-        ObjectMapper mapper = ConfiguredObjectJacksonModule.newObjectMapper(false);
-        mapper.configure(SerializationFeature.INDENT_OUTPUT, true);
-        mapper.writeValue(stream, object);
+        JSON_WRITER.writeValue(stream, object);
     }
 
     protected void sendCachingHeadersOnResponse(HttpServletResponse response)
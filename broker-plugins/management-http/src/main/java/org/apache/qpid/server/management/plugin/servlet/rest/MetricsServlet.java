@@ -0,0 +1,79 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.management.plugin.servlet.rest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.qpid.server.management.plugin.metrics.OpenMetricsWriter;
+import org.apache.qpid.server.model.ConfiguredObject;
+
+/**
+ * Exposes the statistics of the managed object and its descendants in the OpenMetrics text format.
+ * <p>
+ * The optional, repeatable {@code category} and {@code name} parameters restrict the output to the given categories
+ * (including the pseudo category {@code JVM}) and to the given statistic or metric family names.
+ */
+public class MetricsServlet extends AbstractServlet
+{
+    private static final long serialVersionUID = 1L;
+
+    public MetricsServlet()
+    {
+        super();
+    }
+
+    @Override
+    protected void doGet(final HttpServletRequest request,
+                         final HttpServletResponse response,
+                         final ConfiguredObject<?> managedObject) throws ServletException, IOException
+    {
+        final OpenMetricsWriter metricsWriter = new OpenMetricsWriter(getParameterValues(request, "category"),
+                                                                      getParameterValues(request, "name"));
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(OpenMetricsWriter.CONTENT_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        sendCachingHeadersOnResponse(response);
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(getOutputStream(request, response),
+                                                                       StandardCharsets.UTF_8)))
+        {
+            metricsWriter.write(managedObject, writer);
+        }
+    }
+
+    private Collection<String> getParameterValues(final HttpServletRequest request, final String name)
+    {
+        final String[] values = request.getParameterValues(name);
+        return values == null ? Collections.emptySet() : Arrays.asList(values);
+    }
+}
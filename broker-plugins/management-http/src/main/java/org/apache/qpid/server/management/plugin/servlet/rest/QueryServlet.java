@@ -90,7 +90,8 @@ public abstract class QueryServlet<X extends ConfiguredObject<?>> extends Abstra
                                                                             request.getParameter("where"),
                                                                             request.getParameter("orderBy"),
                                                                             request.getParameter("limit"),
-                                                                            request.getParameter("offset"));
+                                                                            request.getParameter("offset"),
+                                                                            request.getParameter("after"));
 
 
                     String attachmentFilename = request.getParameter(CONTENT_DISPOSITION_ATTACHMENT_FILENAME_PARAM);
@@ -109,6 +110,10 @@ public abstract class QueryServlet<X extends ConfiguredObject<?>> extends Abstra
                         resultsObject.put("headers", query.getHeaders());
                         resultsObject.put("results", query.getResults());
                         resultsObject.put("total", query.getTotalNumberOfRows());
+                        if (query.getNext() != null)
+                        {
+                            resultsObject.put("next", query.getNext());
+                        }
 
                         sendJsonResponse(resultsObject, request, response);
                     }
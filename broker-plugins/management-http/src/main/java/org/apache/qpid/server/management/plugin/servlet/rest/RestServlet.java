@@ -43,7 +43,6 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.Part;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.base.Strings;
 
 import org.apache.qpid.server.management.plugin.HttpManagementUtil;
@@ -53,7 +52,6 @@ import org.apache.qpid.server.management.plugin.ManagementRequest;
 import org.apache.qpid.server.management.plugin.ManagementResponse;
 import org.apache.qpid.server.management.plugin.ResponseType;
 import org.apache.qpid.server.model.ConfiguredObject;
-import org.apache.qpid.server.model.ConfiguredObjectJacksonModule;
 import org.apache.qpid.server.model.Content;
 import org.apache.qpid.server.model.port.HttpPort;
 import org.apache.qpid.server.util.DataUrlUtils;
@@ -286,9 +284,7 @@ public class RestServlet extends AbstractServlet
                                                                       response,
                                                                       getManagementConfiguration()))
         {
-            ObjectMapper mapper = ConfiguredObjectJacksonModule.newObjectMapper(false);
-            mapper.configure(SerializationFeature.INDENT_OUTPUT, true);
-            mapper.writeValue(stream, formattedResponse);
+            JSON_WRITER.writeValue(stream, formattedResponse);
         }
     }
 
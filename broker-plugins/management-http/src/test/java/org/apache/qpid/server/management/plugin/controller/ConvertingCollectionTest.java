@@ -0,0 +1,112 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.management.plugin.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class ConvertingCollectionTest extends UnitTestBase
+{
+    @Test
+    public void testElementsOfOtherTypesSkipped()
+    {
+        final ConvertingCollection<String, String> collection =
+                new ConvertingCollection<>(Arrays.asList("a", 1, "b", null, 2L, "c"), String.class, String::toUpperCase);
+
+        assertEquals(Arrays.asList("A", "B", "C"), new ArrayList<>(collection));
+        assertEquals(3, collection.size());
+        assertFalse(collection.isEmpty());
+    }
+
+    @Test
+    public void testEmptyWhenNoElementOfType()
+    {
+        final ConvertingCollection<String, String> collection =
+                new ConvertingCollection<>(Arrays.asList(1, 2L), String.class, String::toUpperCase);
+
+        assertTrue(collection.isEmpty());
+        assertEquals(0, collection.size());
+        assertFalse(collection.iterator().hasNext());
+        assertTrue(new ConvertingCollection<>(Collections.emptyList(), String.class, String::toUpperCase).isEmpty());
+    }
+
+    @Test
+    public void testElementsConvertedOneAtATime()
+    {
+        final AtomicInteger conversions = new AtomicInteger();
+        final ConvertingCollection<String, String> collection =
+                new ConvertingCollection<>(Arrays.asList("a", "b", "c"), String.class, s ->
+                {
+                    conversions.incrementAndGet();
+                    return s.toUpperCase();
+                });
+
+        assertEquals(3, collection.size());
+        assertFalse(collection.isEmpty());
+        assertEquals("Size and emptiness should not convert elements", 0, conversions.get());
+
+        final Iterator<String> iterator = collection.iterator();
+        assertTrue(iterator.hasNext());
+        assertEquals(0, conversions.get());
+        assertEquals("A", iterator.next());
+        assertEquals(1, conversions.get());
+        assertEquals("B", iterator.next());
+        assertEquals(2, conversions.get());
+        assertEquals("C", iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals(3, conversions.get());
+
+        try
+        {
+            iterator.next();
+            fail("Exception is expected when the iterator is exhausted");
+        }
+        catch (NoSuchElementException e)
+        {
+            // pass
+        }
+    }
+
+    @Test
+    public void testViewReflectsSource()
+    {
+        final List<Object> source = new ArrayList<>(Collections.singletonList("a"));
+        final ConvertingCollection<String, String> collection =
+                new ConvertingCollection<>(source, String.class, String::toUpperCase);
+        source.add("b");
+
+        assertEquals(Arrays.asList("A", "B"), new ArrayList<>(collection));
+    }
+}
@@ -33,14 +33,17 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -49,6 +52,7 @@ import java.util.stream.Stream;
 
 import javax.security.auth.Subject;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -57,11 +61,13 @@ import org.apache.qpid.server.management.plugin.ManagementException;
 import org.apache.qpid.server.management.plugin.ManagementRequest;
 import org.apache.qpid.server.management.plugin.ManagementResponse;
 import org.apache.qpid.server.management.plugin.RequestType;
+import org.apache.qpid.server.management.plugin.controller.ConvertingCollection;
 import org.apache.qpid.server.model.AuthenticationProvider;
 import org.apache.qpid.server.model.Broker;
 import org.apache.qpid.server.model.BrokerModel;
 import org.apache.qpid.server.model.BrokerTestHelper;
 import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.ConfiguredObjectJacksonModule;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.model.VirtualHost;
 import org.apache.qpid.server.model.VirtualHostNode;
@@ -631,6 +637,29 @@ public class LatestManagementControllerTest extends UnitTestBase
         assertThat(queueMap2.get(Queue.NAME), is(equalTo("foo")));
     }
 
+    @Test
+    public void formatConfiguredObjectForCollectionResponseIsConvertedAsItIsWritten() throws Exception
+    {
+        final QueueManagingVirtualHost<?> virtualHost = createVirtualHostWithQueue("test", "foo", "bar");
+        final List<Object> content = new ArrayList<>(virtualHost.getChildren(Queue.class));
+        content.add("not a configured object");
+
+        final Object formatted = _controller.formatConfiguredObject(content,
+                                                                    Collections.singletonMap("depth",
+                                                                                             Collections.singletonList(
+                                                                                                     "0")),
+                                                                    true);
+        assertThat(formatted, is(instanceOf(ConvertingCollection.class)));
+
+        final String json = ConfiguredObjectJacksonModule.newObjectMapper(false).writeValueAsString(formatted);
+        final List<?> written = new ObjectMapper().readValue(json, List.class);
+        assertThat(written.size(), is(equalTo(2)));
+        final Set<Object> names = written.stream()
+                                         .map(item -> ((Map<?, ?>) item).get(Queue.NAME))
+                                         .collect(Collectors.toSet());
+        assertThat(names, is(equalTo(new HashSet<>(Arrays.asList("foo", "bar")))));
+    }
+
     @Test
     public void handleGetForBrokerRootAndQueueSingletonPath() throws Exception
     {
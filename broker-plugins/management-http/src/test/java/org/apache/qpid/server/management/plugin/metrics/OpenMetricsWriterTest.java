@@ -0,0 +1,177 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.management.plugin.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.qpid.server.model.Broker;
+import org.apache.qpid.server.model.ConfiguredObject;
+import org.apache.qpid.server.model.ConfiguredObjectStatistic;
+import org.apache.qpid.server.model.ConfiguredObjectTypeRegistry;
+import org.apache.qpid.server.model.Model;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.model.StatisticType;
+import org.apache.qpid.server.model.StatisticUnit;
+import org.apache.qpid.server.model.VirtualHost;
+import org.apache.qpid.server.model.VirtualHostNode;
+import org.apache.qpid.test.utils.UnitTestBase;
+
+public class OpenMetricsWriterTest extends UnitTestBase
+{
+    private Broker<?> _broker;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        final Model model = mock(Model.class);
+        final ConfiguredObjectTypeRegistry typeRegistry = mock(ConfiguredObjectTypeRegistry.class);
+        when(model.getTypeRegistry()).thenReturn(typeRegistry);
+        doReturn(Collections.singletonList(VirtualHostNode.class)).when(model).getChildTypes(Broker.class);
+        doReturn(Collections.singletonList(VirtualHost.class)).when(model).getChildTypes(VirtualHostNode.class);
+        doReturn(Collections.singletonList(Queue.class)).when(model).getChildTypes(VirtualHost.class);
+        doReturn(Collections.emptyList()).when(model).getChildTypes(Queue.class);
+
+        _broker = mockObject(Broker.class, "broker", model);
+        final VirtualHostNode<?> node = mockObject(VirtualHostNode.class, "node", model);
+        final VirtualHost<?> host = mockObject(VirtualHost.class, "host", model);
+        final Queue<?> queue1 = mockObject(Queue.class, "queue1", model);
+        final Queue<?> queue2 = mockObject(Queue.class, "a \"quoted\" queue", model);
+        doReturn(Collections.singletonList(node)).when(_broker).getChildren(VirtualHostNode.class);
+        doReturn(Collections.singletonList(host)).when(node).getChildren(VirtualHost.class);
+        doReturn(Arrays.asList(queue1, queue2)).when(host).getChildren(Queue.class);
+
+        final ConfiguredObjectStatistic bytesIn =
+                mockStatistic("bytesIn", StatisticType.CUMULATIVE, StatisticUnit.BYTES, "Total bytes in");
+        doReturn(1024L).when(bytesIn).getValue(any());
+        doReturn(Collections.singletonList(bytesIn)).when(typeRegistry).getStatistics(_broker.getClass());
+
+        final ConfiguredObjectStatistic queueDepth =
+                mockStatistic("queueDepthMessages", StatisticType.POINT_IN_TIME, StatisticUnit.MESSAGES, "Depth");
+        doReturn(3).when(queueDepth).getValue(queue1);
+        doReturn(5).when(queueDepth).getValue(queue2);
+        final ConfiguredObjectStatistic oldestAge =
+                mockStatistic("oldestMessageAge", StatisticType.POINT_IN_TIME, StatisticUnit.TIME_DURATION, "Age");
+        doReturn(1500L).when(oldestAge).getValue(any());
+        final ConfiguredObjectStatistic lastUpdated =
+                mockStatistic("lastUpdatedTime", StatisticType.POINT_IN_TIME, StatisticUnit.ABSOLUTE_TIME, "Updated");
+        doReturn(new Date(2005L)).when(lastUpdated).getValue(queue1);
+        doReturn(Arrays.asList(queueDepth, oldestAge, lastUpdated)).when(typeRegistry).getStatistics(queue1.getClass());
+
+        doReturn(Collections.emptyList()).when(typeRegistry).getStatistics(node.getClass());
+        doReturn(Collections.emptyList()).when(typeRegistry).getStatistics(host.getClass());
+    }
+
+    @Test
+    public void testStatisticsWrittenWithPathLabels() throws Exception
+    {
+        final String output = write(Collections.emptyList(), Collections.emptyList());
+
+        assertTrue("Missing broker counter", output.contains("# TYPE qpid_broker_bytes_in_bytes counter\n"
+                                                             + "# UNIT qpid_broker_bytes_in_bytes bytes\n"
+                                                             + "# HELP qpid_broker_bytes_in_bytes Total bytes in\n"
+                                                             + "qpid_broker_bytes_in_bytes_total 1024\n"));
+        assertTrue("Missing queue gauge", output.contains("# TYPE qpid_queue_depth_messages gauge\n"
+                                                          + "# HELP qpid_queue_depth_messages Depth\n"
+                                                          + "qpid_queue_depth_messages{virtual_host_node=\"node\",virtual_host=\"host\",queue=\"queue1\"} 3\n"
+                                                          + "qpid_queue_depth_messages{virtual_host_node=\"node\",virtual_host=\"host\",queue=\"a \\\"quoted\\\" queue\"} 5\n"));
+        assertTrue("Missing duration",
+                   output.contains("qpid_queue_oldest_message_age_seconds{virtual_host_node=\"node\",virtual_host=\"host\",queue=\"queue1\"} 1.500\n"));
+        assertTrue("Missing time",
+                   output.contains("qpid_queue_last_updated_time_seconds{virtual_host_node=\"node\",virtual_host=\"host\",queue=\"queue1\"} 2.005\n"));
+        assertFalse("Null value should not be written",
+                    output.contains("qpid_queue_last_updated_time_seconds{virtual_host_node=\"node\",virtual_host=\"host\",queue=\"a"));
+        assertTrue("Missing JVM metrics", output.contains("# TYPE jvm_memory_used_bytes gauge\n"));
+        assertTrue("Missing EOF", output.endsWith("# EOF\n"));
+    }
+
+    @Test
+    public void testCategoryAndNameFilters() throws Exception
+    {
+        final String output = write(Collections.singletonList("queue"), Collections.singletonList("queueDepthMessages"));
+
+        assertEquals("Unexpected output",
+                     "# TYPE qpid_queue_depth_messages gauge\n"
+                     + "# HELP qpid_queue_depth_messages Depth\n"
+                     + "qpid_queue_depth_messages{virtual_host_node=\"node\",virtual_host=\"host\",queue=\"queue1\"} 3\n"
+                     + "qpid_queue_depth_messages{virtual_host_node=\"node\",virtual_host=\"host\",queue=\"a \\\"quoted\\\" queue\"} 5\n"
+                     + "# EOF\n",
+                     output);
+
+        final String jvmOutput = write(Collections.singletonList(OpenMetricsWriter.JVM_CATEGORY),
+                                       Collections.singletonList("jvm_threads_live"));
+        assertTrue("Unexpected JVM output", jvmOutput.startsWith("# TYPE jvm_threads_live gauge\n"));
+        assertFalse("Unexpected broker metrics", jvmOutput.contains("qpid_"));
+    }
+
+    @Test
+    public void testToSnakeCase()
+    {
+        assertEquals("virtual_host_node", OpenMetricsWriter.toSnakeCase("VirtualHostNode"));
+        assertEquals("last_io_time", OpenMetricsWriter.toSnakeCase("lastIoTime"));
+        assertEquals("average_tls_records", OpenMetricsWriter.toSnakeCase("averageTLSRecords"));
+        assertEquals("local_transaction_begins", OpenMetricsWriter.toSnakeCase("localTransactionBegins"));
+    }
+
+    private String write(final Collection<String> categories,
+                         final Collection<String> names) throws Exception
+    {
+        final StringWriter writer = new StringWriter();
+        new OpenMetricsWriter(categories, names).write(_broker, writer);
+        return writer.toString();
+    }
+
+    private <C extends ConfiguredObject> C mockObject(final Class<C> category, final String name, final Model model)
+    {
+        final C object = mock(category);
+        when(object.getName()).thenReturn(name);
+        when(object.getModel()).thenReturn(model);
+        doReturn(category).when(object).getCategoryClass();
+        return object;
+    }
+
+    private ConfiguredObjectStatistic mockStatistic(final String name,
+                                                          final StatisticType type,
+                                                          final StatisticUnit unit,
+                                                          final String description)
+    {
+        final ConfiguredObjectStatistic statistic = mock(ConfiguredObjectStatistic.class);
+        when(statistic.getName()).thenReturn(name);
+        when(statistic.getStatisticType()).thenReturn(type);
+        when(statistic.getUnits()).thenReturn(unit);
+        when(statistic.getDescription()).thenReturn(description);
+        return statistic;
+    }
+}
@@ -21,6 +21,7 @@
 package org.apache.qpid.server.management.plugin.servlet.query;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -776,6 +777,137 @@ public class ConfiguredObjectQueryTest extends UnitTestBase
         assertQueryResults(new Object[][]{{"test-0"},{"test-1"},{"test-2"}}, _query.getResults());
     }
 
+    @Test
+    public void testKeysetPaginationWithOrderBy()
+    {
+        final UUID[] ids = new UUID[5];
+        final int[] values = {3, 1, 2, 1, 3};
+        for (int i = 0; i < values.length; i++)
+        {
+            ids[i] = new UUID(0, i);
+            _objects.add(createCOWithId(ids[i], "test-" + i, values[i]));
+        }
+
+        _query = new ConfiguredObjectQuery(_objects, "name", "foo > 1", "foo DESC", "2", null);
+        assertQueryResults(new Object[][]{{"test-0"}, {"test-4"}}, _query.getResults());
+        assertEquals("Next should only be returned for keyset queries", null, _query.getNext());
+
+        _query = new ConfiguredObjectQuery(_objects, "name", "foo > 1", "foo DESC", "2", null, "");
+        assertQueryResults(new Object[][]{{"test-0"}, {"test-4"}}, _query.getResults());
+        assertEquals("Unexpected total", 3, _query.getTotalNumberOfRows());
+        final String next = _query.getNext();
+        assertNotNull("Next is expected", next);
+
+        _query = new ConfiguredObjectQuery(_objects, "name", "foo > 1", "foo DESC", "2", null, next);
+        assertQueryResults(new Object[][]{{"test-2"}}, _query.getResults());
+        assertEquals("Unexpected total", 3, _query.getTotalNumberOfRows());
+        assertEquals("Unexpected next", null, _query.getNext());
+
+        _query = new ConfiguredObjectQuery(_objects, "name", null, "foo", "2", "1", ids[3].toString());
+        assertQueryResults(new Object[][]{{"test-0"}, {"test-4"}}, _query.getResults());
+        assertEquals("Unexpected next", null, _query.getNext());
+    }
+
+    @Test
+    public void testKeysetPaginationAfterLastObjectDeleted()
+    {
+        final int[] values = {2, 1, 2, 1, 3};
+        for (int i = 0; i < values.length; i++)
+        {
+            _objects.add(createCOWithId(new UUID(0, i), "test-" + i, values[i]));
+        }
+
+        _query = new ConfiguredObjectQuery(_objects, "name", null, "foo", "2", null, "");
+        assertQueryResults(new Object[][]{{"test-1"}, {"test-3"}}, _query.getResults());
+        final String next = _query.getNext();
+
+        _objects.remove(3);
+
+        _query = new ConfiguredObjectQuery(_objects, "name", null, "foo", "2", null, next);
+        assertQueryResults(new Object[][]{{"test-0"}, {"test-2"}}, _query.getResults());
+
+        _objects.add(createCOWithId(new UUID(0, 5), "test-5", 1));
+        _query = new ConfiguredObjectQuery(_objects, "name", null, "foo", null, null, next);
+        assertQueryResults(new Object[][]{{"test-5"}, {"test-0"}, {"test-2"}, {"test-4"}}, _query.getResults());
+        assertEquals("Unexpected next", null, _query.getNext());
+    }
+
+    @Test
+    public void testOrderByKeepsInputOrderOfTiesWithoutAfterClause()
+    {
+        for (int i = 4; i >= 0; i--)
+        {
+            _objects.add(createCOWithId(new UUID(0, i), "test-" + i, 1));
+        }
+
+        _query = new ConfiguredObjectQuery(_objects, "name", null, "foo", null, null);
+        assertQueryResults(new Object[][]{{"test-4"}, {"test-3"}, {"test-2"}, {"test-1"}, {"test-0"}},
+                           _query.getResults());
+
+        _query = new ConfiguredObjectQuery(_objects, "name", null, "foo", null, null, "");
+        assertQueryResults(new Object[][]{{"test-0"}, {"test-1"}, {"test-2"}, {"test-3"}, {"test-4"}},
+                           _query.getResults());
+    }
+
+    @Test
+    public void testKeysetPaginationWithoutOrderByOrdersById()
+    {
+        for (int i = 4; i >= 0; i--)
+        {
+            _objects.add(createCOWithId(new UUID(0, i * 2), "test-" + i, i));
+        }
+
+        _query = new ConfiguredObjectQuery(_objects, "name", null, null, "2", null, new UUID(0, 2).toString());
+        assertQueryResults(new Object[][]{{"test-2"}, {"test-3"}}, _query.getResults());
+        assertEquals("Unexpected next", new UUID(0, 6).toString(), _query.getNext());
+
+        _query = new ConfiguredObjectQuery(_objects, "name", null, null, "2", null, new UUID(0, 5).toString());
+        assertQueryResults(new Object[][]{{"test-3"}, {"test-4"}}, _query.getResults());
+        assertEquals("Unexpected next", null, _query.getNext());
+
+        _query = new ConfiguredObjectQuery(_objects, "name", null, null, "2", null);
+        assertQueryResults(new Object[][]{{"test-4"}, {"test-3"}}, _query.getResults());
+        assertEquals("Next should not be returned for unordered results", null, _query.getNext());
+    }
+
+    @Test
+    public void testInvalidAfterClause()
+    {
+        _objects.add(createCOWithId(UUID.randomUUID(), "test", 1));
+        try
+        {
+            new ConfiguredObjectQuery(_objects, "name", null, null, null, null, "not-an-id");
+            fail("Exception is expected for malformed after clause");
+        }
+        catch (SelectorParsingException e)
+        {
+            // pass
+        }
+
+        try
+        {
+            new ConfiguredObjectQuery(_objects, "name", null, "foo", null, null, UUID.randomUUID().toString());
+            fail("Exception is expected for unknown object in after clause when ordering by attribute");
+        }
+        catch (EvaluationException e)
+        {
+            // pass
+        }
+
+        _objects.add(createCOWithId(UUID.randomUUID(), "test2", 2));
+        final String next = new ConfiguredObjectQuery(_objects, "name", null, "foo", "1", null, "").getNext();
+        assertNotNull("Next is expected", next);
+        try
+        {
+            new ConfiguredObjectQuery(_objects, "name", null, "foo, name", null, null, next);
+            fail("Exception is expected for after clause not matching the orderBy clause");
+        }
+        catch (SelectorParsingException e)
+        {
+            // pass
+        }
+    }
+
     private void assertQueryResults(final Object[][] expectedAttributes,
                                     final List<List<Object>> results)
     {
@@ -795,6 +927,18 @@ public class ConfiguredObjectQueryTest extends UnitTestBase
         }
     }
 
+    private ConfiguredObject createCOWithId(final UUID id, final String name, final int foo)
+    {
+        ConfiguredObject object = createCO(new HashMap<String, Object>()
+        {{
+            put(ConfiguredObject.ID, id);
+            put(ConfiguredObject.NAME, name);
+            put("foo", foo);
+        }});
+        when(object.getId()).thenReturn(id);
+        return object;
+    }
+
     private ConfiguredObject createCO(final HashMap<String, Object> map)
     {
         ConfiguredObject object = mock(ConfiguredObject.class);